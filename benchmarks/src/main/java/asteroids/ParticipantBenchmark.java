@@ -0,0 +1,79 @@
+package asteroids;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**********************************************************************
+ * Benchmarks for the per-participant operations that the simulation
+ * repeats most often: Participant.move and Participant.overlaps.
+ **********************************************************************/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParticipantBenchmark
+{
+    // Largest distance between the centers of a pair tested for overlap.
+    // About half of the pairs this close overlap.
+    private final static double PAIR_SPREAD = 40;
+
+    // Length in seconds of the tick each move simulates
+    private final static double TICK_LENGTH = 1 / Constants.TICK_RATE;
+
+    @Param({ "10", "100", "1000", "10000", "100000" })
+    public int count;
+
+    @Param({ "ASTEROIDS", "BULLETS", "DEBRIS", "MIXED" })
+    public Scene.Mix mix;
+
+    private Participant[] participants;		// Participants to move or test
+    private int next;						// Index of the next one to use
+
+    /**********************************************************************
+     * Creates the participants. Each even-numbered participant is paired
+     * with the one after it, which is placed close enough that they may
+     * overlap.
+     **********************************************************************/
+    @Setup(Level.Trial)
+    public void createParticipants ()
+    {
+        Scene scene = new Scene(count, mix, 1410);
+        participants = scene.getParticipants();
+        java.util.Random random = new java.util.Random(1410);
+        for (int i = 0; i + 1 < participants.length; i += 2)
+        {
+            Participant p = participants[i];
+            participants[i + 1].setPosition(p.getX() + PAIR_SPREAD * (random.nextDouble() - 0.5),
+                    p.getY() + PAIR_SPREAD * (random.nextDouble() - 0.5));
+            participants[i + 1].move(TICK_LENGTH);
+        }
+    }
+
+    /**********************************************************************
+     * Moves one participant
+     **********************************************************************/
+    @Benchmark
+    public void move ()
+    {
+        participants[next].move(TICK_LENGTH);
+        next = (next + 1 < participants.length) ? next + 1 : 0;
+    }
+
+    /**********************************************************************
+     * Tests one pair of nearby participants for overlap
+     **********************************************************************/
+    @Benchmark
+    public boolean overlaps ()
+    {
+        if (next + 1 >= participants.length)
+        {
+            next = 0;
+        }
+        boolean result = participants[next].overlaps(participants[next + 1]);
+        next += 2;
+        return result;
+    }
+}
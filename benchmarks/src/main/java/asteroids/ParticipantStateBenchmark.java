@@ -0,0 +1,145 @@
+package asteroids;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**********************************************************************
+ * Benchmarks for the phases of ParticipantState.moveParticipants, on
+ * scenes of 10 to 100,000 asteroids, bullets, debris, or a mix of all
+ * three.
+ **********************************************************************/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParticipantStateBenchmark
+{
+    /**********************************************************************
+     * The size and mix of the scene being benchmarked
+     **********************************************************************/
+    @State(Scope.Benchmark)
+    public static abstract class SceneState
+    {
+        @Param({ "10", "100", "1000", "10000", "100000" })
+        public int count;
+
+        @Param({ "ASTEROIDS", "BULLETS", "DEBRIS", "MIXED" })
+        public Scene.Mix mix;
+
+        // Where the positions and velocities are kept: in the participants
+        // themselves or in a KinematicStore
+        @Param({ "OBJECTS", "ARRAYS" })
+        public String kinematics;
+
+        // Number of threads that move the participants and check for
+        // collisions. With one, that is done on the benchmark thread; with
+        // more, on a ForkJoinPool whatever the size of the scene.
+        @Param({ "1", "2", "4", "8" })
+        public int parallelism;
+
+        protected Scene scene;
+        private ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void createScene ()
+        {
+            scene = new Scene(count, mix, 1410);
+            if (kinematics.equals("ARRAYS"))
+            {
+                scene.getState().setKinematicStore(new KinematicStore());
+            }
+            if (parallelism > 1)
+            {
+                pool = new ForkJoinPool(parallelism);
+                scene.getState().setForkJoinPool(pool);
+                scene.getState().setParallelThreshold(0);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void shutDown ()
+        {
+            if (pool != null)
+            {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**********************************************************************
+     * A scene that is kept steady by replacing whatever expires
+     **********************************************************************/
+    public static class Steady extends SceneState
+    {
+    }
+
+    /**********************************************************************
+     * A scene whose participants have just been moved, ready to be checked
+     * for collisions. Collisions expire participants, so the scene is
+     * topped up and moved again before every call.
+     **********************************************************************/
+    public static class Moved extends SceneState
+    {
+        @Setup(Level.Invocation)
+        public void prepare ()
+        {
+            scene.prepareCollisions();
+        }
+    }
+
+    /**********************************************************************
+     * A scene in which one participant in thirty has just expired and been
+     * replaced by a pending one, which is about the turnover of a game
+     * full of bullets and debris.
+     **********************************************************************/
+    public static class Churned extends SceneState
+    {
+        @Setup(Level.Invocation)
+        public void prepare ()
+        {
+            scene.churn(30);
+        }
+    }
+
+    /**********************************************************************
+     * A whole tick: moves, collisions, adds and removes. The pass that
+     * replaces expired participants is included in the time.
+     **********************************************************************/
+    @Benchmark
+    public void moveParticipants (Steady s)
+    {
+        s.scene.getState().moveParticipants();
+        s.scene.replenish();
+    }
+
+    /**********************************************************************
+     * Moving the participants on their own. Nothing expires, so the scene
+     * stays the same size.
+     **********************************************************************/
+    @Benchmark
+    public void moveActive (Steady s)
+    {
+        s.scene.getState().moveActive();
+    }
+
+    /**********************************************************************
+     * Collision detection on its own
+     **********************************************************************/
+    @Benchmark
+    public void checkForCollisions (Moved s)
+    {
+        s.scene.getState().checkForCollisions();
+    }
+
+    /**********************************************************************
+     * Completing the adds and removes of a tick on its own
+     **********************************************************************/
+    @Benchmark
+    public void completeAddsAndRemoves (Churned s)
+    {
+        s.scene.getState().completeAddsAndRemoves();
+    }
+}
@@ -0,0 +1,141 @@
+package asteroids;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * Benchmarks drawing a frame onto an offscreen image: with one
+ * Participant.draw per participant as the screen used to, through a
+ * BatchRenderer, or through a BatchRenderer with a SpriteCache. Frames
+ * are drawn half way between two ticks, so the participants are placed
+ * just as they are in the game. With a SpriteCache, the cache's hits,
+ * misses and bytes over each iteration are reported as secondary results.
+ **********************************************************************/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark
+{
+    /**********************************************************************
+     * The ways a frame can be drawn
+     **********************************************************************/
+    public enum Drawing
+    {
+        EACH, BATCHED, SPRITES
+    }
+
+    /**********************************************************************
+     * How the sprite cache did in an iteration. The drawings without a
+     * cache report zeros.
+     **********************************************************************/
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SpriteCounters
+    {
+        public long spriteHits;				// Participants drawn from a sprite already made
+        public long spriteMisses;			// Participants whose sprite had to be made
+        public long spriteBytes;			// Bytes the sprites took up at the end
+
+        @Setup(Level.Iteration)
+        public void reset ()
+        {
+            spriteHits = 0;
+            spriteMisses = 0;
+            spriteBytes = 0;
+        }
+    }
+
+    @Param({ "100", "1000", "10000" })
+    public int count;
+
+    @Param({ "ASTEROIDS", "BULLETS", "DEBRIS", "MIXED" })
+    public Scene.Mix mix;
+
+    @Param({ "EACH", "BATCHED", "SPRITES" })
+    public Drawing drawing;
+
+    private ParticipantState state;			// The participants to draw
+    private BufferedImage image;			// The image drawn onto
+    private Graphics2D g;					// Graphics of the image
+    private BatchRenderer renderer;			// Draws batched frames, with sprites or not
+
+    /**********************************************************************
+     * Creates the scene and the image, with the screen's colors and hints
+     **********************************************************************/
+    @Setup(Level.Trial)
+    public void createScene ()
+    {
+        state = new Scene(count, mix, 1410).getState();
+        image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        renderer = new BatchRenderer();
+        if (drawing == Drawing.SPRITES)
+        {
+            renderer.setSpriteCache(new SpriteCache());
+        }
+    }
+
+    /**********************************************************************
+     * Starts the sprite cache's counts afresh for each iteration
+     **********************************************************************/
+    @Setup(Level.Iteration)
+    public void resetCounts ()
+    {
+        if (renderer.getSpriteCache() != null)
+        {
+            renderer.getSpriteCache().resetCounts();
+        }
+    }
+
+    /**********************************************************************
+     * Lets go of the image's graphics
+     **********************************************************************/
+    @TearDown(Level.Trial)
+    public void dispose ()
+    {
+        g.dispose();
+    }
+
+    /**********************************************************************
+     * Clears the image and draws every participant on it, and records
+     * how the sprite cache has done so far in the iteration
+     **********************************************************************/
+    @Benchmark
+    public BufferedImage frame (SpriteCounters counters)
+    {
+        g.setColor(Color.black);
+        g.fillRect(0, 0, SIZE, SIZE);
+        g.setColor(Color.white);
+        if (drawing != Drawing.EACH)
+        {
+            renderer.draw(g, state.getParticipants(), 0.5);
+        }
+        else
+        {
+            Iterator<Participant> iter = state.getParticipants();
+            while (iter.hasNext())
+            {
+                iter.next().draw(g, 0.5);
+            }
+        }
+
+        SpriteCache sprites = renderer.getSpriteCache();
+        if (sprites != null)
+        {
+            counters.spriteHits = sprites.getHits();
+            counters.spriteMisses = sprites.getMisses();
+            counters.spriteBytes = sprites.getBytes();
+        }
+        return image;
+    }
+}
@@ -0,0 +1,166 @@
+package asteroids;
+
+import java.util.Random;
+
+import asteroids.participants.Asteroid;
+import asteroids.participants.DestructionLine;
+import asteroids.participants.ShipBullet;
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * A game area filled with a given number and mix of participants, for
+ * the benchmarks. Participants that expire can be replaced with new ones
+ * of the same kind, so that the mix stays steady from tick to tick.
+ **********************************************************************/
+public class Scene
+{
+    /**********************************************************************
+     * The kinds of participants in a scene
+     **********************************************************************/
+    public enum Mix
+    {
+        ASTEROIDS, BULLETS, DEBRIS, MIXED
+    }
+
+    // Lengths used for debris, as in the game
+    private final static double[] DEBRIS_LENGTHS = { 1, 5, 10, 20 };
+
+    private Game game;							// Game the participants belong to
+    private ParticipantState state;				// The game's participants
+    private Random random;						// Source of positions and kinds
+    private Participant[] spawned;				// The participants this scene added
+    private Mix[] kinds;						// The kind of each one
+
+    /**********************************************************************
+     * Creates a scene with count participants of the given mix, placed at
+     * random. The MIXED scene is one fifth asteroids, three tenths bullets
+     * and half debris. The participants are added and moved once, so they
+     * are ready to collide.
+     **********************************************************************/
+    public Scene (int count, Mix mix, long seed)
+    {
+        game = new Game(TICK_RATE, seed);
+        state = game.getParticipantState();
+        random = new Random(seed);
+        spawned = new Participant[count];
+        kinds = new Mix[count];
+        for (int i = 0; i < count; i++)
+        {
+            if (mix != Mix.MIXED)
+            {
+                kinds[i] = mix;
+            }
+            else
+            {
+                int k = i % 10;
+                kinds[i] = (k < 2) ? Mix.ASTEROIDS : (k < 5) ? Mix.BULLETS : Mix.DEBRIS;
+            }
+            spawned[i] = spawn(kinds[i]);
+        }
+
+        // Stepping the state only takes in the adds, so move each
+        // participant as well to place its border
+        state.moveParticipants();
+        for (Participant p : spawned)
+        {
+            p.move(1 / TICK_RATE);
+        }
+    }
+
+    /**********************************************************************
+     * Returns the game the scene belongs to
+     **********************************************************************/
+    public Game getGame ()
+    {
+        return game;
+    }
+
+    /**********************************************************************
+     * Returns the state holding the scene's participants
+     **********************************************************************/
+    public ParticipantState getState ()
+    {
+        return state;
+    }
+
+    /**********************************************************************
+     * Returns the participants this scene added, some of which may have
+     * expired
+     **********************************************************************/
+    public Participant[] getParticipants ()
+    {
+        return spawned;
+    }
+
+    /**********************************************************************
+     * Creates a new participant of the given kind at a random place and
+     * adds it to the game.
+     **********************************************************************/
+    public Participant spawn (Mix kind)
+    {
+        double x = SIZE * random.nextDouble();
+        double y = SIZE * random.nextDouble();
+        Participant p;
+        switch (kind)
+        {
+        case ASTEROIDS:
+            p = new Asteroid(random.nextInt(4), random.nextInt(3), x, y, ASTEROID_SPEED, game);
+            break;
+        case BULLETS:
+            p = new ShipBullet(x, y, 2 * Math.PI * random.nextDouble());
+            break;
+        default:
+            p = new DestructionLine(x, y, DEBRIS_LENGTHS[random.nextInt(DEBRIS_LENGTHS.length)], random);
+            break;
+        }
+        game.addParticipant(p);
+        return p;
+    }
+
+    /**********************************************************************
+     * Replaces every participant that this scene added and that has
+     * expired with a new one of the same kind.
+     **********************************************************************/
+    public void replenish ()
+    {
+        for (int i = 0; i < spawned.length; i++)
+        {
+            if (spawned[i].isExpired())
+            {
+                spawned[i] = spawn(kinds[i]);
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Expires one in every n of the scene's participants and replaces
+     * them with new ones, leaving the changes pending.
+     **********************************************************************/
+    public void churn (int n)
+    {
+        for (int i = random.nextInt(n); i < spawned.length; i += n)
+        {
+            Participant.expire(spawned[i]);
+        }
+        replenish();
+    }
+
+    /**********************************************************************
+     * Gets the scene ready to check for collisions: completes the pending
+     * changes, tops up the mix, and moves every participant, which is all
+     * that ParticipantState.moveParticipants does before checking.
+     **********************************************************************/
+    public void prepareCollisions ()
+    {
+        state.completeAddsAndRemoves();
+        replenish();
+        state.completeAddsAndRemoves();
+        for (Participant p : spawned)
+        {
+            if (!p.isExpired())
+            {
+                p.move(1 / TICK_RATE);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package asteroids;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import jdk.jfr.EventType;
+import asteroids.jfr.PaintEvent;
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * The area of the display in which the game takes place, drawn actively.
+ * Where a {@link Screen} asks Swing to repaint it and draws whenever
+ * Swing gets round to it, an active screen draws each frame into a back
+ * buffer the moment render is called and then shows it, so frames come
+ * exactly as fast as the game loop asks for them.
+ *
+ * The back buffer comes from a BufferStrategy, which uses accelerated
+ * video memory where the platform has it. Its contents can be lost, for
+ * example when the window is covered, in which case the frame is simply
+ * drawn again.
+ **********************************************************************/
+@SuppressWarnings("serial")
+public class ActiveScreen extends Canvas
+{
+    // Type of the paint events
+    private final static EventType PAINT_EVENTS = EventType.getEventType(PaintEvent.class);
+
+    private Controller controller;		// Game controller
+    private BufferStrategy strategy;	// Back buffers, or null until the screen is displayable
+    private Font font;					// Font of the legend
+    private BatchRenderer renderer;		// Draws the participants
+    private FrameStats overlay;			// Stats shown over the game, or null
+
+    /**********************************************************************
+     * Creates an empty screen
+     **********************************************************************/
+    public ActiveScreen (Controller controller)
+    {
+        this.controller = controller;
+        font = new Font(Font.SANS_SERIF, Font.PLAIN, 120);
+        renderer = Screen.createRenderer();
+        setPreferredSize(new Dimension(SIZE, SIZE));
+        setMinimumSize(new Dimension(SIZE, SIZE));
+        setBackground(Color.black);
+        setForeground(Color.white);
+
+        // Every frame is drawn by render, so paint requests from the
+        // window system are of no use, and the keys belong to the frame
+        setIgnoreRepaint(true);
+        setFocusable(false);
+    }
+
+    /**********************************************************************
+     * Sets the stats to show over the game, or null to show none
+     **********************************************************************/
+    public void setOverlay (FrameStats overlay)
+    {
+        this.overlay = overlay;
+    }
+
+    /**********************************************************************
+     * Draws a frame of the controller's snapshot of the game, with the
+     * participants part way between the last two ticks, from 0 (where they
+     * were before the last tick) to 1 (where the last tick put them), and
+     * shows it. Does nothing until the screen is on display. A flight
+     * recording gets a paint event for each frame.
+     **********************************************************************/
+    public void render (double alpha)
+    {
+        if (strategy == null)
+        {
+            if (!isDisplayable())
+            {
+                return;
+            }
+            createBufferStrategy(2);
+            strategy = getBufferStrategy();
+        }
+        long start = System.nanoTime();
+        PaintEvent event = null;
+        if (PAINT_EVENTS.isEnabled())
+        {
+            event = new PaintEvent();
+            event.begin();
+        }
+        RenderSnapshot snapshot = controller.getSnapshot();
+
+        // Draw the frame again for as long as the back buffer loses its
+        // contents before it can be shown
+        do
+        {
+            do
+            {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try
+                {
+                    g.setColor(getBackground());
+                    g.fillRect(0, 0, getWidth(), getHeight());
+                    g.setColor(getForeground());
+                    g.setFont(font);
+                    Screen.drawScene(g, renderer, snapshot, alpha);
+                    if (overlay != null)
+                    {
+                        Screen.drawOverlay(g, overlay, snapshot, renderer);
+                    }
+                }
+                finally
+                {
+                    g.dispose();
+                }
+            }
+            while (strategy.contentsRestored());
+            strategy.show();
+        }
+        while (strategy.contentsLost());
+
+        // Some window systems queue up drawing; flush it so the frame
+        // appears now
+        Toolkit.getDefaultToolkit().sync();
+        controller.getStats().record(FrameStats.Phase.RENDER, System.nanoTime() - start);
+
+        if (event != null && event.shouldCommit())
+        {
+            event.active = true;
+            event.participants = snapshot.getCount();
+            event.commit();
+        }
+    }
+
+    /**********************************************************************
+     * Lets go of the back buffers when the screen is taken off display
+     **********************************************************************/
+    @Override
+    public void removeNotify ()
+    {
+        if (strategy != null)
+        {
+            strategy.dispose();
+            strategy = null;
+        }
+        super.removeNotify();
+    }
+}
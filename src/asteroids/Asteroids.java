@@ -1,5 +1,7 @@
 package asteroids;
 
+import java.util.Arrays;
+
 import javax.swing.JOptionPane;
 
 /**********************************************************************
@@ -10,11 +12,36 @@ public class Asteroids
 {
     /***********************************************************************
      * Launches a dialog that lets the user choose between a classic and an
-     * enhanced game of Asteroids.
+     * enhanced game of Asteroids. Runs a {@link StressTest} instead if the
+     * first argument is "stress", with the arguments after it as its
+     * settings, or if the system property asteroids.stress is set, with
+     * its settings separated by commas. Runs a {@link SoakTest} in the same
+     * way for "soak" and asteroids.soak.
      ***********************************************************************/
     public static void main (String[] args)
     {
-        chooseVersion();
+        String stress = System.getProperty(StressTest.STRESS_PROPERTY);
+        String soak = System.getProperty(SoakTest.SOAK_PROPERTY);
+        if (args.length > 0 && args[0].equals("stress"))
+        {
+            StressTest.main(Arrays.copyOfRange(args, 1, args.length));
+        }
+        else if (args.length > 0 && args[0].equals("soak"))
+        {
+            SoakTest.main(Arrays.copyOfRange(args, 1, args.length));
+        }
+        else if (stress != null)
+        {
+            StressTest.main(stress.split(","));
+        }
+        else if (soak != null)
+        {
+            SoakTest.main(soak.split(","));
+        }
+        else
+        {
+            chooseVersion();
+        }
     }
 
     /***************************************************************************
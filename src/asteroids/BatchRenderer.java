@@ -0,0 +1,276 @@
+package asteroids;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.util.Iterator;
+
+import asteroids.collision.WorldOutline;
+import asteroids.participants.Asteroid;
+import asteroids.participants.Bullet;
+import asteroids.participants.DestructionLine;
+
+/**********************************************************************
+ * Draws participants in batches. The outlines of participants of one
+ * kind are added to a single path, and the path is drawn with one call,
+ * which saves going through the Java2D pipeline once per participant.
+ *
+ * Batching only pays for outlines big enough that the per-call cost
+ * matters. The antialiasing rasterizer works over the bounds of the path
+ * it is given, and a batch of participants spread over the screen has
+ * the whole screen as its bounds, so tiny outlines such as bullets and
+ * debris draw faster one by one. For the same reason a batch is drawn as
+ * soon as it holds MAX_BATCH participants: one path for ten thousand
+ * asteroids draws slower than one call for each of them.
+ *
+ * Asteroids, bullets, debris and everything else (the ships) go into
+ * separate batches. Each can be given its own color, and can be drawn as
+ * paths or one participant at a time. By default asteroids and ships are
+ * drawn as paths. The paths are kept from frame to frame, so drawing
+ * allocates nothing.
+ *
+ * If the renderer is given a {@link SpriteCache}, everything but debris
+ * is drawn from sprites instead. Debris is drawn as before either way,
+ * since each piece has a length of its own.
+ **********************************************************************/
+public class BatchRenderer
+{
+    /**********************************************************************
+     * The batches participants are drawn in
+     **********************************************************************/
+    public enum Batch
+    {
+        DEBRIS, BULLETS, ASTEROIDS, SHIPS
+    }
+
+    // Most participants drawn with one call
+    public final static int MAX_BATCH = 256;
+
+    // Room for segments each path starts with, enough for a full batch of
+    // asteroids
+    private final static int INITIAL_SEGMENTS = 16 * MAX_BATCH;
+
+    private Path2D.Double[] paths;		// The path of each batch
+    private int[] sizes;				// The number of participants in each path
+    private int[] counts;				// The number of participants in each batch last frame
+    private Color[] colors;				// The color of each batch, or null for the current color
+    private boolean[] batched;			// Is each batch drawn as paths?
+    private SpriteCache sprites;		// Draws all but debris, or null
+    private WorldOutline placed;		// Places the participants of a snapshot
+
+    /**********************************************************************
+     * Creates a renderer that draws every batch in the current color
+     **********************************************************************/
+    public BatchRenderer ()
+    {
+        int batches = Batch.values().length;
+        paths = new Path2D.Double[batches];
+        sizes = new int[batches];
+        counts = new int[batches];
+        colors = new Color[batches];
+        batched = new boolean[batches];
+        for (int i = 0; i < batches; i++)
+        {
+            paths[i] = new Path2D.Double(Path2D.WIND_NON_ZERO, INITIAL_SEGMENTS);
+        }
+        batched[Batch.ASTEROIDS.ordinal()] = true;
+        batched[Batch.SHIPS.ordinal()] = true;
+        placed = new WorldOutline();
+    }
+
+    /**********************************************************************
+     * Sets the color the batch is drawn in, or null to draw it in the
+     * color already set on the Graphics2D
+     **********************************************************************/
+    public void setColor (Batch batch, Color color)
+    {
+        colors[batch.ordinal()] = color;
+    }
+
+    /**********************************************************************
+     * Sets whether the batch is drawn as paths or one participant at a
+     * time
+     **********************************************************************/
+    public void setBatched (Batch batch, boolean batched)
+    {
+        this.batched[batch.ordinal()] = batched;
+    }
+
+    /**********************************************************************
+     * Reports whether the batch is drawn as paths
+     **********************************************************************/
+    public boolean isBatched (Batch batch)
+    {
+        return batched[batch.ordinal()];
+    }
+
+    /**********************************************************************
+     * Sets the cache to draw all but debris from, or null to draw
+     * everything as outlines
+     **********************************************************************/
+    public void setSpriteCache (SpriteCache sprites)
+    {
+        this.sprites = sprites;
+    }
+
+    /**********************************************************************
+     * Returns the cache that all but debris is drawn from, or null
+     **********************************************************************/
+    public SpriteCache getSpriteCache ()
+    {
+        return sprites;
+    }
+
+    /**********************************************************************
+     * Returns the batch that participant p is drawn in
+     **********************************************************************/
+    public static Batch batchOf (Participant p)
+    {
+        if (p instanceof DestructionLine)
+        {
+            return Batch.DEBRIS;
+        }
+        else if (p instanceof Bullet)
+        {
+            return Batch.BULLETS;
+        }
+        else if (p instanceof Asteroid)
+        {
+            return Batch.ASTEROIDS;
+        }
+        else
+        {
+            return Batch.SHIPS;
+        }
+    }
+
+    /**********************************************************************
+     * Draws the participants, placed part way between the last two ticks
+     * (see Participant.draw), in batches
+     **********************************************************************/
+    public void draw (Graphics2D g, Iterator<Participant> iter, double alpha)
+    {
+        start();
+        while (iter.hasNext())
+        {
+            Participant p = iter.next();
+            add(g, batchOf(p).ordinal(), p.placeDrawn(alpha));
+        }
+        finish(g);
+    }
+
+    /**********************************************************************
+     * Draws the participants of a snapshot, placed part way between the
+     * tick it was taken after and the one before, in batches
+     **********************************************************************/
+    public void draw (Graphics2D g, RenderSnapshot snapshot, double alpha)
+    {
+        start();
+        for (int i = 0; i < snapshot.getCount(); i++)
+        {
+            add(g, snapshot.getBatch(i).ordinal(), snapshot.place(i, alpha, placed));
+        }
+        finish(g);
+    }
+
+    /**********************************************************************
+     * Empties the batches for a new frame
+     **********************************************************************/
+    private void start ()
+    {
+        for (int i = 0; i < paths.length; i++)
+        {
+            paths[i].reset();
+            sizes[i] = 0;
+            counts[i] = 0;
+        }
+    }
+
+    /**********************************************************************
+     * Draws a placed outline of the given batch, or adds it to the batch's
+     * path
+     **********************************************************************/
+    private void add (Graphics2D g, int batch, WorldOutline outline)
+    {
+        counts[batch]++;
+        if (!batched[batch] || (sprites != null && batch != Batch.DEBRIS.ordinal()))
+        {
+            drawOne(g, batch, outline);
+        }
+        else
+        {
+            outline.appendTo(paths[batch]);
+            if (++sizes[batch] == MAX_BATCH)
+            {
+                flush(g, batch);
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Draws what is left in the batches
+     **********************************************************************/
+    private void finish (Graphics2D g)
+    {
+        for (int i = 0; i < paths.length; i++)
+        {
+            flush(g, i);
+        }
+    }
+
+    /**********************************************************************
+     * Returns the number of participants drawn in the batch during the
+     * last frame
+     **********************************************************************/
+    public int getCount (Batch batch)
+    {
+        return counts[batch.ordinal()];
+    }
+
+    /**********************************************************************
+     * Draws a placed outline of the given batch on its own, from a sprite
+     * if it is drawn from sprites
+     **********************************************************************/
+    private void drawOne (Graphics2D g, int batch, WorldOutline outline)
+    {
+        Color color = colors[batch];
+        Color old = g.getColor();
+        if (color != null)
+        {
+            g.setColor(color);
+        }
+        if (sprites != null && batch != Batch.DEBRIS.ordinal())
+        {
+            sprites.draw(g, outline);
+        }
+        else
+        {
+            g.draw(outline.getShape());
+        }
+        g.setColor(old);
+    }
+
+    /**********************************************************************
+     * Draws the path of a batch, if it holds anything, and empties it
+     **********************************************************************/
+    private void flush (Graphics2D g, int batch)
+    {
+        if (sizes[batch] == 0)
+        {
+            return;
+        }
+        Color color = colors[batch];
+        if (color == null)
+        {
+            g.draw(paths[batch]);
+        }
+        else
+        {
+            Color old = g.getColor();
+            g.setColor(color);
+            g.draw(paths[batch]);
+            g.setColor(old);
+        }
+        paths[batch].reset();
+        sizes[batch] = 0;
+    }
+}
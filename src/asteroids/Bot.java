@@ -0,0 +1,149 @@
+package asteroids;
+
+import asteroids.participants.AlienShip;
+import asteroids.participants.Asteroid;
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * An {@link InputProvider} that flies the ship by rule of thumb, so that
+ * games can play themselves from start to finish. It picks a target among
+ * the asteroids and alien ships: the one that will come nearest the ship
+ * soonest, if any is on course to hit it, and otherwise the nearest. It
+ * turns the ship to where a bullet would meet the target, and fires when
+ * it is lined up, the target is in range and the ship is within
+ * BULLET_LIMIT. If the target is about to hit the ship and the ship is
+ * pointed out of its way, it also thrusts.
+ *
+ * Distances are measured the short way round the edges of the screen,
+ * which the participants wrap around, and the sizes of the ship and its
+ * targets are the bounding radii of their outlines. The targets are found
+ * through the game's ParticipantIndex, without looking at the bullets and
+ * debris. A bot keeps no state between ticks, so one bot can play any
+ * number of games, one at a time.
+ **********************************************************************/
+public class Bot implements InputProvider
+{
+    // How far ahead, in seconds, to look for participants on course to
+    // hit the ship
+    private final static double LOOKAHEAD = 1.5;
+
+    // Time to closest approach, in seconds, below which the ship runs
+    private final static double PANIC_TIME = 0.75;
+
+    // Extra room, in pixels, to leave between the ship and a target
+    private final static double MARGIN = 25;
+
+    // Angle, in radians, within which the ship counts as lined up
+    private final static double AIM_TOLERANCE = 0.08;
+
+    // Speed above which the ship doesn't thrust
+    private final static double MAX_SPEED = 250;
+
+    // Furthest a bullet travels
+    private final static double BULLET_RANGE = BULLET_SPEED * BULLET_DURATION / 1000.0;
+
+    /**********************************************************************
+     * Sets input to fly the ship for the next tick. While there is no
+     * ship, all of the controls are released.
+     **********************************************************************/
+    @Override
+    public void provide (Game game, Input input)
+    {
+        input.clear();
+        Participant ship = game.getShip();
+        if (ship == null)
+        {
+            return;
+        }
+        double x = ship.getX();
+        double y = ship.getY();
+
+        // Find the target, and where it is relative to the ship now and at
+        // its closest approach
+        double targetX = 0, targetY = 0;			// Target relative to the ship
+        double missX = 0, missY = 0;				// Target relative to the ship at closest approach
+        double targetSpeedX = 0, targetSpeedY = 0;	// Velocity of the target
+        double soonest = Double.POSITIVE_INFINITY;	// Time to the closest approach of a threat
+        double nearest = Double.POSITIVE_INFINITY;	// Distance to the nearest target, while there is no threat
+        boolean found = false;
+        double shipRadius = ship.getBoundingRadius();
+        ParticipantIndex index = game.getParticipantState().getIndex();
+        for (int kind = 0; kind < 2; kind++)
+        {
+            Iterable<? extends Participant> targets = (kind == 0) ? index.all(Asteroid.class)
+                    : index.all(AlienShip.class);
+            for (Participant p : targets)
+            {
+                double dx = Math.IEEEremainder(p.getX() - x, SIZE);
+                double dy = Math.IEEEremainder(p.getY() - y, SIZE);
+                double vx = p.getSpeedX() - ship.getSpeedX();
+                double vy = p.getSpeedY() - ship.getSpeedY();
+                double vv = vx * vx + vy * vy;
+                double t = (vv > 0) ? Math.max(0, -(dx * vx + dy * vy) / vv) : 0;
+                double mx = dx + vx * t;
+                double my = dy + vy * t;
+                double reach = p.getBoundingRadius() + shipRadius + MARGIN;
+                boolean threat = t < LOOKAHEAD && mx * mx + my * my < reach * reach;
+                double distance = dx * dx + dy * dy;
+
+                if (threat ? t < soonest : soonest == Double.POSITIVE_INFINITY && distance < nearest)
+                {
+                    if (threat)
+                    {
+                        soonest = t;
+                    }
+                    else
+                    {
+                        nearest = distance;
+                    }
+                    targetX = dx;
+                    targetY = dy;
+                    missX = mx;
+                    missY = my;
+                    targetSpeedX = p.getSpeedX();
+                    targetSpeedY = p.getSpeedY();
+                    found = true;
+                }
+            }
+        }
+        if (!found)
+        {
+            return;
+        }
+
+        // Turn to where a bullet fired now would meet the target
+        double distance = Math.sqrt(targetX * targetX + targetY * targetY);
+        double flight = distance / BULLET_SPEED;
+        double aim = Math.atan2(targetY + targetSpeedY * flight, targetX + targetSpeedX * flight);
+        double turn = Math.IEEEremainder(aim - ship.getRotation(), 2 * Math.PI);
+        double step = SHIP_TURN_RATE * game.getTickLength();
+        if (turn > step / 2)
+        {
+            input.setTurningRight(true);
+        }
+        else if (turn < -step / 2)
+        {
+            input.setTurningLeft(true);
+        }
+
+        // Fire if lined up and in range
+        if (Math.abs(turn) < Math.max(AIM_TOLERANCE, step / 2) && distance < BULLET_RANGE
+            && !game.atBulletLimit(BULLET_LIMIT))
+        {
+            input.setFiring(true);
+        }
+
+        // Run if a threat is about to arrive and the ship is pointed out of
+        // its way: away from where it will pass, or if it is coming straight
+        // on, anywhere but at it
+        if (soonest < PANIC_TIME && ship.getSpeed() < MAX_SPEED)
+        {
+            double headingX = Math.cos(ship.getRotation());
+            double headingY = Math.sin(ship.getRotation());
+            double miss = Math.sqrt(missX * missX + missY * missY);
+            boolean clear = (miss > 1) ? headingX * missX + headingY * missY < 0
+                    : headingX * targetX + headingY * targetY < 0.5 * distance;
+            input.setThrusting(clear);
+        }
+    }
+}
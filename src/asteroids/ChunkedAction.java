@@ -0,0 +1,63 @@
+package asteroids;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**********************************************************************
+ * Runs a job once for each chunk of a range of chunks on a ForkJoinPool.
+ * The range is split in half, and the halves split again, until each
+ * task has a single chunk. The job is told which chunk to run, and works
+ * out for itself which items that covers.
+ **********************************************************************/
+@SuppressWarnings("serial")
+public class ChunkedAction extends RecursiveAction
+{
+    private IntConsumer job;		// Runs one chunk
+    private int from, to;			// The chunks to run
+
+    /**********************************************************************
+     * Runs the job on chunks 0 through chunks - 1 on the pool, and returns
+     * when they have all been run
+     **********************************************************************/
+    public static void invoke (ForkJoinPool pool, int chunks, IntConsumer job)
+    {
+        pool.invoke(new ChunkedAction(job, 0, chunks));
+    }
+
+    /**********************************************************************
+     * Returns the number of chunks of the given size needed to cover the
+     * given number of items
+     **********************************************************************/
+    public static int countChunks (int items, int chunkSize)
+    {
+        return (items + chunkSize - 1) / chunkSize;
+    }
+
+    /**********************************************************************
+     * Creates a task that runs the job on chunks from through to - 1
+     **********************************************************************/
+    private ChunkedAction (IntConsumer job, int from, int to)
+    {
+        this.job = job;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**********************************************************************
+     * Runs the chunk, or splits the range and runs both halves
+     **********************************************************************/
+    @Override
+    protected void compute ()
+    {
+        if (to - from > 1)
+        {
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkedAction(job, from, middle), new ChunkedAction(job, middle, to));
+        }
+        else if (from < to)
+        {
+            job.accept(from);
+        }
+    }
+}
@@ -1,17 +1,10 @@
 package asteroids;
 
-import java.util.Random;
-
 /**
  * Provides constants that govern the game.
  */
 public class Constants
 {
-    /**********************************************************************
-     * A shared random number generator for general use.
-     **********************************************************************/
-    public final static Random RANDOM = new Random();
-
     /**********************************************************************
      * The height and width of the game area.
      **********************************************************************/
@@ -28,25 +21,47 @@ public class Constants
     public final static String START_LABEL = "Start Game";
 
     /**********************************************************************
-     * Speed beyond which participants may not accelerate
+     * Speed, in pixels per second, beyond which participants may not
+     * accelerate
+     **********************************************************************/
+    public final static double SPEED_LIMIT = 450;
+
+    /**********************************************************************
+     * Amount of "friction", in pixels per second per second, that can be
+     * applied to ships so that they eventually stop. Should be negative.
+     **********************************************************************/
+    public final static double SHIP_FRICTION = -45;
+
+    /**********************************************************************
+     * Acceleration of ship in pixels per second per second. Should be
+     * positive.
+     **********************************************************************/
+    public final static double SHIP_ACCELERATION = 585;
+
+    /**********************************************************************
+     * Rate, in radians per second, at which the ship turns
      **********************************************************************/
-    public final static double SPEED_LIMIT = 15;
+    public final static double SHIP_TURN_RATE = 15 * Math.PI / 8;
 
     /**********************************************************************
-     * Amount of "friction" that can be applied to ships so that they 
-     * eventually stop. Should be negative.
+     * The default number of times per second that the game is advanced.
+     * Speeds are given per second, so this does not change how fast the
+     * game plays.
      **********************************************************************/
-    public final static double SHIP_FRICTION = -0.05;
+    public final static double TICK_RATE = 30;
 
     /**********************************************************************
-     * Constant of acceleration of ship. Should be positive.s
+     * The number of milliseconds between the beginnings of frame refreshes.
+     * Frames are drawn between ticks, so this can be shorter than a tick.
      **********************************************************************/
-    public final static double SHIP_ACCELERATION = .65;
+    public final static int FRAME_INTERVAL = 8;
 
     /**********************************************************************
-     * The number of milliseconds between the beginnings of frame refreshes
+     * The most ticks that will be run to catch up before a frame is drawn.
+     * If the game falls further behind than this, the time is dropped and
+     * the game slows down instead.
      **********************************************************************/
-    public final static int FRAME_INTERVAL = 33;
+    public final static int MAX_CATCH_UP_TICKS = 5;
 
     /**********************************************************************
      * The number of milliseconds between the end of a life and the display 
@@ -76,9 +91,9 @@ public class Constants
     public final static int BULLET_DURATION = 1000;
 
     /**********************************************************************
-     * Speed, in pixels per frame, of a bullet.
+     * Speed, in pixels per second, of a bullet.
      **********************************************************************/
-    public final static int BULLET_SPEED = 15;
+    public final static double BULLET_SPEED = 450;
 
     /**********************************************************************
      * Maximum number of bullets that can exist at one time.
@@ -90,6 +105,23 @@ public class Constants
      **********************************************************************/
     public final static double[] ASTEROID_SCALE = { 0.5, 1.0, 2.0 };
 
+    /**********************************************************************
+     * Speed, in pixels per second, of the asteroids that start a level.
+     **********************************************************************/
+    public final static double ASTEROID_SPEED = 90;
+
+    /**********************************************************************
+     * The pieces of a destroyed asteroid move faster the higher the level
+     * and the smaller the pieces. Each step up in level, or down in size,
+     * adds this many pixels per second.
+     **********************************************************************/
+    public final static double ASTEROID_SPEED_STEP = 30;
+
+    /**********************************************************************
+     * Largest speed, in pixels per second, of a piece of debris.
+     **********************************************************************/
+    public final static double DEBRIS_SPEED = 30;
+
     /**********************************************************************
      * Score earned for asteroids of size 0, 1, and 2.
      **********************************************************************/
@@ -100,6 +132,11 @@ public class Constants
      **********************************************************************/
     public final static double[] ALIENSHIP_SCALE = { 0.5, 1.0 };
     
+    /**********************************************************************
+     * Speed, in pixels per second, of alien ships of size 0 and 1.
+     **********************************************************************/
+    public final static double[] ALIENSHIP_SPEED = { 150, 120 };
+    
     /**********************************************************************
      * Score earned for alien ships of size 0 and 1.
      **********************************************************************/
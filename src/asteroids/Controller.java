@@ -1,38 +1,48 @@
 package asteroids;
 
 import java.awt.event.*;
-import java.util.Iterator;
 
 import javax.swing.*;
 
-import asteroids.participants.AlienShip;
-import asteroids.participants.Asteroid;
-import asteroids.participants.Ship;
 import static asteroids.Constants.*;
 
 /**********************************************************************
- * Controls a game of Asteroids.
+ * Connects a {@link Game} to a {@link Display}. The game runs on a
+ * thread of its own in a {@link Simulation}. The controller passes it
+ * the keys the player presses, with the time they were pressed, and a
+ * timer on the Swing event thread refreshes the display from the
+ * newest snapshot of the game that the simulation has handed over.
+ *
+ * The game is ticked at a fixed rate while the display is refreshed
+ * every time the timer goes off. Frames that fall between two ticks show
+ * the participants part way between them, so the display can be
+ * refreshed far more often than the game is ticked.
+ *
+ * If the system property asteroids.record names a file, the input of
+ * each game is recorded there (see Simulation).
+ *
+ * F3 shows or hides the game's stats over the action: the frame stats
+ * kept here, and the tick stats that come with each snapshot. The stats
+ * start over with each new game.
+ *
+ * F2 hands the ship over to an autopilot, by default a {@link Bot}, and
+ * back to the keys. The autopilot can be replaced with setAutopilot.
  **********************************************************************/
 public class Controller implements KeyListener, ActionListener
 {
-    private ParticipantState pstate;	// The state of all the Participants
-    private Ship ship;					// The ship (if one is active) or null (otherwise)
-    private AlienShip alienShip;		// The alien ship
+    /**********************************************************************
+     * System property naming the file to record games to
+     **********************************************************************/
+    public final static String RECORD_PROPERTY = Simulation.RECORD_PROPERTY;
+
+    private Simulation simulation;		// Runs the game
     private Timer refreshTimer;			// When this timer goes off, it is time to refresh the animation
-    private int lives;					// Number of lives left
     private Display display;		    // The game display
-    private int score;					// Score Counter
-    private int level;					// Level counter
-    private boolean turnLeft;			// Left key pressed notifier
-    private boolean turnRight;			// Right key pressed notifier
-    private boolean fireBullet;			// Fire bullet or not notifier
-    private boolean thrusters;			// Accelerate or not notifier
-    
-    // The time at which a transition to a new stage of the game should be made.
-    // A transition is scheduled a few seconds in the future to give the user
-    // time to see what has happened before doing something like going to a new
-    // level or resetting the current level.
-    private long transitionTime;
+    private FrameStats frames;			// Where the frames are timed
+    private boolean overlay;			// Are the stats shown over the game?
+    private InputProvider autopilot;	// Flies the ship when F2 is pressed
+    private boolean autopiloting;		// Is the autopilot flying the ship?
+    private int score, lives, level;	// Values shown by the labels, or -1 before the first are shown
     
     
     /**********************************************************************
@@ -41,150 +51,34 @@ public class Controller implements KeyListener, ActionListener
     public Controller ()
     {
         // Record the game and screen objects
+        frames = new FrameStats();
         display = new Display(this);
         display.setVisible(true);        
         
-        // Initialize the ParticipantState
-        pstate = new ParticipantState();
+        // Initialize the game
+        simulation = new Simulation(new Game());
+        autopilot = new Bot();
+        score = -1;
+        lives = -1;
+        level = -1;
 
         // Set up the refresh timer.
         refreshTimer = new Timer(FRAME_INTERVAL, this);
 
-        // Clear the transitionTime
-        transitionTime = Long.MAX_VALUE;
-
-        // Bring up the splash screen and start the refresh timer
-        splashScreen();
+        // Bring up the splash screen and start the game's thread and the
+        // refresh timer
+        simulation.start();
         refreshTimer.start();
     }
 
-    /**********************************************************************
-     * Returns the ship, or null if there isn't one
-     **********************************************************************/
-    public Ship getShip ()
-    {
-        return ship;
-    }
-
-    /**********************************************************************
-     * Configures the game screen to display the splash screen
-     **********************************************************************/
-    private void splashScreen ()
-    {
-        // Clear the screen, reset the level, and display the legend
-        clear();
-        level = 1;
-        display.setLegend("Asteroids");
-
-        // Place four asteroids near the corners of the screen.
-        placeAsteroids();
-    }
-
-    /**********************************************************************
-     * The game is over. Displays a message to that effect.
-     **********************************************************************/
-    private void finalScreen ()
-    {
-        display.setLegend(GAME_OVER);
-        display.removeKeyListener(this);
-    }
-
-    /************************************************************************
-     * Place a new ship in the center of the screen. Remove any existing ship
-     * first.
-     ************************************************************************/
-    private void placeShip ()
-    {
-        // Place a new ship
-        Participant.expire(ship);
-        ship = new Ship(SIZE / 2, SIZE / 2, -Math.PI / 2, this);
-        addParticipant(ship);
-        scheduleTransition(5000);
-        display.setLegend("");
-    }
-
-    /**********************************************************************
-     * Place a new alien ship by checking the current level.
-     * Remove any existing ship first
-     **********************************************************************/
-    private void placeAlienShip()
-    {
-        Participant.expire(alienShip);		// Remove any existing alien ship
-        
-        if(level > 1)						// Place an alien ship is level > 1
-        {
-            int alienShipSize = level != 2 ? 0 : 1;
-            
-            // Add alien ship, set its postion and velocity
-            alienShip = new AlienShip(alienShipSize, this);
-            alienShip.setPosition(0.0D, SIZE * Constants.RANDOM.nextDouble());
-            alienShip.setVelocity(5 - alienShipSize, (double)Constants.RANDOM.nextInt(2) * Math.PI);
-            
-            addParticipant(alienShip);		// Add it to list of participants
-        }
-    }
-    
-    /**********************************************************************
-     * Places four asteroids near the corners of the screen. Gives them 
-     * random velocities and rotations.
-     **********************************************************************/
-    private void placeAsteroids ()
-    {
-        addParticipant(new Asteroid(0, 2, EDGE_OFFSET, EDGE_OFFSET, 3, this));
-        addParticipant(new Asteroid(1, 2, SIZE - EDGE_OFFSET, EDGE_OFFSET, 3, this));
-        addParticipant(new Asteroid(2, 2, EDGE_OFFSET, SIZE - EDGE_OFFSET, 3, this));
-        addParticipant(new Asteroid(3, 2, SIZE - EDGE_OFFSET, SIZE - EDGE_OFFSET, 3, this));
-    }
-
-    /**********************************************************************
-     * Returns if whether or not the consecutive bullet
-     * fire limit has been reached
-     * @return True or false
-     **********************************************************************/
-    public boolean atBulletLimit(int bulletLimit)
-    {
-        return pstate.countFiredShipBullets() >= bulletLimit;	// If bullets fired are >= max firing limit
-    }
-    
-    /**********************************************************************
-     * Clears the screen so that nothing is displayed
-     **********************************************************************/
-    private void clear ()
-    {
-        pstate.clear();				// Clear all participants
-        display.setLegend("");
-        ship = null;				// No ship
-        alienShip = null;			// No alien ship
-    }
-
     /**********************************************************************
      * Sets things up and begins a new game.
      **********************************************************************/
     private void initialScreen ()
     {
-        // Clear the screen
-        clear();
-
-        // Place four asteroids
-        placeAsteroids();
-
-        // Place the ship
-        placeShip();
-
-        // Reset statistics
-        lives = 3;
-        score = 0;
-        level = 1;
-        
-        // Set this attributes to false when called to draw initial screen
-        turnLeft = false;
-        turnRight = false;
-        fireBullet = false;
-        thrusters = false;
-        
-        display.setLives(lives);		// Show lives
-        display.setScore(score);		// Show score
-        display.setLevel(level);		// Show level
+        // Start the game with all the keys released
+        simulation.newGame();
+        frames.reset();
         
         // Start listening to events (but don't listen twice)
         display.removeKeyListener(this);
@@ -194,85 +88,6 @@ public class Controller implements KeyListener, ActionListener
         display.requestFocusInWindow();
     }
 
-    /**********************************************************************
-     * Prepares for next screen after level up
-     **********************************************************************/
-    private void nextScreen()
-    {
-        clear();					// Clear everything
-        placeAsteroids();			// Place asteroids
-        placeShip();				// Place the ship
-        level++;					// Level up
-        display.setLevel(level);	// Show level
-    }
-    
-    /**********************************************************************
-     * Adds a new Participant
-     **********************************************************************/
-    public void addParticipant (Participant p)
-    {
-        pstate.addParticipant(p);
-    }
-
-    /**********************************************************************
-     * The ship has been destroyed
-     **********************************************************************/
-    public void shipDestroyed ()
-    {
-        ship = null;	  				// Null out the ship
-        lives--;						// Decrement lives
-        display.setLives(lives);		// Show lives remaining
-        scheduleTransition(END_DELAY);	// Since the ship was destroyed, schedule a transition
-    }
-
-    /**********************************************************************
-     * An asteroid of the given size has been destroyed
-     **********************************************************************/
-    public void asteroidDestroyed (int size)
-    {
-    	addToScore(Constants.ASTEROID_SCORE[size]);
-        if (pstate.countAsteroids() == 0)			// If all the asteroids are gone, schedule a transition
-        {
-            scheduleTransition(END_DELAY);
-        }
-    }
-    
-    /**********************************************************************
-     * An alien ship of the given size has been destroyed
-     **********************************************************************/
-    public void alienShipDestroyed(int size)
-    {
-        addToScore(Constants.ALIENSHIP_SCORE[size]);	// Add its score to total score counter
-        alienShip = null;								// Remove the ship
-        if(ship != null)
-            scheduleTransition(ALIEN_DELAY);
-    }
-
-    /**********************************************************************
-     * Add the passed score to the total score counter
-     **********************************************************************/
-    public void addToScore(int delta)
-    {
-        score += delta;				// Add to total score
-        display.setScore(score);	// Show that score
-    }
-
-    /**********************************************************************
-     * Returns the current level
-     **********************************************************************/
-    public int getLevel()
-    {
-        return level;
-    }
-
-    /**********************************************************************
-     * Schedules a transition m msecs in the future
-     **********************************************************************/
-    private void scheduleTransition (int m)
-    {
-        transitionTime = System.currentTimeMillis() + m;
-    }
-
     /*************************************************************************
      * This method will be invoked because of button presses and timer events.
      *************************************************************************/
@@ -286,84 +101,104 @@ public class Controller implements KeyListener, ActionListener
             initialScreen();
         }
 
-        // Time to refresh the screen and deal with keyboard input
+        // Time to refresh the screen from the newest snapshot
         else if (e.getSource() == refreshTimer)
         {
-            // It may be time to make a game transition
-            performTransition();
-
-            // Move the participants to their new locations
-            pstate.moveParticipants();
-
-            // SHip movements and actions
-            if(turnLeft && ship != null)
-                ship.turnLeft();
-            if(turnRight && ship != null)
-                ship.turnRight();
-            if(thrusters && ship != null)
-                ship.accelerate();
-            if(fireBullet && ship != null)
+            long now = System.nanoTime();
+            frames.startFrame(now);
+            if (simulation.update())
             {
-                ship.shoot();
-                fireBullet = false;
+                showLabels(simulation.getSnapshot());
             }
             
-            // Refresh screen
-            display.refresh();
+            // Refresh screen part way towards the next tick
+            display.refresh(simulation.getSnapshot().alphaAt(now));
         }
     }
 
     /**********************************************************************
-     * Returns an iterator over the active participants
+     * Updates the labels that have changed since they were last shown
      **********************************************************************/
-    public Iterator<Participant> getParticipants ()
+    private void showLabels (RenderSnapshot snapshot)
     {
-        return pstate.getParticipants();
+        if (snapshot.getScore() != score)
+        {
+            score = snapshot.getScore();
+            display.setScore(score);
+        }
+        if (snapshot.getLives() != lives)
+        {
+            lives = snapshot.getLives();
+            display.setLives(lives);
+        }
+        if (snapshot.getLevel() != level)
+        {
+            level = snapshot.getLevel();
+            display.setLevel(level);
+        }
     }
 
     /**********************************************************************
-     * If the transition time has been reached, transition to a new state
+     * Returns the snapshot of the game to draw. Only the event thread may
+     * call this.
      **********************************************************************/
-    private void performTransition ()
+    public RenderSnapshot getSnapshot ()
     {
-        // Do something only if the time has been reached
-        if (transitionTime <= System.currentTimeMillis())
-        {
-            // Clear the transition time
-            transitionTime = Long.MAX_VALUE;
+        return simulation.getSnapshot();
+    }
 
-            // If there are no lives left, the game is over. Show the final
-            // screen.
-            if (lives <= 0)
-                finalScreen();
-            else if (ship == null)					// If the ship was destroyed, place a new one and continue
-                placeShip();
-            else if(pstate.countAsteroids() == 0)	// If no asteroids remain, draw next level screen
-                    nextScreen();
-            else if(ship == null)					// If ship is destroyed, place a new one
-                    placeShip();
-            else if(alienShip == null)				// If an alien ship is destroyed, place a new one
-                    placeAlienShip();
+    /**********************************************************************
+     * Returns the stats into which the frames are timed. Only the event
+     * thread may use them.
+     **********************************************************************/
+    public FrameStats getStats ()
+    {
+        return frames;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if autopilot is null.
+     *
+     * Sets what flies the ship when F2 is pressed, taking over at once if
+     * the autopilot is already flying it. Only the event thread may call
+     * this.
+     **********************************************************************/
+    public void setAutopilot (InputProvider autopilot)
+    {
+        if (autopilot == null)
+        {
+            throw new IllegalArgumentException("No autopilot");
+        }
+        this.autopilot = autopilot;
+        if (autopiloting)
+        {
+            simulation.setInputProvider(autopilot);
         }
     }
 
     /**********************************************************************
-     * If a key of interest is pressed, record that it is down.
+     * Shows or hides the stats if F3 is pressed, hands the ship to or from
+     * the autopilot if F2 is pressed, and passes any other key on to the
+     * game
      **********************************************************************/
     @Override
     public void keyPressed (KeyEvent e)
     {
-        if(e.getKeyCode() == KeyEvent.VK_LEFT || e.getKeyCode() == KeyEvent.VK_A)
-            turnLeft = true;
-        
-        else if(e.getKeyCode() == KeyEvent.VK_RIGHT || e.getKeyCode() == KeyEvent.VK_D)
-            turnRight = true;
-        
-        else if(e.getKeyCode() == KeyEvent.VK_UP || e.getKeyCode() == KeyEvent.VK_W)
-            thrusters = true;
-        
-        else if(e.getKeyCode() == KeyEvent.VK_DOWN || e.getKeyCode() == KeyEvent.VK_SPACE || e.getKeyCode() == KeyEvent.VK_S)
-            fireBullet = true;
+        if (e.getKeyCode() == KeyEvent.VK_F3)
+        {
+            overlay = !overlay;
+            simulation.setWithStats(overlay);
+            display.setOverlay(overlay ? frames : null);
+        }
+        else if (e.getKeyCode() == KeyEvent.VK_F2)
+        {
+            autopiloting = !autopiloting;
+            simulation.setInputProvider(autopiloting ? autopilot : null);
+        }
+        else
+        {
+            simulation.keyChanged(e.getKeyCode(), true, e.getWhen());
+        }
     }
 
     /**********************************************************************
@@ -375,21 +210,14 @@ public class Controller implements KeyListener, ActionListener
     }
 
     /**********************************************************************
-     * If the pressed key is released, notify accordingly
+     * Passes the key that was released on to the game
      **********************************************************************/
     @Override
     public void keyReleased (KeyEvent e)
     {      
-    	if(e.getKeyCode() == KeyEvent.VK_LEFT || e.getKeyCode() == KeyEvent.VK_A)
-            turnLeft = false;
-        
-    	else if (e.getKeyCode() == KeyEvent.VK_RIGHT || e.getKeyCode() == KeyEvent.VK_D)
-            turnRight = false;
-        
-    	else if (e.getKeyCode() == KeyEvent.VK_UP || e.getKeyCode() == KeyEvent.VK_W)
-            thrusters = false;
-        
-    	else if(e.getKeyCode() == KeyEvent.VK_DOWN || e.getKeyCode() == KeyEvent.VK_SPACE || e.getKeyCode() == KeyEvent.VK_S)
-            fireBullet = false;
+        if (e.getKeyCode() != KeyEvent.VK_F3 && e.getKeyCode() != KeyEvent.VK_F2)
+        {
+            simulation.keyChanged(e.getKeyCode(), false, e.getWhen());
+        }
     }
 }
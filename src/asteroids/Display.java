@@ -6,11 +6,31 @@ import static asteroids.Constants.*;
 
 /**********************************************************************
  * Defines the top-level appearance of an Asteroids game.
+ *
+ * The action is drawn by an {@link ActiveScreen}, which renders each
+ * frame as soon as the game loop refreshes the display. If the system
+ * property asteroids.render is "passive", a Swing {@link Screen} that
+ * repaints when Swing decides to is used instead.
+ *
+ * If the system property asteroids.sprites is a number, participants
+ * other than debris are drawn from a {@link SpriteCache} that may use
+ * that many megabytes.
  **********************************************************************/
 @SuppressWarnings("serial")
 public class Display extends JFrame
 {
-    private Screen screen;		    // The area where the action takes place
+    /**********************************************************************
+     * System property choosing between active and passive rendering
+     **********************************************************************/
+    public final static String RENDER_PROPERTY = "asteroids.render";
+
+    /**********************************************************************
+     * System property giving the megabytes of sprites to draw from
+     **********************************************************************/
+    public final static String SPRITES_PROPERTY = "asteroids.sprites";
+
+    private Screen screen;		    // The passive area where the action takes place, or null
+    private ActiveScreen activeScreen;	// The active area where the action takes place, or null
     private JLabel levelLabel;		// Level Label
     private JLabel scoreLabel;		// Score label
     private JLabel livesLabel;		// Lives label
@@ -27,13 +47,20 @@ public class Display extends JFrame
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         // The main playing area and the controller
-        screen = new Screen(controller);
+        JPanel screenPanel = new JPanel();
+        if ("passive".equals(System.getProperty(RENDER_PROPERTY)))
+        {
+            screen = new Screen(controller);
+        }
+        else
+        {
+            activeScreen = new ActiveScreen(controller);
+        }
         
         // This panel contains the screen to prevent the screen from being
         // resized
-        JPanel screenPanel = new JPanel();
         screenPanel.setLayout(new GridBagLayout());
-        screenPanel.add(screen);
+        screenPanel.add(screen != null ? screen : activeScreen);
 
         // This panel contains buttons and labels
         JPanel controls = new JPanel();
@@ -68,13 +95,38 @@ public class Display extends JFrame
     
     /**********************************************************************
      * Called when it is time to update the screen display. This is what 
-     * drives the animation.
+     * drives the animation. Alpha is how far the frame is from the last
+     * tick towards the next one, from 0 up to 1. An active screen draws
+     * the frame right away; a passive one asks Swing to repaint it.
      **********************************************************************/
-    public void refresh ()
+    public void refresh (double alpha)
     {
-        screen.repaint();
+        if (activeScreen != null)
+        {
+            activeScreen.render(alpha);
+        }
+        else
+        {
+            screen.setAlpha(alpha);
+            screen.repaint();
+        }
     }
     
+    /**********************************************************************
+     * Sets the stats to show over the game, or null to show none
+     **********************************************************************/
+    public void setOverlay (FrameStats stats)
+    {
+        if (activeScreen != null)
+        {
+            activeScreen.setOverlay(stats);
+        }
+        else
+        {
+            screen.setOverlay(stats);
+        }
+    }
+
     /**********************************************************************
      * Sets the level label
      **********************************************************************/
@@ -98,12 +150,4 @@ public class Display extends JFrame
     {
         scoreLabel.setText((new StringBuilder("  Score: ")).append(n).toString());
     }
-    
-    /**********************************************************************
-     * Sets the large legend
-     **********************************************************************/
-    public void setLegend (String s)
-    {
-        screen.setLegend(s);
-    }
 }
@@ -0,0 +1,178 @@
+package asteroids;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**********************************************************************
+ * Where the time of each tick and frame goes. A {@link Game} times the
+ * phases of every tick into the histograms of its stats, and the screen
+ * adds the time it takes to draw each frame. The stats are kept from the
+ * start of the game, or from the last reset, in a fixed amount of memory.
+ *
+ * Along with the histograms, the stats keep the frame rate over the last
+ * whole second, and the number of participants and of pairs tested for
+ * collisions on the last tick. Each stats is meant to be used by one
+ * thread: a game's by the thread that ticks it, and the controller's,
+ * which times the frames, by the Swing event thread.
+ **********************************************************************/
+public class FrameStats
+{
+    /**********************************************************************
+     * The phases that are timed
+     **********************************************************************/
+    public enum Phase
+    {
+        TICK,			// A whole tick, made up of the next five phases
+        TRANSITION,		// Making a game transition, such as starting a level
+        MOVE,			// Setting off timers and moving the participants
+        COLLISIONS,		// Finding and dealing with collisions
+        ADDS_REMOVES,	// Taking in the participants added and removed
+        INPUT,			// Turning, thrusting and firing the ship
+        RENDER,			// Drawing a frame
+        FRAME			// From the start of one frame to the start of the next
+    }
+
+    // Nanoseconds over which the frame rate is counted
+    private final static long RATE_INTERVAL = 1_000_000_000L;
+
+    private LatencyHistogram[] histograms;	// Histogram of each phase
+    private int participants;				// Participants on the last tick
+    private int pairsTested;				// Pairs tested for overlap on the last tick
+    private long lastFrame;					// When the last frame started, or 0
+    private long rateStart;					// When the frame rate interval started
+    private int rateFrames;					// Frames so far in that interval
+    private int framesPerSecond;			// Frames in the last whole interval
+    private List<GarbageCollectorMXBean> collectors;	// The garbage collectors
+
+    /**********************************************************************
+     * Creates empty stats
+     **********************************************************************/
+    public FrameStats ()
+    {
+        histograms = new LatencyHistogram[Phase.values().length];
+        for (int i = 0; i < histograms.length; i++)
+        {
+            histograms[i] = new LatencyHistogram();
+        }
+        collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    }
+
+    /**********************************************************************
+     * Records that a phase took the given number of nanoseconds
+     **********************************************************************/
+    public void record (Phase phase, long nanos)
+    {
+        histograms[phase.ordinal()].record(nanos);
+    }
+
+    /**********************************************************************
+     * Records the number of participants and the number of pairs tested
+     * for overlap on the tick just finished
+     **********************************************************************/
+    public void recordCollisions (int participants, int pairsTested)
+    {
+        this.participants = participants;
+        this.pairsTested = pairsTested;
+    }
+
+    /**********************************************************************
+     * Records that a frame started at the given System.nanoTime
+     **********************************************************************/
+    public void startFrame (long now)
+    {
+        if (lastFrame != 0)
+        {
+            record(Phase.FRAME, now - lastFrame);
+        }
+        else
+        {
+            rateStart = now;
+        }
+        lastFrame = now;
+
+        rateFrames++;
+        if (now - rateStart >= RATE_INTERVAL)
+        {
+            framesPerSecond = (int) Math.round(rateFrames * 1e9 / (now - rateStart));
+            rateStart = now;
+            rateFrames = 0;
+        }
+    }
+
+    /**********************************************************************
+     * Empties the histograms
+     **********************************************************************/
+    public void reset ()
+    {
+        for (LatencyHistogram h : histograms)
+        {
+            h.reset();
+        }
+        lastFrame = 0;
+        rateFrames = 0;
+    }
+
+    /**********************************************************************
+     * Returns the histogram of a phase
+     **********************************************************************/
+    public LatencyHistogram getHistogram (Phase phase)
+    {
+        return histograms[phase.ordinal()];
+    }
+
+    /**********************************************************************
+     * Returns the number of frames started in the last whole second
+     **********************************************************************/
+    public int getFramesPerSecond ()
+    {
+        return framesPerSecond;
+    }
+
+    /**********************************************************************
+     * Returns the number of participants there were on the last tick
+     **********************************************************************/
+    public int getParticipantCount ()
+    {
+        return participants;
+    }
+
+    /**********************************************************************
+     * Returns the number of pairs of participants tested for overlap on
+     * the last tick
+     **********************************************************************/
+    public int getPairsTested ()
+    {
+        return pairsTested;
+    }
+
+    /**********************************************************************
+     * Returns the number of garbage collections since the JVM started
+     **********************************************************************/
+    public long getGcCount ()
+    {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors)
+        {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    /**********************************************************************
+     * Describes the p50, p99 and max of each phase in milliseconds, one
+     * phase to a line
+     **********************************************************************/
+    @Override
+    public String toString ()
+    {
+        StringBuilder s = new StringBuilder();
+        for (Phase phase : Phase.values())
+        {
+            LatencyHistogram h = getHistogram(phase);
+            s.append(String.format("%-12s n %8d  p50 %8.3f  p99 %8.3f  max %8.3f ms%n", phase, h.getCount(),
+                    h.getPercentile(0.5) / 1e6, h.getPercentile(0.99) / 1e6, h.getMax() / 1e6));
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,716 @@
+package asteroids;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import jdk.jfr.EventType;
+
+import asteroids.jfr.TickEvent;
+import asteroids.jfr.TransitionEvent;
+import asteroids.participants.AlienShip;
+import asteroids.participants.Asteroid;
+import asteroids.participants.AsteroidsBullet;
+import asteroids.participants.DestructionLine;
+import asteroids.participants.Ship;
+import asteroids.participants.ShipBullet;
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * The rules of a game of Asteroids: levels, lives, score, and the
+ * transitions between them. A Game has no user interface. It is advanced
+ * one tick at a time by calling step, and it reports changes that should
+ * be shown to the player through a GameListener. This lets a game run
+ * without a display, for example in a benchmark or on a server.
+ *
+ * Everything random in a game is drawn from the game's own generator,
+ * which is set back to the game's seed whenever a new game begins. So a
+ * game is fully defined by its seed, its tick rate, and the Input of each
+ * tick after newGame, and can be played over exactly by an InputPlayer.
+ **********************************************************************/
+public class Game
+{
+    // Types of the flight recording events
+    private final static EventType TICK_EVENTS = EventType.getEventType(TickEvent.class);
+    private final static EventType TRANSITION_EVENTS = EventType.getEventType(TransitionEvent.class);
+
+    private ParticipantState pstate;	// The state of all the Participants
+    private Ship ship;					// The ship (if one is active) or null (otherwise)
+    private AlienShip alienShip;		// The alien ship
+    private GameListener listener;		// Told about changes to show the player, or null
+    private int lives;					// Number of lives left
+    private int score;					// Score Counter
+    private int level;					// Level counter
+    private boolean over;				// Has the game ended?
+
+    private double tickRate;			// Number of ticks in a second of game time
+    private long seed;					// Seed the random numbers start from in each new game
+    private GameRandom random;			// Source of all of the game's random numbers
+    private FrameStats stats;			// Where the phases of each tick are timed
+
+    // Participants of the kinds that come and go most often are recycled
+    // through these pools instead of being constructed afresh
+    private Pool<ShipBullet> shipBullets;
+    private Pool<AsteroidsBullet> asteroidsBullets;
+    private Pool<DestructionLine> destructionLines;
+    private Pool<Asteroid> asteroids;
+
+    // The game's own clock, in ticks. It advances by one on every step,
+    // however long the step takes in real time.
+    private long tick;
+
+    // The tick at which a transition to a new stage of the game should be made.
+    // A transition is scheduled a few seconds in the future to give the user
+    // time to see what has happened before doing something like going to a new
+    // level or resetting the current level.
+    private long transitionTick;
+
+    /**********************************************************************
+     * Constructs a game with no participants that runs at TICK_RATE ticks
+     * per second
+     **********************************************************************/
+    public Game ()
+    {
+        this(TICK_RATE);
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if tickRate is not positive.
+     *
+     * Constructs a game with no participants that runs at the given number
+     * of ticks per second, with a seed of its own choosing. Participants
+     * move at the same speed whatever the rate; a higher rate only moves
+     * them in smaller steps.
+     **********************************************************************/
+    public Game (double tickRate)
+    {
+        this(tickRate, new Random().nextLong());
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if tickRate is not positive.
+     *
+     * Constructs a game with no participants that runs at the given number
+     * of ticks per second and draws its random numbers starting from the
+     * given seed.
+     **********************************************************************/
+    public Game (double tickRate, long seed)
+    {
+        if (!(tickRate > 0))
+        {
+            throw new IllegalArgumentException("Invalid tick rate: " + tickRate);
+        }
+        this.tickRate = tickRate;
+        this.seed = seed;
+        random = new GameRandom(seed);
+        pstate = new ParticipantState(1 / tickRate);
+        stats = new FrameStats();
+        pstate.setStats(stats);
+        shipBullets = new Pool<ShipBullet>();
+        asteroidsBullets = new Pool<AsteroidsBullet>();
+        destructionLines = new Pool<DestructionLine>();
+        asteroids = new Pool<Asteroid>();
+        tick = 0;
+        transitionTick = Long.MAX_VALUE;
+    }
+
+    /**********************************************************************
+     * Sets the listener that is told about changes to show the player
+     **********************************************************************/
+    public void setListener (GameListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**********************************************************************
+     * Returns the ship, or null if there isn't one
+     **********************************************************************/
+    public Ship getShip ()
+    {
+        return ship;
+    }
+
+    /**********************************************************************
+     * Returns the seed that each new game's random numbers start from
+     **********************************************************************/
+    public long getSeed ()
+    {
+        return seed;
+    }
+
+    /**********************************************************************
+     * Returns the generator that everything random in the game is drawn
+     * from
+     **********************************************************************/
+    public GameRandom getRandom ()
+    {
+        return random;
+    }
+
+    /**********************************************************************
+     * Returns the alien ship, or null if there isn't one
+     **********************************************************************/
+    AlienShip getAlienShip ()
+    {
+        return alienShip;
+    }
+
+    /**********************************************************************
+     * Returns the tick on which the next transition will be made, or
+     * Long.MAX_VALUE if none is scheduled
+     **********************************************************************/
+    long getTransitionTick ()
+    {
+        return transitionTick;
+    }
+
+    /**********************************************************************
+     * Puts back the rest of the state of a game restored from a Snapshot,
+     * whose participants have already been added
+     **********************************************************************/
+    void restore (long tick, long transitionTick, int lives, int score, int level, boolean over, Ship ship,
+            AlienShip alienShip)
+    {
+        this.tick = tick;
+        this.transitionTick = transitionTick;
+        this.lives = lives;
+        this.score = score;
+        this.level = level;
+        this.over = over;
+        this.ship = ship;
+        this.alienShip = alienShip;
+    }
+
+    /**********************************************************************
+     * Returns the state of the participants
+     **********************************************************************/
+    public ParticipantState getParticipantState ()
+    {
+        return pstate;
+    }
+
+    /**********************************************************************
+     * Returns the stats into which the phases of each tick are timed
+     **********************************************************************/
+    public FrameStats getStats ()
+    {
+        return stats;
+    }
+
+    /**********************************************************************
+     * Sets up the splash screen that is shown before a game starts
+     **********************************************************************/
+    public void splashScreen ()
+    {
+        // Clear the screen, reset the level, and display the legend
+        clear();
+        level = 1;
+        setLegend("Asteroids");
+
+        // Place four asteroids near the corners of the screen.
+        placeAsteroids();
+    }
+
+    /**********************************************************************
+     * The game is over. Displays a message to that effect.
+     **********************************************************************/
+    private void finalScreen ()
+    {
+        over = true;
+        setLegend(GAME_OVER);
+        if (listener != null)
+        {
+            listener.gameOver();
+        }
+    }
+
+    /************************************************************************
+     * Place a new ship in the center of the screen. Remove any existing ship
+     * first.
+     ************************************************************************/
+    private void placeShip ()
+    {
+        // Place a new ship
+        Participant.expire(ship);
+        ship = new Ship(SIZE / 2, SIZE / 2, -Math.PI / 2, this);
+        addParticipant(ship);
+        scheduleTransition(5000);
+        setLegend("");
+    }
+
+    /**********************************************************************
+     * Place a new alien ship by checking the current level.
+     * Remove any existing ship first
+     **********************************************************************/
+    private void placeAlienShip ()
+    {
+        Participant.expire(alienShip);		// Remove any existing alien ship
+
+        if(level > 1)						// Place an alien ship is level > 1
+        {
+            int alienShipSize = level != 2 ? 0 : 1;
+
+            // Add alien ship, set its postion and velocity
+            alienShip = new AlienShip(alienShipSize, this);
+            alienShip.setPosition(0.0D, SIZE * random.nextDouble());
+            alienShip.setVelocity(ALIENSHIP_SPEED[alienShipSize], (double)random.nextInt(2) * Math.PI);
+
+            addParticipant(alienShip);		// Add it to list of participants
+        }
+    }
+
+    /**********************************************************************
+     * Places four asteroids near the corners of the screen. Gives them
+     * random velocities and rotations.
+     **********************************************************************/
+    private void placeAsteroids ()
+    {
+        addParticipant(newAsteroid(0, 2, EDGE_OFFSET, EDGE_OFFSET, ASTEROID_SPEED));
+        addParticipant(newAsteroid(1, 2, SIZE - EDGE_OFFSET, EDGE_OFFSET, ASTEROID_SPEED));
+        addParticipant(newAsteroid(2, 2, EDGE_OFFSET, SIZE - EDGE_OFFSET, ASTEROID_SPEED));
+        addParticipant(newAsteroid(3, 2, SIZE - EDGE_OFFSET, SIZE - EDGE_OFFSET, ASTEROID_SPEED));
+    }
+
+    /**********************************************************************
+     * Returns if whether or not the consecutive bullet
+     * fire limit has been reached
+     * @return True or false
+     **********************************************************************/
+    public boolean atBulletLimit (int bulletLimit)
+    {
+        return pstate.countFiredShipBullets() >= bulletLimit;	// If bullets fired are >= max firing limit
+    }
+
+    /**********************************************************************
+     * Clears the screen so that nothing is displayed
+     **********************************************************************/
+    private void clear ()
+    {
+        pstate.clear();				// Clear all participants
+        setLegend("");
+        ship = null;				// No ship
+        alienShip = null;			// No alien ship
+    }
+
+    /**********************************************************************
+     * Sets things up and begins a new game.
+     **********************************************************************/
+    public void newGame ()
+    {
+        // Start the random numbers over, so that the game doesn't depend
+        // on what came before it
+        random.setSeed(seed);
+
+        // Clear the screen
+        clear();
+
+        // Place four asteroids
+        placeAsteroids();
+
+        // Place the ship
+        placeShip();
+
+        // Reset statistics
+        lives = 3;
+        score = 0;
+        level = 1;
+        over = false;
+
+        if (listener != null)
+        {
+            listener.livesChanged(lives);		// Show lives
+            listener.scoreChanged(score);		// Show score
+            listener.levelChanged(level);		// Show level
+        }
+    }
+
+    /**********************************************************************
+     * Prepares for next screen after level up
+     **********************************************************************/
+    private void nextScreen ()
+    {
+        clear();					// Clear everything
+        placeAsteroids();			// Place asteroids
+        placeShip();				// Place the ship
+        level++;					// Level up
+        if (listener != null)
+        {
+            listener.levelChanged(level);	// Show level
+        }
+    }
+
+    /**********************************************************************
+     * Returns a ship bullet at (x,y) heading in the given direction, taken
+     * from the pool if it has one
+     **********************************************************************/
+    public ShipBullet newShipBullet (double x, double y, double direction)
+    {
+        ShipBullet b = shipBullets.take();
+        if (b == null)
+        {
+            b = new ShipBullet(x, y, direction);
+            shipBullets.adopt(b);
+        }
+        else
+        {
+            b.reuse(x, y, direction);
+        }
+        return b;
+    }
+
+    /**********************************************************************
+     * Returns an alien ship's bullet at (x,y) heading in the given
+     * direction, taken from the pool if it has one
+     **********************************************************************/
+    public AsteroidsBullet newAsteroidsBullet (double x, double y, double direction)
+    {
+        AsteroidsBullet b = asteroidsBullets.take();
+        if (b == null)
+        {
+            b = new AsteroidsBullet(x, y, direction);
+            asteroidsBullets.adopt(b);
+        }
+        else
+        {
+            b.reuse(x, y, direction);
+        }
+        return b;
+    }
+
+    /**********************************************************************
+     * Returns a line of debris of the given length near (x,y), taken from
+     * the pool if it has one
+     **********************************************************************/
+    public DestructionLine newDestructionLine (double x, double y, double length)
+    {
+        DestructionLine line = destructionLines.take();
+        if (line == null)
+        {
+            line = new DestructionLine(x, y, length, random);
+            destructionLines.adopt(line);
+        }
+        else
+        {
+            line.reuse(x, y, length, random);
+        }
+        return line;
+    }
+
+    /**********************************************************************
+     * Returns an asteroid of the given variety and size at (x,y) moving at
+     * the given speed in a random direction, taken from the pool if it has
+     * one
+     **********************************************************************/
+    public Asteroid newAsteroid (int variety, int size, double x, double y, double speed)
+    {
+        Asteroid a = asteroids.take();
+        if (a == null)
+        {
+            a = new Asteroid(variety, size, x, y, speed, this);
+            asteroids.adopt(a);
+        }
+        else
+        {
+            a.reuse(variety, size, x, y, speed, this);
+        }
+        return a;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if capacity is negative.
+     *
+     * Sets the capacity of each of the pools. Zero turns pooling off.
+     **********************************************************************/
+    public void setPoolCapacity (int capacity)
+    {
+        shipBullets.setCapacity(capacity);
+        asteroidsBullets.setCapacity(capacity);
+        destructionLines.setCapacity(capacity);
+        asteroids.setCapacity(capacity);
+    }
+
+    /**********************************************************************
+     * Returns the pool of ship bullets
+     **********************************************************************/
+    public Pool<ShipBullet> getShipBulletPool ()
+    {
+        return shipBullets;
+    }
+
+    /**********************************************************************
+     * Returns the pool of alien ships' bullets
+     **********************************************************************/
+    public Pool<AsteroidsBullet> getAsteroidsBulletPool ()
+    {
+        return asteroidsBullets;
+    }
+
+    /**********************************************************************
+     * Returns the pool of debris lines
+     **********************************************************************/
+    public Pool<DestructionLine> getDestructionLinePool ()
+    {
+        return destructionLines;
+    }
+
+    /**********************************************************************
+     * Returns the pool of asteroids
+     **********************************************************************/
+    public Pool<Asteroid> getAsteroidPool ()
+    {
+        return asteroids;
+    }
+
+    /**********************************************************************
+     * Adds a new Participant
+     **********************************************************************/
+    public void addParticipant (Participant p)
+    {
+        pstate.addParticipant(p);
+    }
+
+    /**********************************************************************
+     * The ship has been destroyed
+     **********************************************************************/
+    public void shipDestroyed ()
+    {
+        ship = null;	  				// Null out the ship
+        lives--;						// Decrement lives
+        if (listener != null)
+        {
+            listener.livesChanged(lives);	// Show lives remaining
+        }
+        scheduleTransition(END_DELAY);	// Since the ship was destroyed, schedule a transition
+    }
+
+    /**********************************************************************
+     * An asteroid of the given size has been destroyed
+     **********************************************************************/
+    public void asteroidDestroyed (int size)
+    {
+        addToScore(Constants.ASTEROID_SCORE[size]);
+        if (pstate.countAsteroids() == 0)			// If all the asteroids are gone, schedule a transition
+        {
+            scheduleTransition(END_DELAY);
+        }
+    }
+
+    /**********************************************************************
+     * An alien ship of the given size has been destroyed
+     **********************************************************************/
+    public void alienShipDestroyed (int size)
+    {
+        addToScore(Constants.ALIENSHIP_SCORE[size]);	// Add its score to total score counter
+        alienShip = null;								// Remove the ship
+        if(ship != null)
+            scheduleTransition(ALIEN_DELAY);
+    }
+
+    /**********************************************************************
+     * Add the passed score to the total score counter
+     **********************************************************************/
+    public void addToScore (int delta)
+    {
+        score += delta;				// Add to total score
+        if (listener != null)
+        {
+            listener.scoreChanged(score);	// Show that score
+        }
+    }
+
+    /**********************************************************************
+     * Returns the current level
+     **********************************************************************/
+    public int getLevel ()
+    {
+        return level;
+    }
+
+    /**********************************************************************
+     * Returns the current score
+     **********************************************************************/
+    public int getScore ()
+    {
+        return score;
+    }
+
+    /**********************************************************************
+     * Returns the number of lives left
+     **********************************************************************/
+    public int getLives ()
+    {
+        return lives;
+    }
+
+    /**********************************************************************
+     * Reports whether the game has ended
+     **********************************************************************/
+    public boolean isOver ()
+    {
+        return over;
+    }
+
+    /**********************************************************************
+     * Returns the game's clock in milliseconds
+     **********************************************************************/
+    public long getTime ()
+    {
+        return (long) (tick * 1000 / tickRate);
+    }
+
+    /**********************************************************************
+     * Returns the number of ticks the game has been advanced
+     **********************************************************************/
+    public long getTick ()
+    {
+        return tick;
+    }
+
+    /**********************************************************************
+     * Returns the number of ticks in a second
+     **********************************************************************/
+    public double getTickRate ()
+    {
+        return tickRate;
+    }
+
+    /**********************************************************************
+     * Returns the length of a tick in seconds
+     **********************************************************************/
+    public double getTickLength ()
+    {
+        return 1 / tickRate;
+    }
+
+    /**********************************************************************
+     * Schedules a transition m msecs in the future, rounded up to a whole
+     * tick
+     **********************************************************************/
+    private void scheduleTransition (int m)
+    {
+        transitionTick = tick + (long) Math.ceil(m * tickRate / 1000);
+    }
+
+    /**********************************************************************
+     * Tells the listener about a new legend
+     **********************************************************************/
+    private void setLegend (String legend)
+    {
+        if (listener != null)
+        {
+            listener.legendChanged(legend);
+        }
+    }
+
+    /*************************************************************************
+     * Advances the game by one tick of 1/tickRate seconds, with the
+     * keys in the given state. A request to fire is used up (set back to
+     * false) when the ship fires. The phases of the step are timed into the
+     * game's stats, and a flight recording gets a tick event for it.
+     *************************************************************************/
+    public void step (Input input)
+    {
+        long start = System.nanoTime();
+        TickEvent event = null;
+        if (TICK_EVENTS.isEnabled())
+        {
+            event = new TickEvent();
+            event.begin();
+        }
+        tick++;
+
+        // It may be time to make a game transition
+        performTransition();
+        long transition = System.nanoTime();
+
+        // Move the participants to their new locations
+        pstate.moveParticipants();
+        long moved = System.nanoTime();
+
+        // SHip movements and actions
+        if(input.isTurningLeft() && ship != null)
+            ship.turnLeft();
+        if(input.isTurningRight() && ship != null)
+            ship.turnRight();
+        if(input.isThrusting() && ship != null)
+            ship.accelerate();
+        if(input.isFiring() && ship != null)
+        {
+            ship.shoot();
+            input.setFiring(false);
+        }
+
+        long end = System.nanoTime();
+        stats.record(FrameStats.Phase.TRANSITION, transition - start);
+        stats.record(FrameStats.Phase.INPUT, end - moved);
+        stats.record(FrameStats.Phase.TICK, end - start);
+
+        if (event != null && event.shouldCommit())
+        {
+            event.tick = tick;
+            event.participants = pstate.getActive().size();
+            event.asteroids = pstate.countAsteroids();
+            event.level = level;
+            event.commit();
+        }
+    }
+
+    /**********************************************************************
+     * Returns an iterator over the active participants
+     **********************************************************************/
+    public Iterator<Participant> getParticipants ()
+    {
+        return pstate.getParticipants();
+    }
+
+    /**********************************************************************
+     * If the transition time has been reached, transition to a new state.
+     * A flight recording gets a transition event saying what was done.
+     **********************************************************************/
+    private void performTransition ()
+    {
+        // Do something only if the time has been reached
+        if (transitionTick <= tick)
+        {
+            // Clear the transition time
+            transitionTick = Long.MAX_VALUE;
+            TransitionEvent event = null;
+            if (TRANSITION_EVENTS.isEnabled())
+            {
+                event = new TransitionEvent();
+                event.begin();
+            }
+
+            // If there are no lives left, the game is over. Show the final
+            // screen.
+            String kind = TransitionEvent.NONE;
+            if (lives <= 0)
+            {
+                finalScreen();
+                kind = TransitionEvent.GAME_OVER;
+            }
+            else if (ship == null)					// If the ship was destroyed, place a new one and continue
+            {
+                placeShip();
+                kind = TransitionEvent.NEW_SHIP;
+            }
+            else if(pstate.countAsteroids() == 0)	// If no asteroids remain, draw next level screen
+            {
+                nextScreen();
+                kind = TransitionEvent.NEXT_LEVEL;
+            }
+            else if(alienShip == null)				// If an alien ship is destroyed, place a new one
+            {
+                placeAlienShip();
+                kind = TransitionEvent.ALIEN_SHIP;
+            }
+
+            if (event != null && event.shouldCommit())
+            {
+                event.kind = kind;
+                event.level = level;
+                event.lives = lives;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package asteroids;
+
+/**********************************************************************
+ * Implemented by objects that show the progress of a {@link Game} to the
+ * player. A Game calls these methods as its state changes.
+ **********************************************************************/
+public interface GameListener
+{
+    /**********************************************************************
+     * The score has changed
+     **********************************************************************/
+    public void scoreChanged (int score);
+
+    /**********************************************************************
+     * The number of lives left has changed
+     **********************************************************************/
+    public void livesChanged (int lives);
+
+    /**********************************************************************
+     * The level has changed
+     **********************************************************************/
+    public void levelChanged (int level);
+
+    /**********************************************************************
+     * The large legend shown across the screen has changed. An empty
+     * legend means that none should be shown.
+     **********************************************************************/
+    public void legendChanged (String legend);
+
+    /**********************************************************************
+     * The game is over
+     **********************************************************************/
+    public void gameOver ();
+}
@@ -0,0 +1,69 @@
+package asteroids;
+
+import java.util.Random;
+
+/**********************************************************************
+ * The random number generator of a {@link Game}. It gives exactly the
+ * same numbers as a java.util.Random with the same seed, but its state
+ * can be read and set, so that a snapshot of a game can carry on with
+ * the same numbers.
+ *
+ * The state does not include a value saved by nextGaussian, which the
+ * game doesn't use. Unlike java.util.Random, it is not safe to use from
+ * several threads at once.
+ **********************************************************************/
+@SuppressWarnings("serial")
+public class GameRandom extends Random
+{
+    // The constants of java.util.Random's linear congruential generator
+    private final static long MULTIPLIER = 0x5DEECE66DL;
+    private final static long ADDEND = 0xBL;
+    private final static long MASK = (1L << 48) - 1;
+
+    private long state;		// The 48 bits of state
+
+    /**********************************************************************
+     * Creates a generator with the given seed
+     **********************************************************************/
+    public GameRandom (long seed)
+    {
+        super(seed);
+    }
+
+    /**********************************************************************
+     * Starts the numbers over from the given seed
+     **********************************************************************/
+    @Override
+    public synchronized void setSeed (long seed)
+    {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**********************************************************************
+     * Returns the state, from which setState carries on with the same
+     * numbers
+     **********************************************************************/
+    public long getState ()
+    {
+        return state;
+    }
+
+    /**********************************************************************
+     * Sets the state to one returned by getState
+     **********************************************************************/
+    public void setState (long state)
+    {
+        this.state = state & MASK;
+    }
+
+    /**********************************************************************
+     * Returns the next bits of the sequence
+     **********************************************************************/
+    @Override
+    protected int next (int bits)
+    {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+}
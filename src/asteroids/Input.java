@@ -0,0 +1,87 @@
+package asteroids;
+
+/**********************************************************************
+ * The state of the player's controls during one tick of a {@link Game}.
+ **********************************************************************/
+public class Input
+{
+    private boolean turningLeft;		// Is the ship turning left?
+    private boolean turningRight;		// Is the ship turning right?
+    private boolean thrusting;			// Is the ship accelerating?
+    private boolean firing;				// Should the ship fire a bullet?
+
+    /**********************************************************************
+     * Releases all of the controls
+     **********************************************************************/
+    public void clear ()
+    {
+        turningLeft = false;
+        turningRight = false;
+        thrusting = false;
+        firing = false;
+    }
+
+    /**********************************************************************
+     * Reports whether the ship is turning left
+     **********************************************************************/
+    public boolean isTurningLeft ()
+    {
+        return turningLeft;
+    }
+
+    /**********************************************************************
+     * Sets whether the ship is turning left
+     **********************************************************************/
+    public void setTurningLeft (boolean turningLeft)
+    {
+        this.turningLeft = turningLeft;
+    }
+
+    /**********************************************************************
+     * Reports whether the ship is turning right
+     **********************************************************************/
+    public boolean isTurningRight ()
+    {
+        return turningRight;
+    }
+
+    /**********************************************************************
+     * Sets whether the ship is turning right
+     **********************************************************************/
+    public void setTurningRight (boolean turningRight)
+    {
+        this.turningRight = turningRight;
+    }
+
+    /**********************************************************************
+     * Reports whether the ship is accelerating
+     **********************************************************************/
+    public boolean isThrusting ()
+    {
+        return thrusting;
+    }
+
+    /**********************************************************************
+     * Sets whether the ship is accelerating
+     **********************************************************************/
+    public void setThrusting (boolean thrusting)
+    {
+        this.thrusting = thrusting;
+    }
+
+    /**********************************************************************
+     * Reports whether the ship should fire a bullet
+     **********************************************************************/
+    public boolean isFiring ()
+    {
+        return firing;
+    }
+
+    /**********************************************************************
+     * Sets whether the ship should fire a bullet
+     **********************************************************************/
+    public void setFiring (boolean firing)
+    {
+        this.firing = firing;
+    }
+}
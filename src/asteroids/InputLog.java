@@ -0,0 +1,109 @@
+package asteroids;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**********************************************************************
+ * The format of the files written by {@link InputRecorder} and read by
+ * {@link InputPlayer}. A log starts with a header:
+ *
+ *     4 bytes   MAGIC
+ *     1 byte    VERSION
+ *     8 bytes   the game's seed
+ *     8 bytes   the game's tick rate, as a double
+ *
+ * The rest of the log is the Input of each tick since newGame, as runs
+ * of ticks in which the same keys were down. Each run is one varint (an
+ * unsigned number written seven bits to a byte, lowest first, with the
+ * top bit set on all but the last byte) holding the length of the run
+ * shifted left by KEY_BITS, or'ed with the keys. Runs of up to seven
+ * ticks take a single byte. The log ends at the end of the file.
+ **********************************************************************/
+public class InputLog
+{
+    /**********************************************************************
+     * First four bytes of every log ("ASTL")
+     **********************************************************************/
+    public final static int MAGIC = 0x4153544C;
+
+    /**********************************************************************
+     * Version of the format described above
+     **********************************************************************/
+    public final static int VERSION = 1;
+
+    /**********************************************************************
+     * Number of bits the keys of a run take up
+     **********************************************************************/
+    public final static int KEY_BITS = 4;
+
+    // One bit for each key
+    private final static int LEFT = 1;
+    private final static int RIGHT = 2;
+    private final static int THRUST = 4;
+    private final static int FIRE = 8;
+
+    /**********************************************************************
+     * Returns the keys that are down in input, one bit each
+     **********************************************************************/
+    public static int encode (Input input)
+    {
+        return (input.isTurningLeft() ? LEFT : 0) | (input.isTurningRight() ? RIGHT : 0)
+                | (input.isThrusting() ? THRUST : 0) | (input.isFiring() ? FIRE : 0);
+    }
+
+    /**********************************************************************
+     * Sets input to the keys returned by encode
+     **********************************************************************/
+    public static void decode (int keys, Input input)
+    {
+        input.setTurningLeft((keys & LEFT) != 0);
+        input.setTurningRight((keys & RIGHT) != 0);
+        input.setThrusting((keys & THRUST) != 0);
+        input.setFiring((keys & FIRE) != 0);
+    }
+
+    /**********************************************************************
+     * Writes value, which must not be negative, as a varint
+     **********************************************************************/
+    static void writeVarint (DataOutputStream out, long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**********************************************************************
+     * Reads a varint, or returns -1 if the stream is already at its end.
+     * Throws an EOFException if it ends part way through the varint.
+     **********************************************************************/
+    static long readVarint (DataInputStream in) throws IOException
+    {
+        int b = in.read();
+        if (b < 0)
+        {
+            return -1;
+        }
+        long value = 0;
+        int shift = 0;
+        while ((b & 0x80) != 0)
+        {
+            if (shift > 56)
+            {
+                throw new IOException("Varint too long");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+            b = in.read();
+            if (b < 0)
+            {
+                throw new EOFException();
+            }
+        }
+        return value | ((long) b << shift);
+    }
+}
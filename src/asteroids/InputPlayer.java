@@ -0,0 +1,151 @@
+package asteroids;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**********************************************************************
+ * Reads a log written by an {@link InputRecorder} and plays the game it
+ * recorded over again, without a display and as fast as it will go.
+ * Since a game is fully defined by its seed, its tick rate and its
+ * input, the game played over ends up exactly as the recorded one did.
+ *
+ * Run from the command line with the name of a log, it plays the log and
+ * prints how long that took and how the game ended.
+ **********************************************************************/
+public class InputPlayer implements Closeable
+{
+    private DataInputStream in;		// Where the log is read from
+    private long seed;				// Seed of the recorded game
+    private double tickRate;		// Tick rate of the recorded game
+    private int keys;				// Keys down during the current run
+    private long run;				// Ticks left in the current run
+
+    /**********************************************************************
+     * Throws an IOException if in doesn't start with the header of a log.
+     *
+     * Reads the header of the log from in, which the player takes over
+     **********************************************************************/
+    public InputPlayer (InputStream in) throws IOException
+    {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        if (this.in.readInt() != InputLog.MAGIC)
+        {
+            throw new IOException("Not an input log");
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != InputLog.VERSION)
+        {
+            throw new IOException("Unsupported input log version: " + version);
+        }
+        seed = this.in.readLong();
+        tickRate = this.in.readDouble();
+    }
+
+    /**********************************************************************
+     * Returns the seed of the recorded game
+     **********************************************************************/
+    public long getSeed ()
+    {
+        return seed;
+    }
+
+    /**********************************************************************
+     * Returns the tick rate of the recorded game
+     **********************************************************************/
+    public double getTickRate ()
+    {
+        return tickRate;
+    }
+
+    /**********************************************************************
+     * Sets input to the keys that were down on the next tick and returns
+     * true, or returns false if the log has no more ticks
+     **********************************************************************/
+    public boolean next (Input input) throws IOException
+    {
+        while (run == 0)
+        {
+            long value = InputLog.readVarint(in);
+            if (value < 0)
+            {
+                return false;
+            }
+            keys = (int) (value & ((1 << InputLog.KEY_BITS) - 1));
+            run = value >>> InputLog.KEY_BITS;
+        }
+        run--;
+        InputLog.decode(keys, input);
+        return true;
+    }
+
+    /**********************************************************************
+     * Plays the rest of the log in a new game with the recorded seed and
+     * tick rate, and returns the game as it stands after the last tick
+     **********************************************************************/
+    public Game play () throws IOException
+    {
+        Game game = new Game(tickRate, seed);
+        game.newGame();
+        Input input = new Input();
+        while (next(input))
+        {
+            game.step(input);
+        }
+        return game;
+    }
+
+    /**********************************************************************
+     * Closes the log
+     **********************************************************************/
+    @Override
+    public void close () throws IOException
+    {
+        in.close();
+    }
+
+    /**********************************************************************
+     * Returns a hash of the class, position and rotation of every
+     * participant in the game, in order. Two games that have played out
+     * the same way have the same fingerprint.
+     **********************************************************************/
+    public static long fingerprint (Game game)
+    {
+        long hash = 17;
+        Iterator<Participant> iter = game.getParticipants();
+        while (iter.hasNext())
+        {
+            Participant p = iter.next();
+            hash = 31 * hash + p.getClass().getName().hashCode();
+            hash = 31 * hash + Double.doubleToLongBits(p.getX());
+            hash = 31 * hash + Double.doubleToLongBits(p.getY());
+            hash = 31 * hash + Double.doubleToLongBits(p.getRotation());
+        }
+        return 31 * hash + game.getScore();
+    }
+
+    /**********************************************************************
+     * Plays the log named on the command line and prints the outcome
+     **********************************************************************/
+    public static void main (String[] args) throws IOException
+    {
+        if (args.length != 1)
+        {
+            System.err.println("Usage: java asteroids.InputPlayer <log>");
+            System.exit(2);
+        }
+        try (InputPlayer player = new InputPlayer(new FileInputStream(args[0])))
+        {
+            long start = System.nanoTime();
+            Game game = player.play();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d ticks in %.3f s (%.0f ticks/s)%n", game.getTick(), seconds, game.getTick() / seconds);
+            System.out.printf("score %d, level %d, lives %d, over %b, fingerprint %016x%n", game.getScore(),
+                    game.getLevel(), game.getLives(), game.isOver(), fingerprint(game));
+        }
+    }
+}
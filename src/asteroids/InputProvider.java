@@ -0,0 +1,16 @@
+package asteroids;
+
+/**********************************************************************
+ * Decides the {@link Input} of each tick of a {@link Game} in place of
+ * the player's keys, so that a game can play itself. A provider is asked
+ * for the input just before each tick is stepped, and may look at the
+ * game as it stands but must not change it.
+ **********************************************************************/
+public interface InputProvider
+{
+    /**********************************************************************
+     * Sets input to the controls to hold down during the next tick of
+     * game
+     **********************************************************************/
+    public void provide (Game game, Input input);
+}
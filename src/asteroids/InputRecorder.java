@@ -0,0 +1,83 @@
+package asteroids;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**********************************************************************
+ * Writes the Input of each tick of a game to a log in the format
+ * described by {@link InputLog}, so that the game can be played over by
+ * an {@link InputPlayer}. The recorder is created when the game begins,
+ * and then given the Input of every tick, just before the tick is
+ * stepped.
+ *
+ * Ticks with the same keys down are saved up and written as one run, so
+ * the log must be closed to write the last run.
+ **********************************************************************/
+public class InputRecorder implements Closeable
+{
+    private DataOutputStream out;	// Where the log is written
+    private int keys;				// Keys down during the current run
+    private long run;				// Number of ticks in the current run
+    private long ticks;				// Number of ticks recorded
+
+    /**********************************************************************
+     * Writes the header of a log for a game with the given seed and tick
+     * rate to out, which the recorder takes over
+     **********************************************************************/
+    public InputRecorder (OutputStream out, long seed, double tickRate) throws IOException
+    {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(InputLog.MAGIC);
+        this.out.writeByte(InputLog.VERSION);
+        this.out.writeLong(seed);
+        this.out.writeDouble(tickRate);
+    }
+
+    /**********************************************************************
+     * Records the keys that are down for the next tick
+     **********************************************************************/
+    public void record (Input input) throws IOException
+    {
+        int next = InputLog.encode(input);
+        if (run > 0 && next != keys)
+        {
+            writeRun();
+        }
+        keys = next;
+        run++;
+        ticks++;
+    }
+
+    /**********************************************************************
+     * Returns the number of ticks recorded
+     **********************************************************************/
+    public long getTicks ()
+    {
+        return ticks;
+    }
+
+    /**********************************************************************
+     * Writes the last run and closes the log
+     **********************************************************************/
+    @Override
+    public void close () throws IOException
+    {
+        if (run > 0)
+        {
+            writeRun();
+        }
+        out.close();
+    }
+
+    /**********************************************************************
+     * Writes the current run and starts a new one
+     **********************************************************************/
+    private void writeRun () throws IOException
+    {
+        InputLog.writeVarint(out, (run << InputLog.KEY_BITS) | keys);
+        run = 0;
+    }
+}
@@ -0,0 +1,353 @@
+package asteroids;
+
+import java.util.concurrent.ForkJoinPool;
+
+import asteroids.collision.WorldOutline;
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * Keeps the position, velocity and rotation of a game's participants in
+ * parallel arrays, one slot per participant, instead of in the
+ * participants themselves. A participant in a store is a handle to its
+ * slot: its getters and setters read and write the arrays. Removing a
+ * participant moves the last participant into its slot, so the slots in
+ * use are always 0 through size() - 1.
+ *
+ * Participants that override move are "custom movers". They are kept in
+ * the slots at the front and move themselves. The rest are moved together
+ * by one pass over the arrays, which steps each position by its velocity
+ * and wraps it around the edges of the screen. The wrap uses the extent
+ * of the participant's border around its center, which is recorded in
+ * the store and only worked out again when the outline or rotation
+ * changes.
+ *
+ * The plain participants can also be moved on the threads of a
+ * ForkJoinPool, a chunk of slots at a time. Each slot is moved on its
+ * own, so this gives the same results.
+ **********************************************************************/
+public class KinematicStore
+{
+    /**********************************************************************
+     * Number of slots moved by each task when moving on a ForkJoinPool
+     **********************************************************************/
+    public final static int CHUNK_SIZE = 1024;
+
+    // Whether each class of participant overrides move, so that the
+    // reflection is only done once per class
+    private final static ClassValue<Boolean> customMover = new ClassValue<Boolean>()
+    {
+        @Override
+        protected Boolean computeValue (Class<?> type)
+        {
+            try
+            {
+                return type.getMethod("move", double.class).getDeclaringClass() != Participant.class;
+            }
+            catch (NoSuchMethodException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    // The kinematic state of each slot. These are read and written
+    // directly by Participant.
+    double[] x, y;					// Position of the center
+    double[] speedX, speedY;		// Velocity in pixels per second
+    double[] rotation;				// Rotation in radians
+
+    private double[] fromX, fromY;				// Position before the last move
+    private double[] toX, toY;					// Position after the last move, before wrapping
+    private double[] minOffsetX, maxOffsetX;	// Horizontal extent of the border, or NaN
+    private double[] minOffsetY, maxOffsetY;	// Vertical extent of the border, or NaN
+    private Participant[] participants;			// The participant in each slot
+    private int customMovers;					// Number of custom movers, which fill the first slots
+    private int size;							// Number of slots in use
+
+    /**********************************************************************
+     * Creates an empty store
+     **********************************************************************/
+    public KinematicStore ()
+    {
+        allocate(16);
+    }
+
+    /**********************************************************************
+     * Returns the number of participants in the store
+     **********************************************************************/
+    public int size ()
+    {
+        return size;
+    }
+
+    /**********************************************************************
+     * Returns the number of participants in the store that move themselves
+     **********************************************************************/
+    public int countCustomMovers ()
+    {
+        return customMovers;
+    }
+
+    /**********************************************************************
+     * Reports whether the participant's class overrides move
+     **********************************************************************/
+    public static boolean isCustomMover (Participant p)
+    {
+        return customMover.get(p.getClass());
+    }
+
+    /**********************************************************************
+     * Adds p to the store. From now on its kinematic state is kept here.
+     **********************************************************************/
+    public void add (Participant p)
+    {
+        if (size == participants.length)
+        {
+            allocate(2 * size);
+        }
+
+        // Custom movers go at the front, so the first plain participant
+        // makes way for it
+        int slot = size;
+        if (isCustomMover(p))
+        {
+            if (customMovers < size)
+            {
+                moveSlot(customMovers, size);
+            }
+            slot = customMovers;
+            customMovers++;
+        }
+        size++;
+
+        participants[slot] = p;
+        minOffsetX[slot] = maxOffsetX[slot] = Double.NaN;
+        minOffsetY[slot] = maxOffsetY[slot] = Double.NaN;
+        p.enterStore(this, slot);
+    }
+
+    /**********************************************************************
+     * Removes p from the store, which must hold it. Its kinematic state is
+     * copied back into it.
+     **********************************************************************/
+    public void remove (Participant p)
+    {
+        int slot = indexOf(p);
+        p.leaveStore();
+
+        // Fill the hole from the end of its own section, then fill the hole
+        // that leaves at the end of the custom movers with the last slot
+        if (slot < customMovers)
+        {
+            customMovers--;
+            moveSlot(customMovers, slot);
+            slot = customMovers;
+        }
+        size--;
+        moveSlot(size, slot);
+        participants[size] = null;
+    }
+
+    /**********************************************************************
+     * Removes every participant from the store
+     **********************************************************************/
+    public void clear ()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            participants[i].leaveStore();
+            participants[i] = null;
+        }
+        size = 0;
+        customMovers = 0;
+    }
+
+    /**********************************************************************
+     * Moves every participant that has not expired to reflect one tick of
+     * the given number of seconds. This does what Participant.move does,
+     * but for the participants that don't override it, it does so a whole
+     * array at a time.
+     **********************************************************************/
+    public void move (double seconds)
+    {
+        move(seconds, null);
+    }
+
+    /**********************************************************************
+     * Moves every participant that has not expired to reflect one tick of
+     * the given number of seconds, moving the plain participants on the
+     * pool unless it is null. The custom movers always move themselves on
+     * the calling thread, afterwards, in the order of their slots.
+     **********************************************************************/
+    public void move (double seconds, ForkJoinPool pool)
+    {
+        if (pool == null)
+        {
+            movePlain(customMovers, size, seconds);
+        }
+        else
+        {
+            ChunkedAction.invoke(pool, ChunkedAction.countChunks(size - customMovers, CHUNK_SIZE), chunk ->
+            {
+                int from = customMovers + chunk * CHUNK_SIZE;
+                movePlain(from, Math.min(size, from + CHUNK_SIZE), seconds);
+            });
+        }
+
+        // The custom movers move themselves
+        for (int i = 0; i < customMovers; i++)
+        {
+            if (!participants[i].isExpired())
+            {
+                participants[i].move(seconds);
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Moves the plain participants in slots from through to - 1
+     **********************************************************************/
+    private void movePlain (int from, int to, double seconds)
+    {
+        // Step and wrap the participants in one pass over the arrays.
+        // Expired participants are moved too, which is harmless since they
+        // are about to be removed.
+        for (int i = from; i < to; i++)
+        {
+            fromX[i] = x[i];
+            fromY[i] = y[i];
+            toX[i] = x[i] + speedX[i] * seconds;
+            toY[i] = y[i] + speedY[i] * seconds;
+            wrap(i);
+        }
+
+        // Place the borders. Where the outline or rotation has changed, or
+        // the extent has never been worked out, record the new extent and
+        // redo the wrap.
+        for (int i = from; i < to; i++)
+        {
+            Participant p = participants[i];
+            if (!p.isExpired() && (!p.placeBorder(fromX[i], fromY[i], toX[i], toY[i]) || Double.isNaN(minOffsetX[i])))
+            {
+                WorldOutline border = p.getBorder();
+                minOffsetX[i] = border.getLocalMinX();
+                maxOffsetX[i] = border.getLocalMaxX();
+                minOffsetY[i] = border.getLocalMinY();
+                maxOffsetY[i] = border.getLocalMaxY();
+                wrap(i);
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Wraps the position of slot i from where its last move left it, using
+     * its recorded extent. These are the same tests as Participant.move
+     * makes. An extent that has not been worked out yet is NaN, which
+     * fails every test.
+     **********************************************************************/
+    private void wrap (int i)
+    {
+        double nx = toX[i], ny = toY[i];
+        double minX = nx + minOffsetX[i], maxX = nx + maxOffsetX[i];
+        double minY = ny + minOffsetY[i], maxY = ny + maxOffsetY[i];
+        if (maxX < 0)
+        {
+            nx += SIZE + (maxX - minX);
+        }
+        if (minX >= SIZE)
+        {
+            nx += -SIZE - (maxX - minX);
+        }
+        if (maxY < 0)
+        {
+            ny += SIZE + (maxY - minY);
+        }
+        if (minY >= SIZE)
+        {
+            ny += -SIZE - (maxY - minY);
+        }
+        x[i] = nx;
+        y[i] = ny;
+    }
+
+    /**********************************************************************
+     * Returns the slot of p, which must be in this store
+     **********************************************************************/
+    private int indexOf (Participant p)
+    {
+        int slot = p.getSlot();
+        if (slot < 0 || slot >= size || participants[slot] != p)
+        {
+            throw new IllegalArgumentException("Participant is not in this store");
+        }
+        return slot;
+    }
+
+    /**********************************************************************
+     * Moves the contents of slot from into slot to, and tells the
+     * participant. Does nothing if they are the same slot.
+     **********************************************************************/
+    private void moveSlot (int from, int to)
+    {
+        if (from == to)
+        {
+            return;
+        }
+        x[to] = x[from];
+        y[to] = y[from];
+        speedX[to] = speedX[from];
+        speedY[to] = speedY[from];
+        rotation[to] = rotation[from];
+        fromX[to] = fromX[from];
+        fromY[to] = fromY[from];
+        toX[to] = toX[from];
+        toY[to] = toY[from];
+        minOffsetX[to] = minOffsetX[from];
+        maxOffsetX[to] = maxOffsetX[from];
+        minOffsetY[to] = minOffsetY[from];
+        maxOffsetY[to] = maxOffsetY[from];
+        participants[to] = participants[from];
+        participants[to].changeSlot(to);
+    }
+
+    /**********************************************************************
+     * Makes room for the given number of slots, keeping the contents of
+     * the slots in use
+     **********************************************************************/
+    private void allocate (int capacity)
+    {
+        x = grow(x, capacity);
+        y = grow(y, capacity);
+        speedX = grow(speedX, capacity);
+        speedY = grow(speedY, capacity);
+        rotation = grow(rotation, capacity);
+        fromX = grow(fromX, capacity);
+        fromY = grow(fromY, capacity);
+        toX = grow(toX, capacity);
+        toY = grow(toY, capacity);
+        minOffsetX = grow(minOffsetX, capacity);
+        maxOffsetX = grow(maxOffsetX, capacity);
+        minOffsetY = grow(minOffsetY, capacity);
+        maxOffsetY = grow(maxOffsetY, capacity);
+        Participant[] larger = new Participant[capacity];
+        if (participants != null)
+        {
+            System.arraycopy(participants, 0, larger, 0, size);
+        }
+        participants = larger;
+    }
+
+    /**********************************************************************
+     * Returns an array of the given length that starts with the slots in
+     * use of array, which may be null
+     **********************************************************************/
+    private double[] grow (double[] array, int capacity)
+    {
+        double[] larger = new double[capacity];
+        if (array != null)
+        {
+            System.arraycopy(array, 0, larger, 0, size);
+        }
+        return larger;
+    }
+}
@@ -0,0 +1,145 @@
+package asteroids;
+
+import java.util.Arrays;
+
+/**********************************************************************
+ * Counts how long something took, in nanoseconds, in a fixed amount of
+ * memory. Durations below 64 ns are counted exactly. Longer ones go into
+ * buckets that split each power of two into 32, so a percentile is never
+ * more than about 3% above the true value. Recording a duration is a few
+ * arithmetic operations and allocates nothing.
+ **********************************************************************/
+public class LatencyHistogram
+{
+    // Each power of two is split into 2^SUB_BITS buckets
+    private final static int SUB_BITS = 5;
+    private final static int SUB_BUCKETS = 1 << SUB_BITS;
+
+    // Enough buckets for any positive long
+    private final static int BUCKETS = (63 - SUB_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+    private long[] counts;			// Number of durations in each bucket
+    private long count;				// Number of durations recorded
+    private long total;				// Sum of the durations
+    private long max;				// Longest duration
+
+    /**********************************************************************
+     * Creates an empty histogram
+     **********************************************************************/
+    public LatencyHistogram ()
+    {
+        counts = new long[BUCKETS];
+    }
+
+    /**********************************************************************
+     * Counts a duration in nanoseconds. Negative durations count as 0.
+     **********************************************************************/
+    public void record (long nanos)
+    {
+        if (nanos < 0)
+        {
+            nanos = 0;
+        }
+        counts[bucketOf(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos > max)
+        {
+            max = nanos;
+        }
+    }
+
+    /**********************************************************************
+     * Returns the bucket a duration is counted in
+     **********************************************************************/
+    private static int bucketOf (long nanos)
+    {
+        if (nanos < 2 * SUB_BUCKETS)
+        {
+            return (int) nanos;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(nanos);
+        int shift = magnitude - SUB_BITS;
+        return shift * SUB_BUCKETS + (int) (nanos >>> shift);
+    }
+
+    /**********************************************************************
+     * Returns the longest duration counted in a bucket
+     **********************************************************************/
+    private static long highestIn (int bucket)
+    {
+        if (bucket < 2 * SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long top = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**********************************************************************
+     * Empties the histogram
+     **********************************************************************/
+    public void reset ()
+    {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    /**********************************************************************
+     * Returns the number of durations recorded
+     **********************************************************************/
+    public long getCount ()
+    {
+        return count;
+    }
+
+    /**********************************************************************
+     * Returns the longest duration recorded, or 0 if there are none
+     **********************************************************************/
+    public long getMax ()
+    {
+        return max;
+    }
+
+    /**********************************************************************
+     * Returns the mean duration, or 0 if there are none
+     **********************************************************************/
+    public double getMean ()
+    {
+        return (count == 0) ? 0 : (double) total / count;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if fraction isn't between 0 and
+     * 1.
+     *
+     * Returns a duration that the given fraction of the durations recorded
+     * did not exceed, such as 0.99 for the 99th percentile, or 0 if there
+     * are none
+     **********************************************************************/
+    public long getPercentile (double fraction)
+    {
+        if (!(fraction >= 0 && fraction <= 1))
+        {
+            throw new IllegalArgumentException("Invalid fraction: " + fraction);
+        }
+        if (count == 0)
+        {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            seen += counts[bucket];
+            if (seen >= wanted)
+            {
+                return Math.min(highestIn(bucket), max);
+            }
+        }
+        return max;
+    }
+}
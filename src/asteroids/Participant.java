@@ -2,6 +2,11 @@ package asteroids;
 
 import java.awt.*;
 import java.awt.geom.*;
+import java.nio.ByteBuffer;
+import asteroids.collision.CollisionRules;
+import asteroids.collision.Outline;
+import asteroids.collision.OutlineRegistry;
+import asteroids.collision.WorldOutline;
 import static asteroids.Constants.*;
 
 /********************************************************************************
@@ -28,12 +33,57 @@ public abstract class Participant
     // Current position of the Participant's center
     private double x, y;
 
-    // Border of the Participant that is used for drawing
-    private Shape border;
+    // While the Participant is in a KinematicStore, its speed, rotation and
+    // position are kept there at this slot instead of in the fields above
+    private KinematicStore store;
+    private int slot;
+
+    // Border of the Participant as placed by the last move. It is used for
+    // drawing and to test for collisions.
+    private WorldOutline border;
+
+    // The Shape whose Outline the border was last placed with, and that
+    // Outline, for participants without an outline id. Keeping them saves
+    // going through the lock on Outline.of at every move, which matters
+    // when participants move on several threads.
+    private Shape outlineShape;
+    private Outline shapeOutline;
+
+    // Where the border was before the last move. Frames drawn between two
+    // moves place the participant part way from here to the border.
+    private double lastX, lastY, lastRotation;
+
+    // Border placed between the last two moves for drawing, or null
+    private WorldOutline drawn;
+
+    // True while the last move is being swept for collisions, and the
+    // bounds of the whole of the move, or null until first needed
+    private boolean sweeping;
+    private Rectangle2D.Double sweptBounds;
 
     // True if the Participant is expired
     private boolean expired;
 
+    // Countdown timers constructed for this Participant that have not gone
+    // off, linked in the order they were constructed
+    private ParticipantCountdownTimer timers;
+
+    // Wheel that runs this Participant's timers, or null until the
+    // Participant is added to a game
+    private TimerWheel wheel;
+
+    // Index of the game the Participant has been added to, or null
+    private ParticipantIndex index;
+
+    // Pool the Participant goes back to when it is removed from the game,
+    // or null, and whether it is in the pool now
+    private Pool<?> pool;
+    private boolean inPool;
+
+    // Type of the Participant's class in the CollisionRules, or -1 until
+    // it is first needed
+    private int collisionType = -1;
+
     /*************************************************************************
      * Constructs an active Participant with no velocity, rotation, or border.
      *************************************************************************/
@@ -44,10 +94,98 @@ public abstract class Participant
         rotation = 0;
         x = 0;
         y = 0;
-        border = null;
+        border = new WorldOutline();
         expired = false;
     }
 
+    /**********************************************************************
+     * Puts this participant back as it was when it was constructed, so that
+     * a pooled participant can be used again. Subclasses that are pooled
+     * reset their own state after calling this.
+     **********************************************************************/
+    protected void reset ()
+    {
+        if (store != null)
+        {
+            throw new IllegalStateException("Participant is still in a game");
+        }
+        speedX = 0;
+        speedY = 0;
+        rotation = 0;
+        x = 0;
+        y = 0;
+        lastX = 0;
+        lastY = 0;
+        lastRotation = 0;
+        border.clear();
+        sweeping = false;
+        expired = false;
+        timers = null;
+        wheel = null;
+        index = null;
+    }
+
+    /**********************************************************************
+     * Returns the index the participant is in, or null
+     **********************************************************************/
+    ParticipantIndex getIndex ()
+    {
+        return index;
+    }
+
+    /**********************************************************************
+     * Records the index the participant is in, or null
+     **********************************************************************/
+    void setIndex (ParticipantIndex index)
+    {
+        this.index = index;
+    }
+
+    /**********************************************************************
+     * Records the pool the participant goes back to when it is removed
+     * from the game
+     **********************************************************************/
+    void setPool (Pool<?> pool)
+    {
+        this.pool = pool;
+    }
+
+    /**********************************************************************
+     * Puts the participant, which has been removed from the game, back
+     * into its pool if it has one
+     **********************************************************************/
+    void recycle ()
+    {
+        if (pool != null)
+        {
+            pool.recycle(this);
+        }
+    }
+
+    /**********************************************************************
+     * Reports whether the participant is waiting in its pool
+     **********************************************************************/
+    boolean isInPool ()
+    {
+        return inPool;
+    }
+
+    /**********************************************************************
+     * Records that the participant has gone into its pool
+     **********************************************************************/
+    void enterPool ()
+    {
+        inPool = true;
+    }
+
+    /**********************************************************************
+     * Records that the participant has left its pool
+     **********************************************************************/
+    void leavePool ()
+    {
+        inPool = false;
+    }
+
     /**********************************************************************
      * Marks p as expired. If p is null, does nothing.
      **********************************************************************/
@@ -64,7 +202,111 @@ public abstract class Participant
      **********************************************************************/
     private void setExpired ()
     {
+        if (expired)
+        {
+            return;
+        }
         expired = true;
+        if (index != null)
+        {
+            index.expired(this);
+        }
+
+        // Its timers will never be needed
+        for (ParticipantCountdownTimer t = timers; t != null; t = t.nextOfParticipant)
+        {
+            if (wheel != null)
+            {
+                wheel.cancel(t);
+            }
+        }
+        timers = null;
+    }
+
+    /**********************************************************************
+     * Records a timer constructed for this participant. The timer starts
+     * at once if the participant is in a game, and otherwise when it is
+     * added to one.
+     **********************************************************************/
+    void addTimer (ParticipantCountdownTimer timer)
+    {
+        if (expired)
+        {
+            return;
+        }
+        timer.nextOfParticipant = null;
+        if (timers == null)
+        {
+            timers = timer;
+        }
+        else
+        {
+            ParticipantCountdownTimer t = timers;
+            while (t.nextOfParticipant != null)
+            {
+                t = t.nextOfParticipant;
+            }
+            t.nextOfParticipant = timer;
+        }
+        if (wheel != null)
+        {
+            wheel.schedule(timer, timer.getDelay());
+        }
+    }
+
+    /**********************************************************************
+     * Forgets a timer that has gone off or been cancelled
+     **********************************************************************/
+    void removeTimer (ParticipantCountdownTimer timer)
+    {
+        if (wheel != null)
+        {
+            wheel.cancel(timer);
+        }
+        if (timers == timer)
+        {
+            timers = timer.nextOfParticipant;
+            return;
+        }
+        for (ParticipantCountdownTimer t = timers; t != null; t = t.nextOfParticipant)
+        {
+            if (t.nextOfParticipant == timer)
+            {
+                t.nextOfParticipant = timer.nextOfParticipant;
+                return;
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Starts this participant's timers on the wheel of the game it has
+     * just been added to
+     **********************************************************************/
+    void startTimers (TimerWheel wheel)
+    {
+        this.wheel = wheel;
+        for (ParticipantCountdownTimer t = timers; t != null; t = t.nextOfParticipant)
+        {
+            wheel.schedule(t, t.getDelay());
+        }
+    }
+
+    /**********************************************************************
+     * Returns the first of this participant's timers that have not gone
+     * off, or null. The rest follow on through nextOfParticipant.
+     **********************************************************************/
+    ParticipantCountdownTimer getFirstTimer ()
+    {
+        return timers;
+    }
+
+    /**********************************************************************
+     * Records the wheel of the game this participant has been restored
+     * into, without scheduling its timers, which the Snapshot does
+     **********************************************************************/
+    void joinWheel (TimerWheel wheel)
+    {
+        this.wheel = wheel;
     }
 
     /**********************************************************************
@@ -76,14 +318,13 @@ public abstract class Participant
     }
 
     /**********************************************************************
-     * Sets the velocity of this participant. The speed is in pixels per frame
-     * refresh and the direction is in radians.
+     * Sets the velocity of this participant. The speed is in pixels per
+     * second and the direction is in radians.
      **********************************************************************/
     public void setVelocity (double speed, double direction)
     {
         direction = normalize(direction);
-        speedX = Math.cos(direction) * speed;
-        speedY = Math.sin(direction) * speed;
+        setSpeeds(Math.cos(direction) * speed, Math.sin(direction) * speed);
     }
 
     /**********************************************************************
@@ -93,8 +334,7 @@ public abstract class Participant
     {
         direction = normalize(direction);
         double speed = getSpeed();
-        speedX = Math.cos(direction) * speed;
-        speedY = Math.sin(direction) * speed;
+        setSpeeds(Math.cos(direction) * speed, Math.sin(direction) * speed);
     }
 
     /**********************************************************************
@@ -103,8 +343,7 @@ public abstract class Participant
     public void setSpeed (double speed)
     {
         double direction = getDirection();
-        speedX = Math.cos(direction) * speed;
-        speedY = Math.sin(direction) * speed;
+        setSpeeds(Math.cos(direction) * speed, Math.sin(direction) * speed);
     }
 
     /**********************************************************************
@@ -112,23 +351,69 @@ public abstract class Participant
      **********************************************************************/
     public double getDirection ()
     {
-        return Math.atan2(speedY, speedX);
+        return Math.atan2(getSpeedY(), getSpeedX());
     }
 
     /**********************************************************************
-     * Return the speed, in pixels per frame
+     * Return the speed, in pixels per second
      **********************************************************************/
     public double getSpeed ()
     {
+        double speedX = getSpeedX();
+        double speedY = getSpeedY();
         return Math.sqrt(speedX * speedX + speedY * speedY);
     }
 
+    /**********************************************************************
+     * Returns the horizontal part of the velocity, in pixels per second
+     **********************************************************************/
+    public double getSpeedX ()
+    {
+        return (store == null) ? speedX : store.speedX[slot];
+    }
+
+    /**********************************************************************
+     * Returns the vertical part of the velocity, in pixels per second
+     **********************************************************************/
+    public double getSpeedY ()
+    {
+        return (store == null) ? speedY : store.speedY[slot];
+    }
+
+    /**********************************************************************
+     * Sets both parts of the velocity, wherever they are kept
+     **********************************************************************/
+    private void setSpeeds (double speedX, double speedY)
+    {
+        if (store == null)
+        {
+            this.speedX = speedX;
+            this.speedY = speedY;
+        }
+        else
+        {
+            store.speedX[slot] = speedX;
+            store.speedY[slot] = speedY;
+        }
+    }
+
     /**********************************************************************
      * Sets the rotation (in radians) of this Participant
      **********************************************************************/
     public void setRotation (double radians)
     {
-        rotation = normalize(radians);
+        storeRotation(normalize(radians));
+    }
+
+    /**********************************************************************
+     * Sets the position, velocity and rotation exactly as given, as saved
+     * in a Snapshot
+     **********************************************************************/
+    void restoreKinematics (double x, double y, double speedX, double speedY, double rotation)
+    {
+        setPosition(x, y);
+        setSpeeds(speedX, speedY);
+        storeRotation(rotation);
     }
 
     /**********************************************************************
@@ -136,7 +421,7 @@ public abstract class Participant
      **********************************************************************/
     public void rotate (double delta)
     {
-        rotation = normalize(rotation + delta);
+        storeRotation(normalize(getRotation() + delta));
     }
 
     /**********************************************************************
@@ -144,7 +429,22 @@ public abstract class Participant
      **********************************************************************/
     public double getRotation ()
     {
-        return rotation;
+        return (store == null) ? rotation : store.rotation[slot];
+    }
+
+    /**********************************************************************
+     * Sets the rotation, wherever it is kept
+     **********************************************************************/
+    private void storeRotation (double rotation)
+    {
+        if (store == null)
+        {
+            this.rotation = rotation;
+        }
+        else
+        {
+            store.rotation[slot] = rotation;
+        }
     }
 
     /**********************************************************************
@@ -170,15 +470,14 @@ public abstract class Participant
     public void accelerate (double delta)
     {
         // Compute new speeds
-        speedX += delta * Math.cos(rotation);
-        speedY += delta * Math.sin(rotation);
+        double rotation = getRotation();
+        setSpeeds(getSpeedX() + delta * Math.cos(rotation), getSpeedY() + delta * Math.sin(rotation));
 
         // Enforce the speed limit
         if (getSpeed() > SPEED_LIMIT)
         {
             double direction = getDirection();
-            speedX = SPEED_LIMIT * Math.cos(direction);
-            speedY = SPEED_LIMIT * Math.sin(direction);
+            setSpeeds(SPEED_LIMIT * Math.cos(direction), SPEED_LIMIT * Math.sin(direction));
         }
     }
 
@@ -188,13 +487,15 @@ public abstract class Participant
      **********************************************************************/
     public void applyFriction (double coefficientOfFriction)
     {
+        double speedX = getSpeedX();
+        double speedY = getSpeedY();
         if (speedX != 0 || speedY != 0)
         {
             double speed = getSpeed();
             double deltaX = coefficientOfFriction * speedX / speed;
             double deltaY = coefficientOfFriction * speedY / speed;
-            speedX = (Math.abs(deltaX) > Math.abs(speedX)) ? 0 : (speedX + deltaX);
-            speedY = (Math.abs(deltaY) > Math.abs(speedY)) ? 0 : (speedY + deltaY);
+            setSpeeds((Math.abs(deltaX) > Math.abs(speedX)) ? 0 : (speedX + deltaX),
+                      (Math.abs(deltaY) > Math.abs(speedY)) ? 0 : (speedY + deltaY));
         }
     }
 
@@ -203,8 +504,16 @@ public abstract class Participant
      **********************************************************************/
     public void setPosition (double x, double y)
     {
-        this.x = x;
-        this.y = y;
+        if (store == null)
+        {
+            this.x = x;
+            this.y = y;
+        }
+        else
+        {
+            store.x[slot] = x;
+            store.y[slot] = y;
+        }
     }
 
     /**********************************************************************
@@ -212,7 +521,7 @@ public abstract class Participant
      **********************************************************************/
     public double getX ()
     {
-        return x;
+        return (store == null) ? x : store.x[slot];
     }
 
     /**********************************************************************
@@ -220,7 +529,64 @@ public abstract class Participant
      **********************************************************************/
     public double getY ()
     {
-        return y;
+        return (store == null) ? y : store.y[slot];
+    }
+
+    /**********************************************************************
+     * Moves the kinematic state into slot of the store, which keeps it
+     * from now on. The fields keep a copy that is out of date until the
+     * participant leaves the store.
+     **********************************************************************/
+    void enterStore (KinematicStore store, int slot)
+    {
+        double x = getX(), y = getY();
+        double speedX = getSpeedX(), speedY = getSpeedY();
+        double rotation = getRotation();
+        this.store = store;
+        this.slot = slot;
+        setPosition(x, y);
+        setSpeeds(speedX, speedY);
+        storeRotation(rotation);
+    }
+
+    /**********************************************************************
+     * Returns the store that keeps the kinematic state, or null if it is
+     * kept in the fields
+     **********************************************************************/
+    KinematicStore getStore ()
+    {
+        return store;
+    }
+
+    /**********************************************************************
+     * Returns the slot of the store that keeps the kinematic state
+     **********************************************************************/
+    int getSlot ()
+    {
+        return slot;
+    }
+
+    /**********************************************************************
+     * Records that the participant's state has been moved to a new slot
+     * of its store
+     **********************************************************************/
+    void changeSlot (int slot)
+    {
+        this.slot = slot;
+    }
+
+    /**********************************************************************
+     * Copies the kinematic state out of the store back into the fields
+     **********************************************************************/
+    void leaveStore ()
+    {
+        double x = getX(), y = getY();
+        double speedX = getSpeedX(), speedY = getSpeedY();
+        double rotation = getRotation();
+        store = null;
+        setPosition(x, y);
+        setSpeeds(speedX, speedY);
+        storeRotation(rotation);
     }
 
     /***************************************************************************
@@ -232,11 +598,75 @@ public abstract class Participant
      ***************************************************************************/
     protected abstract Shape getOutline ();
 
+    /***************************************************************************
+     * Returns the id in the {@link asteroids.collision.OutlineRegistry} of the
+     * outline of this Participant, or -1, the default, if the outline is to be
+     * worked out from getOutline. A Participant with an id is placed using the
+     * shared Outline registered under it, and getOutline isn't called when it
+     * moves. The Shape registered under the id should be the one getOutline
+     * would return.
+     ***************************************************************************/
+    protected int getOutlineId ()
+    {
+        return -1;
+    }
+
     /***************************************************************************
      * Takes the appropriate action for a collision of this Participant with p.
      ***************************************************************************/
     public abstract void collidedWith (Participant p);
 
+    /***************************************************************************
+     * Returns the interfaces from asteroids.destroyers that collidedWith
+     * reacts to: a collision with a participant that implements none of them
+     * must do nothing. An empty array means that no collision ever affects
+     * this Participant. Returns null, the default, if any collision might.
+     *
+     * The answer must be the same for every Participant of a class. It lets
+     * the pairs that can't affect each other go untested.
+     ***************************************************************************/
+    public Class<?>[] getDestroyedBy ()
+    {
+        return null;
+    }
+
+    /***************************************************************************
+     * Returns the type of this Participant's class in the CollisionRules
+     ***************************************************************************/
+    public int getCollisionType ()
+    {
+        if (collisionType < 0)
+        {
+            collisionType = CollisionRules.typeOf(this);
+        }
+        return collisionType;
+    }
+
+    /**********************************************************************
+     * Returns the number of bytes that writeState writes
+     **********************************************************************/
+    protected int getStateSize ()
+    {
+        return 0;
+    }
+
+    /**********************************************************************
+     * Writes the state of this participant that a {@link Snapshot} needs
+     * beyond its position, velocity, rotation and timers. Participants
+     * with more state than that override this, getStateSize and readState.
+     **********************************************************************/
+    protected void writeState (ByteBuffer buffer)
+    {
+    }
+
+    /**********************************************************************
+     * Reads back the state written by writeState into a participant newly
+     * constructed for a Snapshot
+     **********************************************************************/
+    protected void readState (ByteBuffer buffer)
+    {
+    }
+
     /***************************************************************************
      * This method is called when a {@link asteroids.ParticipantCountdownTimer}
      * that was constructed for this Participant completes its countdown, so
@@ -248,25 +678,37 @@ public abstract class Participant
     }
 
     /**********************************************************************
-     * Moves this participant to reflect one tick of the clock.
+     * Moves this participant to reflect one tick of the clock, which lasts
+     * the given number of seconds.
      **********************************************************************/
-    public void move ()
+    public void move (double seconds)
     {
         // Get the original outline
-        Shape original = getOutline();
+        Outline original = currentOutline();
+
+        // Remember where the participant was. The position is taken after
+        // any wrap from the last move, so that drawing between the two
+        // doesn't sweep across the screen.
+        double x = getX();
+        double y = getY();
+        double rotation = getRotation();
+        lastX = x;
+        lastY = y;
+        lastRotation = border.isPlaced() ? border.getRotation() : rotation;
+        sweeping = false;
 
         // Change the position to reflect participant motion
-        x += speedX;
-        y += speedY;
+        x += getSpeedX() * seconds;
+        y += getSpeedY() * seconds;
 
-        // Translate and rotate the original to reflect the accumulated motion
-        AffineTransform trans = AffineTransform.getTranslateInstance(x, y);
-        trans.concatenate(AffineTransform.getRotateInstance(rotation));
-        border = trans.createTransformedShape(original);
+        // Translate and rotate the original to reflect the accumulated
+        // motion. The border's coordinates are worked out in place, and only
+        // when something asks for them.
+        border.place(original, x, y, rotation);
 
         // If the element has gone sufficiently far out of bounds, move it to
         // the other side of the screen. This change will take effect next time.
-        Rectangle2D bounds = border.getBounds2D();
+        Rectangle2D bounds = border.getBounds();
         if (bounds.getMaxX() < 0)
         {
             x += SIZE + (bounds.getMaxX() - bounds.getMinX());
@@ -283,6 +725,76 @@ public abstract class Participant
         {
             y += -SIZE - (bounds.getMaxY() - bounds.getMinY());
         }
+        setPosition(x, y);
+    }
+
+    /**********************************************************************
+     * Places the border after a KinematicStore has moved this participant
+     * from (fromX,fromY) to (toX,toY), before wrapping. Reports whether
+     * the border has the same outline and rotation as last time, in which
+     * case the store's record of its extent still holds.
+     **********************************************************************/
+    boolean placeBorder (double fromX, double fromY, double toX, double toY)
+    {
+        Outline outline = currentOutline();
+        double rotation = getRotation();
+        boolean same = border.isPlaced() && border.getOutline() == outline && border.getRotation() == rotation;
+        lastX = fromX;
+        lastY = fromY;
+        lastRotation = border.isPlaced() ? border.getRotation() : rotation;
+        sweeping = false;
+        border.place(outline, toX, toY, rotation);
+        return same;
+    }
+
+    /**********************************************************************
+     * Works out the border as placed by the last move, so that overlaps
+     * only reads it until the next move
+     **********************************************************************/
+    public void prepareBorder ()
+    {
+        border.prepare();
+    }
+
+    /**********************************************************************
+     * Returns the Outline to place the border with: the one registered
+     * under the outline id, or if there isn't one, the Outline of the shape
+     **********************************************************************/
+    private Outline currentOutline ()
+    {
+        int id = getOutlineId();
+        return (id >= 0) ? OutlineRegistry.getOutline(id) : outlineOf(getOutline());
+    }
+
+    /**********************************************************************
+     * Returns the farthest any part of the participant's current outline
+     * gets from its center, however the participant is rotated
+     **********************************************************************/
+    double getBoundingRadius ()
+    {
+        return currentOutline().getBoundingRadius();
+    }
+
+    /**********************************************************************
+     * Returns the Outline of the shape, which is usually the same shape as
+     * last time
+     **********************************************************************/
+    private Outline outlineOf (Shape shape)
+    {
+        if (shape != outlineShape)
+        {
+            shapeOutline = Outline.of(shape);
+            outlineShape = shape;
+        }
+        return shapeOutline;
+    }
+
+    /**********************************************************************
+     * Returns the border as placed by the last move
+     **********************************************************************/
+    WorldOutline getBorder ()
+    {
+        return border;
     }
 
     /***************************************************************************
@@ -293,31 +805,163 @@ public abstract class Participant
      ***************************************************************************/
     public void transformPoint (Point2D.Double point)
     {
-        AffineTransform trans = AffineTransform.getTranslateInstance(x, y);
-        trans.concatenate(AffineTransform.getRotateInstance(rotation));
-        trans.transform(point, point);
+        double rotation = getRotation();
+        double cos = Math.cos(rotation);
+        double sin = Math.sin(rotation);
+        point.setLocation(getX() + cos * point.x - sin * point.y, getY() + sin * point.x + cos * point.y);
+    }
+
+    /**********************************************************************
+     * Returns the bounding box of this participant's border as it was
+     * placed by the last move, or null if it has not moved yet. The
+     * rectangle is reused, and is updated in place by later moves.
+     **********************************************************************/
+    public Rectangle2D getBounds ()
+    {
+        return border.isPlaced() ? border.getBounds() : null;
+    }
+
+    /**********************************************************************
+     * Returns the bounds within which to look for collisions with this
+     * participant: the bounds of the whole of the last move if it is being
+     * swept, and otherwise the same as getBounds.
+     **********************************************************************/
+    public Rectangle2D getCollisionBounds ()
+    {
+        return sweeping ? sweptBounds : getBounds();
+    }
+
+    /**********************************************************************
+     * Sweeps the last move for collisions, until the next move. The
+     * collision bounds then cover the whole of the move, and overlaps tests
+     * this participant against fast ones all along it.
+     **********************************************************************/
+    void sweepLastMove ()
+    {
+        if (!border.isPlaced())
+        {
+            return;
+        }
+        Rectangle2D bounds = border.getBounds();
+        double dx = border.getX() - lastX;
+        double dy = border.getY() - lastY;
+        if (sweptBounds == null)
+        {
+            sweptBounds = new Rectangle2D.Double();
+        }
+        sweptBounds.setRect(bounds.getMinX() - Math.max(dx, 0), bounds.getMinY() - Math.max(dy, 0),
+                bounds.getWidth() + Math.abs(dx), bounds.getHeight() + Math.abs(dy));
+        sweeping = true;
+    }
+
+    /**********************************************************************
+     * Reports whether this participant is small enough, or fast enough for
+     * its size, that it could pass right through another participant
+     * between one tick and the next. When both last moves are being swept,
+     * a pair with a fast participant is tested all along the moves rather
+     * than only where they ended. The default is false.
+     **********************************************************************/
+    public boolean isFast ()
+    {
+        return false;
     }
 
     /**********************************************************************
-     * Reports whether this participant overlaps with p.
+     * Reports whether this participant overlaps with p. If both last moves
+     * are being swept and either participant is fast, reports whether they
+     * overlapped at any point during the moves, taking each outline as
+     * moving in a straight line with the rotation it ended with.
      **********************************************************************/
     public boolean overlaps (Participant p)
     {
-        Area a = new Area(border);
-        a.intersect(new Area(p.border));
-        return !a.isEmpty();
+        if (sweeping && p.sweeping && (isFast() || p.isFast()))
+        {
+            return border.overlaps(p.border, (border.getX() - lastX) - (p.border.getX() - p.lastX),
+                    (border.getY() - lastY) - (p.border.getY() - p.lastY));
+        }
+        return border.overlaps(p.border);
     }
 
     /**********************************************************************
-     * Draws this participant
+     * Draws this participant where it was placed by the last move
      **********************************************************************/
     public void draw (Graphics2D g)
     {
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        if (border == null)
+        draw(g, 1);
+    }
+
+    /**********************************************************************
+     * Draws this participant part way between where it was before the last
+     * move (alpha = 0) and where the last move placed it (alpha = 1).
+     * Rendering hints are left to the caller, which sets them once for
+     * the whole frame.
+     **********************************************************************/
+    public void draw (Graphics2D g, double alpha)
+    {
+        g.draw(placeDrawn(alpha).getShape());
+    }
+
+    /**********************************************************************
+     * Adds this participant's outline, placed as draw would place it, to
+     * the end of path. Drawing one path made up of many participants is
+     * much quicker than drawing each of them.
+     **********************************************************************/
+    public void appendTo (Path2D path, double alpha)
+    {
+        placeDrawn(alpha).appendTo(path);
+    }
+
+    /**********************************************************************
+     * Returns the border placed part way between where it was before the
+     * last move (alpha = 0) and where the last move placed it (alpha = 1).
+     * The outline returned is reused, and is only good until the next call
+     * or move.
+     **********************************************************************/
+    WorldOutline placeDrawn (double alpha)
+    {
+        placeUnmoved();
+        if (alpha >= 1)
+        {
+            return border;
+        }
+
+        // Turn the short way round
+        double turn = Math.IEEEremainder(border.getRotation() - lastRotation, 2 * Math.PI);
+
+        if (drawn == null)
+        {
+            drawn = new WorldOutline();
+        }
+        drawn.place(border.getOutline(),
+                    lastX + (border.getX() - lastX) * alpha,
+                    lastY + (border.getY() - lastY) * alpha,
+                    lastRotation + turn * alpha);
+        return drawn;
+    }
+
+    /**********************************************************************
+     * Adds this participant to a snapshot, with where it was before the
+     * last move and where the last move placed it
+     **********************************************************************/
+    void addTo (RenderSnapshot snapshot)
+    {
+        placeUnmoved();
+        snapshot.add(border.getOutline(), BatchRenderer.batchOf(this), lastX, lastY, lastRotation, border.getX(),
+                     border.getY(), border.getRotation());
+    }
+
+    /**********************************************************************
+     * Places the border of a participant that hasn't moved yet at the
+     * origin, so that it can be drawn
+     **********************************************************************/
+    private void placeUnmoved ()
+    {
+        if (!border.isPlaced())
         {
-            border = getOutline();
+            border.place(currentOutline(), 0, 0, 0);
+            lastX = 0;
+            lastY = 0;
+            lastRotation = 0;
         }
-        g.draw(border);
     }
 }
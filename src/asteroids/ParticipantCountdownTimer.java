@@ -1,23 +1,37 @@
 package asteroids;
 
-import javax.swing.*;
-import java.awt.event.*;
-
 /**********************************************************************
  * Provides objects that wait for a certain amount of time to pass 
  * before making a callback to a Participant's countdownComplete method.
+ * 
+ * Time is counted in ticks of the game that the Participant belongs to.
+ * A timer constructed for a Participant that has not yet been added to a
+ * game starts counting down when the Participant is added. The timer is
+ * cancelled if the Participant expires.
  **********************************************************************/
-public class ParticipantCountdownTimer implements ActionListener
+public class ParticipantCountdownTimer
 {
     // Payload that is passed to the countdownComplete method when it is called
     private Object payload;
 
-    // Internal timer
-    private Timer timer;
-
     // Participant to be notified when time expires
     private Participant participant;
 
+    // Milliseconds to wait
+    private int msecs;
+
+    // The participant's next timer, in the order they were constructed
+    ParticipantCountdownTimer nextOfParticipant;
+
+    // Wheel on which the timer is scheduled, or null. The remaining fields
+    // are looked after by the wheel.
+    TimerWheel wheel;
+    long deadline;						// Tick on which the timer is due
+    int slot;							// Slot of the wheel it is linked into, or -1 once due
+    ParticipantCountdownTimer previous;	// Previous timer in the same slot
+    ParticipantCountdownTimer next;		// Next timer in the same slot
+    int rank;							// Place in its slot, as of the last TimerWheel.rank
+
     /*****************************************************************************
      * Constructs an object that waits for the given number of milliseconds to
      * pass before invoking the countdownComplete method on p, passing null as its
@@ -37,18 +51,63 @@ public class ParticipantCountdownTimer implements ActionListener
     {
         this.participant = p;
         this.payload = payload;
-        timer = new Timer(msecs, this);
-        timer.start();
+        this.msecs = msecs;
+        p.addTimer(this);
+    }
+
+    /**********************************************************************
+     * Returns the payload passed to countdownComplete
+     **********************************************************************/
+    Object getPayload ()
+    {
+        return payload;
+    }
+
+    /**********************************************************************
+     * Replaces the payload and delay of a timer that is being restored
+     * from a Snapshot, without scheduling it
+     **********************************************************************/
+    void restore (Object payload, int msecs)
+    {
+        this.payload = payload;
+        this.msecs = msecs;
+    }
+
+    /**********************************************************************
+     * Returns the number of milliseconds the timer waits
+     **********************************************************************/
+    public int getDelay ()
+    {
+        return msecs;
+    }
+
+    /**********************************************************************
+     * Starts the timer counting down again, from the given number of
+     * milliseconds, as though it had just been constructed. This lets a
+     * participant that is used again reuse its timers.
+     **********************************************************************/
+    public void restart (int msecs)
+    {
+        participant.removeTimer(this);
+        this.msecs = msecs;
+        participant.addTimer(this);
+    }
+
+    /**********************************************************************
+     * Stops the timer so that it never makes its callback
+     **********************************************************************/
+    public void cancel ()
+    {
+        participant.removeTimer(this);
     }
 
     /**********************************************************************
-     * When the interval has passed, stops the timer and makes the callback,
-     * as long as the participant has not expired.
+     * When the interval has passed, makes the callback, as long as the
+     * participant has not expired.
      **********************************************************************/
-    @Override
-    public void actionPerformed (ActionEvent e)
+    void countdownComplete ()
     {
-        timer.stop();
+        participant.removeTimer(this);
         if (!participant.isExpired())
         {
             participant.countdownComplete(payload);
@@ -0,0 +1,270 @@
+package asteroids;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**********************************************************************
+ * Keeps the participants of a game grouped by class, so that they can be
+ * counted and visited one type at a time without looking at the rest.
+ * A query for a type covers every class that extends or implements it,
+ * so a query for Bullet finds ship bullets and alien bullets alike.
+ *
+ * A participant is indexed when it is added to the game, including while
+ * its add is still pending, and stops counting as soon as it expires. The
+ * expired participants are only taken out of the groups by compact,
+ * which ParticipantState calls when it removes them from the game. Until
+ * then, queries skip them. This means that participants can expire, and
+ * be added, while a query is visiting the participants.
+ *
+ * Within a class, participants are visited in the order they were added.
+ **********************************************************************/
+public class ParticipantIndex
+{
+    /**********************************************************************
+     * The participants of one class
+     **********************************************************************/
+    private static class Group
+    {
+        Class<?> type;					// The class of the participants
+        Participant[] members;			// The participants, some of which may have expired
+        int size;						// Number of entries in members
+        int live;						// Number of those that have not expired
+
+        Group (Class<?> type)
+        {
+            this.type = type;
+            members = new Participant[16];
+        }
+    }
+
+    private ArrayList<Group> groups;						// A group for each class seen so far
+    private IdentityHashMap<Class<?>, Group> groupOfClass;	// The group for each class
+    private IdentityHashMap<Class<?>, Group[]> matches;		// The groups that each type queried covers
+
+    /**********************************************************************
+     * Creates an empty index
+     **********************************************************************/
+    public ParticipantIndex ()
+    {
+        groups = new ArrayList<Group>();
+        groupOfClass = new IdentityHashMap<Class<?>, Group>();
+        matches = new IdentityHashMap<Class<?>, Group[]>();
+    }
+
+    /**********************************************************************
+     * Indexes p, unless it has expired or is already indexed
+     **********************************************************************/
+    void add (Participant p)
+    {
+        if (p.isExpired() || p.getIndex() != null)
+        {
+            return;
+        }
+        Group group = groupOf(p.getClass());
+        if (group.size == group.members.length)
+        {
+            Participant[] larger = new Participant[2 * group.size];
+            System.arraycopy(group.members, 0, larger, 0, group.size);
+            group.members = larger;
+        }
+        group.members[group.size++] = p;
+        group.live++;
+        p.setIndex(this);
+    }
+
+    /**********************************************************************
+     * Records that p, which is indexed here, has expired
+     **********************************************************************/
+    void expired (Participant p)
+    {
+        groupOf(p.getClass()).live--;
+    }
+
+    /**********************************************************************
+     * Takes the expired participants out of their groups, keeping the rest
+     * in order
+     **********************************************************************/
+    void compact ()
+    {
+        for (Group group : groups)
+        {
+            if (group.live == group.size)
+            {
+                continue;
+            }
+            int kept = 0;
+            for (int i = 0; i < group.size; i++)
+            {
+                Participant p = group.members[i];
+                if (p.isExpired())
+                {
+                    p.setIndex(null);
+                }
+                else
+                {
+                    group.members[kept++] = p;
+                }
+            }
+            for (int i = kept; i < group.size; i++)
+            {
+                group.members[i] = null;
+            }
+            group.size = kept;
+        }
+    }
+
+    /**********************************************************************
+     * Takes every participant out of the index
+     **********************************************************************/
+    void clear ()
+    {
+        for (Group group : groups)
+        {
+            for (int i = 0; i < group.size; i++)
+            {
+                group.members[i].setIndex(null);
+                group.members[i] = null;
+            }
+            group.size = 0;
+            group.live = 0;
+        }
+    }
+
+    /**********************************************************************
+     * Returns the number of participants of the given type that have been
+     * added and have not expired
+     **********************************************************************/
+    public int count (Class<?> type)
+    {
+        int count = 0;
+        for (Group group : groupsOf(type))
+        {
+            count += group.live;
+        }
+        return count;
+    }
+
+    /**********************************************************************
+     * Performs the action on each participant of the given type that has
+     * been added and has not expired
+     **********************************************************************/
+    public <T> void forEach (Class<T> type, Consumer<? super T> action)
+    {
+        for (Group group : groupsOf(type))
+        {
+            for (int i = 0; i < group.size; i++)
+            {
+                Participant p = group.members[i];
+                if (!p.isExpired())
+                {
+                    action.accept(type.cast(p));
+                }
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Returns the participants of the given type that have been added and
+     * have not expired, to be used in a for-each loop
+     **********************************************************************/
+    public <T> Iterable<T> all (final Class<T> type)
+    {
+        final Group[] covered = groupsOf(type);
+        return new Iterable<T>()
+        {
+            @Override
+            public Iterator<T> iterator ()
+            {
+                return new Iterator<T>()
+                {
+                    private int group = 0;			// Group of the next participant
+                    private int member = -1;		// Its place in the group
+
+                    {
+                        advance();
+                    }
+
+                    // Moves on to the next participant that has not expired
+                    private void advance ()
+                    {
+                        member++;
+                        while (group < covered.length)
+                        {
+                            Group g = covered[group];
+                            while (member < g.size && g.members[member].isExpired())
+                            {
+                                member++;
+                            }
+                            if (member < g.size)
+                            {
+                                return;
+                            }
+                            group++;
+                            member = 0;
+                        }
+                    }
+
+                    @Override
+                    public boolean hasNext ()
+                    {
+                        return group < covered.length;
+                    }
+
+                    @Override
+                    public T next ()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        T p = type.cast(covered[group].members[member]);
+                        advance();
+                        return p;
+                    }
+                };
+            }
+        };
+    }
+
+    /**********************************************************************
+     * Returns the group for participants of exactly the given class,
+     * creating it if need be
+     **********************************************************************/
+    private Group groupOf (Class<?> type)
+    {
+        Group group = groupOfClass.get(type);
+        if (group == null)
+        {
+            group = new Group(type);
+            groups.add(group);
+            groupOfClass.put(type, group);
+            matches.clear();
+        }
+        return group;
+    }
+
+    /**********************************************************************
+     * Returns the groups whose classes extend or implement the given type
+     **********************************************************************/
+    private Group[] groupsOf (Class<?> type)
+    {
+        Group[] covered = matches.get(type);
+        if (covered == null)
+        {
+            ArrayList<Group> found = new ArrayList<Group>();
+            for (Group group : groups)
+            {
+                if (type.isAssignableFrom(group.type))
+                {
+                    found.add(group);
+                }
+            }
+            covered = found.toArray(new Group[found.size()]);
+            matches.put(type, covered);
+        }
+        return covered;
+    }
+}
@@ -1,10 +1,23 @@
 package asteroids;
 
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
+import jdk.jfr.EventType;
+
+import asteroids.collision.BroadPhase;
+import asteroids.collision.CandidateList;
+import asteroids.collision.CollisionRules;
+import asteroids.collision.ParallelCollisionFinder;
+import asteroids.collision.UniformGridBroadPhase;
+import asteroids.jfr.CollisionCheckEvent;
+import asteroids.jfr.ExpirationEvent;
+import asteroids.jfr.SpawnEvent;
 import asteroids.participants.Asteroid;
 import asteroids.participants.ShipBullet;
 
@@ -14,32 +27,282 @@ import asteroids.participants.ShipBullet;
  **********************************************************************/
 public class ParticipantState
 {
+    /**********************************************************************
+     * Fewest participants for which moves and collisions are worked out in
+     * parallel, if no other threshold is given.
+     *
+     * This is a guess, not a measurement. It is meant to be safely above
+     * the point where handing chunks of 128 participants to other threads
+     * starts to pay, but the point depends on the machine. To find it, run
+     * ParticipantStateBenchmark with its parallelism and count parameters
+     * on the machine in question, and pass what it shows to
+     * setParallelThreshold.
+     **********************************************************************/
+    public final static int DEFAULT_PARALLEL_THRESHOLD = 1024;
+
+    /**********************************************************************
+     * Number of participants moved by each task when moving on a
+     * ForkJoinPool without a kinematic store
+     **********************************************************************/
+    public final static int MOVE_CHUNK_SIZE = 512;
+
+    // Types of the flight recording events
+    private final static EventType COLLISION_CHECK_EVENTS = EventType.getEventType(CollisionCheckEvent.class);
+    private final static EventType SPAWN_EVENTS = EventType.getEventType(SpawnEvent.class);
+    private final static EventType EXPIRATION_EVENTS = EventType.getEventType(ExpirationEvent.class);
+
     // The participants (asteroids, ships, etc.) that are involved in the game
     private LinkedList<Participant> participants;
 
-    // Participants that are waiting to be added to the game
+    // Participants that are waiting to be added to the game, in the order
+    // they were added, so that the list order doesn't vary from run to run
     private Set<Participant> pendingAdds;
+
+    // The participants, including the pending ones, grouped by type
+    private ParticipantIndex index;
+
+    // Narrows down the pairs of participants that need to be checked for
+    // collisions
+    private BroadPhase broadPhase;
+
+    // The participants in list order while collisions are being checked, so
+    // that the broad phase can refer to them by index. Also used to split
+    // up the participants when they are moved in parallel.
+    private Participant[] collisionOrder;
+
+    // Candidates reported by the broad phase for one participant
+    private CandidateList candidates;
+
+    // Length in seconds of the tick simulated by each call to moveParticipants
+    private double tickLength;
+
+    // Runs the countdown timers of the participants
+    private TimerWheel timers;
+
+    // Keeps the kinematic state of the participants in arrays, or null if
+    // each participant keeps its own
+    private KinematicStore kinematics;
+
+    // Threads that move participants and find collisions, or null if that
+    // is always done on the calling thread
+    private ForkJoinPool pool;
+
+    // Finds colliding pairs on the pool, or null if there is no pool
+    private ParallelCollisionFinder finder;
+
+    // Fewest participants for which the pool is used
+    private int parallelThreshold;
+
+    // Where the phases of each step are timed, or null
+    private FrameStats stats;
+
+    // Pairs tested for overlap during the last check for collisions
+    private int pairsTested;
+
+    // Pairs found to overlap, and dealt with as collisions, during the last
+    // check for collisions
+    private int hits;
+
+    // Participants searched for collisions during the last check
+    private int searched;
+
+    // Are the last moves of the participants swept for collisions?
+    private boolean sweptCollisions;
+
+    // Are the participants and pairs that can't affect each other left
+    // out of the search for collisions?
+    private boolean filteredCollisions;
     
     /**********************************************************************
-     * Creates an empty ParticipantState.
+     * Creates an empty ParticipantState that moves participants by ticks
+     * of 1/TICK_RATE seconds.
      **********************************************************************/
     public ParticipantState ()
     {
+        this(1 / Constants.TICK_RATE);
+    }
+
+    /**********************************************************************
+     * Creates an empty ParticipantState that moves participants by ticks
+     * of the given number of seconds.
+     **********************************************************************/
+    public ParticipantState (double tickLength)
+    {
+        this.tickLength = tickLength;
+        timers = new TimerWheel(tickLength);
         // No participants at the start
         participants = new LinkedList<Participant>();
-        pendingAdds = new HashSet<Participant>();
+        pendingAdds = new LinkedHashSet<Participant>();
+        index = new ParticipantIndex();
+        broadPhase = new UniformGridBroadPhase();
+        collisionOrder = new Participant[16];
+        candidates = new CandidateList();
+        parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        filteredCollisions = true;
+    }
+
+    /**********************************************************************
+     * Replaces the broad phase used to find the pairs of participants that
+     * might be colliding.
+     **********************************************************************/
+    public void setBroadPhase (BroadPhase broadPhase)
+    {
+        this.broadPhase = broadPhase;
     }
     
     /**********************************************************************
-     * Clears out the state.
+     * Keeps the positions, velocities and rotations of the participants
+     * in the given store, which must be empty, or in the participants
+     * themselves if it is null.
+     **********************************************************************/
+    public void setKinematicStore (KinematicStore store)
+    {
+        if (kinematics != null)
+        {
+            kinematics.clear();
+        }
+        kinematics = store;
+        if (kinematics != null)
+        {
+            for (Participant p : participants)
+            {
+                if (!p.isExpired())
+                {
+                    kinematics.add(p);
+                }
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Returns the store that keeps the participants' kinematic state, or
+     * null if the participants keep their own
+     **********************************************************************/
+    public KinematicStore getKinematicStore ()
+    {
+        return kinematics;
+    }
+
+    /**********************************************************************
+     * Moves the participants and checks for collisions on the threads of
+     * the given pool whenever there are at least as many participants as
+     * the parallel threshold, or always on the calling thread if the pool
+     * is null. Either way the results are the same: participants that
+     * override move, and the collisions, are dealt with on the calling
+     * thread in the usual order.
+     **********************************************************************/
+    public void setForkJoinPool (ForkJoinPool pool)
+    {
+        this.pool = pool;
+        finder = (pool == null) ? null : new ParallelCollisionFinder(pool);
+    }
+
+    /**********************************************************************
+     * Returns the pool used to move participants and check for collisions,
+     * or null if that is done on the calling thread
+     **********************************************************************/
+    public ForkJoinPool getForkJoinPool ()
+    {
+        return pool;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if threshold is negative.
+     *
+     * Sets the fewest participants for which moves and collisions are
+     * worked out on the fork-join pool. Below that, splitting up the work
+     * costs more than it saves.
+     **********************************************************************/
+    public void setParallelThreshold (int threshold)
+    {
+        if (threshold < 0)
+        {
+            throw new IllegalArgumentException("Invalid parallel threshold: " + threshold);
+        }
+        parallelThreshold = threshold;
+    }
+
+    /**********************************************************************
+     * Returns the fewest participants for which moves and collisions are
+     * worked out on the fork-join pool
+     **********************************************************************/
+    public int getParallelThreshold ()
+    {
+        return parallelThreshold;
+    }
+
+    /**********************************************************************
+     * Sets whether collisions are swept. Otherwise two participants only
+     * collide if they overlap where a tick leaves them, so a bullet, which
+     * moves many times its own size in a tick, can pass right through an
+     * asteroid between ticks, and does so more often the lower the tick
+     * rate. When collisions are swept, pairs with a fast participant (see
+     * Participant.isFast) are tested all along their last moves, so the
+     * game can run at a lower tick rate without missing hits. Collisions
+     * aren't swept unless this is called.
+     **********************************************************************/
+    public void setSweptCollisions (boolean swept)
+    {
+        sweptCollisions = swept;
+    }
+
+    /**********************************************************************
+     * Reports whether collisions are swept
+     **********************************************************************/
+    public boolean isSweptCollisions ()
+    {
+        return sweptCollisions;
+    }
+
+    /**********************************************************************
+     * Sets whether the CollisionRules are used to leave inert participants
+     * out of the search for collisions, and to skip pairs that can't
+     * affect each other before testing them for overlap. Neither changes
+     * the outcome of a game, only how much work finding the collisions
+     * takes, so this is only turned off to check that. Collisions are
+     * filtered unless this is called.
+     **********************************************************************/
+    public void setFilteredCollisions (boolean filtered)
+    {
+        filteredCollisions = filtered;
+    }
+
+    /**********************************************************************
+     * Reports whether collisions are filtered by the CollisionRules
+     **********************************************************************/
+    public boolean isFilteredCollisions ()
+    {
+        return filteredCollisions;
+    }
+
+    /**********************************************************************
+     * Clears out the state. The participants, including those whose adds
+     * are pending, are expired and go back to their pools.
      **********************************************************************/
     public void clear ()
     {
-        pendingAdds.clear();
+        index.clear();
+        for (Participant p : pendingAdds)
+        {
+            Participant.expire(p);
+        }
         for (Participant p : participants)
         {
             Participant.expire(p);
         }
+        if (kinematics != null)
+        {
+            kinematics.clear();
+        }
+        for (Participant p : pendingAdds)
+        {
+            p.recycle();
+        }
+        for (Participant p : participants)
+        {
+            p.recycle();
+        }
+        pendingAdds.clear();
         participants.clear();
     }  
 
@@ -49,8 +312,51 @@ public class ParticipantState
     public void addParticipant (Participant p)
     {
         pendingAdds.add(p);
+        index.add(p);
     }
     
+    /**********************************************************************
+     * Adds a participant restored from a Snapshot straight to the active
+     * participants, as though its add had already been completed. Its
+     * timers are scheduled by the Snapshot.
+     **********************************************************************/
+    void restoreParticipant (Participant p)
+    {
+        participants.add(p);
+        p.getCollisionType();
+        index.add(p);
+        p.joinWheel(timers);
+        if (kinematics != null)
+        {
+            kinematics.add(p);
+        }
+    }
+
+    /**********************************************************************
+     * Returns the active participants, in list order
+     **********************************************************************/
+    Collection<Participant> getActive ()
+    {
+        return participants;
+    }
+
+    /**********************************************************************
+     * Returns the participants whose adds are pending, in the order they
+     * were added
+     **********************************************************************/
+    Collection<Participant> getPending ()
+    {
+        return pendingAdds;
+    }
+
+    /**********************************************************************
+     * Returns the wheel that runs the participants' countdown timers
+     **********************************************************************/
+    public TimerWheel getTimerWheel ()
+    {
+        return timers;
+    }
+
     /**********************************************************************
      * Returns an iterator over the active participants
      **********************************************************************/
@@ -59,94 +365,222 @@ public class ParticipantState
         return participants.iterator();
     }
 
+    /**********************************************************************
+     * Returns the index of the participants by type, which counts and
+     * visits the participants of one type without looking at the rest
+     **********************************************************************/
+    public ParticipantIndex getIndex ()
+    {
+        return index;
+    }
+
+    /**********************************************************************
+     * Returns the number of participants of the given type, including
+     * those whose adds are pending, that have not expired
+     **********************************************************************/
+    public int count (Class<?> type)
+    {
+        return index.count(type);
+    }
+
     /**********************************************************************
      * Counts the bullets fired by the ship and returns that count
      **********************************************************************/
     public int countFiredShipBullets()
     {
-    	// Reset count
-        int count = 0;
-        
-        // Counts all the already fired bullets
-        for(Iterator iterator = participants.iterator(); iterator.hasNext();)
+        return index.count(ShipBullet.class);
+    }
+    
+    /**********************************************************************
+     * Returns the number of asteroids that are active participants
+     **********************************************************************/
+    public int countAsteroids ()
+    {
+        return index.count(Asteroid.class);
+    }
+    
+    /**********************************************************************
+     * Moves each of the active participants to simulate the passage of one
+     * tick.
+     **********************************************************************/
+    public void moveParticipants ()
+    {
+        long start = (stats != null) ? System.nanoTime() : 0;
+
+        // Set off the countdown timers that are due
+        timers.advance();
+
+        // Move all of the active participants
+        moveActive();
+        long moved = (stats != null) ? System.nanoTime() : 0;
+
+        // If there have been any collisions, deal with them. This may result
+        // in new participants being added or old ones expiring. We save those
+        // changes until after all of the collisions have been processed.
+        int count = participants.size();
+        CollisionCheckEvent check = null;
+        if (COLLISION_CHECK_EVENTS.isEnabled())
+        {
+            check = new CollisionCheckEvent();
+            check.begin();
+        }
+        checkForCollisions();
+        if (check != null && check.shouldCommit())
         {
-            Participant p = (Participant)iterator.next();
-            if((p instanceof ShipBullet) && !p.isExpired())
-                count++;
+            check.participants = searched;
+            check.pairsTested = pairsTested;
+            check.hits = hits;
+            check.parallel = finder != null && searched >= parallelThreshold;
+            check.commit();
         }
+        long collided = (stats != null) ? System.nanoTime() : 0;
+
+        // Deal with pending adds and expirations
+        completeAddsAndRemoves();
 
-        // Counts all the bullets that were pending to be added to the participants
-        for(Iterator iterator1 = pendingAdds.iterator(); iterator1.hasNext();)
+        if (stats != null)
         {
-            Participant p = (Participant)iterator1.next();
-            if((p instanceof ShipBullet) && !p.isExpired())
-                count++;
+            stats.record(FrameStats.Phase.MOVE, moved - start);
+            stats.record(FrameStats.Phase.COLLISIONS, collided - moved);
+            stats.record(FrameStats.Phase.ADDS_REMOVES, System.nanoTime() - collided);
+            stats.recordCollisions(count, pairsTested);
         }
+    }
 
-        return count;
+    /**********************************************************************
+     * Sets where the phases of moveParticipants are timed, or null to
+     * stop timing them
+     **********************************************************************/
+    public void setStats (FrameStats stats)
+    {
+        this.stats = stats;
     }
-    
+
     /**********************************************************************
-     * Returns the number of asteroids that are active participants
+     * Returns the number of pairs of participants tested for overlap the
+     * last time collisions were checked for
      **********************************************************************/
-    public int countAsteroids ()
+    public int getPairsTested ()
     {
-        int count = 0;						// Reset count
-        
-        // Counts all the already available asteroids
-        for (Participant p : participants)
+        return pairsTested;
+    }
+
+    /**********************************************************************
+     * Returns the number of pairs of participants found to overlap the
+     * last time collisions were checked for
+     **********************************************************************/
+    public int getHits ()
+    {
+        return hits;
+    }
+
+    /**********************************************************************
+     * Moves each of the participants that has not expired by one tick,
+     * using the kinematic store if there is one.
+     *
+     * With a fork-join pool and enough participants, the participants that
+     * don't override move are moved on the pool, and then the rest are
+     * moved in list order on the calling thread. A move only changes the
+     * participant being moved and never looks at the others, so this gives
+     * the same results as moving them all in list order.
+     **********************************************************************/
+    void moveActive ()
+    {
+        boolean parallel = pool != null && participants.size() >= parallelThreshold;
+        if (kinematics != null)
         {
-            if (p instanceof Asteroid && !p.isExpired())
-            {
-                count++;
-            }
+            kinematics.move(tickLength, parallel ? pool : null);
         }
-        
-        // Counts all the asteroids pending to be added
-        for (Participant p : pendingAdds)
+        else if (parallel)
+        {
+            moveInParallel();
+        }
+        else
         {
-            if (p instanceof Asteroid && !p.isExpired())
+            for (Participant p : participants)
             {
-                count++;
+                if (!p.isExpired())
+                {
+                    p.move(tickLength);
+                }
             }
         }
-        
-        return count;					// Return the number of active asteroids
     }
-    
+
     /**********************************************************************
-     * Moves each of the active participants to simulate the passage of time.
+     * Moves the plain participants on the pool, then the custom movers on
+     * the calling thread
      **********************************************************************/
-    public void moveParticipants ()
+    private void moveInParallel ()
     {
-        // Move all of the active participants
+        int count = participants.size();
+        if (collisionOrder.length < count)
+        {
+            collisionOrder = new Participant[Math.max(count, 2 * collisionOrder.length)];
+        }
+        int n = 0;
         for (Participant p : participants)
         {
-            if (!p.isExpired())
-            {
-                p.move();
-            }
+            collisionOrder[n++] = p;
         }
 
-        // If there have been any collisions, deal with them. This may result
-        // in new participants being added or old ones expiring. We save those
-        // changes until after all of the collisions have been processed.
-        checkForCollisions();
+        ChunkedAction.invoke(pool, ChunkedAction.countChunks(count, MOVE_CHUNK_SIZE), chunk ->
+        {
+            int end = Math.min(count, (chunk + 1) * MOVE_CHUNK_SIZE);
+            for (int i = chunk * MOVE_CHUNK_SIZE; i < end; i++)
+            {
+                Participant p = collisionOrder[i];
+                if (!p.isExpired() && !KinematicStore.isCustomMover(p))
+                {
+                    p.move(tickLength);
+                }
+            }
+        });
 
-        // Deal with pending adds and expirations
-        completeAddsAndRemoves();
+        for (int i = 0; i < count; i++)
+        {
+            Participant p = collisionOrder[i];
+            if (!p.isExpired() && KinematicStore.isCustomMover(p))
+            {
+                p.move(tickLength);
+            }
+        }
+        Arrays.fill(collisionOrder, 0, count, null);
     }
 
     /**********************************************************************
-     * Completes any adds and removes that have been requested.
+     * Completes any adds and removes that have been requested. This,
+     * moveActive and checkForCollisions are visible within the package so
+     * that they can be benchmarked on their own. Participants that are
+     * removed go back to their pools. A flight recording gets a spawn event
+     * for each participant added, unless it had expired while it was
+     * pending, and an expiration event for each removed.
      **********************************************************************/
-    private void completeAddsAndRemoves ()
+    void completeAddsAndRemoves ()
     {
         // Note: These updates are saved up and done later to avoid modifying
         // the participants list while it is being iterated over
         for (Participant p : pendingAdds)
         {
             participants.add(p);
+            p.getCollisionType();
+            if (!p.isExpired())
+            {
+                if (SPAWN_EVENTS.isEnabled())
+                {
+                    SpawnEvent spawn = new SpawnEvent();
+                    if (spawn.shouldCommit())
+                    {
+                        spawn.type = p.getClass();
+                        spawn.commit();
+                    }
+                }
+                p.startTimers(timers);
+                if (kinematics != null)
+                {
+                    kinematics.add(p);
+                }
+            }
         }
         pendingAdds.clear();
 
@@ -157,8 +591,23 @@ public class ParticipantState
             if (p.isExpired())
             {
                 iter.remove();
+                if (EXPIRATION_EVENTS.isEnabled())
+                {
+                    ExpirationEvent expiration = new ExpirationEvent();
+                    if (expiration.shouldCommit())
+                    {
+                        expiration.type = p.getClass();
+                        expiration.commit();
+                    }
+                }
+                if (kinematics != null && p.getStore() == kinematics)
+                {
+                    kinematics.remove(p);
+                }
+                p.recycle();
             }
         }
+        index.compact();
     }
     
 
@@ -166,28 +615,130 @@ public class ParticipantState
      * Compares each pair of elements to detect collisions, then notifies all
      * listeners of any found. Deals with each pair only once. Never deals with
      * (p1,p2) and then again with (p2,p1).
+     * 
+     * Only the pairs reported by the broad phase are compared. They are
+     * visited in the same order as a comparison of every pair would visit
+     * them: each participant in list order, paired with the participants
+     * after it starting from the end of the list.
+     *
+     * With a fork-join pool and enough participants, the pairs that overlap
+     * are all found first, on the pool, and then dealt with in that same
+     * order. Whether two participants overlap only depends on where their
+     * last move placed them, so the only difference a collision can make to
+     * the ones after it is to expire participants, and pairs with a
+     * participant that has expired by the time they come up are skipped.
+     *
+     * Unless collisions aren't filtered, participants whose class the
+     * CollisionRules find inert, such as debris, are left out before the
+     * broad phase is built, and pairs whose classes can't affect each other
+     * are skipped before the overlap test. Neither would have done anything
+     * in collidedWith.
+     *
+     * If collisions are swept, the last move of every participant searched
+     * is swept before the broad phase is built, so that the broad phase
+     * sees the whole of each move.
      **********************************************************************/
-    private void checkForCollisions ()
+    void checkForCollisions ()
     {
-        for (Participant p1 : participants)
+        int count = participants.size();
+        if (collisionOrder.length < count)
         {
+            collisionOrder = new Participant[Math.max(count, 2 * collisionOrder.length)];
+        }
+        int n = 0;
+        for (Participant p : participants)
+        {
+            if (!filteredCollisions || !CollisionRules.isInert(p.getCollisionType()))
+            {
+                if (sweptCollisions)
+                {
+                    p.sweepLastMove();
+                }
+                collisionOrder[n++] = p;
+            }
+        }
+
+        searched = n;
+        if (finder != null && n >= parallelThreshold)
+        {
+            findCollisionsInParallel(n);
+        }
+        else
+        {
+            findCollisions(n);
+        }
+
+        // Don't hang on to participants that are about to be removed
+        Arrays.fill(collisionOrder, 0, n, null);
+    }
+
+    /**********************************************************************
+     * Finds and deals with the collisions among the first count
+     * participants of collisionOrder on the calling thread
+     **********************************************************************/
+    private void findCollisions (int count)
+    {
+        int tested = 0;
+        int overlapping = 0;
+        broadPhase.rebuild(collisionOrder, count);
+        for (int i = 0; i < count; i++)
+        {
+            Participant p1 = collisionOrder[i];
             if (!p1.isExpired())
             {
-                Iterator<Participant> iter = participants.descendingIterator();
-                while (iter.hasNext())
+                int type1 = p1.getCollisionType();
+                broadPhase.findCandidates(i, candidates);
+                for (int k = candidates.size() - 1; k >= 0; k--)
                 {
-                    Participant p2 = iter.next();
-                    if (p1 == p2)
-                        break;
-                    if (!p2.isExpired() && p1.overlaps(p2))
+                    Participant p2 = collisionOrder[candidates.get(k)];
+                    if (!p2.isExpired()
+                        && (!filteredCollisions || CollisionRules.interact(type1, p2.getCollisionType())))
                     {
-                        p1.collidedWith(p2);
-                        p2.collidedWith(p1);
+                        tested++;
+                        if (p1.overlaps(p2))
+                        {
+                            overlapping++;
+                            p1.collidedWith(p2);
+                            p2.collidedWith(p1);
+                        }
                     }
                     if (p1.isExpired())
                         break;
                 }
             }
         }
+        pairsTested = tested;
+        hits = overlapping;
+    }
+
+    /**********************************************************************
+     * Finds the collisions among the first count participants of
+     * collisionOrder on the fork-join pool, then deals with them on the
+     * calling thread
+     **********************************************************************/
+    private void findCollisionsInParallel (int count)
+    {
+        finder.prepare(collisionOrder, count);
+        broadPhase.rebuild(collisionOrder, count);
+        finder.find(collisionOrder, count, broadPhase, filteredCollisions);
+        pairsTested = finder.getPairsTested();
+        hits = 0;
+
+        // Overlaps with a participant that an earlier hit expired are
+        // skipped, as findCollisions never finds them
+        for (int c = 0; c < finder.getChunkCount(); c++)
+        {
+            for (int h = 0; h < finder.getHitCount(c); h++)
+            {
+                Participant p1 = collisionOrder[finder.getFirst(c, h)];
+                Participant p2 = collisionOrder[finder.getSecond(c, h)];
+                if (!p1.isExpired() && !p2.isExpired())
+                {
+                    hits++;
+                    p1.collidedWith(p2);
+                    p2.collidedWith(p1);
+                }
+            }
+        }
     }
 }
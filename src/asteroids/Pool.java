@@ -0,0 +1,161 @@
+package asteroids;
+
+/**********************************************************************
+ * Holds participants of one type that have been removed from a game, so
+ * that they can be used again instead of constructing new ones. The pool
+ * holds at most its capacity; participants recycled beyond that are left
+ * to the garbage collector.
+ *
+ * A participant is only ever recycled into the pool that adopted it.
+ * Taking counts as a hit if the pool had a participant to give, and as a
+ * miss otherwise, so that the caller had to construct one.
+ **********************************************************************/
+public class Pool<T extends Participant>
+{
+    /**********************************************************************
+     * Number of participants a pool holds if no capacity is given
+     **********************************************************************/
+    public final static int DEFAULT_CAPACITY = 256;
+
+    private Participant[] free;		// Participants ready to be taken
+    private int size;				// Number of participants in free
+    private int capacity;			// Most participants the pool will hold
+    private long hits;				// Number of takes that returned a participant
+    private long misses;			// Number of takes that returned null
+    private long dropped;			// Number of recycles turned away because the pool was full
+
+    /**********************************************************************
+     * Creates an empty pool of DEFAULT_CAPACITY
+     **********************************************************************/
+    public Pool ()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if capacity is negative.
+     *
+     * Creates an empty pool that holds at most capacity participants. A
+     * capacity of zero turns pooling off.
+     **********************************************************************/
+    public Pool (int capacity)
+    {
+        free = new Participant[0];
+        setCapacity(capacity);
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if capacity is negative.
+     *
+     * Changes the most participants the pool will hold. If it holds more
+     * than that already, the extra ones are let go.
+     **********************************************************************/
+    public void setCapacity (int capacity)
+    {
+        if (capacity < 0)
+        {
+            throw new IllegalArgumentException("Invalid pool capacity: " + capacity);
+        }
+        for (int i = capacity; i < size; i++)
+        {
+            free[i].leavePool();
+            free[i] = null;
+        }
+        size = Math.min(size, capacity);
+        this.capacity = capacity;
+    }
+
+    /**********************************************************************
+     * Returns the most participants the pool will hold
+     **********************************************************************/
+    public int getCapacity ()
+    {
+        return capacity;
+    }
+
+    /**********************************************************************
+     * Returns the number of participants waiting in the pool
+     **********************************************************************/
+    public int size ()
+    {
+        return size;
+    }
+
+    /**********************************************************************
+     * Returns the number of takes that returned a participant
+     **********************************************************************/
+    public long getHits ()
+    {
+        return hits;
+    }
+
+    /**********************************************************************
+     * Returns the number of takes that found the pool empty
+     **********************************************************************/
+    public long getMisses ()
+    {
+        return misses;
+    }
+
+    /**********************************************************************
+     * Returns the number of participants that could not be recycled
+     * because the pool was full
+     **********************************************************************/
+    public long getDropped ()
+    {
+        return dropped;
+    }
+
+    /**********************************************************************
+     * Records that p, which has just been constructed, goes back to this
+     * pool when it is removed from its game
+     **********************************************************************/
+    public void adopt (T p)
+    {
+        ((Participant) p).setPool(this);
+    }
+
+    /**********************************************************************
+     * Returns a participant from the pool, or null if it is empty. The
+     * participant still holds its old state, so the caller must reset it.
+     **********************************************************************/
+    @SuppressWarnings("unchecked")
+    public T take ()
+    {
+        if (size == 0)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        Participant p = free[--size];
+        free[size] = null;
+        p.leavePool();
+        return (T) p;
+    }
+
+    /**********************************************************************
+     * Puts a participant that has been removed from its game back into the
+     * pool, unless the pool is full or already holds it
+     **********************************************************************/
+    void recycle (Participant p)
+    {
+        if (p.isInPool())
+        {
+            return;
+        }
+        if (size == capacity)
+        {
+            dropped++;
+            return;
+        }
+        if (size == free.length)
+        {
+            Participant[] larger = new Participant[Math.min(capacity, Math.max(16, 2 * size))];
+            System.arraycopy(free, 0, larger, 0, size);
+            free = larger;
+        }
+        p.enterPool();
+        free[size++] = p;
+    }
+}
@@ -0,0 +1,261 @@
+package asteroids;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import asteroids.collision.Outline;
+import asteroids.collision.WorldOutline;
+
+/**********************************************************************
+ * Everything needed to draw a frame of a game, copied out of the game at
+ * the end of a tick, so that the frame can be drawn on one thread while
+ * the game goes on ticking on another. For each participant it holds the
+ * outline and batch, and where the participant was placed before and
+ * after the tick, so that frames between ticks can place it part way.
+ * Alongside are the values shown around the action: score, lives, level
+ * and legend, and the tick stats for the overlay.
+ *
+ * A snapshot is filled in over and over rather than made afresh. Its
+ * arrays only grow, so filling it allocates nothing once it is big
+ * enough.
+ **********************************************************************/
+public class RenderSnapshot
+{
+    private int count;							// Number of participants
+    private Outline[] outlines;					// Outline of each participant
+    private BatchRenderer.Batch[] batches;		// Batch each is drawn in
+    private double[] poses;						// Last x, y, rotation and x, y, rotation of each
+
+    private long tick;							// Tick the snapshot was taken after
+    private long tickTime;						// System.nanoTime the tick was due
+    private long tickNanos;						// Length of a tick in nanoseconds
+    private int score;							// Score
+    private int lives;							// Lives left
+    private int level;							// Level
+    private boolean over;						// Is the game over?
+    private String legend;						// Legend across the screen
+
+    private boolean hasStats;					// Are the stats below filled in?
+    private int participants;					// Participants on the last tick
+    private int pairsTested;					// Pairs tested for collisions on the last tick
+    private long tickP50, tickP99, tickMax;		// Percentiles of the tick time
+
+    /**********************************************************************
+     * Creates an empty snapshot
+     **********************************************************************/
+    public RenderSnapshot ()
+    {
+        outlines = new Outline[16];
+        batches = new BatchRenderer.Batch[16];
+        poses = new double[6 * 16];
+        tickNanos = 1;
+        legend = "";
+    }
+
+    /**********************************************************************
+     * Fills the snapshot from a game, whose last tick was due at the given
+     * System.nanoTime. The tick stats are copied only if withStats is true,
+     * since working out their percentiles takes a while.
+     **********************************************************************/
+    public void capture (Game game, long tickTime, String legend, boolean withStats)
+    {
+        count = 0;
+        Iterator<Participant> iter = game.getParticipants();
+        while (iter.hasNext())
+        {
+            iter.next().addTo(this);
+        }
+        // Don't hang on to outlines that are no longer in use
+        Arrays.fill(outlines, count, outlines.length, null);
+
+        tick = game.getTick();
+        this.tickTime = tickTime;
+        tickNanos = Math.max(1, Math.round(1e9 / game.getTickRate()));
+        score = game.getScore();
+        lives = game.getLives();
+        level = game.getLevel();
+        over = game.isOver();
+        this.legend = legend;
+
+        hasStats = withStats;
+        if (withStats)
+        {
+            FrameStats stats = game.getStats();
+            LatencyHistogram ticks = stats.getHistogram(FrameStats.Phase.TICK);
+            participants = stats.getParticipantCount();
+            pairsTested = stats.getPairsTested();
+            tickP50 = ticks.getPercentile(0.5);
+            tickP99 = ticks.getPercentile(0.99);
+            tickMax = ticks.getMax();
+        }
+    }
+
+    /**********************************************************************
+     * Adds a participant drawn in the given batch, with its outline placed
+     * at (lastX,lastY) turned by lastRotation before the tick, and at
+     * (x,y) turned by rotation after it
+     **********************************************************************/
+    void add (Outline outline, BatchRenderer.Batch batch, double lastX, double lastY, double lastRotation, double x,
+            double y, double rotation)
+    {
+        if (count == outlines.length)
+        {
+            int capacity = 2 * count;
+            outlines = Arrays.copyOf(outlines, capacity);
+            batches = Arrays.copyOf(batches, capacity);
+            poses = Arrays.copyOf(poses, 6 * capacity);
+        }
+        outlines[count] = outline;
+        batches[count] = batch;
+        int k = 6 * count;
+        poses[k] = lastX;
+        poses[k + 1] = lastY;
+        poses[k + 2] = lastRotation;
+        poses[k + 3] = x;
+        poses[k + 4] = y;
+        poses[k + 5] = rotation;
+        count++;
+    }
+
+    /**********************************************************************
+     * Places the outline of participant i into placed, part way between
+     * where it was before the tick (alpha = 0) and after it (alpha = 1),
+     * turning it the short way round, and returns placed
+     **********************************************************************/
+    public WorldOutline place (int i, double alpha, WorldOutline placed)
+    {
+        int k = 6 * i;
+        if (alpha >= 1)
+        {
+            placed.place(outlines[i], poses[k + 3], poses[k + 4], poses[k + 5]);
+        }
+        else
+        {
+            double turn = Math.IEEEremainder(poses[k + 5] - poses[k + 2], 2 * Math.PI);
+            placed.place(outlines[i], poses[k] + (poses[k + 3] - poses[k]) * alpha,
+                         poses[k + 1] + (poses[k + 4] - poses[k + 1]) * alpha, poses[k + 2] + turn * alpha);
+        }
+        return placed;
+    }
+
+    /**********************************************************************
+     * Returns the number of participants in the snapshot
+     **********************************************************************/
+    public int getCount ()
+    {
+        return count;
+    }
+
+    /**********************************************************************
+     * Returns the batch participant i is drawn in
+     **********************************************************************/
+    public BatchRenderer.Batch getBatch (int i)
+    {
+        return batches[i];
+    }
+
+    /**********************************************************************
+     * Returns how far a frame drawn at the given System.nanoTime is past
+     * the tick the snapshot was taken after, in ticks from 0 up to 1
+     **********************************************************************/
+    public double alphaAt (long now)
+    {
+        return Math.max(0, Math.min(1, (double) (now - tickTime) / tickNanos));
+    }
+
+    /**********************************************************************
+     * Returns the tick the snapshot was taken after
+     **********************************************************************/
+    public long getTick ()
+    {
+        return tick;
+    }
+
+    /**********************************************************************
+     * Returns the score
+     **********************************************************************/
+    public int getScore ()
+    {
+        return score;
+    }
+
+    /**********************************************************************
+     * Returns the number of lives left
+     **********************************************************************/
+    public int getLives ()
+    {
+        return lives;
+    }
+
+    /**********************************************************************
+     * Returns the level
+     **********************************************************************/
+    public int getLevel ()
+    {
+        return level;
+    }
+
+    /**********************************************************************
+     * Reports whether the game is over
+     **********************************************************************/
+    public boolean isOver ()
+    {
+        return over;
+    }
+
+    /**********************************************************************
+     * Returns the legend to show across the screen, which may be empty
+     **********************************************************************/
+    public String getLegend ()
+    {
+        return legend;
+    }
+
+    /**********************************************************************
+     * Reports whether the tick stats were copied into the snapshot
+     **********************************************************************/
+    public boolean hasStats ()
+    {
+        return hasStats;
+    }
+
+    /**********************************************************************
+     * Returns the number of participants there were on the last tick
+     **********************************************************************/
+    public int getParticipantCount ()
+    {
+        return participants;
+    }
+
+    /**********************************************************************
+     * Returns the number of pairs tested for collisions on the last tick
+     **********************************************************************/
+    public int getPairsTested ()
+    {
+        return pairsTested;
+    }
+
+    /**********************************************************************
+     * Returns the median tick time in nanoseconds
+     **********************************************************************/
+    public long getTickP50 ()
+    {
+        return tickP50;
+    }
+
+    /**********************************************************************
+     * Returns the 99th percentile tick time in nanoseconds
+     **********************************************************************/
+    public long getTickP99 ()
+    {
+        return tickP99;
+    }
+
+    /**********************************************************************
+     * Returns the longest tick time in nanoseconds
+     **********************************************************************/
+    public long getTickMax ()
+    {
+        return tickMax;
+    }
+}
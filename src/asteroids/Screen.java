@@ -1,8 +1,9 @@
 package asteroids;
 
 import java.awt.*;
-import java.util.Iterator;
 import javax.swing.*;
+import jdk.jfr.EventType;
+import asteroids.jfr.PaintEvent;
 import static asteroids.Constants.*;
 
 /**********************************************************************
@@ -11,8 +12,16 @@ import static asteroids.Constants.*;
 @SuppressWarnings("serial")
 public class Screen extends JPanel
 {
-    private String legend;			    // Legend that is displayed across the screen
+    // Type of the paint events
+    private final static EventType PAINT_EVENTS = EventType.getEventType(PaintEvent.class);
+
+    // Font of the stats shown over the game
+    private final static Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
     private Controller controller;		// Game controller
+    private double alpha;				// How far between the last two ticks to draw the participants
+    private BatchRenderer renderer;		// Draws the participants
+    private FrameStats overlay;			// Stats shown over the game, or null
     
     /**********************************************************************
      * Creates an empty screen
@@ -20,7 +29,8 @@ public class Screen extends JPanel
     public Screen (Controller controller)
     {       
         this.controller = controller;
-        legend = "";
+        alpha = 1;
+        renderer = createRenderer();
         setPreferredSize(new Dimension(SIZE, SIZE));
         setMinimumSize(new Dimension(SIZE, SIZE));
         setBackground(Color.black);
@@ -30,31 +40,122 @@ public class Screen extends JPanel
     }
 
     /**********************************************************************
-     * Set the legend
+     * Sets how far between the last two ticks the participants are drawn,
+     * from 0 (where they were before the last tick) to 1 (where the last
+     * tick put them)
+     **********************************************************************/
+    public void setAlpha (double alpha)
+    {
+        this.alpha = alpha;
+    }
+
+    /**********************************************************************
+     * Sets the stats to show over the game, or null to show none
      **********************************************************************/
-    public void setLegend (String legend)
+    public void setOverlay (FrameStats overlay)
     {
-        this.legend = legend;
+        this.overlay = overlay;
     }
 
     /**********************************************************************
-     * Paint the participants onto this panel
+     * Paint the controller's snapshot of the game onto this panel. A
+     * flight recording gets a paint event for it.
      **********************************************************************/
     @Override
     public void paintComponent (Graphics g)
     {
         // Do the default painting
+        long start = System.nanoTime();
+        PaintEvent event = null;
+        if (PAINT_EVENTS.isEnabled())
+        {
+            event = new PaintEvent();
+            event.begin();
+        }
         super.paintComponent(g);
+        RenderSnapshot snapshot = controller.getSnapshot();
+        drawScene((Graphics2D) g, renderer, snapshot, alpha);
+        if (overlay != null)
+        {
+            drawOverlay((Graphics2D) g, overlay, snapshot, renderer);
+        }
+        controller.getStats().record(FrameStats.Phase.RENDER, System.nanoTime() - start);
 
-        // Draw each participant in its proper place
-        Iterator<Participant> iter = controller.getParticipants();
-        while (iter.hasNext())
+        if (event != null && event.shouldCommit())
+        {
+            event.participants = snapshot.getCount();
+            event.commit();
+        }
+    }
+
+    /**********************************************************************
+     * Returns a renderer for a screen, which draws from a sprite cache if
+     * the system property asteroids.sprites gives the megabytes the cache
+     * may use
+     **********************************************************************/
+    static BatchRenderer createRenderer ()
+    {
+        BatchRenderer renderer = new BatchRenderer();
+        Long megabytes = Long.getLong(Display.SPRITES_PROPERTY);
+        if (megabytes != null)
         {
-            iter.next().draw((Graphics2D) g);
+            renderer.setSpriteCache(new SpriteCache(SpriteCache.DEFAULT_ROTATIONS, megabytes << 20));
         }
+        return renderer;
+    }
+
+    /**********************************************************************
+     * Draws the participants in a snapshot part way between the last two
+     * ticks, and its legend across the middle, in the color and font
+     * already set on g. The rendering hints are set here once for the
+     * whole frame rather than by each participant, and the participants
+     * are drawn in batches by the renderer.
+     **********************************************************************/
+    static void drawScene (Graphics2D g, BatchRenderer renderer, RenderSnapshot snapshot, double alpha)
+    {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // Draw each participant in its proper place
+        renderer.draw(g, snapshot, alpha);
 
         // Draw the legend across the middle of the panel
+        String legend = snapshot.getLegend();
         int size = g.getFontMetrics().stringWidth(legend);
         g.drawString(legend, (SIZE - size) / 2, SIZE / 2);
     }
+
+    /**********************************************************************
+     * Draws the frame rate, the participant count, the pairs tested for
+     * collisions, the garbage collections and the tick and render times in
+     * the top left corner, and below them the size and hit rate of the
+     * renderer's sprite cache if it has one. The frames are timed in stats,
+     * while the ticks come with the snapshot, if it carries them.
+     **********************************************************************/
+    static void drawOverlay (Graphics2D g, FrameStats stats, RenderSnapshot snapshot, BatchRenderer renderer)
+    {
+        Font font = g.getFont();
+        g.setFont(OVERLAY_FONT);
+        int line = g.getFontMetrics().getHeight();
+        g.drawString(String.format("%d fps  %d participants  %d pairs  %d GCs", stats.getFramesPerSecond(),
+                snapshot.getParticipantCount(), snapshot.getPairsTested(), stats.getGcCount()), line, 2 * line);
+        g.drawString(describe("tick  ", snapshot.getTickP50(), snapshot.getTickP99(), snapshot.getTickMax()), line,
+                3 * line);
+        LatencyHistogram render = stats.getHistogram(FrameStats.Phase.RENDER);
+        g.drawString(describe("render", render.getPercentile(0.5), render.getPercentile(0.99), render.getMax()), line,
+                4 * line);
+        SpriteCache sprites = renderer.getSpriteCache();
+        if (sprites != null)
+        {
+            g.drawString("sprites " + sprites, line, 5 * line);
+        }
+        g.setFont(font);
+    }
+
+    /**********************************************************************
+     * Describes a p50, p99 and max given in nanoseconds in milliseconds
+     **********************************************************************/
+    private static String describe (String name, long p50, long p99, long max)
+    {
+        return String.format("%s  p50 %6.2f  p99 %6.2f  max %6.2f ms", name, p50 / 1e6, p99 / 1e6, max / 1e6);
+    }
 }
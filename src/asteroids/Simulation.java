@@ -0,0 +1,399 @@
+package asteroids;
+
+import java.awt.event.KeyEvent;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * Runs a {@link Game} on a thread of its own, so that drawing and
+ * handling input on the Swing event thread never hold the game up, and
+ * the game never holds them up.
+ *
+ * The game is advanced in fixed ticks, as many as fit in the real time
+ * that has passed, but no more than MAX_CATCH_UP_TICKS at once; time that
+ * can't be caught up on is dropped, which slows the game down. After the
+ * ticks the game is copied into a {@link RenderSnapshot}, which is handed
+ * to the event thread through a {@link TripleBuffer}. The event thread
+ * draws only from snapshots, and never touches the game.
+ *
+ * Other threads talk to the game through queues. Keys that are pressed
+ * and released are queued with the time they happened, and are applied
+ * to the first tick that was due after them, so a burst of catch-up ticks
+ * sees them in the right places. Anything else, such as starting a new
+ * game, is queued as a task to run between ticks.
+ *
+ * An {@link InputProvider} can be given to fly the ship in place of the
+ * keys. While there is one, it sets the input of every tick, and the keys
+ * have no effect.
+ *
+ * If the system property asteroids.record names a file, the input of
+ * each game is recorded there by an {@link InputRecorder}, replacing the
+ * last game's. The log is finished when the game is over or a new game is
+ * started.
+ **********************************************************************/
+public class Simulation implements Runnable, GameListener
+{
+    /**********************************************************************
+     * System property naming the file to record games to
+     **********************************************************************/
+    public final static String RECORD_PROPERTY = "asteroids.record";
+
+    /**********************************************************************
+     * A key pressed or released, and when
+     **********************************************************************/
+    private static class KeyChange
+    {
+        private int keyCode;				// The key
+        private boolean pressed;			// Was it pressed, or released?
+        private long when;					// When it happened, in milliseconds since the epoch
+
+        private KeyChange (int keyCode, boolean pressed, long when)
+        {
+            this.keyCode = keyCode;
+            this.pressed = pressed;
+            this.when = when;
+        }
+    }
+
+    private Game game;						// The game being run
+    private Input input;					// State of the keys that control the ship
+    private ConcurrentLinkedQueue<KeyChange> keys;	// Key changes not yet applied
+    private ConcurrentLinkedQueue<Runnable> tasks;	// Tasks to run between ticks
+    private TripleBuffer<RenderSnapshot> snapshots;	// Hands snapshots to the event thread
+    private InputProvider provider;			// Sets the input in place of the keys, or null
+    private InputRecorder recorder;			// Records the input of the current game, or null
+    private String legend;					// Legend the game last showed
+    private Thread thread;					// Thread the game runs on, or null
+    private volatile boolean running;		// Should the thread keep going?
+    private volatile boolean withStats;		// Should snapshots carry the tick stats?
+
+    /**********************************************************************
+     * Creates a simulation of the given game, which it listens to from
+     * then on. The game doesn't run until start is called.
+     **********************************************************************/
+    public Simulation (Game game)
+    {
+        this.game = game;
+        game.setListener(this);
+        input = new Input();
+        keys = new ConcurrentLinkedQueue<KeyChange>();
+        tasks = new ConcurrentLinkedQueue<Runnable>();
+        snapshots = new TripleBuffer<RenderSnapshot>(new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot());
+        legend = "";
+    }
+
+    /**********************************************************************
+     * Throws an IllegalStateException if the simulation has already been
+     * started.
+     *
+     * Brings up the game's splash screen and starts ticking the game on a
+     * new thread.
+     **********************************************************************/
+    public synchronized void start ()
+    {
+        if (thread != null)
+        {
+            throw new IllegalStateException("Already started");
+        }
+        game.splashScreen();
+        publish(System.nanoTime());
+        running = true;
+        thread = new Thread(this, "Asteroids simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**********************************************************************
+     * Stops ticking the game and waits for the thread to finish
+     **********************************************************************/
+    public void stop () throws InterruptedException
+    {
+        Thread t;
+        synchronized (this)
+        {
+            t = thread;
+            running = false;
+        }
+        if (t != null)
+        {
+            LockSupport.unpark(t);
+            t.join();
+        }
+    }
+
+    /**********************************************************************
+     * Ticks the game until the simulation is stopped
+     **********************************************************************/
+    @Override
+    public void run ()
+    {
+        long tickNanos = (long) (1e9 / game.getTickRate());
+        long next = System.nanoTime() + tickNanos;
+        while (running)
+        {
+            // Run the tasks queued since the last ticks
+            Runnable task;
+            while ((task = tasks.poll()) != null)
+            {
+                task.run();
+            }
+
+            // Advance the game by as many ticks as are due, but no more than
+            // MAX_CATCH_UP_TICKS
+            long now = System.nanoTime();
+            long millisOffset = System.currentTimeMillis() - now / 1_000_000;
+            int ticks = 0;
+            while (next <= now && ticks < MAX_CATCH_UP_TICKS)
+            {
+                applyKeys(next / 1_000_000 + millisOffset);
+                if (provider != null)
+                {
+                    provider.provide(game, input);
+                }
+                record();
+                game.step(input);
+                next += tickNanos;
+                ticks++;
+            }
+            if (ticks > 0)
+            {
+                publish(next - tickNanos);
+            }
+            if (next <= now)
+            {
+                // Drop the time that can't be caught up on
+                next = now + tickNanos - (now - next) % tickNanos;
+            }
+
+            // Wait for the next tick
+            long wait = next - System.nanoTime();
+            if (wait > 0)
+            {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Copies the game into the back snapshot and publishes it. The last
+     * tick was due at the given System.nanoTime.
+     **********************************************************************/
+    private void publish (long tickTime)
+    {
+        snapshots.getBack().capture(game, tickTime, legend, withStats);
+        snapshots.publish();
+    }
+
+    /**********************************************************************
+     * Applies the key changes that happened before the given time, in
+     * milliseconds since the epoch, in the order they happened
+     **********************************************************************/
+    private void applyKeys (long time)
+    {
+        KeyChange change;
+        while ((change = keys.peek()) != null && change.when <= time)
+        {
+            keys.poll();
+            apply(change.keyCode, change.pressed);
+        }
+    }
+
+    /**********************************************************************
+     * Presses or releases the control a key is bound to, if any
+     **********************************************************************/
+    private void apply (int keyCode, boolean pressed)
+    {
+        if (keyCode == KeyEvent.VK_LEFT || keyCode == KeyEvent.VK_A)
+            input.setTurningLeft(pressed);
+
+        else if (keyCode == KeyEvent.VK_RIGHT || keyCode == KeyEvent.VK_D)
+            input.setTurningRight(pressed);
+
+        else if (keyCode == KeyEvent.VK_UP || keyCode == KeyEvent.VK_W)
+            input.setThrusting(pressed);
+
+        else if (keyCode == KeyEvent.VK_DOWN || keyCode == KeyEvent.VK_SPACE || keyCode == KeyEvent.VK_S)
+            input.setFiring(pressed);
+    }
+
+    /**********************************************************************
+     * Queues a key being pressed or released at the given time, in
+     * milliseconds since the epoch (see KeyEvent.getWhen). Keys must be
+     * queued in the order they happened. May be called from any thread.
+     **********************************************************************/
+    public void keyChanged (int keyCode, boolean pressed, long when)
+    {
+        keys.add(new KeyChange(keyCode, pressed, when));
+    }
+
+    /**********************************************************************
+     * Queues a task to run on the simulation's thread between ticks. May
+     * be called from any thread.
+     **********************************************************************/
+    public void invokeLater (Runnable task)
+    {
+        tasks.add(task);
+    }
+
+    /**********************************************************************
+     * Queues the start of a new game, with all the keys released. The
+     * stats start over. May be called from any thread.
+     **********************************************************************/
+    public void newGame ()
+    {
+        invokeLater(() ->
+        {
+            stopRecording();
+            input.clear();
+            game.newGame();
+            game.getStats().reset();
+            startRecording();
+        });
+    }
+
+    /**********************************************************************
+     * Queues handing the controls over to the given provider, or back to
+     * the keys if it is null. Either way, the controls are released first.
+     * May be called from any thread.
+     **********************************************************************/
+    public void setInputProvider (InputProvider provider)
+    {
+        invokeLater(() ->
+        {
+            input.clear();
+            this.provider = provider;
+        });
+    }
+
+    /**********************************************************************
+     * Sets whether the snapshots carry the tick stats. May be called from
+     * any thread.
+     **********************************************************************/
+    public void setWithStats (boolean withStats)
+    {
+        this.withStats = withStats;
+    }
+
+    /**********************************************************************
+     * Takes the newest snapshot, if one has been published since the last
+     * call, and reports whether there was one. Only the thread that draws
+     * the game may call this.
+     **********************************************************************/
+    public boolean update ()
+    {
+        return snapshots.update();
+    }
+
+    /**********************************************************************
+     * Returns the snapshot to draw, which stays the same until update takes
+     * a newer one. Only the thread that draws the game may call this.
+     **********************************************************************/
+    public RenderSnapshot getSnapshot ()
+    {
+        return snapshots.getFront();
+    }
+
+    /**********************************************************************
+     * Starts recording the game's input, if a file to record to was given
+     **********************************************************************/
+    private void startRecording ()
+    {
+        String file = System.getProperty(RECORD_PROPERTY);
+        if (file != null)
+        {
+            try
+            {
+                recorder = new InputRecorder(new FileOutputStream(file), game.getSeed(), game.getTickRate());
+            }
+            catch (IOException e)
+            {
+                System.err.println("Can't record to " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Records the input of the tick about to be stepped. If the log can't
+     * be written, recording stops.
+     **********************************************************************/
+    private void record ()
+    {
+        if (recorder != null)
+        {
+            try
+            {
+                recorder.record(input);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Recording stopped: " + e.getMessage());
+                stopRecording();
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Finishes the log of the game being recorded, if there is one
+     **********************************************************************/
+    private void stopRecording ()
+    {
+        if (recorder != null)
+        {
+            try
+            {
+                recorder.close();
+            }
+            catch (IOException e)
+            {
+                System.err.println("Recording not finished: " + e.getMessage());
+            }
+            recorder = null;
+        }
+    }
+
+    /**********************************************************************
+     * The score goes out with the next snapshot
+     **********************************************************************/
+    @Override
+    public void scoreChanged (int score)
+    {
+    }
+
+    /**********************************************************************
+     * The lives go out with the next snapshot
+     **********************************************************************/
+    @Override
+    public void livesChanged (int lives)
+    {
+    }
+
+    /**********************************************************************
+     * The level goes out with the next snapshot
+     **********************************************************************/
+    @Override
+    public void levelChanged (int level)
+    {
+    }
+
+    /**********************************************************************
+     * Keeps the legend to go out with the next snapshot
+     **********************************************************************/
+    @Override
+    public void legendChanged (String legend)
+    {
+        this.legend = legend;
+    }
+
+    /**********************************************************************
+     * The game is over, so finish recording it
+     **********************************************************************/
+    @Override
+    public void gameOver ()
+    {
+        stopRecording();
+    }
+}
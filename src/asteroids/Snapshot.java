@@ -0,0 +1,510 @@
+package asteroids;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import asteroids.participants.AlienShip;
+import asteroids.participants.Asteroid;
+import asteroids.participants.AsteroidsBullet;
+import asteroids.participants.DestructionLine;
+import asteroids.participants.Ship;
+import asteroids.participants.ShipBullet;
+
+/**********************************************************************
+ * Saves a {@link Game} between two ticks into a ByteBuffer, and restores
+ * it into a new Game that plays on from there exactly as the original
+ * does. A snapshot holds:
+ *
+ *     4 bytes   MAGIC
+ *     1 byte    VERSION
+ *     the game: tick rate, seed, random number state, tick, transition
+ *               tick, lives, score, level, whether it is over, and the
+ *               tick of its timer wheel
+ *     the number of active participants, then of pending ones
+ *     each participant: its type, position, velocity and rotation, the
+ *               state written by its writeState, and its timers
+ *     the places of the ship and the alien ship among the participants,
+ *               or -1
+ *
+ * Each timer is saved with its payload, its delay, the number of ticks
+ * until it goes off (or -1 if it hasn't started) and its rank, so that
+ * timers due on the same tick go off in the same order after a restore.
+ * Payloads can be null, the participant itself, or a String.
+ *
+ * Expired participants are left out, since they would be removed on the
+ * next tick without doing anything. The pools, the kinematic store, the
+ * broad phase and the fork-join pool are not saved.
+ **********************************************************************/
+public class Snapshot
+{
+    /**********************************************************************
+     * First four bytes of every snapshot ("ASTS")
+     **********************************************************************/
+    public final static int MAGIC = 0x41535453;
+
+    /**********************************************************************
+     * Version of the format described above
+     **********************************************************************/
+    public final static int VERSION = 1;
+
+    // Types of participant
+    private final static byte ASTEROID = 1;
+    private final static byte SHIP = 2;
+    private final static byte ALIEN_SHIP = 3;
+    private final static byte SHIP_BULLET = 4;
+    private final static byte ASTEROIDS_BULLET = 5;
+    private final static byte DESTRUCTION_LINE = 6;
+
+    // Kinds of timer payload
+    private final static byte NO_PAYLOAD = 0;
+    private final static byte SELF_PAYLOAD = 1;
+    private final static byte STRING_PAYLOAD = 2;
+
+    // Bytes taken by the header and the game, and by the fixed part of a
+    // participant and of a timer
+    private final static int HEADER_SIZE = 4 + 1 + 8 + 8 + 8 + 8 + 8 + 4 + 4 + 4 + 1 + 8 + 4 + 4 + 4 + 4;
+    private final static int PARTICIPANT_SIZE = 1 + 5 * 8 + 1;
+    private final static int TIMER_SIZE = 1 + 4 + 4 + 4;
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if the game has a participant
+     * that can't be saved.
+     *
+     * Returns the number of bytes a snapshot of the game takes
+     **********************************************************************/
+    public static int size (Game game)
+    {
+        ParticipantState state = game.getParticipantState();
+        int size = HEADER_SIZE;
+        for (Participant p : state.getActive())
+        {
+            size += sizeOf(p);
+        }
+        for (Participant p : state.getPending())
+        {
+            size += sizeOf(p);
+        }
+        return size;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if the game has a participant
+     * that can't be saved.
+     *
+     * Returns a snapshot of the game in a new buffer, ready to be read
+     **********************************************************************/
+    public static ByteBuffer write (Game game)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(size(game));
+        write(game, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if the game has a participant
+     * that can't be saved, and a BufferOverflowException if the buffer
+     * has less than size(game) bytes remaining.
+     *
+     * Writes a snapshot of the game at the buffer's position
+     **********************************************************************/
+    public static void write (Game game, ByteBuffer buffer)
+    {
+        ParticipantState state = game.getParticipantState();
+        TimerWheel wheel = state.getTimerWheel();
+        wheel.rank();
+
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.putDouble(game.getTickRate());
+        buffer.putLong(game.getSeed());
+        buffer.putLong(game.getRandom().getState());
+        buffer.putLong(game.getTick());
+        buffer.putLong(game.getTransitionTick());
+        buffer.putInt(game.getLives());
+        buffer.putInt(game.getScore());
+        buffer.putInt(game.getLevel());
+        buffer.put((byte) (game.isOver() ? 1 : 0));
+        buffer.putLong(wheel.getTick());
+
+        buffer.putInt(countLive(state.getActive()));
+        buffer.putInt(countLive(state.getPending()));
+        int ship = -1, alienShip = -1;
+        int n = 0;
+        for (int list = 0; list < 2; list++)
+        {
+            for (Participant p : (list == 0) ? state.getActive() : state.getPending())
+            {
+                if (p.isExpired())
+                {
+                    continue;
+                }
+                if (p == game.getShip())
+                {
+                    ship = n;
+                }
+                if (p == game.getAlienShip())
+                {
+                    alienShip = n;
+                }
+                writeParticipant(p, wheel, buffer);
+                n++;
+            }
+        }
+        buffer.putInt(ship);
+        buffer.putInt(alienShip);
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if the buffer doesn't hold a
+     * snapshot of this version, and a BufferUnderflowException if the
+     * snapshot is cut short.
+     *
+     * Reads the snapshot at the buffer's position and returns a new game
+     * in the state it describes. The game has no listener.
+     **********************************************************************/
+    public static Game read (ByteBuffer buffer)
+    {
+        if (buffer.getInt() != MAGIC)
+        {
+            throw new IllegalArgumentException("Not a game snapshot");
+        }
+        int version = buffer.get();
+        if (version != VERSION)
+        {
+            throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+        }
+        double tickRate = buffer.getDouble();
+        long seed = buffer.getLong();
+        long random = buffer.getLong();
+        long tick = buffer.getLong();
+        long transitionTick = buffer.getLong();
+        int lives = buffer.getInt();
+        int score = buffer.getInt();
+        int level = buffer.getInt();
+        boolean over = buffer.get() != 0;
+        long wheelTick = buffer.getLong();
+
+        Game game = new Game(tickRate, seed);
+        ParticipantState state = game.getParticipantState();
+        TimerWheel wheel = state.getTimerWheel();
+        wheel.restoreTick(wheelTick);
+
+        // Restore the participants. The timers that had started are put
+        // aside to be scheduled in order of rank once they are all back.
+        int active = buffer.getInt();
+        int pending = buffer.getInt();
+        Participant[] restored = new Participant[active + pending];
+        Timers started = new Timers();
+        for (int i = 0; i < restored.length; i++)
+        {
+            Participant p = readParticipant(game, buffer, wheelTick, started);
+            if (i < active)
+            {
+                state.restoreParticipant(p);
+            }
+            else
+            {
+                state.addParticipant(p);
+            }
+            restored[i] = p;
+        }
+        started.schedule(wheel);
+
+        int ship = buffer.getInt();
+        int alienShip = buffer.getInt();
+        game.restore(tick, transitionTick, lives, score, level, over, (Ship) participantAt(restored, ship),
+                (AlienShip) participantAt(restored, alienShip));
+
+        // Constructing the participants drew random numbers, so the state
+        // goes back last
+        game.getRandom().setState(random);
+        return game;
+    }
+
+    /**********************************************************************
+     * Returns the number of bytes p takes in a snapshot, or 0 if it has
+     * expired
+     **********************************************************************/
+    private static int sizeOf (Participant p)
+    {
+        if (p.isExpired())
+        {
+            return 0;
+        }
+        typeOf(p);
+        int size = PARTICIPANT_SIZE + p.getStateSize();
+        for (ParticipantCountdownTimer t = p.getFirstTimer(); t != null; t = t.nextOfParticipant)
+        {
+            size += TIMER_SIZE;
+            if (t.getPayload() instanceof String)
+            {
+                size += 2 + ((String) t.getPayload()).getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return size;
+    }
+
+    /**********************************************************************
+     * Returns the number of participants that have not expired
+     **********************************************************************/
+    private static int countLive (Iterable<Participant> participants)
+    {
+        int count = 0;
+        for (Participant p : participants)
+        {
+            if (!p.isExpired())
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**********************************************************************
+     * Returns the participant at the given place, or null if it is -1
+     **********************************************************************/
+    private static Participant participantAt (Participant[] restored, int i)
+    {
+        return (i < 0) ? null : restored[i];
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if p can't be saved.
+     *
+     * Returns the type of p
+     **********************************************************************/
+    private static byte typeOf (Participant p)
+    {
+        Class<?> type = p.getClass();
+        if (type == Asteroid.class)
+        {
+            return ASTEROID;
+        }
+        else if (type == Ship.class)
+        {
+            return SHIP;
+        }
+        else if (type == AlienShip.class)
+        {
+            return ALIEN_SHIP;
+        }
+        else if (type == ShipBullet.class)
+        {
+            return SHIP_BULLET;
+        }
+        else if (type == AsteroidsBullet.class)
+        {
+            return ASTEROIDS_BULLET;
+        }
+        else if (type == DestructionLine.class)
+        {
+            return DESTRUCTION_LINE;
+        }
+        throw new IllegalArgumentException("Can't save a " + type.getName());
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if the type is unknown.
+     *
+     * Returns a participant of the given type for the game, to be filled
+     * in from the snapshot
+     **********************************************************************/
+    private static Participant create (byte type, Game game)
+    {
+        switch (type)
+        {
+        case ASTEROID:
+            return game.newAsteroid(0, 0, 0, 0, 0);
+        case SHIP:
+            return new Ship(0, 0, 0, game);
+        case ALIEN_SHIP:
+            return new AlienShip(0, game);
+        case SHIP_BULLET:
+            return game.newShipBullet(0, 0, 0);
+        case ASTEROIDS_BULLET:
+            return game.newAsteroidsBullet(0, 0, 0);
+        case DESTRUCTION_LINE:
+            return game.newDestructionLine(0, 0, 1);
+        default:
+            throw new IllegalArgumentException("Unknown participant type: " + type);
+        }
+    }
+
+    /**********************************************************************
+     * Writes a participant and its timers
+     **********************************************************************/
+    private static void writeParticipant (Participant p, TimerWheel wheel, ByteBuffer buffer)
+    {
+        buffer.put(typeOf(p));
+        buffer.putDouble(p.getX());
+        buffer.putDouble(p.getY());
+        buffer.putDouble(p.getSpeedX());
+        buffer.putDouble(p.getSpeedY());
+        buffer.putDouble(p.getRotation());
+        p.writeState(buffer);
+
+        int timers = 0;
+        for (ParticipantCountdownTimer t = p.getFirstTimer(); t != null; t = t.nextOfParticipant)
+        {
+            timers++;
+        }
+        buffer.put((byte) timers);
+        for (ParticipantCountdownTimer t = p.getFirstTimer(); t != null; t = t.nextOfParticipant)
+        {
+            Object payload = t.getPayload();
+            if (payload == null)
+            {
+                buffer.put(NO_PAYLOAD);
+            }
+            else if (payload == p)
+            {
+                buffer.put(SELF_PAYLOAD);
+            }
+            else if (payload instanceof String)
+            {
+                byte[] bytes = ((String) payload).getBytes(StandardCharsets.UTF_8);
+                buffer.put(STRING_PAYLOAD);
+                buffer.putShort((short) bytes.length);
+                buffer.put(bytes);
+            }
+            else
+            {
+                throw new IllegalArgumentException("Can't save a timer payload of " + payload.getClass().getName());
+            }
+            buffer.putInt(t.getDelay());
+            if (t.wheel == wheel)
+            {
+                buffer.putInt((int) (t.deadline - wheel.getTick()));
+                buffer.putInt(t.rank);
+            }
+            else
+            {
+                buffer.putInt(-1);
+                buffer.putInt(0);
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Reads a participant and its timers. The timers the participant was
+     * constructed with are reused, in order, and any left over are
+     * cancelled.
+     **********************************************************************/
+    private static Participant readParticipant (Game game, ByteBuffer buffer, long wheelTick, Timers started)
+    {
+        Participant p = create(buffer.get(), game);
+        double x = buffer.getDouble();
+        double y = buffer.getDouble();
+        double speedX = buffer.getDouble();
+        double speedY = buffer.getDouble();
+        double rotation = buffer.getDouble();
+        p.restoreKinematics(x, y, speedX, speedY, rotation);
+        p.readState(buffer);
+
+        int timers = buffer.get();
+        ParticipantCountdownTimer spare = p.getFirstTimer();
+        for (int k = 0; k < timers; k++)
+        {
+            Object payload;
+            byte kind = buffer.get();
+            if (kind == NO_PAYLOAD)
+            {
+                payload = null;
+            }
+            else if (kind == SELF_PAYLOAD)
+            {
+                payload = p;
+            }
+            else if (kind == STRING_PAYLOAD)
+            {
+                byte[] bytes = new byte[buffer.getShort()];
+                buffer.get(bytes);
+                payload = new String(bytes, StandardCharsets.UTF_8);
+            }
+            else
+            {
+                throw new IllegalArgumentException("Unknown timer payload: " + kind);
+            }
+            int msecs = buffer.getInt();
+            int ticks = buffer.getInt();
+            int rank = buffer.getInt();
+
+            ParticipantCountdownTimer t;
+            if (spare != null)
+            {
+                t = spare;
+                spare = spare.nextOfParticipant;
+                t.restore(payload, msecs);
+            }
+            else
+            {
+                t = new ParticipantCountdownTimer(p, payload, msecs);
+            }
+            if (ticks >= 0)
+            {
+                started.add(t, wheelTick + ticks, rank);
+            }
+        }
+        while (spare != null)
+        {
+            ParticipantCountdownTimer next = spare.nextOfParticipant;
+            spare.cancel();
+            spare = next;
+        }
+        return p;
+    }
+
+    /**********************************************************************
+     * The restored timers that had started, with their deadlines and ranks
+     **********************************************************************/
+    private static class Timers
+    {
+        ParticipantCountdownTimer[] timers = new ParticipantCountdownTimer[16];
+        long[] deadlines = new long[16];
+        int[] ranks = new int[16];
+        int size;
+        int maxRank;
+
+        // Adds a timer that goes off on the given tick
+        void add (ParticipantCountdownTimer t, long deadline, int rank)
+        {
+            if (size == timers.length)
+            {
+                timers = Arrays.copyOf(timers, 2 * size);
+                deadlines = Arrays.copyOf(deadlines, 2 * size);
+                ranks = Arrays.copyOf(ranks, 2 * size);
+            }
+            timers[size] = t;
+            deadlines[size] = deadline;
+            ranks[size] = rank;
+            maxRank = Math.max(maxRank, rank);
+            size++;
+        }
+
+        // Schedules the timers on the wheel in order of rank, using a
+        // counting sort
+        void schedule (TimerWheel wheel)
+        {
+            int[] start = new int[maxRank + 2];
+            for (int i = 0; i < size; i++)
+            {
+                start[ranks[i] + 1]++;
+            }
+            for (int r = 1; r < start.length; r++)
+            {
+                start[r] += start[r - 1];
+            }
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++)
+            {
+                order[start[ranks[i]]++] = i;
+            }
+            for (int i : order)
+            {
+                wheel.scheduleAt(timers[i], deadlines[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package asteroids;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * Plays a great many games from start to finish, each flown by a
+ * {@link Bot}, as fast as they will go and without drawing anything, to
+ * soak the engine in long runs of real play. Game i is started from seed
+ * + i, so the same settings always play the same games. When they have
+ * all been played it prints how many games and ticks were played each
+ * second, the average score and level reached, and a fingerprint of how
+ * the games ended, which changes if the engine plays any of them
+ * differently.
+ *
+ * A soak test is started with the argument "soak" to Asteroids.main,
+ * followed by any of these settings, or with the system property
+ * asteroids.soak set to the same settings separated by commas:
+ *
+ * <pre>
+ * games=N     games to play (default 1000)
+ * threads=N   threads to play them on (default one per processor)
+ * ticks=N     ticks after which a game is cut short (default 30 minutes' worth)
+ * seed=N      seed of the first game (default 1410)
+ * </pre>
+ **********************************************************************/
+public class SoakTest
+{
+    /**********************************************************************
+     * System property that starts a soak test with its settings
+     **********************************************************************/
+    public final static String SOAK_PROPERTY = "asteroids.soak";
+
+    private int games;					// Games to play
+    private int threads;				// Threads to play them on
+    private long maxTicks;				// Ticks after which a game is cut short
+    private long seed;					// Seed of the first game
+
+    // Results of each game, by the game's number
+    private long[] ticks;				// Ticks the game lasted
+    private int[] scores;				// Score it ended with
+    private int[] levels;				// Level it reached
+    private long[] fingerprints;		// Fingerprint of how it ended
+
+    /**********************************************************************
+     * Creates a soak test with the default settings
+     **********************************************************************/
+    public SoakTest ()
+    {
+        games = 1000;
+        threads = Runtime.getRuntime().availableProcessors();
+        maxTicks = (long) (30 * 60 * TICK_RATE);
+        seed = 1410;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if a setting is unknown or its
+     * value is out of range.
+     *
+     * Creates a soak test from settings of the form name=value, with
+     * defaults for the settings not given
+     **********************************************************************/
+    public SoakTest (String... settings)
+    {
+        this();
+        for (String setting : settings)
+        {
+            if (!setting.isEmpty())
+            {
+                apply(setting);
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if the setting is unknown or its
+     * value is out of range.
+     *
+     * Applies one setting of the form name=value
+     **********************************************************************/
+    private void apply (String setting)
+    {
+        int equals = setting.indexOf('=');
+        String name = (equals < 0) ? setting : setting.substring(0, equals).trim();
+        String value = (equals < 0) ? "" : setting.substring(equals + 1).trim();
+        try
+        {
+            switch (name)
+            {
+            case "games":
+                games = Integer.parseInt(value);
+                break;
+            case "threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "ticks":
+                maxTicks = Long.parseLong(value);
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown soak setting: " + setting);
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid soak setting: " + setting);
+        }
+        if (games < 1 || threads < 1 || maxTicks < 1)
+        {
+            throw new IllegalArgumentException("Invalid soak setting: " + setting);
+        }
+    }
+
+    /**********************************************************************
+     * Plays the games and returns the report
+     **********************************************************************/
+    public String run () throws InterruptedException
+    {
+        ticks = new long[games];
+        scores = new int[games];
+        levels = new int[games];
+        fingerprints = new long[games];
+
+        // Each thread takes the next game nobody has started until there
+        // are none left
+        AtomicInteger next = new AtomicInteger();
+        Runnable player = () ->
+        {
+            Bot bot = new Bot();
+            Input input = new Input();
+            for (int i = next.getAndIncrement(); i < games; i = next.getAndIncrement())
+            {
+                play(i, bot, input);
+            }
+        };
+        Thread[] workers = new Thread[Math.min(threads, games)];
+        long start = System.nanoTime();
+        for (int i = 0; i < workers.length; i++)
+        {
+            workers[i] = new Thread(player, "Soak " + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers)
+        {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        // Sum up the games in order, so that the report doesn't depend on
+        // which thread played which
+        long totalTicks = 0, totalScore = 0, totalLevel = 0, fingerprint = 17;
+        int maxLevel = 0, cut = 0;
+        for (int i = 0; i < games; i++)
+        {
+            totalTicks += ticks[i];
+            totalScore += scores[i];
+            totalLevel += levels[i];
+            maxLevel = Math.max(maxLevel, levels[i]);
+            cut += (ticks[i] >= maxTicks) ? 1 : 0;
+            fingerprint = 31 * fingerprint + fingerprints[i];
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Soak test: %d games from seed %d on %d threads, cut short at %d ticks%n", games,
+                seed, workers.length, maxTicks));
+        report.append(String.format("%d games in %.2f s: %.1f games/s (%.0f games/min)%n", games, elapsed,
+                games / elapsed, 60 * games / elapsed));
+        report.append(String.format("%d ticks: %.0f ticks/s, %.0f ticks/game%n", totalTicks, totalTicks / elapsed,
+                (double) totalTicks / games));
+        report.append(String.format("Average score %.1f, average level %.2f, highest level %d, %d games cut short%n",
+                (double) totalScore / games, (double) totalLevel / games, maxLevel, cut));
+        report.append(String.format("Fingerprint %016x%n", fingerprint));
+        return report.toString();
+    }
+
+    /**********************************************************************
+     * Plays game i with the given bot and input to the end, or until it
+     * is cut short, and keeps its results
+     **********************************************************************/
+    private void play (int i, Bot bot, Input input)
+    {
+        Game game = new Game(TICK_RATE, seed + i);
+        game.newGame();
+        input.clear();
+        while (!game.isOver() && game.getTick() < maxTicks)
+        {
+            bot.provide(game, input);
+            game.step(input);
+        }
+        ticks[i] = game.getTick();
+        scores[i] = game.getScore();
+        levels[i] = game.getLevel();
+        fingerprints[i] = InputPlayer.fingerprint(game);
+    }
+
+    /**********************************************************************
+     * Runs a soak test with the settings given as arguments and prints its
+     * report. A setting that can't be understood is reported instead.
+     **********************************************************************/
+    public static void main (String[] args)
+    {
+        try
+        {
+            System.out.print(new SoakTest(args).run());
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+        }
+        catch (InterruptedException e)
+        {
+            System.err.println("Soak test interrupted");
+        }
+    }
+}
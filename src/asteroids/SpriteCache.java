@@ -0,0 +1,475 @@
+package asteroids;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import asteroids.collision.Outline;
+import asteroids.collision.WorldOutline;
+
+/**********************************************************************
+ * Pre-rendered images of participants' outlines, so that drawing a
+ * participant is a single image copy instead of stroking its outline.
+ *
+ * Rotations are rounded to one of a fixed number of steps around the
+ * circle, and positions to the nearest pixel, so sprites are a little
+ * less exact than drawing the outline itself. Each outline is drawn at a
+ * step the first time it is needed there, with the hints and color set
+ * on the Graphics2D it is drawn to, into an image compatible with it.
+ *
+ * Sprites are shared by all outlines with the same path and color, so
+ * participants that build their own copies of the same outline share
+ * them. When the sprites take up more than the memory allowed, the least
+ * recently drawn ones are dropped. The cache counts its hits and misses
+ * so that the hit rate can be reported along with the memory in use.
+ *
+ * A cache is meant to be used by one thread, the one that draws.
+ **********************************************************************/
+public class SpriteCache
+{
+    /**********************************************************************
+     * Rotation steps used unless another number is given
+     **********************************************************************/
+    public final static int DEFAULT_ROTATIONS = 64;
+
+    /**********************************************************************
+     * Bytes of sprites kept unless another limit is given
+     **********************************************************************/
+    public final static long DEFAULT_MAX_BYTES = 32L << 20;
+
+    // Pixels left around an outline for its stroke and antialiasing
+    private final static int PAD = 2;
+
+    private int rotations;					// Steps the circle is divided into
+    private long maxBytes;					// Most bytes the sprites may take up
+    private Map<Outline, Entry> recent;		// Entry each outline was last drawn from
+    private Map<Key, Entry> entries;		// Entries with sprites, by path and color
+    private Sprite head, tail;				// Most and least recently drawn sprites
+    private long bytes;						// Bytes taken up by the sprites
+    private int sprites;					// Number of sprites
+    private long hits, misses, evictions;	// Counts since the last reset
+    private GraphicsConfiguration config;	// Configuration the sprites are compatible with
+    private WorldOutline placed;			// Used to place outlines when drawing sprites
+
+    /**********************************************************************
+     * Creates a cache with DEFAULT_ROTATIONS steps that keeps up to
+     * DEFAULT_MAX_BYTES of sprites
+     **********************************************************************/
+    public SpriteCache ()
+    {
+        this(DEFAULT_ROTATIONS, DEFAULT_MAX_BYTES);
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if rotations is less than 1 or
+     * maxBytes is negative.
+     *
+     * Creates a cache that rounds rotations to one of the given number of
+     * steps and keeps up to maxBytes of sprites
+     **********************************************************************/
+    public SpriteCache (int rotations, long maxBytes)
+    {
+        if (rotations < 1)
+        {
+            throw new IllegalArgumentException("Invalid number of rotations: " + rotations);
+        }
+        else if (maxBytes < 0)
+        {
+            throw new IllegalArgumentException("Invalid sprite memory limit: " + maxBytes);
+        }
+        this.rotations = rotations;
+        this.maxBytes = maxBytes;
+        recent = new WeakHashMap<Outline, Entry>();
+        entries = new HashMap<Key, Entry>();
+        placed = new WorldOutline();
+    }
+
+    /**********************************************************************
+     * Draws participant p part way between the last two ticks (see
+     * Participant.draw) from a sprite, which is made first if need be. If
+     * the sprite alone would take up more than the memory allowed, the
+     * outline is drawn instead.
+     **********************************************************************/
+    public void draw (Graphics2D g, Participant p, double alpha)
+    {
+        draw(g, p.placeDrawn(alpha));
+    }
+
+    /**********************************************************************
+     * Draws a placed outline from its sprite, just as draw does for a
+     * participant
+     **********************************************************************/
+    public void draw (Graphics2D g, WorldOutline border)
+    {
+        Outline outline = border.getOutline();
+        if (g.getDeviceConfiguration() != config)
+        {
+            clear();
+            config = g.getDeviceConfiguration();
+        }
+
+        // Find the sprite, or make it
+        Entry entry = entryOf(outline, g.getColor());
+        int step = outline.isCircle() ? 0 : stepOf(border.getRotation());
+        Sprite sprite = entry.sprites[step];
+        if (sprite != null)
+        {
+            hits++;
+            touch(sprite);
+        }
+        else
+        {
+            misses++;
+            sprite = render(g, entry, outline, step);
+            if (sprite == null)
+            {
+                g.draw(border.getShape());
+                return;
+            }
+        }
+
+        g.drawImage(sprite.image, (int) Math.round(border.getX()) - sprite.originX,
+                    (int) Math.round(border.getY()) - sprite.originY, null);
+    }
+
+    /**********************************************************************
+     * Returns the entry for sprites of the outline in the given color
+     **********************************************************************/
+    private Entry entryOf (Outline outline, Color color)
+    {
+        Entry entry = recent.get(outline);
+        if (entry != null && entry.key.rgb == color.getRGB())
+        {
+            return entry;
+        }
+        Key key = new Key(outline, color.getRGB());
+        entry = entries.get(key);
+        if (entry == null)
+        {
+            entry = new Entry(key, rotations);
+        }
+        recent.put(outline, entry);
+        return entry;
+    }
+
+    /**********************************************************************
+     * Returns the step nearest to the given rotation
+     **********************************************************************/
+    private int stepOf (double rotation)
+    {
+        int step = (int) (Math.round(rotation / (2 * Math.PI) * rotations) % rotations);
+        return (step < 0) ? step + rotations : step;
+    }
+
+    /**********************************************************************
+     * Draws the outline at a rotation step into a new sprite, which goes
+     * into the entry, and drops old sprites to make room for it. Returns
+     * the sprite, or null if it would take up more memory than is allowed.
+     **********************************************************************/
+    private Sprite render (Graphics2D g, Entry entry, Outline outline, int step)
+    {
+        // Make the image large enough for the outline and its stroke
+        double rotation = 2 * Math.PI * step / rotations;
+        placed.place(outline, 0, 0, rotation);
+        int originX = PAD + (int) Math.ceil(-placed.getLocalMinX());
+        int originY = PAD + (int) Math.ceil(-placed.getLocalMinY());
+        int width = originX + (int) Math.ceil(placed.getLocalMaxX()) + PAD;
+        int height = originY + (int) Math.ceil(placed.getLocalMaxY()) + PAD;
+        long size = 4L * width * height;
+        if (size > maxBytes)
+        {
+            return null;
+        }
+
+        // Draw the outline as the Graphics2D would
+        Sprite sprite = new Sprite(entry, step, originX, originY, size);
+        sprite.image = config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        Graphics2D ig = sprite.image.createGraphics();
+        try
+        {
+            ig.setRenderingHints(g.getRenderingHints());
+            ig.setStroke(g.getStroke());
+            ig.setColor(g.getColor());
+            placed.place(outline, originX, originY, rotation);
+            ig.draw(placed.getShape());
+        }
+        finally
+        {
+            ig.dispose();
+        }
+
+        // Put it in the cache, making room if need be
+        if (entry.count++ == 0)
+        {
+            entries.putIfAbsent(entry.key, entry);
+        }
+        entry.sprites[step] = sprite;
+        link(sprite);
+        bytes += size;
+        sprites++;
+        while (bytes > maxBytes)
+        {
+            evictions++;
+            remove(tail);
+        }
+        return sprite;
+    }
+
+    /**********************************************************************
+     * Makes the sprite the most recently drawn one
+     **********************************************************************/
+    private void touch (Sprite sprite)
+    {
+        if (sprite != head)
+        {
+            unlink(sprite);
+            link(sprite);
+        }
+    }
+
+    /**********************************************************************
+     * Puts the sprite at the head of the list
+     **********************************************************************/
+    private void link (Sprite sprite)
+    {
+        sprite.previous = null;
+        sprite.next = head;
+        if (head != null)
+        {
+            head.previous = sprite;
+        }
+        head = sprite;
+        if (tail == null)
+        {
+            tail = sprite;
+        }
+    }
+
+    /**********************************************************************
+     * Takes the sprite out of the list
+     **********************************************************************/
+    private void unlink (Sprite sprite)
+    {
+        if (sprite.previous != null)
+            sprite.previous.next = sprite.next;
+        else
+            head = sprite.next;
+        if (sprite.next != null)
+            sprite.next.previous = sprite.previous;
+        else
+            tail = sprite.previous;
+    }
+
+    /**********************************************************************
+     * Drops the sprite from the cache
+     **********************************************************************/
+    private void remove (Sprite sprite)
+    {
+        unlink(sprite);
+        Entry entry = sprite.entry;
+        entry.sprites[sprite.step] = null;
+        if (--entry.count == 0)
+        {
+            entries.remove(entry.key, entry);
+        }
+        bytes -= sprite.size;
+        sprites--;
+        sprite.image.flush();
+    }
+
+    /**********************************************************************
+     * Drops every sprite. The counts of hits and misses are kept.
+     **********************************************************************/
+    public void clear ()
+    {
+        while (tail != null)
+        {
+            remove(tail);
+        }
+        recent.clear();
+    }
+
+    /**********************************************************************
+     * Sets the counts of hits, misses and evictions back to zero
+     **********************************************************************/
+    public void resetCounts ()
+    {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**********************************************************************
+     * Returns the number of rotation steps
+     **********************************************************************/
+    public int getRotations ()
+    {
+        return rotations;
+    }
+
+    /**********************************************************************
+     * Returns the most bytes the sprites may take up
+     **********************************************************************/
+    public long getMaxBytes ()
+    {
+        return maxBytes;
+    }
+
+    /**********************************************************************
+     * Returns the bytes the sprites take up, counting four for each pixel
+     **********************************************************************/
+    public long getBytes ()
+    {
+        return bytes;
+    }
+
+    /**********************************************************************
+     * Returns the number of sprites in the cache
+     **********************************************************************/
+    public int getSpriteCount ()
+    {
+        return sprites;
+    }
+
+    /**********************************************************************
+     * Returns the number of participants drawn from a sprite already in
+     * the cache
+     **********************************************************************/
+    public long getHits ()
+    {
+        return hits;
+    }
+
+    /**********************************************************************
+     * Returns the number of participants whose sprite had to be made
+     **********************************************************************/
+    public long getMisses ()
+    {
+        return misses;
+    }
+
+    /**********************************************************************
+     * Returns the number of sprites dropped to make room for others
+     **********************************************************************/
+    public long getEvictions ()
+    {
+        return evictions;
+    }
+
+    /**********************************************************************
+     * Returns the fraction of participants drawn from a sprite already in
+     * the cache, or 0 if none have been drawn
+     **********************************************************************/
+    public double getHitRate ()
+    {
+        long draws = hits + misses;
+        return (draws == 0) ? 0 : (double) hits / draws;
+    }
+
+    /**********************************************************************
+     * Describes the cache's size and hit rate
+     **********************************************************************/
+    @Override
+    public String toString ()
+    {
+        return String.format("%d sprites, %.1f of %.1f MB, hit rate %.2f%%, %d evicted", sprites,
+                bytes / 1048576.0, maxBytes / 1048576.0, 100 * getHitRate(), evictions);
+    }
+
+    /**********************************************************************
+     * The path of an outline and a color, which together decide what its
+     * sprites look like
+     **********************************************************************/
+    private static class Key
+    {
+        private int rgb;					// The color
+        private int[] types;				// Type of each segment of the path
+        private double[] points;			// Points of the path, x and y by turns
+        private int hash;					// Hash of the above
+
+        /******************************************************************
+         * Creates the key for the outline in the color
+         ******************************************************************/
+        private Key (Outline outline, int rgb)
+        {
+            this.rgb = rgb;
+            types = new int[outline.getSegmentCount()];
+            for (int i = 0; i < types.length; i++)
+            {
+                types[i] = outline.getSegmentType(i);
+            }
+            points = new double[2 * outline.getPointCount()];
+            for (int i = 0; i < outline.getPointCount(); i++)
+            {
+                points[2 * i] = outline.getPointX(i);
+                points[2 * i + 1] = outline.getPointY(i);
+            }
+            hash = 31 * (31 * rgb + Arrays.hashCode(types)) + Arrays.hashCode(points);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals (Object o)
+        {
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key k = (Key) o;
+            return rgb == k.rgb && Arrays.equals(types, k.types) && Arrays.equals(points, k.points);
+        }
+    }
+
+    /**********************************************************************
+     * The sprites of one key, by rotation step
+     **********************************************************************/
+    private static class Entry
+    {
+        private Key key;					// What the sprites look like
+        private Sprite[] sprites;			// Sprite of each step, or null
+        private int count;					// Number of sprites that aren't null
+
+        /******************************************************************
+         * Creates an entry with no sprites
+         ******************************************************************/
+        private Entry (Key key, int rotations)
+        {
+            this.key = key;
+            sprites = new Sprite[rotations];
+        }
+    }
+
+    /**********************************************************************
+     * An outline drawn at one rotation step, linked into the list of
+     * sprites from most to least recently drawn
+     **********************************************************************/
+    private static class Sprite
+    {
+        private Entry entry;				// Entry the sprite belongs to
+        private int step;					// Its rotation step
+        private int originX, originY;		// Pixel the outline's center is drawn at
+        private long size;					// Bytes taken up by the image
+        private BufferedImage image;		// The outline drawn
+        private Sprite previous, next;		// Neighbors in the list
+
+        /******************************************************************
+         * Creates a sprite with no image yet
+         ******************************************************************/
+        private Sprite (Entry entry, int step, int originX, int originY, long size)
+        {
+            this.entry = entry;
+            this.step = step;
+            this.originX = originX;
+            this.originY = originY;
+            this.size = size;
+        }
+    }
+}
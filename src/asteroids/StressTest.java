@@ -0,0 +1,260 @@
+package asteroids;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * Pushes the engine to find where it stops keeping up. A stress test
+ * keeps a game filled with a given number of asteroids of mixed sizes,
+ * topping them up as they are destroyed, and can add bullets and debris
+ * at a steady rate on top. It ticks the game as fast as it can for a fixed
+ * time, drawing a frame onto an offscreen image after each tick from a
+ * snapshot of the game, as the screens do, and then prints the ticks per
+ * second, the percentiles of each phase of a tick and frame, and the rate
+ * at which memory was allocated.
+ *
+ * A stress test is started with the argument "stress" to Asteroids.main,
+ * followed by any of these settings, or with the system property
+ * asteroids.stress set to the same settings separated by commas:
+ *
+ * <pre>
+ * asteroids=N   asteroids kept in the game (default 1000)
+ * bullets=N     ship bullets fired from random places each second (default 0)
+ * debris=N      lines of debris added each second (default 0)
+ * seconds=N     how long to run (default 10)
+ * render=false  tick without drawing frames
+ * seed=N        seed of the game and of the places things are added
+ * </pre>
+ *
+ * The ship plays no part beyond being a target: the game is started as
+ * usual and left without input.
+ **********************************************************************/
+public class StressTest
+{
+    /**********************************************************************
+     * System property that starts a stress test with its settings
+     **********************************************************************/
+    public final static String STRESS_PROPERTY = "asteroids.stress";
+
+    // Lengths used for debris, as in the game
+    private final static double[] DEBRIS_LENGTHS = { 1, 5, 10, 20 };
+
+    private int asteroidCount;			// Asteroids to keep in the game
+    private double bulletRate;			// Bullets added each second
+    private double debrisRate;			// Lines of debris added each second
+    private double seconds;				// How long to run
+    private boolean render;				// Is a frame drawn after each tick?
+    private long seed;					// Seed of the game and of the random places
+
+    /**********************************************************************
+     * Creates a stress test with the default settings
+     **********************************************************************/
+    public StressTest ()
+    {
+        asteroidCount = 1000;
+        bulletRate = 0;
+        debrisRate = 0;
+        seconds = 10;
+        render = true;
+        seed = 1410;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if a setting is unknown or its
+     * value is out of range.
+     *
+     * Creates a stress test from settings of the form name=value, with
+     * defaults for the settings not given
+     **********************************************************************/
+    public StressTest (String... settings)
+    {
+        this();
+        for (String setting : settings)
+        {
+            if (!setting.isEmpty())
+            {
+                apply(setting);
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if the setting is unknown or its
+     * value is out of range.
+     *
+     * Applies one setting of the form name=value
+     **********************************************************************/
+    private void apply (String setting)
+    {
+        int equals = setting.indexOf('=');
+        String name = (equals < 0) ? setting : setting.substring(0, equals).trim();
+        String value = (equals < 0) ? "true" : setting.substring(equals + 1).trim();
+        try
+        {
+            switch (name)
+            {
+            case "asteroids":
+                asteroidCount = Integer.parseInt(value);
+                break;
+            case "bullets":
+                bulletRate = Double.parseDouble(value);
+                break;
+            case "debris":
+                debrisRate = Double.parseDouble(value);
+                break;
+            case "seconds":
+                seconds = Double.parseDouble(value);
+                break;
+            case "render":
+                render = Boolean.parseBoolean(value);
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown stress setting: " + setting);
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid stress setting: " + setting);
+        }
+        if (asteroidCount < 0 || !(bulletRate >= 0) || !(debrisRate >= 0) || !(seconds > 0))
+        {
+            throw new IllegalArgumentException("Invalid stress setting: " + setting);
+        }
+    }
+
+    /**********************************************************************
+     * Runs the stress test and returns its report
+     **********************************************************************/
+    public String run ()
+    {
+        Game game = new Game(TICK_RATE, seed);
+        game.newGame();
+        ParticipantState state = game.getParticipantState();
+        FrameStats stats = game.getStats();
+        Random random = new Random(seed);
+        Input input = new Input();
+
+        // Frames are drawn just as the screens draw them
+        BufferedImage image = null;
+        Graphics2D g = null;
+        BatchRenderer renderer = null;
+        RenderSnapshot snapshot = new RenderSnapshot();
+        if (render)
+        {
+            image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+            g = image.createGraphics();
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 120));
+            renderer = Screen.createRenderer();
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long gcsBefore = stats.getGcCount();
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        long ticks = 0;
+        double bulletsDue = 0;
+        double debrisDue = 0;
+        long now = start;
+        while (now < end)
+        {
+            stats.startFrame(now);
+
+            // Top up the asteroids and add the bullets and debris that are
+            // due, then tick
+            for (int i = state.countAsteroids(); i < asteroidCount; i++)
+            {
+                game.addParticipant(game.newAsteroid(random.nextInt(4), random.nextInt(3), SIZE * random.nextDouble(),
+                        SIZE * random.nextDouble(), ASTEROID_SPEED));
+            }
+            for (bulletsDue += bulletRate / TICK_RATE; bulletsDue >= 1; bulletsDue--)
+            {
+                game.addParticipant(game.newShipBullet(SIZE * random.nextDouble(), SIZE * random.nextDouble(),
+                        2 * Math.PI * random.nextDouble()));
+            }
+            for (debrisDue += debrisRate / TICK_RATE; debrisDue >= 1; debrisDue--)
+            {
+                game.addParticipant(game.newDestructionLine(SIZE * random.nextDouble(), SIZE * random.nextDouble(),
+                        DEBRIS_LENGTHS[random.nextInt(DEBRIS_LENGTHS.length)]));
+            }
+            game.step(input);
+            ticks++;
+
+            if (render)
+            {
+                long drawStart = System.nanoTime();
+                g.setColor(Color.black);
+                g.fillRect(0, 0, SIZE, SIZE);
+                g.setColor(Color.white);
+                snapshot.capture(game, now, "", false);
+                Screen.drawScene(g, renderer, snapshot, 1);
+                stats.record(FrameStats.Phase.RENDER, System.nanoTime() - drawStart);
+            }
+            now = System.nanoTime();
+        }
+        double elapsed = (now - start) / 1e9;
+        long allocated = allocatedBytes() - allocatedBefore;
+        if (g != null)
+        {
+            g.dispose();
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Stress test: %d asteroids, %.0f bullets/s, %.0f debris/s, %s%n", asteroidCount,
+                bulletRate, debrisRate, render ? "rendering" : "not rendering"));
+        report.append(String.format("%d ticks in %.2f s: %.1f ticks/s, %d participants at the end%n", ticks, elapsed,
+                ticks / elapsed, state.getActive().size()));
+        report.append(stats);
+        if (allocatedBefore >= 0)
+        {
+            report.append(String.format("Allocated %.1f MB/s, %.1f KB/tick, %d GCs%n", allocated / elapsed / (1 << 20),
+                    (double) allocated / ticks / 1024, stats.getGcCount() - gcsBefore));
+        }
+        else
+        {
+            report.append(String.format("%d GCs%n", stats.getGcCount() - gcsBefore));
+        }
+        return report.toString();
+    }
+
+    /**********************************************************************
+     * Returns the number of bytes the calling thread has allocated so
+     * far, or -1 if the JVM can't tell
+     **********************************************************************/
+    private static long allocatedBytes ()
+    {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled())
+            {
+                return counter.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**********************************************************************
+     * Runs a stress test with the settings given as arguments and prints
+     * its report. A setting that can't be understood is reported instead.
+     **********************************************************************/
+    public static void main (String[] args)
+    {
+        try
+        {
+            System.out.print(new StressTest(args).run());
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+        }
+    }
+}
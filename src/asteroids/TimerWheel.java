@@ -0,0 +1,210 @@
+package asteroids;
+
+/**********************************************************************
+ * Keeps track of the {@link ParticipantCountdownTimer}s of a game and
+ * sets them off as the game is ticked. The wheel is a ring of slots, one
+ * per tick, that wraps around every SLOTS ticks. A timer is linked into
+ * the slot of the tick it is due on, so scheduling and cancelling take
+ * the same short time however many timers there are. A timer due more
+ * than SLOTS ticks ahead waits in its slot until the wheel comes round
+ * to the right tick.
+ *
+ * Timers that are due on the same tick go off in the order in which they
+ * were scheduled.
+ **********************************************************************/
+public class TimerWheel
+{
+    /**********************************************************************
+     * Number of slots in the wheel. Must be a power of two.
+     **********************************************************************/
+    public final static int SLOTS = 256;
+
+    private double tickLength;						// Length of a tick in seconds
+    private long tick;								// Number of times the wheel has been advanced
+    private ParticipantCountdownTimer[] first;		// First timer in each slot, or null
+    private ParticipantCountdownTimer[] last;		// Last timer in each slot, or null
+    private ParticipantCountdownTimer[] due;		// Timers going off on the current tick
+    private int size;								// Number of scheduled timers
+
+    /**********************************************************************
+     * Creates a wheel with no timers that is advanced in ticks of the given
+     * number of seconds.
+     **********************************************************************/
+    public TimerWheel (double tickLength)
+    {
+        this.tickLength = tickLength;
+        first = new ParticipantCountdownTimer[SLOTS];
+        last = new ParticipantCountdownTimer[SLOTS];
+        due = new ParticipantCountdownTimer[16];
+    }
+
+    /**********************************************************************
+     * Returns the number of times the wheel has been advanced
+     **********************************************************************/
+    public long getTick ()
+    {
+        return tick;
+    }
+
+    /**********************************************************************
+     * Returns the number of timers that are waiting to go off
+     **********************************************************************/
+    public int size ()
+    {
+        return size;
+    }
+
+    /**********************************************************************
+     * Schedules the timer to go off after the given number of milliseconds,
+     * rounded up to a whole tick. A timer always waits at least one tick.
+     * If the timer is already scheduled, it is first cancelled.
+     **********************************************************************/
+    void schedule (ParticipantCountdownTimer timer, int msecs)
+    {
+        long ticks = Math.max(1, (long) Math.ceil(msecs / (tickLength * 1000) - 1e-9));
+        scheduleAt(timer, tick + ticks);
+    }
+
+    /**********************************************************************
+     * Schedules the timer to go off on the given tick, which must be later
+     * than the current one. If the timer is already scheduled, it is first
+     * cancelled.
+     **********************************************************************/
+    void scheduleAt (ParticipantCountdownTimer timer, long deadline)
+    {
+        cancel(timer);
+        timer.wheel = this;
+        timer.deadline = deadline;
+        timer.slot = (int) (timer.deadline & (SLOTS - 1));
+
+        // Link it in at the end of its slot
+        timer.previous = last[timer.slot];
+        timer.next = null;
+        if (last[timer.slot] == null)
+        {
+            first[timer.slot] = timer;
+        }
+        else
+        {
+            last[timer.slot].next = timer;
+        }
+        last[timer.slot] = timer;
+        size++;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalStateException if any timers are scheduled.
+     *
+     * Sets the number of times the wheel has been advanced, as saved in a
+     * Snapshot
+     **********************************************************************/
+    void restoreTick (long tick)
+    {
+        if (size != 0)
+        {
+            throw new IllegalStateException("Timers are scheduled");
+        }
+        this.tick = tick;
+    }
+
+    /**********************************************************************
+     * Sets the rank of each scheduled timer to its place in its slot.
+     * Timers due on the same tick share a slot, so scheduling them again in
+     * order of rank makes them go off in the same order.
+     **********************************************************************/
+    void rank ()
+    {
+        for (int slot = 0; slot < SLOTS; slot++)
+        {
+            int rank = 0;
+            for (ParticipantCountdownTimer timer = first[slot]; timer != null; timer = timer.next)
+            {
+                timer.rank = rank++;
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Cancels the timer if it is scheduled on this wheel. Otherwise, does
+     * nothing.
+     **********************************************************************/
+    void cancel (ParticipantCountdownTimer timer)
+    {
+        if (timer.wheel != this)
+        {
+            return;
+        }
+        timer.wheel = null;
+        size--;
+
+        // A timer that is about to go off has already been unlinked
+        if (timer.slot < 0)
+        {
+            return;
+        }
+        if (timer.previous == null)
+        {
+            first[timer.slot] = timer.next;
+        }
+        else
+        {
+            timer.previous.next = timer.next;
+        }
+        if (timer.next == null)
+        {
+            last[timer.slot] = timer.previous;
+        }
+        else
+        {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    /**********************************************************************
+     * Advances the wheel by one tick and sets off the timers that are due.
+     * The timers that are due are unlinked before any goes off, so the
+     * callbacks are free to schedule and cancel timers.
+     **********************************************************************/
+    public void advance ()
+    {
+        tick++;
+        int slot = (int) (tick & (SLOTS - 1));
+
+        // Collect the timers that are due, in the order they were scheduled
+        int count = 0;
+        ParticipantCountdownTimer timer = first[slot];
+        while (timer != null)
+        {
+            ParticipantCountdownTimer next = timer.next;
+            if (timer.deadline == tick)
+            {
+                cancel(timer);
+                timer.wheel = this;
+                timer.slot = -1;
+                size++;
+                if (count == due.length)
+                {
+                    ParticipantCountdownTimer[] larger = new ParticipantCountdownTimer[2 * due.length];
+                    System.arraycopy(due, 0, larger, 0, count);
+                    due = larger;
+                }
+                due[count++] = timer;
+            }
+            timer = next;
+        }
+
+        // Set them off, skipping any that were cancelled along the way
+        for (int i = 0; i < count; i++)
+        {
+            timer = due[i];
+            due[i] = null;
+            if (timer.wheel == this && timer.slot < 0)
+            {
+                cancel(timer);
+                timer.countdownComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package asteroids;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**********************************************************************
+ * Hands objects from one writing thread to one reading thread without
+ * locks or copying. There are three objects: the writer fills the back
+ * one, the reader uses the front one, and the third is kept in the middle.
+ * Publishing swaps the back with the middle, and the reader swaps the
+ * middle with the front when something new has been published. Neither
+ * thread ever waits for the other, and neither ever sees an object that
+ * the other is using.
+ *
+ * If the writer publishes several times before the reader looks, the
+ * reader only sees the last of them.
+ **********************************************************************/
+public class TripleBuffer<T>
+{
+    // Set in middle when the object in the middle has been published
+    // since the reader last took it
+    private final static int FRESH = 4;
+
+    private Object[] slots;			// The three objects
+    private int back;				// Slot the writer is filling
+    private int front;				// Slot the reader is using
+    private AtomicInteger middle;	// Slot in the middle, with FRESH if it is new
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if any two of the objects are the
+     * same.
+     *
+     * Creates a buffer of the three given objects. The reader starts with
+     * the first.
+     **********************************************************************/
+    public TripleBuffer (T front, T middle, T back)
+    {
+        if (front == middle || middle == back || back == front)
+        {
+            throw new IllegalArgumentException("The objects must be different");
+        }
+        slots = new Object[] { front, middle, back };
+        this.front = 0;
+        this.middle = new AtomicInteger(1);
+        this.back = 2;
+    }
+
+    /**********************************************************************
+     * Returns the object the writer is to fill. Only the writer may call
+     * this.
+     **********************************************************************/
+    @SuppressWarnings("unchecked")
+    public T getBack ()
+    {
+        return (T) slots[back];
+    }
+
+    /**********************************************************************
+     * Publishes the object the writer has filled and gives the writer
+     * another to fill. Only the writer may call this.
+     **********************************************************************/
+    public void publish ()
+    {
+        back = middle.getAndSet(back | FRESH) & ~FRESH;
+    }
+
+    /**********************************************************************
+     * Takes the last object published, if there is one the reader hasn't
+     * taken, and reports whether there was. Only the reader may call this.
+     **********************************************************************/
+    public boolean update ()
+    {
+        if ((middle.get() & FRESH) == 0)
+        {
+            return false;
+        }
+        front = middle.getAndSet(front) & ~FRESH;
+        return true;
+    }
+
+    /**********************************************************************
+     * Returns the object the reader is using. Only the reader may call
+     * this.
+     **********************************************************************/
+    @SuppressWarnings("unchecked")
+    public T getFront ()
+    {
+        return (T) slots[front];
+    }
+}
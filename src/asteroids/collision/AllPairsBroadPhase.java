@@ -0,0 +1,40 @@
+package asteroids.collision;
+
+import asteroids.Participant;
+
+/**********************************************************************
+ * A broad phase that reports every pair of active participants. This is
+ * the original quadratic algorithm, kept as a reference to compare other
+ * broad phases against.
+ **********************************************************************/
+public class AllPairsBroadPhase implements BroadPhase
+{
+    private Participant[] participants;		// Participants from the last rebuild
+    private int count;						// Number of participants
+
+    /**********************************************************************
+     * Remembers the participants so they can all be reported
+     **********************************************************************/
+    @Override
+    public void rebuild (Participant[] participants, int count)
+    {
+        this.participants = participants;
+        this.count = count;
+    }
+
+    /**********************************************************************
+     * Reports every active participant after index
+     **********************************************************************/
+    @Override
+    public void findCandidates (int index, CandidateList candidates)
+    {
+        candidates.clear(count);
+        for (int j = index + 1; j < count; j++)
+        {
+            if (!participants[j].isExpired())
+            {
+                candidates.add(j);
+            }
+        }
+    }
+}
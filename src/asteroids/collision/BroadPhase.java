@@ -0,0 +1,29 @@
+package asteroids.collision;
+
+import asteroids.Participant;
+
+/**********************************************************************
+ * Finds the pairs of participants that might be colliding, so that the
+ * exact (and expensive) overlap test only has to be run on those pairs.
+ * A broad phase is rebuilt once per tick from the collision bounds of
+ * the participants and is then queried once for each of them.
+ * 
+ * Implementations may report pairs that turn out not to overlap, but
+ * they must never leave out a pair whose collision bounds intersect.
+ **********************************************************************/
+public interface BroadPhase
+{
+    /**********************************************************************
+     * Rebuilds the broad phase from the first count participants in the
+     * array. Participants are referred to by their index in the array from
+     * then on. Expired participants may be left out.
+     **********************************************************************/
+    public void rebuild (Participant[] participants, int count);
+
+    /**********************************************************************
+     * Fills candidates with the indices, all greater than index, of the
+     * participants that might be colliding with the participant at index.
+     * The indices are left sorted in ascending order without duplicates.
+     **********************************************************************/
+    public void findCandidates (int index, CandidateList candidates);
+}
@@ -0,0 +1,142 @@
+package asteroids.collision;
+
+import java.util.Arrays;
+
+/**********************************************************************
+ * A reusable list of participant indices that is filled in by a
+ * {@link BroadPhase}. Duplicate indices are dropped as they are added.
+ **********************************************************************/
+public class CandidateList
+{
+    private int[] indices;		// The indices in the list
+    private int size;			// Number of indices in the list
+    private int[] marks;		// marks[j] == mark if j is already in the list
+    private int mark;			// Mark used for the current contents
+
+    /**********************************************************************
+     * Creates an empty list
+     **********************************************************************/
+    public CandidateList ()
+    {
+        indices = new int[16];
+        marks = new int[16];
+        mark = 1;
+    }
+
+    /**********************************************************************
+     * Empties the list so that it can be filled with indices that are all
+     * less than count.
+     **********************************************************************/
+    public void clear (int count)
+    {
+        size = 0;
+        if (marks.length < count)
+        {
+            marks = new int[Math.max(count, 2 * marks.length)];
+            mark = 0;
+        }
+
+        // Advancing the mark forgets the previous contents. When it wraps
+        // around, the stale marks have to be wiped.
+        mark++;
+        if (mark == 0)
+        {
+            Arrays.fill(marks, 0);
+            mark = 1;
+        }
+    }
+
+    /**********************************************************************
+     * Adds index to the list unless it is already there
+     **********************************************************************/
+    public void add (int index)
+    {
+        if (marks[index] != mark)
+        {
+            marks[index] = mark;
+            if (size == indices.length)
+            {
+                indices = Arrays.copyOf(indices, 2 * size);
+            }
+            indices[size++] = index;
+        }
+    }
+
+    /**********************************************************************
+     * Sorts the indices into ascending order. Arrays.sort is avoided
+     * because it can allocate a work array when the indices are already in
+     * long ascending runs, which is the usual case here.
+     **********************************************************************/
+    public void sort ()
+    {
+        if (size <= 32)
+        {
+            // Insertion sort for short lists
+            for (int i = 1; i < size; i++)
+            {
+                int value = indices[i];
+                int j = i - 1;
+                while (j >= 0 && indices[j] > value)
+                {
+                    indices[j + 1] = indices[j];
+                    j--;
+                }
+                indices[j + 1] = value;
+            }
+        }
+        else
+        {
+            // Heapsort for long ones
+            for (int i = size / 2 - 1; i >= 0; i--)
+            {
+                siftDown(i, size);
+            }
+            for (int end = size - 1; end > 0; end--)
+            {
+                int top = indices[0];
+                indices[0] = indices[end];
+                indices[end] = top;
+                siftDown(0, end);
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Restores the max-heap order of the first end indices below position i
+     **********************************************************************/
+    private void siftDown (int i, int end)
+    {
+        int value = indices[i];
+        while (2 * i + 1 < end)
+        {
+            int child = 2 * i + 1;
+            if (child + 1 < end && indices[child + 1] > indices[child])
+            {
+                child++;
+            }
+            if (indices[child] <= value)
+            {
+                break;
+            }
+            indices[i] = indices[child];
+            i = child;
+        }
+        indices[i] = value;
+    }
+
+    /**********************************************************************
+     * Returns the number of indices in the list
+     **********************************************************************/
+    public int size ()
+    {
+        return size;
+    }
+
+    /**********************************************************************
+     * Returns the i-th index in the list
+     **********************************************************************/
+    public int get (int i)
+    {
+        return indices[i];
+    }
+}
@@ -0,0 +1,225 @@
+package asteroids.collision;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import asteroids.Participant;
+
+/**********************************************************************
+ * Decides which classes of participants can ever affect each other when
+ * they collide, so that the pairs that can't are never tested for
+ * overlap. Each class of participant is given a type number the first
+ * time one of its participants is seen, along with a collision layer and
+ * mask derived from the interfaces in asteroids.destroyers:
+ *
+ * - The layer has a bit for each destroyer interface the class implements,
+ *   plus a bit that every participant has.
+ * - The mask has a bit for each destroyer interface that the class's
+ *   Participant.getDestroyedBy lists. A class that lists none has an empty
+ *   mask, and a class that doesn't say has a full one.
+ *
+ * Two types interact if the layer of either meets the mask of the other.
+ * Whether they do is worked out once, as each type is seen, into a matrix
+ * with a bit for each pair of types. A type that interacts with no type
+ * seen so far is inert, and its participants can be left out of the
+ * search for collisions altogether.
+ *
+ * Types are seen on the thread that runs the game, while the matrix may be
+ * read on several threads at once during a search.
+ **********************************************************************/
+public class CollisionRules
+{
+    // Bit in the layer of every participant
+    private final static long PARTICIPANT_LAYER = 1L;
+
+    // Type numbers of the classes seen so far
+    private static Map<Class<?>, Integer> types = new HashMap<>();
+
+    // The bit given to each destroyer interface seen so far
+    private static Map<Class<?>, Long> layers = new HashMap<>();
+
+    // Layer and mask of each type
+    private static List<Long> typeLayers = new ArrayList<>();
+    private static List<Long> typeMasks = new ArrayList<>();
+
+    // Row of the matrix for each type, with a bit for each type it
+    // interacts with. The whole matrix is replaced when a type is added,
+    // so that a search that is reading it never sees it half built.
+    private static volatile long[][] matrix = new long[0][];
+
+    /**********************************************************************
+     * Not to be constructed
+     **********************************************************************/
+    private CollisionRules ()
+    {
+    }
+
+    /**********************************************************************
+     * Returns the type number of p's class, working out its layer, mask and
+     * interactions the first time the class is seen.
+     **********************************************************************/
+    public static synchronized int typeOf (Participant p)
+    {
+        Integer type = types.get(p.getClass());
+        if (type == null)
+        {
+            type = addType(p);
+        }
+        return type;
+    }
+
+    /**********************************************************************
+     * Adds the type of p's class and rebuilds the matrix, returning the
+     * new type number
+     **********************************************************************/
+    private static int addType (Participant p)
+    {
+        long layer = PARTICIPANT_LAYER;
+        for (Class<?> c = p.getClass(); c != null; c = c.getSuperclass())
+        {
+            for (Class<?> i : c.getInterfaces())
+            {
+                if (i.getPackageName().equals("asteroids.destroyers"))
+                {
+                    layer |= bitOf(i);
+                }
+            }
+        }
+
+        long mask = -1L;
+        Class<?>[] destroyers = p.getDestroyedBy();
+        if (destroyers != null)
+        {
+            mask = 0;
+            for (Class<?> d : destroyers)
+            {
+                mask |= bitOf(d);
+            }
+        }
+
+        int type = typeLayers.size();
+        typeLayers.add(layer);
+        typeMasks.add(mask);
+        types.put(p.getClass(), type);
+
+        int count = typeLayers.size();
+        long[][] rows = new long[count][(count + 63) / 64];
+        for (int a = 0; a < count; a++)
+        {
+            for (int b = 0; b < count; b++)
+            {
+                if ((typeLayers.get(a) & typeMasks.get(b)) != 0 || (typeLayers.get(b) & typeMasks.get(a)) != 0)
+                {
+                    rows[a][b >>> 6] |= 1L << b;
+                }
+            }
+        }
+        matrix = rows;
+        return type;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if c isn't one of the interfaces
+     * in asteroids.destroyers, or if there are too many of them to fit.
+     *
+     * Returns the layer bit of a destroyer interface, giving it one the
+     * first time it is seen.
+     **********************************************************************/
+    private static long bitOf (Class<?> c)
+    {
+        if (!c.isInterface() || !c.getPackageName().equals("asteroids.destroyers"))
+        {
+            throw new IllegalArgumentException("Not a destroyer interface: " + c.getName());
+        }
+        Long bit = layers.get(c);
+        if (bit == null)
+        {
+            if (layers.size() >= 63)
+            {
+                throw new IllegalArgumentException("Too many destroyer interfaces: " + c.getName());
+            }
+            bit = PARTICIPANT_LAYER << (layers.size() + 1);
+            layers.put(c, bit);
+        }
+        return bit;
+    }
+
+    /**********************************************************************
+     * Returns whether a participant of one type can be affected by
+     * colliding with a participant of the other, either way round. Both
+     * types must have come from typeOf.
+     **********************************************************************/
+    public static boolean interact (int type1, int type2)
+    {
+        return (matrix[type1][type2 >>> 6] & (1L << type2)) != 0;
+    }
+
+    /**********************************************************************
+     * Returns whether a type interacts with none of the types seen so far,
+     * itself included. The type must have come from typeOf.
+     **********************************************************************/
+    public static boolean isInert (int type)
+    {
+        for (long word : matrix[type])
+        {
+            if (word != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**********************************************************************
+     * Returns the collision layer of a type that came from typeOf
+     **********************************************************************/
+    public static synchronized long getLayer (int type)
+    {
+        return typeLayers.get(type);
+    }
+
+    /**********************************************************************
+     * Returns the collision mask of a type that came from typeOf
+     **********************************************************************/
+    public static synchronized long getMask (int type)
+    {
+        return typeMasks.get(type);
+    }
+
+    /**********************************************************************
+     * Returns the number of types seen so far
+     **********************************************************************/
+    public static synchronized int getTypeCount ()
+    {
+        return typeLayers.size();
+    }
+
+    /**********************************************************************
+     * Describes the types seen so far and which of them interact
+     **********************************************************************/
+    public static synchronized String describe ()
+    {
+        Class<?>[] classes = new Class<?>[typeLayers.size()];
+        for (Map.Entry<Class<?>, Integer> entry : types.entrySet())
+        {
+            classes[entry.getValue()] = entry.getKey();
+        }
+        StringBuilder s = new StringBuilder();
+        for (int a = 0; a < classes.length; a++)
+        {
+            List<String> others = new ArrayList<>();
+            for (int b = 0; b < classes.length; b++)
+            {
+                if (interact(a, b))
+                {
+                    others.add(classes[b].getSimpleName());
+                }
+            }
+            s.append(classes[a].getSimpleName()).append(": ")
+                    .append(others.isEmpty() ? "inert" : others.toString()).append('\n');
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,573 @@
+package asteroids.collision;
+
+import java.awt.Shape;
+import java.awt.geom.*;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**********************************************************************
+ * The geometry of a participant's outline, worked out once so that
+ * collision tests can be made directly on arrays of coordinates. The
+ * coordinates are relative to the participant's center, before it is
+ * moved or rotated.
+ *
+ * An Outline has three parts:
+ *
+ * The points of the outline's path, including curve control points. The
+ * bounds of a placed outline are the bounds of these points, which is
+ * how java.awt.geom.Path2D works out its own bounds.
+ *
+ * The area enclosed by the outline, split into convex pieces so that
+ * they can be tested with the separating axis theorem. Outlines that
+ * enclose no area (such as a single line) have no pieces and never
+ * overlap anything.
+ *
+ * Or, for circular outlines such as a bullet, a center and a radius.
+ *
+ * Along with these are the bounds of the points and a bounding radius: the
+ * farthest any part of the outline gets from the center, however the
+ * outline is rotated.
+ **********************************************************************/
+public class Outline
+{
+    // How closely curves are followed when they are flattened into lines
+    private final static double FLATNESS = 0.01;
+
+    // Outlines that have already been worked out, by the Shape they came
+    // from. Shapes are looked up with their own equals and hashCode, so a
+    // Path2D is only found again by identity but an Ellipse2D or Rectangle2D
+    // shares the Outline of any equal shape. An entry goes once its Shape
+    // is no longer used anywhere else.
+    private final static Map<Shape, Outline> cache = new WeakHashMap<Shape, Outline>();
+
+    private int[] segmentTypes;				// PathIterator type of each segment of the path
+    private double[] pointX, pointY;		// Points of the outline's path
+    private double[] vertexX, vertexY;		// Vertices of the convex pieces, one piece after another
+    private int[] pieceStart;				// Start of each piece in the vertex arrays, plus the end
+    private boolean circle;					// Is the outline a circle?
+    private double centerX, centerY;		// Center of a circular outline
+    private double radius;					// Radius of a circular outline
+    private double minX, minY, maxX, maxY;	// Bounds of the points
+    private double boundingRadius;			// Farthest any point or vertex is from (0,0)
+
+    /**********************************************************************
+     * Returns the Outline of the given shape, working it out the first
+     * time it is asked for. Shapes passed to this method should not be
+     * modified afterwards.
+     **********************************************************************/
+    public static synchronized Outline of (Shape shape)
+    {
+        Outline outline = cache.get(shape);
+        if (outline == null)
+        {
+            outline = new Outline(shape);
+            cache.put(shape, outline);
+        }
+        return outline;
+    }
+
+    /**********************************************************************
+     * Works out the outline of a shape
+     **********************************************************************/
+    private Outline (Shape shape)
+    {
+        findPoints(shape);
+        if (shape instanceof Ellipse2D && ((Ellipse2D) shape).getWidth() == ((Ellipse2D) shape).getHeight())
+        {
+            Ellipse2D ellipse = (Ellipse2D) shape;
+            circle = true;
+            centerX = ellipse.getCenterX();
+            centerY = ellipse.getCenterY();
+            radius = ellipse.getWidth() / 2;
+            vertexX = new double[0];
+            vertexY = new double[0];
+            pieceStart = new int[] { 0 };
+        }
+        else
+        {
+            findPieces(shape);
+        }
+        findBounds();
+    }
+
+    /**********************************************************************
+     * Works out the bounds of the points, and the bounding radius. The
+     * pieces lie within the points, since curves lie within their control
+     * points, but their vertices are counted as well in case rounding puts
+     * one a little outside.
+     **********************************************************************/
+    private void findBounds ()
+    {
+        minX = minY = Double.POSITIVE_INFINITY;
+        maxX = maxY = Double.NEGATIVE_INFINITY;
+        double farthest = 0;
+        for (int i = 0; i < pointX.length; i++)
+        {
+            minX = Math.min(minX, pointX[i]);
+            minY = Math.min(minY, pointY[i]);
+            maxX = Math.max(maxX, pointX[i]);
+            maxY = Math.max(maxY, pointY[i]);
+            farthest = Math.max(farthest, Math.hypot(pointX[i], pointY[i]));
+        }
+        for (int i = 0; i < vertexX.length; i++)
+        {
+            farthest = Math.max(farthest, Math.hypot(vertexX[i], vertexY[i]));
+        }
+        if (circle)
+        {
+            farthest = Math.max(farthest, Math.hypot(centerX, centerY) + radius);
+        }
+        boundingRadius = farthest;
+    }
+
+    /**********************************************************************
+     * Returns the number of points used by a segment of the given
+     * PathIterator type
+     **********************************************************************/
+    public static int pointsIn (int segmentType)
+    {
+        switch (segmentType)
+        {
+        case PathIterator.SEG_QUADTO:
+            return 2;
+        case PathIterator.SEG_CUBICTO:
+            return 3;
+        case PathIterator.SEG_CLOSE:
+            return 0;
+        default:
+            return 1;
+        }
+    }
+
+    /**********************************************************************
+     * Records the segments of the shape's path and every coordinate that
+     * appears in them
+     **********************************************************************/
+    private void findPoints (Shape shape)
+    {
+        ArrayList<Integer> types = new ArrayList<Integer>();
+        ArrayList<double[]> points = new ArrayList<double[]>();
+        double[] coords = new double[6];
+        for (PathIterator iter = shape.getPathIterator(null); !iter.isDone(); iter.next())
+        {
+            int type = iter.currentSegment(coords);
+            types.add(type);
+            for (int i = 0; i < pointsIn(type); i++)
+            {
+                points.add(new double[] { coords[2 * i], coords[2 * i + 1] });
+            }
+        }
+
+        segmentTypes = new int[types.size()];
+        for (int i = 0; i < types.size(); i++)
+        {
+            segmentTypes[i] = types.get(i);
+        }
+
+        pointX = new double[points.size()];
+        pointY = new double[points.size()];
+        for (int i = 0; i < points.size(); i++)
+        {
+            pointX[i] = points.get(i)[0];
+            pointY[i] = points.get(i)[1];
+        }
+    }
+
+    /**********************************************************************
+     * Splits the area enclosed by the shape into convex pieces. The area
+     * is worked out by java.awt.geom.Area, which turns even a path that
+     * crosses over itself into simple closed polygons. Each polygon is
+     * then split into triangles, and neighboring triangles are merged back
+     * together as long as the result stays convex.
+     **********************************************************************/
+    private void findPieces (Shape shape)
+    {
+        ArrayList<double[]> pieces = new ArrayList<double[]>();
+        ArrayList<double[]> polygon = new ArrayList<double[]>();
+        double[] coords = new double[6];
+        for (PathIterator iter = new Area(shape).getPathIterator(null, FLATNESS); !iter.isDone(); iter.next())
+        {
+            int type = iter.currentSegment(coords);
+            if (type == PathIterator.SEG_MOVETO)
+            {
+                addPieces(polygon, pieces);
+                polygon.clear();
+            }
+            if (type != PathIterator.SEG_CLOSE)
+            {
+                polygon.add(new double[] { coords[0], coords[1] });
+            }
+        }
+        addPieces(polygon, pieces);
+
+        int total = 0;
+        for (double[] piece : pieces)
+        {
+            total += piece.length / 2;
+        }
+        vertexX = new double[total];
+        vertexY = new double[total];
+        pieceStart = new int[pieces.size() + 1];
+        int v = 0;
+        for (int p = 0; p < pieces.size(); p++)
+        {
+            double[] piece = pieces.get(p);
+            pieceStart[p] = v;
+            for (int i = 0; i < piece.length; i += 2)
+            {
+                vertexX[v] = piece[i];
+                vertexY[v] = piece[i + 1];
+                v++;
+            }
+        }
+        pieceStart[pieces.size()] = v;
+    }
+
+    /**********************************************************************
+     * Splits a simple polygon into convex pieces and adds them to pieces.
+     * Each piece is an array of alternating x and y coordinates, in
+     * counterclockwise order (with y pointing up).
+     **********************************************************************/
+    private static void addPieces (ArrayList<double[]> polygon, ArrayList<double[]> pieces)
+    {
+        // Drop repeated and collinear points, since they would produce
+        // triangles with no area
+        ArrayList<double[]> points = new ArrayList<double[]>(polygon);
+        boolean changed = true;
+        while (changed && points.size() >= 3)
+        {
+            changed = false;
+            for (int i = 0; i < points.size() && points.size() >= 3; i++)
+            {
+                double[] a = points.get((i + points.size() - 1) % points.size());
+                double[] b = points.get(i);
+                double[] c = points.get((i + 1) % points.size());
+                if (cross(a, b, c) == 0)
+                {
+                    points.remove(i);
+                    changed = true;
+                    i--;
+                }
+            }
+        }
+        if (points.size() < 3)
+        {
+            return;
+        }
+
+        // Put the points into counterclockwise order
+        double area = 0;
+        for (int i = 0; i < points.size(); i++)
+        {
+            double[] a = points.get(i);
+            double[] b = points.get((i + 1) % points.size());
+            area += a[0] * b[1] - b[0] * a[1];
+        }
+        if (area < 0)
+        {
+            java.util.Collections.reverse(points);
+        }
+
+        // Cut off ears until only a triangle is left
+        ArrayList<ArrayList<double[]>> convex = new ArrayList<ArrayList<double[]>>();
+        ArrayList<double[]> remaining = new ArrayList<double[]>(points);
+        while (remaining.size() > 3)
+        {
+            int ear = findEar(remaining);
+            int n = remaining.size();
+            ArrayList<double[]> triangle = new ArrayList<double[]>();
+            triangle.add(remaining.get((ear + n - 1) % n));
+            triangle.add(remaining.get(ear));
+            triangle.add(remaining.get((ear + 1) % n));
+            convex.add(triangle);
+            remaining.remove(ear);
+        }
+        convex.add(remaining);
+
+        // Merge neighboring pieces whenever the result is still convex
+        boolean merged = true;
+        while (merged)
+        {
+            merged = false;
+            for (int i = 0; i < convex.size() && !merged; i++)
+            {
+                for (int j = i + 1; j < convex.size() && !merged; j++)
+                {
+                    ArrayList<double[]> union = merge(convex.get(i), convex.get(j));
+                    if (union != null)
+                    {
+                        convex.set(i, union);
+                        convex.remove(j);
+                        merged = true;
+                    }
+                }
+            }
+        }
+
+        for (ArrayList<double[]> piece : convex)
+        {
+            double[] flat = new double[2 * piece.size()];
+            for (int i = 0; i < piece.size(); i++)
+            {
+                flat[2 * i] = piece.get(i)[0];
+                flat[2 * i + 1] = piece.get(i)[1];
+            }
+            pieces.add(flat);
+        }
+    }
+
+    /**********************************************************************
+     * Returns the index of a vertex of the counterclockwise polygon whose
+     * triangle with its two neighbors lies inside the polygon
+     **********************************************************************/
+    private static int findEar (ArrayList<double[]> polygon)
+    {
+        int n = polygon.size();
+        for (int i = 0; i < n; i++)
+        {
+            double[] a = polygon.get((i + n - 1) % n);
+            double[] b = polygon.get(i);
+            double[] c = polygon.get((i + 1) % n);
+            if (cross(a, b, c) <= 0)
+            {
+                continue;
+            }
+
+            boolean empty = true;
+            for (int j = 0; j < n && empty; j++)
+            {
+                double[] p = polygon.get(j);
+                if (p != a && p != b && p != c && cross(a, b, p) >= 0 && cross(b, c, p) >= 0 && cross(c, a, p) >= 0)
+                {
+                    empty = false;
+                }
+            }
+            if (empty)
+            {
+                return i;
+            }
+        }
+
+        // Only possible because of rounding; any vertex will do
+        return 0;
+    }
+
+    /**********************************************************************
+     * If the two counterclockwise convex polygons share an edge and their
+     * union is convex, returns the union. Otherwise returns null.
+     **********************************************************************/
+    private static ArrayList<double[]> merge (ArrayList<double[]> p, ArrayList<double[]> q)
+    {
+        int n = p.size();
+        int m = q.size();
+        for (int i = 0; i < n; i++)
+        {
+            double[] a = p.get(i);
+            double[] b = p.get((i + 1) % n);
+            for (int j = 0; j < m; j++)
+            {
+                // The shared edge runs the other way around q
+                if (q.get(j) == b && q.get((j + 1) % m) == a)
+                {
+                    ArrayList<double[]> union = new ArrayList<double[]>();
+                    for (int k = 1; k <= n; k++)
+                    {
+                        union.add(p.get((i + k) % n));
+                    }
+                    for (int k = 2; k < m; k++)
+                    {
+                        union.add(q.get((j + k) % m));
+                    }
+                    return isConvex(union) ? union : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**********************************************************************
+     * Reports whether the counterclockwise polygon is convex
+     **********************************************************************/
+    private static boolean isConvex (ArrayList<double[]> polygon)
+    {
+        int n = polygon.size();
+        for (int i = 0; i < n; i++)
+        {
+            if (cross(polygon.get(i), polygon.get((i + 1) % n), polygon.get((i + 2) % n)) < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**********************************************************************
+     * Returns the z component of (b - a) x (c - b), which is positive when
+     * a, b, c turn counterclockwise
+     **********************************************************************/
+    private static double cross (double[] a, double[] b, double[] c)
+    {
+        return (b[0] - a[0]) * (c[1] - b[1]) - (b[1] - a[1]) * (c[0] - b[0]);
+    }
+
+    /**********************************************************************
+     * Returns the number of segments in the outline's path
+     **********************************************************************/
+    public int getSegmentCount ()
+    {
+        return segmentTypes.length;
+    }
+
+    /**********************************************************************
+     * Returns the PathIterator type of the i-th segment of the outline's
+     * path. The segments use up the points in order.
+     **********************************************************************/
+    public int getSegmentType (int i)
+    {
+        return segmentTypes[i];
+    }
+
+    /**********************************************************************
+     * Returns the number of points in the outline's path
+     **********************************************************************/
+    public int getPointCount ()
+    {
+        return pointX.length;
+    }
+
+    /**********************************************************************
+     * Returns the x coordinate of the i-th point of the outline's path
+     **********************************************************************/
+    public double getPointX (int i)
+    {
+        return pointX[i];
+    }
+
+    /**********************************************************************
+     * Returns the y coordinate of the i-th point of the outline's path
+     **********************************************************************/
+    public double getPointY (int i)
+    {
+        return pointY[i];
+    }
+
+    /**********************************************************************
+     * Returns the number of vertices in all of the convex pieces
+     **********************************************************************/
+    public int getVertexCount ()
+    {
+        return vertexX.length;
+    }
+
+    /**********************************************************************
+     * Returns the x coordinate of the i-th vertex of the convex pieces
+     **********************************************************************/
+    public double getVertexX (int i)
+    {
+        return vertexX[i];
+    }
+
+    /**********************************************************************
+     * Returns the y coordinate of the i-th vertex of the convex pieces
+     **********************************************************************/
+    public double getVertexY (int i)
+    {
+        return vertexY[i];
+    }
+
+    /**********************************************************************
+     * Returns the number of convex pieces
+     **********************************************************************/
+    public int getPieceCount ()
+    {
+        return pieceStart.length - 1;
+    }
+
+    /**********************************************************************
+     * Returns the index of the first vertex of the given piece. The piece
+     * ends where the next one starts.
+     **********************************************************************/
+    public int getPieceStart (int piece)
+    {
+        return pieceStart[piece];
+    }
+
+    /**********************************************************************
+     * Reports whether the outline is a circle
+     **********************************************************************/
+    public boolean isCircle ()
+    {
+        return circle;
+    }
+
+    /**********************************************************************
+     * Returns the x coordinate of the center of a circular outline
+     **********************************************************************/
+    public double getCenterX ()
+    {
+        return centerX;
+    }
+
+    /**********************************************************************
+     * Returns the y coordinate of the center of a circular outline
+     **********************************************************************/
+    public double getCenterY ()
+    {
+        return centerY;
+    }
+
+    /**********************************************************************
+     * Returns the radius of a circular outline
+     **********************************************************************/
+    public double getRadius ()
+    {
+        return radius;
+    }
+
+    /**********************************************************************
+     * Returns the smallest x coordinate of the points, or positive infinity
+     * if there are none
+     **********************************************************************/
+    public double getMinX ()
+    {
+        return minX;
+    }
+
+    /**********************************************************************
+     * Returns the smallest y coordinate of the points, or positive infinity
+     * if there are none
+     **********************************************************************/
+    public double getMinY ()
+    {
+        return minY;
+    }
+
+    /**********************************************************************
+     * Returns the largest x coordinate of the points, or negative infinity
+     * if there are none
+     **********************************************************************/
+    public double getMaxX ()
+    {
+        return maxX;
+    }
+
+    /**********************************************************************
+     * Returns the largest y coordinate of the points, or negative infinity
+     * if there are none
+     **********************************************************************/
+    public double getMaxY ()
+    {
+        return maxY;
+    }
+
+    /**********************************************************************
+     * Returns the farthest any part of the outline gets from (0,0), which
+     * is where the outline is placed. Two placed outlines whose places are
+     * farther apart than the sum of their bounding radii can't overlap.
+     **********************************************************************/
+    public double getBoundingRadius ()
+    {
+        return boundingRadius;
+    }
+}
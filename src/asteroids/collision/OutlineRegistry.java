@@ -0,0 +1,75 @@
+package asteroids.collision;
+
+import java.awt.Shape;
+import java.util.Arrays;
+
+/**********************************************************************
+ * Numbers the outlines that participants share, so that a participant
+ * can refer to its outline by a small id rather than keeping a Shape of
+ * its own. Each outline is registered once, from a Shape that is never
+ * modified afterwards, and its {@link Outline} is worked out then. From
+ * then on, the Shape and the Outline can be looked up by id without
+ * going through the lock on Outline.of.
+ *
+ * Outlines are registered under a lock, while they may be looked up on
+ * several threads at once.
+ **********************************************************************/
+public class OutlineRegistry
+{
+    // Shape and Outline of each id. Both arrays are replaced when an
+    // outline is registered, so that a lookup never sees them half grown.
+    private static volatile Shape[] shapes = new Shape[0];
+    private static volatile Outline[] outlines = new Outline[0];
+
+    /**********************************************************************
+     * Not to be constructed
+     **********************************************************************/
+    private OutlineRegistry ()
+    {
+    }
+
+    /**********************************************************************
+     * Registers a shape, whose center should be at (0,0), and returns the
+     * id of its outline. The shape must not be modified afterwards.
+     **********************************************************************/
+    public static synchronized int register (Shape shape)
+    {
+        Outline outline = Outline.of(shape);
+        int id = outlines.length;
+        Shape[] moreShapes = Arrays.copyOf(shapes, id + 1);
+        Outline[] moreOutlines = Arrays.copyOf(outlines, id + 1);
+        moreShapes[id] = shape;
+        moreOutlines[id] = outline;
+        shapes = moreShapes;
+        outlines = moreOutlines;
+        return id;
+    }
+
+    /**********************************************************************
+     * Throws an ArrayIndexOutOfBoundsException if no outline has the id.
+     *
+     * Returns the Outline with the given id
+     **********************************************************************/
+    public static Outline getOutline (int id)
+    {
+        return outlines[id];
+    }
+
+    /**********************************************************************
+     * Throws an ArrayIndexOutOfBoundsException if no outline has the id.
+     *
+     * Returns the Shape the outline with the given id was registered from
+     **********************************************************************/
+    public static Shape getShape (int id)
+    {
+        return shapes[id];
+    }
+
+    /**********************************************************************
+     * Returns the number of outlines registered so far
+     **********************************************************************/
+    public static int getCount ()
+    {
+        return outlines.length;
+    }
+}
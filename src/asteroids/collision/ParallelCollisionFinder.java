@@ -0,0 +1,191 @@
+package asteroids.collision;
+
+import java.util.concurrent.ForkJoinPool;
+
+import asteroids.ChunkedAction;
+import asteroids.Participant;
+
+/**********************************************************************
+ * Finds the overlapping pairs of participants on the threads of a
+ * ForkJoinPool. The participants are split into chunks of consecutive
+ * indices, and each chunk asks the broad phase for the candidates of its
+ * own participants and tests them for overlap. Nothing is changed while
+ * this goes on, so the tests can run side by side. The pairs that overlap
+ * are recorded chunk by chunk, and read back in the order a single thread
+ * would have found them: by ascending first index, and for each first
+ * index by descending second index.
+ *
+ * The borders of the participants must be worked out (with
+ * Participant.prepareBorder) before the search, since working them out
+ * while they are being read would not be safe.
+ **********************************************************************/
+public class ParallelCollisionFinder
+{
+    /**********************************************************************
+     * Number of participants in each chunk
+     **********************************************************************/
+    public final static int CHUNK_SIZE = 128;
+
+    private ForkJoinPool pool;				// Threads that run the search
+    private int[][] hits;					// Pairs found in each chunk, first and second index alternately
+    private int[] hitCounts;				// Number of pairs found in each chunk
+    private int[] testCounts;				// Number of pairs tested in each chunk
+    private CandidateList[] candidates;		// Candidates for each chunk
+    private int chunks;						// Number of chunks in the last search
+
+    /**********************************************************************
+     * Creates a finder that runs on the given pool
+     **********************************************************************/
+    public ParallelCollisionFinder (ForkJoinPool pool)
+    {
+        this.pool = pool;
+        hits = new int[0][];
+        hitCounts = new int[0];
+        testCounts = new int[0];
+        candidates = new CandidateList[0];
+    }
+
+    /**********************************************************************
+     * Returns the pool the search runs on
+     **********************************************************************/
+    public ForkJoinPool getPool ()
+    {
+        return pool;
+    }
+
+    /**********************************************************************
+     * Works out the borders of the first count participants, on the pool
+     **********************************************************************/
+    public void prepare (Participant[] participants, int count)
+    {
+        ChunkedAction.invoke(pool, ChunkedAction.countChunks(count, CHUNK_SIZE), chunk ->
+        {
+            int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++)
+            {
+                if (!participants[i].isExpired())
+                {
+                    participants[i].prepareBorder();
+                }
+            }
+        });
+    }
+
+    /**********************************************************************
+     * Finds the pairs of the first count participants that overlap, using
+     * a broad phase that has been rebuilt from them. Expired participants
+     * are left out, and if filtered is true so are pairs that the
+     * CollisionRules say can't interact. The types of the participants
+     * must have been worked out already.
+     **********************************************************************/
+    public void find (Participant[] participants, int count, BroadPhase broadPhase, boolean filtered)
+    {
+        chunks = ChunkedAction.countChunks(count, CHUNK_SIZE);
+        if (hits.length < chunks)
+        {
+            int[][] moreHits = new int[chunks][];
+            int[] moreCounts = new int[chunks];
+            CandidateList[] moreCandidates = new CandidateList[chunks];
+            System.arraycopy(hits, 0, moreHits, 0, hits.length);
+            System.arraycopy(candidates, 0, moreCandidates, 0, candidates.length);
+            for (int c = hits.length; c < chunks; c++)
+            {
+                moreHits[c] = new int[16];
+                moreCandidates[c] = new CandidateList();
+            }
+            hits = moreHits;
+            hitCounts = moreCounts;
+            testCounts = new int[chunks];
+            candidates = moreCandidates;
+        }
+
+        ChunkedAction.invoke(pool, chunks, chunk ->
+        {
+            CandidateList list = candidates[chunk];
+            int found = 0;
+            int tested = 0;
+            int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++)
+            {
+                Participant p1 = participants[i];
+                if (p1.isExpired())
+                {
+                    continue;
+                }
+                int type1 = p1.getCollisionType();
+                broadPhase.findCandidates(i, list);
+                for (int k = list.size() - 1; k >= 0; k--)
+                {
+                    int j = list.get(k);
+                    Participant p2 = participants[j];
+                    if (p2.isExpired() || (filtered && !CollisionRules.interact(type1, p2.getCollisionType())))
+                    {
+                        continue;
+                    }
+                    tested++;
+                    if (p1.overlaps(p2))
+                    {
+                        if (found + 2 > hits[chunk].length)
+                        {
+                            int[] larger = new int[2 * hits[chunk].length];
+                            System.arraycopy(hits[chunk], 0, larger, 0, found);
+                            hits[chunk] = larger;
+                        }
+                        hits[chunk][found++] = i;
+                        hits[chunk][found++] = j;
+                    }
+                }
+            }
+            hitCounts[chunk] = found / 2;
+            testCounts[chunk] = tested;
+        });
+    }
+
+    /**********************************************************************
+     * Returns the number of chunks in the last search. The pairs found are
+     * read back chunk by chunk, in ascending order of chunk.
+     **********************************************************************/
+    public int getChunkCount ()
+    {
+        return chunks;
+    }
+
+    /**********************************************************************
+     * Returns the number of pairs tested for overlap in the last search
+     **********************************************************************/
+    public int getPairsTested ()
+    {
+        int tested = 0;
+        for (int c = 0; c < chunks; c++)
+        {
+            tested += testCounts[c];
+        }
+        return tested;
+    }
+
+    /**********************************************************************
+     * Returns the number of overlapping pairs found in the chunk
+     **********************************************************************/
+    public int getHitCount (int chunk)
+    {
+        return hitCounts[chunk];
+    }
+
+    /**********************************************************************
+     * Returns the index of the first participant of the given pair of the
+     * chunk
+     **********************************************************************/
+    public int getFirst (int chunk, int hit)
+    {
+        return hits[chunk][2 * hit];
+    }
+
+    /**********************************************************************
+     * Returns the index of the second participant of the given pair of the
+     * chunk
+     **********************************************************************/
+    public int getSecond (int chunk, int hit)
+    {
+        return hits[chunk][2 * hit + 1];
+    }
+}
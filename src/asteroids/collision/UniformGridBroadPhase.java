@@ -0,0 +1,197 @@
+package asteroids.collision;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import asteroids.Participant;
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * A broad phase that divides the SIZE x SIZE game area into a grid of
+ * equal square cells and records each participant in every cell that its
+ * collision bounds touch. Only participants that share a cell are reported as
+ * candidates.
+ *
+ * The game area wraps around at its edges, so the grid does too. Parts
+ * of a participant that stick out past one edge are recorded in the
+ * cells along the opposite edge.
+ **********************************************************************/
+public class UniformGridBroadPhase implements BroadPhase
+{
+    /**********************************************************************
+     * Number of cells along each side of the grid if none is given.
+     **********************************************************************/
+    public final static int DEFAULT_CELLS = 16;
+
+    private int cells;					// Number of cells along each side
+    private double cellSize;			// Width and height of a cell in pixels
+    private int[] cellStart;			// Start of each cell's entries in cellItems
+    private int[] cellItems;			// Participant indices, grouped by cell
+    private int[] minCellX, maxCellX;	// Range of columns covered by each participant
+    private int[] minCellY, maxCellY;	// Range of rows covered by each participant
+    private int count;					// Number of participants in the last rebuild
+
+    /**********************************************************************
+     * Creates a grid with DEFAULT_CELLS cells along each side
+     **********************************************************************/
+    public UniformGridBroadPhase ()
+    {
+        this(DEFAULT_CELLS);
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if cells is not positive.
+     *
+     * Creates a grid with the given number of cells along each side.
+     **********************************************************************/
+    public UniformGridBroadPhase (int cells)
+    {
+        if (cells <= 0)
+        {
+            throw new IllegalArgumentException("Invalid number of cells: " + cells);
+        }
+        this.cells = cells;
+        cellSize = (double) SIZE / cells;
+        cellStart = new int[cells * cells + 1];
+        cellItems = new int[16];
+        minCellX = new int[16];
+        maxCellX = new int[16];
+        minCellY = new int[16];
+        maxCellY = new int[16];
+    }
+
+    /**********************************************************************
+     * Records each active participant in the cells its bounds touch
+     **********************************************************************/
+    @Override
+    public void rebuild (Participant[] participants, int count)
+    {
+        this.count = count;
+        if (minCellX.length < count)
+        {
+            int capacity = Math.max(count, 2 * minCellX.length);
+            minCellX = new int[capacity];
+            maxCellX = new int[capacity];
+            minCellY = new int[capacity];
+            maxCellY = new int[capacity];
+        }
+
+        // Work out which cells each participant covers, and count how many
+        // participants land in each cell
+        Arrays.fill(cellStart, 0);
+        int total = 0;
+        for (int i = 0; i < count; i++)
+        {
+            Participant p = participants[i];
+            Rectangle2D bounds = p.isExpired() ? null : p.getCollisionBounds();
+            if (bounds == null)
+            {
+                // Covers no cells at all
+                minCellX[i] = 1;
+                maxCellX[i] = 0;
+                minCellY[i] = 1;
+                maxCellY[i] = 0;
+                continue;
+            }
+
+            setRange(i, bounds);
+            for (int y = minCellY[i]; y <= maxCellY[i]; y++)
+            {
+                for (int x = minCellX[i]; x <= maxCellX[i]; x++)
+                {
+                    cellStart[cellIndex(x, y) + 1]++;
+                    total++;
+                }
+            }
+        }
+
+        // Turn the counts into starting positions
+        for (int c = 1; c < cellStart.length; c++)
+        {
+            cellStart[c] += cellStart[c - 1];
+        }
+
+        // Fill in the cells. Going through the participants in order leaves
+        // the entries of each cell in ascending order.
+        if (cellItems.length < total)
+        {
+            cellItems = new int[Math.max(total, 2 * cellItems.length)];
+        }
+        for (int i = 0; i < count; i++)
+        {
+            for (int y = minCellY[i]; y <= maxCellY[i]; y++)
+            {
+                for (int x = minCellX[i]; x <= maxCellX[i]; x++)
+                {
+                    cellItems[cellStart[cellIndex(x, y)]++] = i;
+                }
+            }
+        }
+
+        // Filling in advanced every start to the start of the next cell, so
+        // shift them back
+        for (int c = cellStart.length - 1; c > 0; c--)
+        {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    /**********************************************************************
+     * Reports the participants after index that share a cell with it
+     **********************************************************************/
+    @Override
+    public void findCandidates (int index, CandidateList candidates)
+    {
+        candidates.clear(count);
+        for (int y = minCellY[index]; y <= maxCellY[index]; y++)
+        {
+            for (int x = minCellX[index]; x <= maxCellX[index]; x++)
+            {
+                int cell = cellIndex(x, y);
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++)
+                {
+                    int j = cellItems[k];
+                    if (j > index)
+                    {
+                        candidates.add(j);
+                    }
+                }
+            }
+        }
+        candidates.sort();
+    }
+
+    /**********************************************************************
+     * Records the range of cells covered by the bounds of participant i.
+     * The range is not wrapped yet, but a participant that is wider or
+     * taller than the whole grid is given every column or row.
+     **********************************************************************/
+    private void setRange (int i, Rectangle2D bounds)
+    {
+        minCellX[i] = (int) Math.floor(bounds.getMinX() / cellSize);
+        maxCellX[i] = (int) Math.floor(bounds.getMaxX() / cellSize);
+        if (maxCellX[i] - minCellX[i] >= cells)
+        {
+            minCellX[i] = 0;
+            maxCellX[i] = cells - 1;
+        }
+
+        minCellY[i] = (int) Math.floor(bounds.getMinY() / cellSize);
+        maxCellY[i] = (int) Math.floor(bounds.getMaxY() / cellSize);
+        if (maxCellY[i] - minCellY[i] >= cells)
+        {
+            minCellY[i] = 0;
+            maxCellY[i] = cells - 1;
+        }
+    }
+
+    /**********************************************************************
+     * Returns the index of the cell at column x and row y, wrapping both
+     * around the edges of the grid.
+     **********************************************************************/
+    private int cellIndex (int x, int y)
+    {
+        return Math.floorMod(y, cells) * cells + Math.floorMod(x, cells);
+    }
+}
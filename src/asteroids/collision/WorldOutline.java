@@ -0,0 +1,687 @@
+package asteroids.collision;
+
+import java.awt.Shape;
+import java.awt.geom.*;
+
+/**********************************************************************
+ * An {@link Outline} placed in the game area at a position and rotation.
+ * Each participant keeps one of these. The placed coordinates are worked
+ * out in preallocated arrays, and only when they are asked for after the
+ * placement has changed, so steady-state moves and collision tests
+ * allocate nothing.
+ *
+ * Two outlines overlap when the areas they enclose share more than a
+ * boundary, which is what intersecting two java.awt.geom.Area objects
+ * reports. An outline can also be swept: moved in a straight line to
+ * where it is placed, and tested against another all along the way.
+ **********************************************************************/
+public class WorldOutline
+{
+    private Outline outline;				// The outline being placed, or null
+    private double x, y, rotation;			// Where it is placed
+    private double cos, sin;				// Cosine and sine of the rotation
+    private boolean stalePoints;			// Do the placed points and bounds need to be worked out?
+    private boolean staleVertices;			// Do the placed vertices need to be worked out?
+    private boolean staleShape;				// Does the placed shape need to be rebuilt?
+    private double[] pointX, pointY;		// Placed points of the outline's path
+    private double[] vertexX, vertexY;		// Placed vertices of the convex pieces
+    private double centerX, centerY;		// Placed center of a circular outline
+    private double minX, minY, maxX, maxY;	// Bounds of the placed points
+    private double localMinX, localMinY;	// The same bounds less the point the
+    private double localMaxX, localMaxY;	//     outline is placed at
+    private Rectangle2D.Double bounds;		// The same bounds, for callers that want a rectangle
+    private Path2D.Double shape;			// The placed path, for drawing
+
+    /**********************************************************************
+     * Creates a WorldOutline that has not been placed
+     **********************************************************************/
+    public WorldOutline ()
+    {
+        pointX = new double[0];
+        pointY = new double[0];
+        vertexX = new double[0];
+        vertexY = new double[0];
+        bounds = new Rectangle2D.Double();
+    }
+
+    /**********************************************************************
+     * Places the outline with its center at (x,y), rotated by the given
+     * number of radians. The placed coordinates are worked out later, when
+     * they are first needed, and only if the placement has changed.
+     **********************************************************************/
+    public void place (Outline outline, double x, double y, double rotation)
+    {
+        if (outline == this.outline && x == this.x && y == this.y && rotation == this.rotation)
+        {
+            return;
+        }
+        if (rotation != this.rotation || this.outline == null)
+        {
+            cos = Math.cos(rotation);
+            sin = Math.sin(rotation);
+        }
+        this.outline = outline;
+        this.x = x;
+        this.y = y;
+        this.rotation = rotation;
+        stalePoints = true;
+        staleVertices = true;
+        staleShape = true;
+    }
+
+    /**********************************************************************
+     * Takes away the placed outline, so that the WorldOutline is as it was
+     * when it was created
+     **********************************************************************/
+    public void clear ()
+    {
+        outline = null;
+    }
+
+    /**********************************************************************
+     * Reports whether an outline has been placed
+     **********************************************************************/
+    public boolean isPlaced ()
+    {
+        return outline != null;
+    }
+
+    /**********************************************************************
+     * Returns the outline that was placed, or null
+     **********************************************************************/
+    public Outline getOutline ()
+    {
+        return outline;
+    }
+
+    /**********************************************************************
+     * Returns the x coordinate at which the outline was placed
+     **********************************************************************/
+    public double getX ()
+    {
+        return x;
+    }
+
+    /**********************************************************************
+     * Returns the y coordinate at which the outline was placed
+     **********************************************************************/
+    public double getY ()
+    {
+        return y;
+    }
+
+    /**********************************************************************
+     * Returns the rotation with which the outline was placed
+     **********************************************************************/
+    public double getRotation ()
+    {
+        return rotation;
+    }
+
+    /**********************************************************************
+     * Works out the placed points, bounds and vertices now instead of when
+     * they are first asked for. After this, and until the outline is placed
+     * again, the outline is only read, so it can be tested for overlap on
+     * several threads at once.
+     **********************************************************************/
+    public void prepare ()
+    {
+        updatePoints();
+        updateVertices();
+    }
+
+    /**********************************************************************
+     * Works out the placed points and their bounds if the placement has
+     * changed since they were last worked out.
+     **********************************************************************/
+    private void updatePoints ()
+    {
+        if (!stalePoints || outline == null)
+        {
+            return;
+        }
+        stalePoints = false;
+
+        int points = outline.getPointCount();
+        if (pointX.length < points)
+        {
+            pointX = new double[points];
+            pointY = new double[points];
+        }
+        localMinX = localMinY = Double.POSITIVE_INFINITY;
+        localMaxX = localMaxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < points; i++)
+        {
+            double px = outline.getPointX(i);
+            double py = outline.getPointY(i);
+            double rx = cos * px - sin * py;
+            double ry = sin * px + cos * py;
+            pointX[i] = x + rx;
+            pointY[i] = y + ry;
+            localMinX = Math.min(localMinX, rx);
+            localMinY = Math.min(localMinY, ry);
+            localMaxX = Math.max(localMaxX, rx);
+            localMaxY = Math.max(localMaxY, ry);
+        }
+
+        // Rounding never reorders sums with the same x, so these are exactly
+        // the smallest and largest of the placed points
+        minX = x + localMinX;
+        minY = y + localMinY;
+        maxX = x + localMaxX;
+        maxY = y + localMaxY;
+        bounds.setRect(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /**********************************************************************
+     * Works out the placed vertices of the convex pieces (or the center of
+     * a circle) if the placement has changed since they were last worked
+     * out.
+     **********************************************************************/
+    private void updateVertices ()
+    {
+        if (!staleVertices || outline == null)
+        {
+            return;
+        }
+        staleVertices = false;
+
+        int vertices = outline.getVertexCount();
+        if (vertexX.length < vertices)
+        {
+            vertexX = new double[vertices];
+            vertexY = new double[vertices];
+        }
+        for (int i = 0; i < vertices; i++)
+        {
+            double vx = outline.getVertexX(i);
+            double vy = outline.getVertexY(i);
+            vertexX[i] = x + (cos * vx - sin * vy);
+            vertexY[i] = y + (sin * vx + cos * vy);
+        }
+
+        centerX = x + (cos * outline.getCenterX() - sin * outline.getCenterY());
+        centerY = y + (sin * outline.getCenterX() + cos * outline.getCenterY());
+    }
+
+    /**********************************************************************
+     * Returns the placed outline as a Shape that can be drawn. The Shape
+     * is reused, and is rebuilt in place whenever the placement changes.
+     **********************************************************************/
+    public Shape getShape ()
+    {
+        if (shape == null)
+        {
+            shape = new Path2D.Double();
+            staleShape = true;
+        }
+        if (staleShape && outline != null)
+        {
+            staleShape = false;
+            shape.reset();
+            appendTo(shape);
+        }
+        return shape;
+    }
+
+    /**********************************************************************
+     * Adds the segments of the placed outline to the end of path, so that
+     * many outlines can be drawn with one call. Does nothing if no outline
+     * has been placed.
+     **********************************************************************/
+    public void appendTo (Path2D path)
+    {
+        if (outline == null)
+        {
+            return;
+        }
+        updatePoints();
+        int p = 0;
+        for (int i = 0; i < outline.getSegmentCount(); i++)
+        {
+            switch (outline.getSegmentType(i))
+            {
+            case PathIterator.SEG_MOVETO:
+                path.moveTo(pointX[p], pointY[p]);
+                break;
+            case PathIterator.SEG_LINETO:
+                path.lineTo(pointX[p], pointY[p]);
+                break;
+            case PathIterator.SEG_QUADTO:
+                path.quadTo(pointX[p], pointY[p], pointX[p + 1], pointY[p + 1]);
+                break;
+            case PathIterator.SEG_CUBICTO:
+                path.curveTo(pointX[p], pointY[p], pointX[p + 1], pointY[p + 1], pointX[p + 2], pointY[p + 2]);
+                break;
+            case PathIterator.SEG_CLOSE:
+                path.closePath();
+                break;
+            }
+            p += Outline.pointsIn(outline.getSegmentType(i));
+        }
+    }
+
+    /**********************************************************************
+     * Reports whether the areas enclosed by this outline and other overlap
+     **********************************************************************/
+    public boolean overlaps (WorldOutline other)
+    {
+        if (outline == null || other.outline == null)
+        {
+            return false;
+        }
+
+        // Reject outlines placed too far apart to reach each other
+        double reach = outline.getBoundingRadius() + other.outline.getBoundingRadius();
+        if ((x - other.x) * (x - other.x) + (y - other.y) * (y - other.y) > reach * reach)
+        {
+            return false;
+        }
+        updatePoints();
+        other.updatePoints();
+
+        // Reject outlines whose bounds don't overlap
+        if (maxX <= other.minX || other.maxX <= minX || maxY <= other.minY || other.maxY <= minY)
+        {
+            return false;
+        }
+        updateVertices();
+        other.updateVertices();
+
+        if (outline.isCircle() && other.outline.isCircle())
+        {
+            double dx = centerX - other.centerX;
+            double dy = centerY - other.centerY;
+            double r = outline.getRadius() + other.outline.getRadius();
+            return dx * dx + dy * dy < r * r;
+        }
+        else if (outline.isCircle())
+        {
+            return other.overlapsCircle(centerX, centerY, outline.getRadius());
+        }
+        else if (other.outline.isCircle())
+        {
+            return overlapsCircle(other.centerX, other.centerY, other.outline.getRadius());
+        }
+
+        // Two polygonal outlines overlap if any of their pieces do
+        for (int a = 0; a < outline.getPieceCount(); a++)
+        {
+            int aStart = outline.getPieceStart(a);
+            int aEnd = outline.getPieceStart(a + 1);
+            for (int b = 0; b < other.outline.getPieceCount(); b++)
+            {
+                int bStart = other.outline.getPieceStart(b);
+                int bEnd = other.outline.getPieceStart(b + 1);
+                if (!separates(aStart, aEnd, other, bStart, bEnd) && !other.separates(bStart, bEnd, this, aStart, aEnd))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**********************************************************************
+     * Reports whether the areas enclosed by this outline and other overlap
+     * at any point while this outline moves in a straight line by (dx,dy),
+     * relative to other, to where it is placed. Either outline may have
+     * moved; only the difference between their moves matters. Rotation
+     * during the move is not taken into account: both outlines keep the
+     * rotation they are placed with.
+     *
+     * The area this outline sweeps through is its convex pieces stretched
+     * along the move, which are still convex, so pieces are tested by
+     * separating axes as in overlaps, with the direction of the move as one
+     * more axis. A circle sweeps out a capsule, which is tested by its
+     * distance from the path of the center.
+     **********************************************************************/
+    public boolean overlaps (WorldOutline other, double dx, double dy)
+    {
+        if (dx == 0 && dy == 0)
+        {
+            return overlaps(other);
+        }
+        if (outline == null || other.outline == null)
+        {
+            return false;
+        }
+
+        // Reject outlines whose paths never bring them within reach of each
+        // other
+        double reach = outline.getBoundingRadius() + other.outline.getBoundingRadius();
+        if (distanceSquared(other.x, other.y, x - dx, y - dy, x, y) > reach * reach)
+        {
+            return false;
+        }
+        updatePoints();
+        other.updatePoints();
+
+        // Reject outlines whose bounds, stretched back along the move, don't
+        // overlap
+        if (maxX - Math.min(dx, 0) <= other.minX || other.maxX <= minX - Math.max(dx, 0)
+                || maxY - Math.min(dy, 0) <= other.minY || other.maxY <= minY - Math.max(dy, 0))
+        {
+            return false;
+        }
+        updateVertices();
+        other.updateVertices();
+
+        if (outline.isCircle() && other.outline.isCircle())
+        {
+            double r = outline.getRadius() + other.outline.getRadius();
+            return distanceSquared(other.centerX, other.centerY, centerX - dx, centerY - dy, centerX, centerY) < r * r;
+        }
+        else if (outline.isCircle())
+        {
+            return other.overlapsCapsule(centerX - dx, centerY - dy, centerX, centerY, outline.getRadius());
+        }
+        else if (other.outline.isCircle())
+        {
+            // Relative to this outline, the circle moves the other way
+            return overlapsCapsule(other.centerX + dx, other.centerY + dy, other.centerX, other.centerY,
+                    other.outline.getRadius());
+        }
+
+        for (int a = 0; a < outline.getPieceCount(); a++)
+        {
+            int aStart = outline.getPieceStart(a);
+            int aEnd = outline.getPieceStart(a + 1);
+            for (int b = 0; b < other.outline.getPieceCount(); b++)
+            {
+                int bStart = other.outline.getPieceStart(b);
+                int bEnd = other.outline.getPieceStart(b + 1);
+                if (!sweptSeparates(aStart, aEnd, other, bStart, bEnd, dx, dy)
+                        && !other.sweptSeparates(bStart, bEnd, this, aStart, aEnd, -dx, -dy)
+                        && !separatesAlong(-dy, dx, aStart, aEnd, other, bStart, bEnd, 0, 0))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**********************************************************************
+     * Reports whether one of the edges of the piece of this outline between
+     * vertices start and end is a separating axis between that piece and
+     * the piece of other between otherStart and otherEnd.
+     **********************************************************************/
+    private boolean separates (int start, int end, WorldOutline other, int otherStart, int otherEnd)
+    {
+        for (int i = start; i < end; i++)
+        {
+            int next = (i + 1 < end) ? i + 1 : start;
+
+            // The normal of the edge from vertex i to vertex next
+            double nx = vertexY[i] - vertexY[next];
+            double ny = vertexX[next] - vertexX[i];
+
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int k = start; k < end; k++)
+            {
+                double d = nx * vertexX[k] + ny * vertexY[k];
+                min = Math.min(min, d);
+                max = Math.max(max, d);
+            }
+
+            double otherMin = Double.POSITIVE_INFINITY, otherMax = Double.NEGATIVE_INFINITY;
+            for (int k = otherStart; k < otherEnd; k++)
+            {
+                double d = nx * other.vertexX[k] + ny * other.vertexY[k];
+                otherMin = Math.min(otherMin, d);
+                otherMax = Math.max(otherMax, d);
+            }
+
+            if (max <= otherMin || otherMax <= min)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**********************************************************************
+     * Reports whether one of the edges of the piece of this outline between
+     * vertices start and end is a separating axis between the area that
+     * piece sweeps through as it moves by (dx,dy) to where it is placed and
+     * the piece of other between otherStart and otherEnd.
+     **********************************************************************/
+    private boolean sweptSeparates (int start, int end, WorldOutline other, int otherStart, int otherEnd, double dx,
+            double dy)
+    {
+        for (int i = start; i < end; i++)
+        {
+            int next = (i + 1 < end) ? i + 1 : start;
+            if (separatesAlong(vertexY[i] - vertexY[next], vertexX[next] - vertexX[i], start, end, other, otherStart,
+                    otherEnd, dx, dy))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**********************************************************************
+     * Reports whether the axis (nx,ny) separates the area the piece of this
+     * outline between vertices start and end sweeps through as it moves by
+     * (dx,dy) to where it is placed from the piece of other between
+     * otherStart and otherEnd.
+     **********************************************************************/
+    private boolean separatesAlong (double nx, double ny, int start, int end, WorldOutline other, int otherStart,
+            int otherEnd, double dx, double dy)
+    {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int k = start; k < end; k++)
+        {
+            double d = nx * vertexX[k] + ny * vertexY[k];
+            min = Math.min(min, d);
+            max = Math.max(max, d);
+        }
+
+        // The piece starts the move this much further along the axis
+        double back = -(nx * dx + ny * dy);
+        min += Math.min(back, 0);
+        max += Math.max(back, 0);
+
+        double otherMin = Double.POSITIVE_INFINITY, otherMax = Double.NEGATIVE_INFINITY;
+        for (int k = otherStart; k < otherEnd; k++)
+        {
+            double d = nx * other.vertexX[k] + ny * other.vertexY[k];
+            otherMin = Math.min(otherMin, d);
+            otherMax = Math.max(otherMax, d);
+        }
+
+        return max <= otherMin || otherMax <= min;
+    }
+
+    /**********************************************************************
+     * Reports whether the circle with the given center and radius overlaps
+     * any of the pieces of this outline. The center is first checked
+     * against each piece, and only if it lies outside is its distance from
+     * the edges measured.
+     **********************************************************************/
+    private boolean overlapsCircle (double cx, double cy, double r)
+    {
+        for (int a = 0; a < outline.getPieceCount(); a++)
+        {
+            int start = outline.getPieceStart(a);
+            int end = outline.getPieceStart(a + 1);
+
+            // Is the center inside the piece? The sign of the edge tests
+            // depends on which way around the piece was placed.
+            int positive = 0, negative = 0;
+            for (int i = start; i < end; i++)
+            {
+                int next = (i + 1 < end) ? i + 1 : start;
+                double side = (vertexX[next] - vertexX[i]) * (cy - vertexY[i]) - (vertexY[next] - vertexY[i]) * (cx - vertexX[i]);
+                if (side > 0)
+                    positive++;
+                else if (side < 0)
+                    negative++;
+            }
+            if (positive == end - start || negative == end - start)
+            {
+                return true;
+            }
+
+            // Is the center close enough to an edge?
+            for (int i = start; i < end; i++)
+            {
+                int next = (i + 1 < end) ? i + 1 : start;
+                if (distanceSquared(cx, cy, vertexX[i], vertexY[i], vertexX[next], vertexY[next]) < r * r)
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**********************************************************************
+     * Reports whether the capsule swept out by a circle of radius r whose
+     * center moves from (ax,ay) to (bx,by) overlaps any of the pieces of
+     * this outline: whether either end of the path lies inside a piece, or
+     * the path passes closer than r to one of its edges.
+     **********************************************************************/
+    private boolean overlapsCapsule (double ax, double ay, double bx, double by, double r)
+    {
+        if (overlapsCircle(ax, ay, r) || overlapsCircle(bx, by, r))
+        {
+            return true;
+        }
+        for (int a = 0; a < outline.getPieceCount(); a++)
+        {
+            int start = outline.getPieceStart(a);
+            int end = outline.getPieceStart(a + 1);
+            for (int i = start; i < end; i++)
+            {
+                int next = (i + 1 < end) ? i + 1 : start;
+                double cx = vertexX[i], cy = vertexY[i];
+                double ex = vertexX[next], ey = vertexY[next];
+
+                // Does the path cross the edge?
+                double abc = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+                double abe = (bx - ax) * (ey - ay) - (by - ay) * (ex - ax);
+                double cea = (ex - cx) * (ay - cy) - (ey - cy) * (ax - cx);
+                double ceb = (ex - cx) * (by - cy) - (ey - cy) * (bx - cx);
+                if (((abc < 0 && abe > 0) || (abc > 0 && abe < 0)) && ((cea < 0 && ceb > 0) || (cea > 0 && ceb < 0)))
+                {
+                    return true;
+                }
+
+                // Otherwise the path comes closest to the edge at an end of
+                // one or the other
+                if (distanceSquared(cx, cy, ax, ay, bx, by) < r * r || distanceSquared(ex, ey, ax, ay, bx, by) < r * r)
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**********************************************************************
+     * Returns the square of the distance from (px,py) to the segment from
+     * (ax,ay) to (bx,by)
+     **********************************************************************/
+    private static double distanceSquared (double px, double py, double ax, double ay, double bx, double by)
+    {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = (lengthSquared == 0) ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = ax + t * dx - px;
+        double ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    /**********************************************************************
+     * Returns the bounds of the placed outline. The rectangle is reused,
+     * and is updated in place whenever the placement changes.
+     **********************************************************************/
+    public Rectangle2D getBounds ()
+    {
+        updatePoints();
+        return bounds;
+    }
+
+    /**********************************************************************
+     * Returns the smallest x coordinate of the placed outline
+     **********************************************************************/
+    public double getMinX ()
+    {
+        updatePoints();
+        return minX;
+    }
+
+    /**********************************************************************
+     * Returns the smallest y coordinate of the placed outline
+     **********************************************************************/
+    public double getMinY ()
+    {
+        updatePoints();
+        return minY;
+    }
+
+    /**********************************************************************
+     * Returns the largest x coordinate of the placed outline
+     **********************************************************************/
+    public double getMaxX ()
+    {
+        updatePoints();
+        return maxX;
+    }
+
+    /**********************************************************************
+     * Returns the largest y coordinate of the placed outline
+     **********************************************************************/
+    public double getMaxY ()
+    {
+        updatePoints();
+        return maxY;
+    }
+
+    /**********************************************************************
+     * Returns the smallest x coordinate of the placed outline less the x
+     * coordinate it was placed at. It depends only on the outline and the
+     * rotation, and adding it to any x gives exactly the smallest x
+     * coordinate the outline would have if placed there.
+     **********************************************************************/
+    public double getLocalMinX ()
+    {
+        updatePoints();
+        return localMinX;
+    }
+
+    /**********************************************************************
+     * Returns the smallest y coordinate of the placed outline less the y
+     * coordinate it was placed at
+     **********************************************************************/
+    public double getLocalMinY ()
+    {
+        updatePoints();
+        return localMinY;
+    }
+
+    /**********************************************************************
+     * Returns the largest x coordinate of the placed outline less the x
+     * coordinate it was placed at
+     **********************************************************************/
+    public double getLocalMaxX ()
+    {
+        updatePoints();
+        return localMaxX;
+    }
+
+    /**********************************************************************
+     * Returns the largest y coordinate of the placed outline less the y
+     * coordinate it was placed at
+     **********************************************************************/
+    public double getLocalMaxY ()
+    {
+        updatePoints();
+        return localMaxY;
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * This package contains the classes that decide which pairs of
+ * {@link asteroids.Participant} objects collide during a tick of the game.
+ * A {@link asteroids.collision.BroadPhase} cheaply narrows down the pairs
+ * that might be touching so that the exact overlap test only has to be run
+ * on those pairs. A {@link asteroids.collision.ParallelCollisionFinder}
+ * runs the overlap tests of a tick on several threads. The
+ * {@link asteroids.collision.CollisionRules} tell which classes of
+ * participants can affect each other at all, so that pairs that can't are
+ * never tested. The {@link asteroids.collision.OutlineRegistry} numbers the
+ * outlines that participants share.
+ */
+package asteroids.collision;
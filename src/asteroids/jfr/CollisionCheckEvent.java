@@ -0,0 +1,26 @@
+package asteroids.jfr;
+
+import jdk.jfr.*;
+
+/**********************************************************************
+ * A check for collisions among the active participants, from the
+ * rebuilding of the broad phase to the last collision dealt with
+ **********************************************************************/
+@Name("asteroids.CollisionCheck")
+@Label("Collision Check")
+@Category("Asteroids")
+@Description("Finding and dealing with the collisions of a tick")
+public class CollisionCheckEvent extends Event
+{
+    @Label("Participants")
+    public int participants;		// Participants that weren't left out as inert
+
+    @Label("Pairs Tested")
+    public int pairsTested;			// Pairs tested for overlap
+
+    @Label("Hits")
+    public int hits;				// Pairs found to overlap
+
+    @Label("Parallel")
+    public boolean parallel;		// Were the pairs tested on a fork-join pool?
+}
@@ -0,0 +1,17 @@
+package asteroids.jfr;
+
+import jdk.jfr.*;
+
+/**********************************************************************
+ * An expired participant being removed from the active participants
+ **********************************************************************/
+@Name("asteroids.Expiration")
+@Label("Expiration")
+@Category("Asteroids")
+@Description("A participant left the game")
+@StackTrace(false)
+public class ExpirationEvent extends Event
+{
+    @Label("Type")
+    public Class<?> type;			// Class of the participant
+}
@@ -0,0 +1,19 @@
+package asteroids.jfr;
+
+import jdk.jfr.*;
+
+/**********************************************************************
+ * A frame being drawn by one of the screens
+ **********************************************************************/
+@Name("asteroids.Paint")
+@Label("Paint")
+@Category("Asteroids")
+@Description("Drawing a frame of the game")
+public class PaintEvent extends Event
+{
+    @Label("Active")
+    public boolean active;			// Was it drawn actively, into a back buffer?
+
+    @Label("Participants")
+    public int participants;		// Participants drawn
+}
@@ -0,0 +1,17 @@
+package asteroids.jfr;
+
+import jdk.jfr.*;
+
+/**********************************************************************
+ * A participant joining the active participants
+ **********************************************************************/
+@Name("asteroids.Spawn")
+@Label("Spawn")
+@Category("Asteroids")
+@Description("A participant joined the game")
+@StackTrace(false)
+public class SpawnEvent extends Event
+{
+    @Label("Type")
+    public Class<?> type;			// Class of the participant
+}
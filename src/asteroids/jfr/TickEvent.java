@@ -0,0 +1,25 @@
+package asteroids.jfr;
+
+import jdk.jfr.*;
+
+/**********************************************************************
+ * A tick of the simulation, from the start of Game.step to its end
+ **********************************************************************/
+@Name("asteroids.Tick")
+@Label("Tick")
+@Category("Asteroids")
+@Description("One step of the simulation")
+public class TickEvent extends Event
+{
+    @Label("Tick")
+    public long tick;				// Number of the tick in the game
+
+    @Label("Participants")
+    public int participants;		// Active participants at the end of the tick
+
+    @Label("Asteroids")
+    public int asteroids;			// Asteroids at the end of the tick
+
+    @Label("Level")
+    public int level;				// Level being played
+}
@@ -0,0 +1,30 @@
+package asteroids.jfr;
+
+import jdk.jfr.*;
+
+/**********************************************************************
+ * A game transition, such as moving on to the next level or placing a new
+ * ship, from its start to its end
+ **********************************************************************/
+@Name("asteroids.Transition")
+@Label("Transition")
+@Category("Asteroids")
+@Description("A change in the course of the game")
+public class TransitionEvent extends Event
+{
+    // The kinds of transition
+    public final static String NONE = "none";				// Nothing left to do
+    public final static String GAME_OVER = "game over";		// No lives were left
+    public final static String NEW_SHIP = "new ship";		// A new ship was placed
+    public final static String NEXT_LEVEL = "next level";	// The next level was started
+    public final static String ALIEN_SHIP = "alien ship";	// A new alien ship was placed
+
+    @Label("Kind")
+    public String kind;				// What the transition did, one of the kinds above
+
+    @Label("Level")
+    public int level;				// Level after the transition
+
+    @Label("Lives")
+    public int lives;				// Lives left after the transition
+}
@@ -0,0 +1,19 @@
+/**
+ * This package contains the JDK Flight Recorder events that the game
+ * commits, so that a recording shows what the simulation was doing
+ * alongside its CPU and allocation samples: each tick, each check for
+ * collisions, each participant that joins or leaves the game, each game
+ * transition and each frame drawn. The events cost next to nothing when no
+ * recording is running: each place that commits one keeps the event's
+ * EventType and only constructs the event while that type is enabled, so
+ * nothing is allocated for events that are off.
+ *
+ * The file asteroids.jfc in this package turns them all on. It holds only
+ * the game's events, so it is meant to be given along with one of the
+ * JDK's own settings, for example:
+ *
+ * <pre>
+ * java -XX:StartFlightRecording:settings=default,settings=src/asteroids/jfr/asteroids.jfc,filename=game.jfr -jar asteroids.jar
+ * </pre>
+ */
+package asteroids.jfr;
@@ -2,9 +2,9 @@ package asteroids.participants;
 
 import asteroids.*;
 import asteroids.destroyers.*;
+import asteroids.collision.OutlineRegistry;
 import java.awt.Shape;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.Path2D;
+import java.nio.ByteBuffer;
 
 /**********************************************************************
  * Represents an alien ship
@@ -13,15 +13,15 @@ import java.awt.geom.Path2D;
 public class AlienShip extends Participant
     implements AsteroidDestroyer, ShipBulletDestroyer, ShipDestroyer
 {
-    private Shape outline;			// The outline of alien ship
+    private int outlineId;			// The id of the outline of alien ship
     private int size;				// Its size
-    private Controller controller;	// Game controller
+    private Game game;				// The game
     boolean changeDirection;		// Should it change direction?
 	
     /**********************************************************************
      * Creates an alien ship of specified size
      **********************************************************************/
-    public AlienShip(int size, Controller controller)
+    public AlienShip(int size, Game game)
     {
         changeDirection = false;		// Initialize to not change the direction of movement
         
@@ -32,40 +32,67 @@ public class AlienShip extends Participant
         else							// Else, construct an alien ship
         {
             this.size = size;
-            this.controller = controller;
+            this.game = game;
             
-            // Construct alien ship
-            Path2D.Double poly = new Path2D.Double();
-            poly.moveTo(20D, 0.0D);
-            poly.lineTo(9D, 9D);
-            poly.lineTo(-9D, 9D);
-            poly.lineTo(-20D, 0.0D);
-            poly.lineTo(20D, 0.0D);
-            poly.lineTo(-20D, 0.0D);
-            poly.lineTo(-9D, -9D);
-            poly.lineTo(9D, -9D);
-            poly.lineTo(-9D, -9D);
-            poly.lineTo(-5D, -17D);
-            poly.lineTo(5D, -17D);
-            poly.lineTo(9D, -9D);
-            poly.closePath();
+            outlineId = Outlines.alienShip(size);		// Look up the alien ship's outline
             
-            outline = poly;				// Set the constructed shape as outline
-            
-            double scale = Constants.ALIENSHIP_SCALE[size];
-            poly.transform(AffineTransform.getScaleInstance(scale, scale));
             new ParticipantCountdownTimer(this, "shoot", 1500);			// Shoot bullet after 1.5 sec
             new ParticipantCountdownTimer(this, "change", 1000);		// Change direction after 1 sec
             return;
         }
     }
 
+    /**********************************************************************
+     * The size and whether to change direction take a byte each
+     **********************************************************************/
+    protected int getStateSize()
+    {
+        return 2;
+    }
+
+    /**********************************************************************
+     * Writes the size and whether to change direction on the next move
+     **********************************************************************/
+    protected void writeState(ByteBuffer buffer)
+    {
+        buffer.put((byte) size);
+        buffer.put((byte) (changeDirection ? 1 : 0));
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if the size is invalid.
+     * 
+     * Reads back the size and whether to change direction, and looks up the
+     * outline that goes with the size
+     **********************************************************************/
+    protected void readState(ByteBuffer buffer)
+    {
+        int size = buffer.get();
+        changeDirection = buffer.get() != 0;
+        if(size < 0 || size > 1)
+        {
+            throw new IllegalArgumentException("Invalid alien ship size " + size);
+        }
+        this.size = size;
+        outlineId = Outlines.alienShip(size);
+    }
+
     /**********************************************************************
      * Returns the outline of the alien ship
      **********************************************************************/
     protected Shape getOutline()
     {
-        return outline;
+        return OutlineRegistry.getShape(outlineId);
+    }
+
+    /**********************************************************************
+     * Returns the id of the outline of the alien ship, which is shared by
+     * every alien ship of the same size
+     **********************************************************************/
+    @Override
+    protected int getOutlineId()
+    {
+        return outlineId;
     }
 
     /**********************************************************************
@@ -85,7 +112,7 @@ public class AlienShip extends Participant
     	// If it is to shoot...
         if("shoot".equals(payload))
         {
-            Ship ship = controller.getShip();						// Get the ship
+            Ship ship = game.getShip();						// Get the ship
             if(ship != null)										// If it is alive
             {
                 fireBullet();										// Fire a bullet
@@ -99,9 +126,9 @@ public class AlienShip extends Participant
     /**********************************************************************
      * Customize the base move method
      **********************************************************************/
-    public void move()
+    public void move(double seconds)
     {
-        super.move();
+        super.move(seconds);
         
         // If the alien ship needs to change direction...
         if(changeDirection)
@@ -110,9 +137,9 @@ public class AlienShip extends Participant
             
             // Change direction
             if(Math.cos(getDirection()) > 0.0D)
-                setDirection(Constants.RANDOM.nextInt(3) - 1);
+                setDirection(game.getRandom().nextInt(3) - 1);
             else
-                setDirection((Math.PI + (double)Constants.RANDOM.nextInt(3)) - 1.0D);
+                setDirection((Math.PI + (double)game.getRandom().nextInt(3)) - 1.0D);
             
             new ParticipantCountdownTimer(this, "change", 1000);	// Begin count down for next change
         }
@@ -123,9 +150,9 @@ public class AlienShip extends Participant
      **********************************************************************/
     public void fireBullet()
     {
-        AsteroidsBullet b = new AsteroidsBullet(getX(), getY(), getShootingDirectionToShip());
+        AsteroidsBullet b = game.newAsteroidsBullet(getX(), getY(), getShootingDirectionToShip());
         b.setSpeed(asteroids.Constants.BULLET_SPEED);
-        controller.addParticipant(b);
+        game.addParticipant(b);
     }
 
     /**********************************************************************
@@ -135,11 +162,11 @@ public class AlienShip extends Participant
     {
         if(size == 1)
         {
-            return Constants.RANDOM.nextDouble() * 2 * Math.PI;
+            return game.getRandom().nextDouble() * 2 * Math.PI;
         } 
         else
         {
-            Ship ship = controller.getShip();
+            Ship ship = game.getShip();
             double deltaX = ship.getX() - getX();								// Get ship's X coord
             double deltaY = ship.getY() - getY();								// Get ship's Y coord
             double distance = Math.sqrt(deltaX * deltaX + deltaY * deltaY);		// Calculate the dist bet. alien and ship
@@ -148,6 +175,25 @@ public class AlienShip extends Participant
         }
     }
 
+    /**********************************************************************
+     * An alien ship crosses a bullet's path quickly enough that the bullet
+     * could miss it between ticks, so it is fast
+     **********************************************************************/
+    @Override
+    public boolean isFast ()
+    {
+        return true;
+    }
+
+    /**********************************************************************
+     * An alien ship only reacts to AlienShipDestroyers
+     **********************************************************************/
+    @Override
+    public Class<?>[] getDestroyedBy ()
+    {
+        return new Class<?>[] { AlienShipDestroyer.class };
+    }
+
     /**********************************************************************
      * When an alien ship collides with an AlienShipDestroyer, it expires
      **********************************************************************/
@@ -158,14 +204,14 @@ public class AlienShip extends Participant
             Participant.expire(this);		// Expire the alien ship form the game
             
             // Draw the destroyed debris
-            controller.addParticipant(new DestructionLine(getX(), getY(), 10 * (size + 1)));
-            controller.addParticipant(new DestructionLine(getX(), getY(), 10 * (size + 1)));
-            controller.addParticipant(new DestructionLine(getX(), getY(), 10 * (size + 1)));
-            controller.addParticipant(new DestructionLine(getX(), getY(), 10 * (size + 1)));
-            controller.addParticipant(new DestructionLine(getX(), getY(), 5 * (size + 1)));
-            controller.addParticipant(new DestructionLine(getX(), getY(), 5 * (size + 1)));
+            game.addParticipant(game.newDestructionLine(getX(), getY(), 10 * (size + 1)));
+            game.addParticipant(game.newDestructionLine(getX(), getY(), 10 * (size + 1)));
+            game.addParticipant(game.newDestructionLine(getX(), getY(), 10 * (size + 1)));
+            game.addParticipant(game.newDestructionLine(getX(), getY(), 10 * (size + 1)));
+            game.addParticipant(game.newDestructionLine(getX(), getY(), 5 * (size + 1)));
+            game.addParticipant(game.newDestructionLine(getX(), getY(), 5 * (size + 1)));
             
-            controller.alienShipDestroyed(size);
+            game.alienShipDestroyed(size);
         }
     }
 }
\ No newline at end of file
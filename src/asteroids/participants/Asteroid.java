@@ -1,10 +1,11 @@
 package asteroids.participants;
 
 import java.awt.Shape;
-import java.awt.geom.*;
+import java.nio.ByteBuffer;
 
-import asteroids.Controller;
+import asteroids.Game;
 import asteroids.Participant;
+import asteroids.collision.OutlineRegistry;
 import asteroids.destroyers.*;
 import static asteroids.Constants.*;
 
@@ -15,18 +16,39 @@ public class Asteroid extends Participant
 	implements AsteroidBulletDestroyer, ShipDestroyer, AlienShipDestroyer, ShipBulletDestroyer
 {
     private int size;				    // The size of the asteroid (0 = small, 1 = medium, 2 = large)
-    private Shape outline;				// The outline of the asteroid
-    private Controller controller;	    // The game controller
+    private int variety;				// The variety of the asteroid (0 through 3)
+    private int outlineId;				// The id of the outline of the asteroid
+    private Game game;				    // The game
 
     /**********************************************************************
      * Throws an IllegalArgumentException if size or variety is out of range.
      * 
      * Creates an asteroid of the specified variety (0 through 3) and size (0 =
      * small, 1 = medium, 2 = large) and positions it at the provided
-     * coordinates with a random rotation. Its velocity has the given speed but
-     * is in a random direction.
+     * coordinates with a random rotation. Its velocity has the given speed, in
+     * pixels per second, but is in a random direction.
      **********************************************************************/
-    public Asteroid (int variety, int size, double x, double y, int speed, Controller controller)
+    public Asteroid (int variety, int size, double x, double y, double speed, Game game)
+    {
+        initialize(variety, size, x, y, speed, game);
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if size or variety is out of range.
+     * 
+     * Makes an asteroid taken from a pool just like a newly constructed one
+     * with the same arguments.
+     **********************************************************************/
+    public void reuse (int variety, int size, double x, double y, double speed, Game game)
+    {
+        reset();
+        initialize(variety, size, x, y, speed, game);
+    }
+
+    /**********************************************************************
+     * Sets up the asteroid as described for the constructor
+     **********************************************************************/
+    private void initialize (int variety, int size, double x, double y, double speed, Game game)
     {
         // Make sure size and variety are valid
         if (size < 0 || size > 2)
@@ -40,12 +62,13 @@ public class Asteroid extends Participant
         else
         {
         	// Create the asteroid
-        	this.controller = controller;
-        	this.size = size;
+        	this.game = game;
         	setPosition(x, y);
-        	setVelocity(speed, RANDOM.nextDouble() * 2 * Math.PI);
-        	setRotation(2 * Math.PI * RANDOM.nextDouble());
-        	createAsteroidOutline(variety, size);
+        	setVelocity(speed, game.getRandom().nextDouble() * 2 * Math.PI);
+        	setRotation(2 * Math.PI * game.getRandom().nextDouble());
+        	outlineId = Outlines.asteroid(variety, size);
+        	this.variety = variety;
+        	this.size = size;
         	return;
         }
     }
@@ -56,79 +79,60 @@ public class Asteroid extends Participant
     @Override
     protected Shape getOutline ()
     {
-        return outline;
+        return OutlineRegistry.getShape(outlineId);
     }
 
     /**********************************************************************
-     * Creates the outline of the asteroid based on its variety and size.
+     * Returns the id of the outline of the asteroid, which is shared by
+     * every asteroid of the same variety and size
      **********************************************************************/
-    private void createAsteroidOutline (int variety, int size)
+    @Override
+    protected int getOutlineId ()
     {
-        // This will contain the outline
-        Path2D.Double poly = new Path2D.Double();
+        return outlineId;
+    }
 
-        // Fill out according to variety
-        if (variety == 0)					// Draw small asteroid
-        {
-            poly.moveTo(0, -30);
-            poly.lineTo(28, -15);
-            poly.lineTo(20, 20);
-            poly.lineTo(4, 8);
-            poly.lineTo(-1, 30);
-            poly.lineTo(-12, 15);
-            poly.lineTo(-5, 2);
-            poly.lineTo(-25, 7);
-            poly.lineTo(-10, -25);
-            poly.closePath();
-        }
-        else if (variety == 1)				// Draw medium asteroid
-        {
-            poly.moveTo(10, -28);
-            poly.lineTo(7, -16);
-            poly.lineTo(30, -9);
-            poly.lineTo(30, 9);
-            poly.lineTo(10, 13);
-            poly.lineTo(5, 30);
-            poly.lineTo(-8, 28);
-            poly.lineTo(-6, 6);
-            poly.lineTo(-27, 12);
-            poly.lineTo(-30, -11);
-            poly.lineTo(-6, -15);
-            poly.lineTo(-6, -28);
-            poly.closePath();
-        }
-        else if (variety == 2)				// Draw large asteroid
+    /**********************************************************************
+     * The variety and size take a byte each
+     **********************************************************************/
+    @Override
+    protected int getStateSize ()
+    {
+        return 2;
+    }
+
+    /**********************************************************************
+     * Writes the variety and size
+     **********************************************************************/
+    @Override
+    protected void writeState (ByteBuffer buffer)
+    {
+        buffer.put((byte) variety);
+        buffer.put((byte) size);
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if size or variety is out of range.
+     * 
+     * Reads the variety and size, and looks up the outline that goes with
+     * them
+     **********************************************************************/
+    @Override
+    protected void readState (ByteBuffer buffer)
+    {
+        int variety = buffer.get();
+        int size = buffer.get();
+        if (size < 0 || size > 2)
         {
-            poly.moveTo(10, -30);
-            poly.lineTo(30, 0);
-            poly.lineTo(15, 30);
-            poly.lineTo(0, 15);
-            poly.lineTo(-15, 30);
-            poly.lineTo(-30, 0);
-            poly.lineTo(-10, -30);
-            poly.closePath();
+            throw new IllegalArgumentException("Invalid asteroid size: " + size);
         }
-        else
+        else if (variety < 0 || variety > 3)
         {
-            poly.moveTo(30, -18);
-            poly.lineTo(5, 5);
-            poly.lineTo(30, 15);
-            poly.lineTo(15, 30);
-            poly.lineTo(0, 25);
-            poly.lineTo(-15, 30);
-            poly.lineTo(-25, 8);
-            poly.lineTo(-10, -25);
-            poly.lineTo(0, -30);
-            poly.lineTo(10, -30);
-            poly.closePath();
+            throw new IllegalArgumentException("Invalid asteroid variety: " + variety);
         }
-
-        // Scale to the desired size
-        double scale = ASTEROID_SCALE[size];
-        poly.transform(AffineTransform.getScaleInstance(scale, scale));
-
-        // Save the outline
-        outline = poly;
+        outlineId = Outlines.asteroid(variety, size);
+        this.variety = variety;
+        this.size = size;
     }
 
     /**********************************************************************
@@ -139,6 +143,15 @@ public class Asteroid extends Participant
         return size;
     }
 
+    /**********************************************************************
+     * An Asteroid only reacts to AsteroidDestroyers
+     **********************************************************************/
+    @Override
+    public Class<?>[] getDestroyedBy ()
+    {
+        return new Class<?>[] { AsteroidDestroyer.class };
+    }
+
     /**********************************************************************
      * When an Asteroid collides with an AsteroidDestroyer, it expires.
      **********************************************************************/
@@ -150,7 +163,7 @@ public class Asteroid extends Participant
             // Expire the asteroid
             Participant.expire(this);
             for(int i = 0; i < 4; i++)
-                controller.addParticipant(new DestructionLine(getX(), getY(), 1.0D));
+                game.addParticipant(game.newDestructionLine(getX(), getY(), 1.0D));
             
             
             // Create two smaller asteroids. Put them at the same position
@@ -159,13 +172,13 @@ public class Asteroid extends Participant
             int size = getSize() - 1;
             if (size >= 0)
             {
-            	int speed = (controller.getLevel() + 4) - size;
-                controller.addParticipant(new Asteroid(RANDOM.nextInt(4), size, getX(), getY(), speed, controller));
-                controller.addParticipant(new Asteroid(RANDOM.nextInt(4), size, getX(), getY(), speed, controller));
+            	double speed = ((game.getLevel() + 4) - size) * ASTEROID_SPEED_STEP;
+                game.addParticipant(game.newAsteroid(game.getRandom().nextInt(4), size, getX(), getY(), speed));
+                game.addParticipant(game.newAsteroid(game.getRandom().nextInt(4), size, getX(), getY(), speed));
             }
             
-            // Inform the controller
-            controller.asteroidDestroyed(size+1);
+            // Inform the game
+            game.asteroidDestroyed(size+1);
         }
     }
 }
@@ -18,6 +18,15 @@ public class AsteroidsBullet extends Bullet
         super(x, y, direction);
     }
 
+    /**********************************************************************
+     * An alien bullet only reacts to AsteroidBulletDestroyers
+     **********************************************************************/
+    @Override
+    public Class<?>[] getDestroyedBy ()
+    {
+        return new Class<?>[] { AsteroidBulletDestroyer.class };
+    }
+
     /**********************************************************************
      * If bullet collides with asteroid, destroy it
      **********************************************************************/
@@ -2,17 +2,17 @@ package asteroids.participants;
 
 import asteroids.Participant;
 import asteroids.ParticipantCountdownTimer;
+import asteroids.collision.OutlineRegistry;
 //import asteroids.destroyers.ShipDestroyer;
 
 import java.awt.Shape;
-import java.awt.geom.Ellipse2D;
 
 /**********************************************************************
  * Represents a bullet
  **********************************************************************/
 public abstract class Bullet extends Participant
 {
-    private Shape outline;			// Bullet's outline or shape
+    private ParticipantCountdownTimer timer;	// Expires the bullet
     
     /**********************************************************************
      * Construct a bullet on (x,y) coord and set its direction
@@ -21,8 +21,28 @@ public abstract class Bullet extends Participant
     {
         setPosition(x, y);
         setVelocity(asteroids.Constants.BULLET_SPEED, direction);
-        outline = new Ellipse2D.Double(0.0D, 0.0D, 1.0D, 1.0D);
-        new ParticipantCountdownTimer(this, this, asteroids.Constants.BULLET_DURATION);
+        timer = new ParticipantCountdownTimer(this, this, asteroids.Constants.BULLET_DURATION);
+    }
+
+    /**********************************************************************
+     * Makes a bullet taken from a pool just like a newly constructed one
+     * at (x,y) coord with the given direction
+     **********************************************************************/
+    public void reuse(double x, double y, double direction)
+    {
+        reset();
+        setPosition(x, y);
+        setVelocity(asteroids.Constants.BULLET_SPEED, direction);
+        timer.restart(asteroids.Constants.BULLET_DURATION);
+    }
+
+    /**********************************************************************
+     * A bullet moves many times its own size in a tick, so it is fast
+     **********************************************************************/
+    @Override
+    public boolean isFast()
+    {
+        return true;
     }
 
     /**********************************************************************
@@ -30,7 +50,16 @@ public abstract class Bullet extends Participant
      **********************************************************************/
     protected Shape getOutline()
     {
-        return outline;
+        return OutlineRegistry.getShape(Outlines.BULLET);
+    }
+
+    /**********************************************************************
+     * Returns the id of the outline every bullet shares
+     **********************************************************************/
+    @Override
+    protected int getOutlineId()
+    {
+        return Outlines.BULLET;
     }
     
     /********************************************
@@ -1,8 +1,10 @@
 package asteroids.participants;
 
 import asteroids.*;
+import asteroids.collision.OutlineRegistry;
 import java.awt.Shape;
-import java.awt.geom.Path2D;
+import java.nio.ByteBuffer;
+import java.util.Random;
 
 /**********************************************************************
  * Represents the destruction lines of participants when destroyed
@@ -10,23 +12,74 @@ import java.awt.geom.Path2D;
  **********************************************************************/
 public class DestructionLine extends Participant
 {
-    private Shape outline;		// The shape of the debris/destruction line
+    private int outlineId = -1;					// The id of the outline of the debris/destruction line, or -1
+    private double length;						// Its length
+    private ParticipantCountdownTimer timer;	// Expires the line
     
 	/**********************************************************************
-	 * Constructs one line debris at (x,y) coord
-	 * of passed length
+	 * Constructs one line debris near (x,y) coord
+	 * of passed length, placed and timed by the passed random numbers
 	 **********************************************************************/
-    public DestructionLine(double x, double y, double length)
+    public DestructionLine(double x, double y, double length, Random random)
     {
-        double noise = Constants.RANDOM.nextDouble() * 10D - 5D;
-        Path2D.Double line = new Path2D.Double();
-        line.moveTo(0.0D, -length / 2D);
-        line.lineTo(0.0D, length / 2D);
-        setRotation(2* Math.PI * Constants.RANDOM.nextDouble());
+        double noise = random.nextDouble() * 10D - 5D;
+        setLength(length);
+        setRotation(2* Math.PI * random.nextDouble());
         setPosition(x + noise, y + noise);
-        setVelocity(Constants.RANDOM.nextDouble(), Constants.RANDOM.nextDouble() * 2 * Math.PI);
-        outline = line;
-        new ParticipantCountdownTimer(this, this, 1500 + (int)(Constants.RANDOM.nextDouble() * 500D));
+        setVelocity(Constants.DEBRIS_SPEED * random.nextDouble(), random.nextDouble() * 2 * Math.PI);
+        timer = new ParticipantCountdownTimer(this, this, 1500 + (int)(random.nextDouble() * 500D));
+    }
+
+	/**********************************************************************
+	 * Makes a line taken from a pool just like a newly constructed one
+	 * with the same arguments
+	 **********************************************************************/
+    public void reuse(double x, double y, double length, Random random)
+    {
+        reset();
+        double noise = random.nextDouble() * 10D - 5D;
+        setLength(length);
+        setRotation(2* Math.PI * random.nextDouble());
+        setPosition(x + noise, y + noise);
+        setVelocity(Constants.DEBRIS_SPEED * random.nextDouble(), random.nextDouble() * 2 * Math.PI);
+        timer.restart(1500 + (int)(random.nextDouble() * 500D));
+    }
+
+    /**********************************************************************
+     * Makes the outline a line of the given length, keeping the old one if
+     * it is already that long
+     **********************************************************************/
+    private void setLength(double length)
+    {
+        if (outlineId < 0 || length != this.length)
+        {
+            outlineId = Outlines.debris(length);
+            this.length = length;
+        }
+    }
+
+    /**********************************************************************
+     * The length takes eight bytes
+     **********************************************************************/
+    protected int getStateSize()
+    {
+        return 8;
+    }
+
+    /**********************************************************************
+     * Writes the length
+     **********************************************************************/
+    protected void writeState(ByteBuffer buffer)
+    {
+        buffer.putDouble(length);
+    }
+
+    /**********************************************************************
+     * Reads back the length
+     **********************************************************************/
+    protected void readState(ByteBuffer buffer)
+    {
+        setLength(buffer.getDouble());
     }
 
     /**********************************************************************
@@ -34,7 +87,17 @@ public class DestructionLine extends Participant
      **********************************************************************/
     protected Shape getOutline()
     {
-        return outline;
+        return OutlineRegistry.getShape(outlineId);
+    }
+
+    /**********************************************************************
+     * Returns the id of the outline, which is shared by all the lines of
+     * debris of the same length
+     **********************************************************************/
+    @Override
+    protected int getOutlineId()
+    {
+        return outlineId;
     }
 
     /**********************************************************************
@@ -45,6 +108,15 @@ public class DestructionLine extends Participant
         Participant.expire(this);
     }
 
+    /**********************************************************************
+     * Debris never reacts to a collision
+     **********************************************************************/
+    @Override
+    public Class<?>[] getDestroyedBy ()
+    {
+        return new Class<?>[0];
+    }
+
     /**********************************************************************
      * Ignore
      **********************************************************************/
@@ -0,0 +1,250 @@
+package asteroids.participants;
+
+import java.awt.geom.*;
+import java.util.HashMap;
+import java.util.Map;
+
+import asteroids.collision.OutlineRegistry;
+import static asteroids.Constants.*;
+
+/**********************************************************************
+ * The outlines of the participants, built once and shared by every
+ * participant that looks the same: the four varieties of asteroid in
+ * each of the three sizes, the ship with and without its flame, the two
+ * sizes of alien ship, the bullet, and the lines of debris. Each is
+ * registered with the {@link OutlineRegistry}, and participants keep
+ * only its id.
+ **********************************************************************/
+public class Outlines
+{
+    // Lengths of the debris the game makes, registered up front
+    private final static double[] DEBRIS_LENGTHS = { 1, 5, 10, 20 };
+
+    // Id of each variety and size of asteroid
+    private final static int[][] asteroids = new int[4][ASTEROID_SCALE.length];
+
+    // Id of each size of alien ship
+    private final static int[] alienShips = new int[ALIENSHIP_SCALE.length];
+
+    // Id of the debris of each length registered so far
+    private final static Map<Double, Integer> debris = new HashMap<Double, Integer>();
+
+    /**********************************************************************
+     * Id of the ship without its flame
+     **********************************************************************/
+    public final static int SHIP;
+
+    /**********************************************************************
+     * Id of the ship with its flame
+     **********************************************************************/
+    public final static int SHIP_FLAME;
+
+    /**********************************************************************
+     * Id of a bullet
+     **********************************************************************/
+    public final static int BULLET;
+
+    static
+    {
+        for (int variety = 0; variety < asteroids.length; variety++)
+        {
+            for (int size = 0; size < ASTEROID_SCALE.length; size++)
+            {
+                asteroids[variety][size] = register(createAsteroidOutline(variety), ASTEROID_SCALE[size]);
+            }
+        }
+
+        // Ship without thrusters
+        Path2D.Double poly = new Path2D.Double();
+        poly.moveTo(20, 0);
+        poly.lineTo(-20, 12);
+        poly.lineTo(-13, 10);
+        poly.lineTo(-13, -10);
+        poly.lineTo(-20, -12);
+        poly.closePath();
+        SHIP = OutlineRegistry.register(poly);
+
+        // Ship with thrusters
+        Path2D.Double poly1 = new Path2D.Double();
+        poly1.moveTo(20D, 0.0D);
+        poly1.lineTo(-20D, 12D);
+        poly1.lineTo(-13D, 10D);
+        poly1.lineTo(-13D, -5D);
+        poly1.lineTo(-25D, 0.0D);
+        poly1.lineTo(-13D, 5D);
+        poly1.lineTo(-13D, -10D);
+        poly1.lineTo(-20D, -12D);
+        poly1.closePath();
+        SHIP_FLAME = OutlineRegistry.register(poly1);
+
+        for (int size = 0; size < ALIENSHIP_SCALE.length; size++)
+        {
+            alienShips[size] = register(createAlienShipOutline(), ALIENSHIP_SCALE[size]);
+        }
+
+        BULLET = OutlineRegistry.register(new Ellipse2D.Double(0.0D, 0.0D, 1.0D, 1.0D));
+
+        for (double length : DEBRIS_LENGTHS)
+        {
+            debris(length);
+        }
+    }
+
+    /**********************************************************************
+     * Not to be constructed
+     **********************************************************************/
+    private Outlines ()
+    {
+    }
+
+    /**********************************************************************
+     * Scales a path and registers it, returning its id
+     **********************************************************************/
+    private static int register (Path2D.Double poly, double scale)
+    {
+        poly.transform(AffineTransform.getScaleInstance(scale, scale));
+        return OutlineRegistry.register(poly);
+    }
+
+    /**********************************************************************
+     * Creates the outline of an asteroid of the given variety, before it
+     * is scaled to a size
+     **********************************************************************/
+    private static Path2D.Double createAsteroidOutline (int variety)
+    {
+        // This will contain the outline
+        Path2D.Double poly = new Path2D.Double();
+
+        // Fill out according to variety
+        if (variety == 0)					// Draw small asteroid
+        {
+            poly.moveTo(0, -30);
+            poly.lineTo(28, -15);
+            poly.lineTo(20, 20);
+            poly.lineTo(4, 8);
+            poly.lineTo(-1, 30);
+            poly.lineTo(-12, 15);
+            poly.lineTo(-5, 2);
+            poly.lineTo(-25, 7);
+            poly.lineTo(-10, -25);
+            poly.closePath();
+        }
+        else if (variety == 1)				// Draw medium asteroid
+        {
+            poly.moveTo(10, -28);
+            poly.lineTo(7, -16);
+            poly.lineTo(30, -9);
+            poly.lineTo(30, 9);
+            poly.lineTo(10, 13);
+            poly.lineTo(5, 30);
+            poly.lineTo(-8, 28);
+            poly.lineTo(-6, 6);
+            poly.lineTo(-27, 12);
+            poly.lineTo(-30, -11);
+            poly.lineTo(-6, -15);
+            poly.lineTo(-6, -28);
+            poly.closePath();
+        }
+        else if (variety == 2)				// Draw large asteroid
+        {
+            poly.moveTo(10, -30);
+            poly.lineTo(30, 0);
+            poly.lineTo(15, 30);
+            poly.lineTo(0, 15);
+            poly.lineTo(-15, 30);
+            poly.lineTo(-30, 0);
+            poly.lineTo(-10, -30);
+            poly.closePath();
+        }
+        else
+        {
+            poly.moveTo(30, -18);
+            poly.lineTo(5, 5);
+            poly.lineTo(30, 15);
+            poly.lineTo(15, 30);
+            poly.lineTo(0, 25);
+            poly.lineTo(-15, 30);
+            poly.lineTo(-25, 8);
+            poly.lineTo(-10, -25);
+            poly.lineTo(0, -30);
+            poly.lineTo(10, -30);
+            poly.closePath();
+        }
+        return poly;
+    }
+
+    /**********************************************************************
+     * Creates the outline of an alien ship, before it is scaled to a size
+     **********************************************************************/
+    private static Path2D.Double createAlienShipOutline ()
+    {
+        Path2D.Double poly = new Path2D.Double();
+        poly.moveTo(20D, 0.0D);
+        poly.lineTo(9D, 9D);
+        poly.lineTo(-9D, 9D);
+        poly.lineTo(-20D, 0.0D);
+        poly.lineTo(20D, 0.0D);
+        poly.lineTo(-20D, 0.0D);
+        poly.lineTo(-9D, -9D);
+        poly.lineTo(9D, -9D);
+        poly.lineTo(-9D, -9D);
+        poly.lineTo(-5D, -17D);
+        poly.lineTo(5D, -17D);
+        poly.lineTo(9D, -9D);
+        poly.closePath();
+        return poly;
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if size or variety is out of range.
+     *
+     * Returns the id of an asteroid of the given variety (0 through 3) and
+     * size (0 = small, 1 = medium, 2 = large)
+     **********************************************************************/
+    public static int asteroid (int variety, int size)
+    {
+        if (size < 0 || size >= ASTEROID_SCALE.length)
+        {
+            throw new IllegalArgumentException("Invalid asteroid size: " + size);
+        }
+        else if (variety < 0 || variety >= asteroids.length)
+        {
+            throw new IllegalArgumentException("Invalid asteroid variety: " + variety);
+        }
+        return asteroids[variety][size];
+    }
+
+    /**********************************************************************
+     * Throws an IllegalArgumentException if size is out of range.
+     *
+     * Returns the id of an alien ship of the given size (0 = small, 1 =
+     * large)
+     **********************************************************************/
+    public static int alienShip (int size)
+    {
+        if (size < 0 || size >= alienShips.length)
+        {
+            throw new IllegalArgumentException("Invalid alien ship size " + size);
+        }
+        return alienShips[size];
+    }
+
+    /**********************************************************************
+     * Returns the id of a line of debris of the given length. Lines of
+     * lengths the game doesn't make are registered the first time they
+     * are asked for.
+     **********************************************************************/
+    public static synchronized int debris (double length)
+    {
+        Integer id = debris.get(length);
+        if (id == null)
+        {
+            Path2D.Double line = new Path2D.Double();
+            line.moveTo(0.0D, -length / 2D);
+            line.lineTo(0.0D, length / 2D);
+            id = OutlineRegistry.register(line);
+            debris.put(length, id);
+        }
+        return id;
+    }
+}
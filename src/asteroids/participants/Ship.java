@@ -2,9 +2,11 @@ package asteroids.participants;
 
 import java.awt.Shape;
 import java.awt.geom.*;
+import java.nio.ByteBuffer;
 
-import asteroids.Controller;
+import asteroids.Game;
 import asteroids.Participant;
+import asteroids.collision.OutlineRegistry;
 import asteroids.destroyers.*;
 import static asteroids.Constants.*;
 
@@ -13,45 +15,22 @@ import static asteroids.Constants.*;
  */
 public class Ship extends Participant implements AsteroidDestroyer
 {
-    private Shape noflameOutline;		// The outline of the ship without thrusters
-    private Shape flameOutline;			// The outline of the ship without thrusters
     private boolean showFlame;			// Should the thrusters be activated?
     private boolean accelerating;		// Is the ship accelerating?
-    private Controller controller;		// Game controller
+    private boolean flaming;			// Is the flame shown since the last move?
+    private Game game;					// The game
+    private Point2D.Double nose;		// Reused to compute where the nose is
     
     /**
      * Constructs a ship at the specified coordinates 
      * that is pointed in the given direction.
      */
-    public Ship (int x, int y, double direction, Controller controller)
+    public Ship (int x, int y, double direction, Game game)
     {
-        this.controller = controller;
+        this.game = game;
+        nose = new Point2D.Double();
         setPosition(x, y);
         setRotation(direction);
-
-        // Ship without thrusters
-        Path2D.Double poly = new Path2D.Double();
-        poly.moveTo(20, 0);
-        poly.lineTo(-20, 12);
-        poly.lineTo(-13, 10);
-        poly.lineTo(-13, -10);
-        poly.lineTo(-20, -12);
-        poly.closePath();
-        noflameOutline = poly;
-        
-        // Ship with thrusters
-        Path2D.Double poly1 = new Path2D.Double();
-        poly1.moveTo(20D, 0.0D);
-        poly1.lineTo(-20D, 12D);
-        poly1.lineTo(-13D, 10D);
-        poly1.lineTo(-13D, -5D);
-        poly1.lineTo(-25D, 0.0D);
-        poly1.lineTo(-13D, 5D);
-        poly1.lineTo(-13D, -10D);
-        poly1.lineTo(-20D, -12D);
-        poly1.closePath();
-        flameOutline = poly1;
-        
     }
 
     /**
@@ -60,9 +39,9 @@ public class Ship extends Participant implements AsteroidDestroyer
      */
     public double getXNose ()
     {
-        Point2D.Double point = new Point2D.Double(20, 0);
-        transformPoint(point);
-        return point.getX();
+        nose.setLocation(20, 0);
+        transformPoint(nose);
+        return nose.getX();
     }
 
     /**
@@ -71,9 +50,9 @@ public class Ship extends Participant implements AsteroidDestroyer
      */
     public double getYNose ()
     {
-        Point2D.Double point = new Point2D.Double(20, 0);
-        transformPoint(point);
-        return point.getY();
+        nose.setLocation(20, 0);
+        transformPoint(nose);
+        return nose.getY();
     }
 
     /**
@@ -83,55 +62,95 @@ public class Ship extends Participant implements AsteroidDestroyer
     @Override
     protected Shape getOutline ()
     {
-    	// If the ship is accelerating...
-    	if(accelerating)
-        {
-            accelerating = false;		// Set to not accelerating
-            showFlame = !showFlame;		// Reverse the use of thrusters
-            if(showFlame)				// If thrusters are active, draw ship with thrusters
-                return flameOutline;
-            else						// Else, draw the ship without it
-                return noflameOutline;
-        } 
-    	else							// If the ship is not accelerating,draw the ship without thrusters 
-        {
-            return noflameOutline;
-        }
+        return OutlineRegistry.getShape(getOutlineId());
+    }
+
+    /**
+     * This method returns the id of the outline of the ship, i.e.,
+     * with or without thrusters, as decided by the last move
+     */
+    @Override
+    protected int getOutlineId ()
+    {
+        return flaming ? Outlines.SHIP_FLAME : Outlines.SHIP;
+    }
+
+    /**
+     * Whether the ship is accelerating and showing its flame take a byte
+     */
+    @Override
+    protected int getStateSize ()
+    {
+        return 1;
+    }
+
+    /**
+     * Writes whether the ship is accelerating, whether its thrusters are
+     * on, and whether its flame is shown, which decide its outline
+     */
+    @Override
+    protected void writeState (ByteBuffer buffer)
+    {
+        buffer.put((byte) ((accelerating ? 1 : 0) | (showFlame ? 2 : 0) | (flaming ? 4 : 0)));
+    }
 
+    /**
+     * Reads back whether the ship is accelerating, whether its thrusters
+     * are on, and whether its flame is shown
+     */
+    @Override
+    protected void readState (ByteBuffer buffer)
+    {
+        int flags = buffer.get();
+        accelerating = (flags & 1) != 0;
+        showFlame = (flags & 2) != 0;
+        flaming = (flags & 4) != 0;
     }
 
     /**
-     * Customizes the base move method by imposing friction
+     * Customizes the base move method by imposing friction, and flickers
+     * the thrusters if the ship accelerated since the last move
      */
     @Override
-    public void move ()
+    public void move (double seconds)
     {
-        applyFriction(SHIP_FRICTION);
-        super.move();
+        // If the ship is accelerating, reverse the use of thrusters and draw
+        // the ship with them while they are active. Otherwise draw the ship
+        // without them.
+        flaming = false;
+        if(accelerating)
+        {
+            accelerating = false;
+            showFlame = !showFlame;
+            flaming = showFlame;
+        }
+
+        applyFriction(SHIP_FRICTION * seconds);
+        super.move(seconds);
     }
 
     /**
-     * Turns right by Pi/16 radians
+     * Turns right at SHIP_TURN_RATE for one tick
      */
     public void turnRight ()
     {
-        rotate(Math.PI / 16);
+        rotate(SHIP_TURN_RATE * game.getTickLength());
     }
 
     /**
-     * Turns left by Pi/16 radians
+     * Turns left at SHIP_TURN_RATE for one tick
      */
     public void turnLeft ()
     {
-        rotate(-Math.PI / 16);
+        rotate(-SHIP_TURN_RATE * game.getTickLength());
     }
     
     /**
-     * Accelerates by SHIP_ACCELERATION
+     * Accelerates at SHIP_ACCELERATION for one tick
      */
     public void accelerate ()
     {
-        accelerate(SHIP_ACCELERATION);
+        accelerate(SHIP_ACCELERATION * game.getTickLength());
         accelerating = true;
     }
 
@@ -141,14 +160,33 @@ public class Ship extends Participant implements AsteroidDestroyer
      */
     public void shoot()
     {
-        if(!controller.atBulletLimit(asteroids.Constants.BULLET_LIMIT))			// If not at bullet limit
+        if(!game.atBulletLimit(asteroids.Constants.BULLET_LIMIT))			// If not at bullet limit
         {
-            Bullet b = new ShipBullet(getXNose(), getYNose(), getRotation());	// Create a bullet
+            Bullet b = game.newShipBullet(getXNose(), getYNose(), getRotation());	// Create a bullet
             b.setVelocity(asteroids.Constants.BULLET_SPEED, getRotation());		// Fire it
-            controller.addParticipant(b);							            // Add it to the participants
+            game.addParticipant(b);							            // Add it to the participants
         }
     }
     
+    /**
+     * A Ship can build up enough speed to pass through a small asteroid in a
+     * tick, so it is fast
+     */
+    @Override
+    public boolean isFast ()
+    {
+        return true;
+    }
+
+    /**
+     * A Ship only reacts to ShipDestroyers
+     */
+    @Override
+    public Class<?>[] getDestroyedBy ()
+    {
+        return new Class<?>[] { ShipDestroyer.class };
+    }
+
     /**
      * When a Ship collides with a ShipDestroyer, it expires
      */
@@ -161,12 +199,12 @@ public class Ship extends Participant implements AsteroidDestroyer
             Participant.expire(this);
 
             //Call 3 destruction lines
-            controller.addParticipant(new DestructionLine(getX(), getY(), 20D));
-            controller.addParticipant(new DestructionLine(getX(), getY(), 20D));
-            controller.addParticipant(new DestructionLine(getX(), getY(), 5D));
+            game.addParticipant(game.newDestructionLine(getX(), getY(), 20D));
+            game.addParticipant(game.newDestructionLine(getX(), getY(), 20D));
+            game.addParticipant(game.newDestructionLine(getX(), getY(), 5D));
             
-            // Tell the controller the ship was destroyed
-            controller.shipDestroyed();
+            // Tell the game the ship was destroyed
+            game.shipDestroyed();
         }
     }
     
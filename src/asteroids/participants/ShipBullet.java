@@ -19,6 +19,15 @@ public class ShipBullet extends Bullet
         super(x, y, direction);
     }
 
+    /**
+     * A ship's bullet only reacts to ShipBulletDestroyers
+     */
+    @Override
+    public Class<?>[] getDestroyedBy ()
+    {
+        return new Class<?>[] { ShipBulletDestroyer.class };
+    }
+
     /**
      * If collides with an object that a bullet can destroy,
      * expire the bullet
@@ -1,5 +1,6 @@
 /**
  * All of the classes in this package extend the abstract {@link asteroids.Participant} class
- * to define a new kind of participant in the game.
+ * to define a new kind of participant in the game, except for {@link asteroids.participants.Outlines},
+ * which holds the outlines they share.
  */
 package asteroids.participants;
\ No newline at end of file
@@ -0,0 +1,186 @@
+package asteroids;
+
+import static asteroids.Constants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Polygon;
+import java.awt.Shape;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import asteroids.collision.AllPairsBroadPhase;
+import asteroids.collision.BroadPhase;
+import asteroids.collision.CandidateList;
+import asteroids.collision.UniformGridBroadPhase;
+
+/**********************************************************************
+ * Checks that the uniform grid, the default broad phase, finds every
+ * overlapping pair of participants that testing every pair finds. The
+ * grid may report pairs that don't overlap, but once those are dropped
+ * the two must agree, pair for pair and in the same order.
+ *
+ * The seeded CollisionScene is also played with each broad phase, and
+ * the collision callbacks must be made in the same order, leaving the
+ * games in the same state. The grid only narrows down the pairs to test,
+ * so any difference, such as a pair it misses where its cells wrap around
+ * the edges, or hits dealt with in another order, shows up in the logs.
+ **********************************************************************/
+public class BroadPhaseTest
+{
+    // Participants in each scene
+    private final static int ROCKS = 1000;
+
+    // Largest radius of a rock, which is bigger than a grid cell
+    private final static int MAX_RADIUS = 80;
+
+    // Half the width of the band along the edges in which the rocks of an
+    // edge scene are placed
+    private final static double EDGE_BAND = 40;
+
+    /**********************************************************************
+     * A motionless participant with a square outline
+     **********************************************************************/
+    private static class Rock extends Participant
+    {
+        private Shape outline;			// Square centered on the origin
+
+        private Rock (double x, double y, int radius)
+        {
+            outline = new Polygon(new int[] { -radius, radius, radius, -radius },
+                    new int[] { -radius, -radius, radius, radius }, 4);
+            setPosition(x, y);
+            setRotation(2 * Math.PI * x / SIZE);
+        }
+
+        @Override
+        protected Shape getOutline ()
+        {
+            return outline;
+        }
+
+        @Override
+        public void collidedWith (Participant p)
+        {
+        }
+    }
+
+    /**********************************************************************
+     * Returns a random coordinate, within the band along the edges if
+     * edges is true
+     **********************************************************************/
+    private static double coordinate (Random random, boolean edges)
+    {
+        if (edges)
+        {
+            return (SIZE + (2 * random.nextDouble() - 1) * EDGE_BAND) % SIZE;
+        }
+        return SIZE * random.nextDouble();
+    }
+
+    /**********************************************************************
+     * Lists the overlapping pairs that broadPhase finds among the rocks,
+     * in the order they would be dealt with
+     **********************************************************************/
+    private static List<String> overlaps (BroadPhase broadPhase, Participant[] rocks)
+    {
+        List<String> pairs = new ArrayList<String>();
+        CandidateList candidates = new CandidateList();
+        broadPhase.rebuild(rocks, rocks.length);
+        for (int i = 0; i < rocks.length; i++)
+        {
+            broadPhase.findCandidates(i, candidates);
+            for (int k = candidates.size() - 1; k >= 0; k--)
+            {
+                int j = candidates.get(k);
+                if (rocks[i].overlaps(rocks[j]))
+                {
+                    pairs.add(i + " " + j);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**********************************************************************
+     * Places seeded rocks, along the edges or not, and compares the pairs
+     * the two broad phases find
+     **********************************************************************/
+    private static void compareOverlaps (boolean edges)
+    {
+        // In an edge scene each rock is near one edge or the other, and the
+        // corners get those near both
+        Random random = new Random(7);
+        Participant[] rocks = new Participant[ROCKS];
+        for (int i = 0; i < ROCKS; i++)
+        {
+            boolean alongX = random.nextBoolean();
+            double x = coordinate(random, edges && alongX);
+            double y = coordinate(random, edges && !alongX);
+            rocks[i] = new Rock(x, y, 1 + random.nextInt(MAX_RADIUS));
+            rocks[i].move(1 / TICK_RATE);
+        }
+
+        List<String> grid = overlaps(new UniformGridBroadPhase(), rocks);
+        List<String> allPairs = overlaps(new AllPairsBroadPhase(), rocks);
+        assertTrue(grid.size() > 1000, "Too few overlaps to compare: " + grid.size());
+        assertEquals(allPairs, grid, "Overlapping pairs differ");
+    }
+
+    /**********************************************************************
+     * Rocks scattered over the screen
+     **********************************************************************/
+    @Test
+    public void gridFindsEveryOverlap ()
+    {
+        compareOverlaps(false);
+    }
+
+    /**********************************************************************
+     * Rocks along the edges of the screen, which straddle them
+     **********************************************************************/
+    @Test
+    public void gridFindsEveryOverlapAcrossEdges ()
+    {
+        compareOverlaps(true);
+    }
+
+    /**********************************************************************
+     * Plays the scene with both broad phases and compares the games
+     **********************************************************************/
+    private static void compareGames (boolean edges)
+    {
+        List<String> grid = new ArrayList<String>();
+        List<String> allPairs = new ArrayList<String>();
+        Game gridGame = CollisionScene.play(edges, state -> {}, grid);
+        Game allPairsGame = CollisionScene.play(edges, state -> state.setBroadPhase(new AllPairsBroadPhase()),
+                allPairs);
+
+        // The log has a line for the hits of each tick, and plenty of
+        // collisions besides
+        assertTrue(grid.size() > 400, "Too few collisions to compare: " + grid.size());
+        assertEquals(allPairs, grid, "Collision callbacks differ");
+        assertEquals(InputPlayer.fingerprint(allPairsGame), InputPlayer.fingerprint(gridGame), "Final states differ");
+    }
+
+    /**********************************************************************
+     * A game with participants scattered over the screen
+     **********************************************************************/
+    @Test
+    public void gridMatchesAllPairs ()
+    {
+        compareGames(false);
+    }
+
+    /**********************************************************************
+     * A game with participants along the edges of the screen, which
+     * straddle them, leave by one and come back by the other
+     **********************************************************************/
+    @Test
+    public void gridMatchesAllPairsAcrossEdges ()
+    {
+        compareGames(true);
+    }
+}
@@ -0,0 +1,109 @@
+package asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import asteroids.collision.CollisionRules;
+import asteroids.participants.AlienShip;
+import asteroids.participants.Ship;
+
+/**********************************************************************
+ * Checks that filtering collisions by the CollisionRules, which leaves
+ * debris out of the broad phase and skips pairs before testing them for
+ * overlap, doesn't change the game. The seeded CollisionScene is played
+ * with and without the filter, and the collisions that can do anything,
+ * and the final state of the games, must be the same. The rules
+ * themselves are checked against the interactions that follow from the
+ * interfaces in asteroids.destroyers.
+ **********************************************************************/
+public class CollisionFilterTest
+{
+    /**********************************************************************
+     * Returns a participant of each class in the game
+     **********************************************************************/
+    private static List<Participant> everyClass (Game game)
+    {
+        return Arrays.asList(new Ship(100, 100, 0, game), new AlienShip(1, game), game.newAsteroid(0, 2, 100, 100, 0),
+                game.newShipBullet(100, 100, 0), game.newAsteroidsBullet(100, 100, 0),
+                game.newDestructionLine(100, 100, 20));
+    }
+
+    /**********************************************************************
+     * Plays the scene with collisions filtered or not, logging into log
+     * without the hits of each tick, which differ since collisions that do
+     * nothing are counted as hits when they aren't filtered out. Returns
+     * the fingerprint of the game at the end.
+     **********************************************************************/
+    private static long play (boolean edges, boolean filtered, List<String> log)
+    {
+        Game game = CollisionScene.play(edges, state -> state.setFilteredCollisions(filtered), log);
+        log.removeIf(line -> line.endsWith(" hits"));
+        return InputPlayer.fingerprint(game);
+    }
+
+    /**********************************************************************
+     * Plays the scene with and without the filter and compares them
+     **********************************************************************/
+    private static void compare (boolean edges)
+    {
+        List<String> filtered = new ArrayList<String>();
+        List<String> unfiltered = new ArrayList<String>();
+        long filteredState = play(edges, true, filtered);
+        long unfilteredState = play(edges, false, unfiltered);
+
+        assertTrue(filtered.size() > 100, "Too few collisions to compare: " + filtered.size());
+        assertEquals(unfiltered, filtered, "Collision callbacks differ");
+        assertEquals(unfilteredState, filteredState, "Final states differ");
+    }
+
+    /**********************************************************************
+     * Participants scattered over the screen
+     **********************************************************************/
+    @Test
+    public void filterDoesNotChangeTheGame ()
+    {
+        compare(false);
+    }
+
+    /**********************************************************************
+     * Participants along the edges of the screen
+     **********************************************************************/
+    @Test
+    public void filterDoesNotChangeTheGameAcrossEdges ()
+    {
+        compare(true);
+    }
+
+    /**********************************************************************
+     * Each pair of classes interacts just when one of them implements a
+     * destroyer interface the other is destroyed by, and debris, which is
+     * destroyed by nothing and destroys nothing, is inert
+     **********************************************************************/
+    @Test
+    public void rulesFollowTheDestroyerInterfaces ()
+    {
+        List<Participant> participants = everyClass(new Game(Constants.TICK_RATE, 3));
+        for (Participant a : participants)
+        {
+            for (Participant b : participants)
+            {
+                assertEquals(CollisionScene.interact(a, b),
+                        CollisionRules.interact(a.getCollisionType(), b.getCollisionType()),
+                        a.getClass().getSimpleName() + " and " + b.getClass().getSimpleName());
+            }
+        }
+
+        Participant debris = participants.get(participants.size() - 1);
+        assertTrue(CollisionRules.isInert(debris.getCollisionType()));
+        assertTrue(CollisionRules.describe().contains("DestructionLine: inert\n"));
+        for (Participant p : participants.subList(0, participants.size() - 1))
+        {
+            assertFalse(CollisionRules.isInert(p.getCollisionType()), p.getClass().getSimpleName());
+        }
+    }
+}
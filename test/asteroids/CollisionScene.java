@@ -0,0 +1,193 @@
+package asteroids;
+
+import static asteroids.Constants.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import asteroids.participants.Asteroid;
+import asteroids.participants.ShipBullet;
+
+/**********************************************************************
+ * A seeded scene for checking that two ways of finding collisions make
+ * the same game: a few hundred asteroids with bullets fired into them
+ * from random places on every tick. The asteroids are scattered over the
+ * screen, or kept to a band along its edges, where they wrap around to
+ * the other side. The asteroids and bullets log their collisions in the
+ * order they are made, along with the hits counted on each tick.
+ *
+ * Collisions between participants that can't affect each other, going by
+ * the interfaces in asteroids.destroyers, do nothing and aren't logged.
+ * The CollisionRules keep them from being found at all, so the log comes
+ * out the same whether or not collisions are filtered by the rules.
+ **********************************************************************/
+class CollisionScene
+{
+    // Ticks the scene is played for
+    private final static int TICKS = 300;
+
+    // Asteroids added at the start, on top of the game's own
+    private final static int ASTEROIDS = 300;
+
+    // Bullets fired from random places on each tick
+    private final static int BULLETS_PER_TICK = 4;
+
+    // Half the width of the band along the edges in which the asteroids
+    // and bullets of an edge scene are placed
+    private final static double EDGE_BAND = 40;
+
+    /**********************************************************************
+     * An asteroid that logs its collisions
+     **********************************************************************/
+    private static class LoggedAsteroid extends Asteroid
+    {
+        private int number;				// Order in which it was added
+        private Game game;				// Its game
+        private List<String> log;		// Where its collisions are logged
+
+        private LoggedAsteroid (int number, int variety, int size, double x, double y, Game game, List<String> log)
+        {
+            super(variety, size, x, y, ASTEROID_SPEED, game);
+            this.number = number;
+            this.game = game;
+            this.log = log;
+        }
+
+        @Override
+        public void collidedWith (Participant p)
+        {
+            if (interact(this, p))
+            {
+                log.add(game.getTick() + ": asteroid " + number + " hit by " + describe(p));
+            }
+            super.collidedWith(p);
+        }
+    }
+
+    /**********************************************************************
+     * A ship's bullet that logs its collisions
+     **********************************************************************/
+    private static class LoggedBullet extends ShipBullet
+    {
+        private int number;				// Order in which it was fired
+        private Game game;				// Its game
+        private List<String> log;		// Where its collisions are logged
+
+        private LoggedBullet (int number, double x, double y, double direction, Game game, List<String> log)
+        {
+            super(x, y, direction);
+            this.number = number;
+            this.game = game;
+            this.log = log;
+        }
+
+        @Override
+        public void collidedWith (Participant p)
+        {
+            if (interact(this, p))
+            {
+                log.add(game.getTick() + ": bullet " + number + " hit " + describe(p));
+            }
+            super.collidedWith(p);
+        }
+    }
+
+    /**********************************************************************
+     * Not to be constructed
+     **********************************************************************/
+    private CollisionScene ()
+    {
+    }
+
+    /**********************************************************************
+     * Reports whether p can be affected by colliding with other: whether
+     * other implements one of the destroyer interfaces that p's
+     * getDestroyedBy lists, or p doesn't list any
+     **********************************************************************/
+    static boolean affects (Participant other, Participant p)
+    {
+        Class<?>[] destroyers = p.getDestroyedBy();
+        if (destroyers == null)
+        {
+            return true;
+        }
+        for (Class<?> destroyer : destroyers)
+        {
+            if (destroyer.isInstance(other))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**********************************************************************
+     * Reports whether a collision of a and b can affect either of them
+     **********************************************************************/
+    static boolean interact (Participant a, Participant b)
+    {
+        return affects(a, b) || affects(b, a);
+    }
+
+    /**********************************************************************
+     * Describes a participant by its class and where it is
+     **********************************************************************/
+    private static String describe (Participant p)
+    {
+        return p.getClass().getSimpleName() + " at (" + p.getX() + ", " + p.getY() + ")";
+    }
+
+    /**********************************************************************
+     * Returns a random coordinate, within the band along the edges if
+     * edges is true
+     **********************************************************************/
+    private static double coordinate (Random random, boolean edges)
+    {
+        if (edges)
+        {
+            return (SIZE + (2 * random.nextDouble() - 1) * EDGE_BAND) % SIZE;
+        }
+        return SIZE * random.nextDouble();
+    }
+
+    /**********************************************************************
+     * Plays the scene, along the edges or not, in a game whose participants
+     * have been set up by setup, logging the collisions into log. Returns
+     * the game at the end.
+     **********************************************************************/
+    static Game play (boolean edges, Consumer<ParticipantState> setup, List<String> log)
+    {
+        Game game = new Game(TICK_RATE, 2024);
+        ParticipantState state = game.getParticipantState();
+        setup.accept(state);
+        game.newGame();
+
+        // In an edge scene each participant is near one edge or the other,
+        // and the corners get those near both
+        Random random = new Random(7);
+        for (int i = 0; i < ASTEROIDS; i++)
+        {
+            boolean alongX = random.nextBoolean();
+            double x = coordinate(random, edges && alongX);
+            double y = coordinate(random, edges && !alongX);
+            game.addParticipant(new LoggedAsteroid(i, random.nextInt(4), random.nextInt(3), x, y, game, log));
+        }
+
+        Input input = new Input();
+        int fired = 0;
+        for (int tick = 0; tick < TICKS; tick++)
+        {
+            for (int i = 0; i < BULLETS_PER_TICK; i++)
+            {
+                boolean alongX = random.nextBoolean();
+                double x = coordinate(random, edges && alongX);
+                double y = coordinate(random, edges && !alongX);
+                game.addParticipant(new LoggedBullet(fired++, x, y, 2 * Math.PI * random.nextDouble(), game, log));
+            }
+            game.step(input);
+            log.add(tick + ": " + state.getHits() + " hits");
+        }
+        return game;
+    }
+}
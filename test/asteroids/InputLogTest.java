@@ -0,0 +1,200 @@
+package asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**********************************************************************
+ * Checks the varints and runs of ticks that input logs are made of: that
+ * every size of number survives being written and read back, that long
+ * runs of the same keys are written as one run and read back as the same
+ * number of ticks, and that broken logs are turned away.
+ **********************************************************************/
+public class InputLogTest
+{
+    /**********************************************************************
+     * Writes value as a varint and returns the bytes
+     **********************************************************************/
+    private static byte[] varint (long value) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        InputLog.writeVarint(new DataOutputStream(bytes), value);
+        return bytes.toByteArray();
+    }
+
+    /**********************************************************************
+     * Returns a stream that reads the given bytes
+     **********************************************************************/
+    private static DataInputStream read (byte... bytes)
+    {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    /**********************************************************************
+     * Every power of two, the numbers either side of it, and the largest
+     * long are read back as written, in one byte for each seven bits
+     **********************************************************************/
+    @Test
+    public void varintsRoundTrip () throws IOException
+    {
+        long[] values = new long[3 * 63 + 2];
+        int n = 0;
+        values[n++] = 0;
+        values[n++] = Long.MAX_VALUE;
+        for (int bit = 0; bit < 63; bit++)
+        {
+            values[n++] = (1L << bit) - 1;
+            values[n++] = 1L << bit;
+            values[n++] = (1L << bit) + 1;
+        }
+
+        for (long value : values)
+        {
+            byte[] bytes = varint(value);
+            int bits = 64 - Long.numberOfLeadingZeros(value);
+            assertEquals(Math.max(1, (bits + 6) / 7), bytes.length, "Length of " + value);
+            DataInputStream in = read(bytes);
+            assertEquals(value, InputLog.readVarint(in));
+            assertEquals(-1, InputLog.readVarint(in), "Bytes left over after " + value);
+        }
+    }
+
+    /**********************************************************************
+     * A varint that is cut off, or that runs on past a long, is an error,
+     * while an empty stream is just the end of the log
+     **********************************************************************/
+    @Test
+    public void brokenVarintsAreRejected () throws IOException
+    {
+        assertEquals(-1, InputLog.readVarint(read()));
+        byte[] largest = varint(Long.MAX_VALUE);
+        byte[] cut = new byte[largest.length - 1];
+        System.arraycopy(largest, 0, cut, 0, cut.length);
+        assertThrows(EOFException.class, () -> InputLog.readVarint(read(cut)));
+        byte[] tooLong = new byte[11];
+        Arrays.fill(tooLong, (byte) 0x80);
+        assertThrows(IOException.class, () -> InputLog.readVarint(read(tooLong)));
+    }
+
+    /**********************************************************************
+     * Records the given runs of keys, the first of each pair being the
+     * keys (as InputLog.encode returns them) and the second the length of
+     * the run, and returns the log
+     **********************************************************************/
+    private static byte[] record (long... runs) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Input input = new Input();
+        try (InputRecorder recorder = new InputRecorder(bytes, 42, 30))
+        {
+            for (int i = 0; i < runs.length; i += 2)
+            {
+                InputLog.decode((int) runs[i], input);
+                for (long tick = 0; tick < runs[i + 1]; tick++)
+                {
+                    recorder.record(input);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**********************************************************************
+     * Long runs of the same keys are written as single runs, and are
+     * played back tick for tick
+     **********************************************************************/
+    @Test
+    public void longRunsRoundTrip () throws IOException
+    {
+        long[] runs = { 0, 5_000_000, 15, 1, 4, 7, 8, 8, 3, 1_000_003 };
+        byte[] log = record(runs);
+
+        // Header, then one varint for each run: a run of 7 fits in a byte,
+        // a run of 8 doesn't
+        int header = 4 + 1 + 8 + 8;
+        int expected = header;
+        for (int i = 0; i < runs.length; i += 2)
+        {
+            expected += varint((runs[i + 1] << InputLog.KEY_BITS) | runs[i]).length;
+        }
+        assertEquals(expected, log.length);
+        assertEquals(header + 4 + 1 + 1 + 2 + 4, log.length);
+
+        try (InputPlayer player = new InputPlayer(new ByteArrayInputStream(log)))
+        {
+            assertEquals(42, player.getSeed());
+            assertEquals(30, player.getTickRate());
+            Input input = new Input();
+            for (int i = 0; i < runs.length; i += 2)
+            {
+                for (long tick = 0; tick < runs[i + 1]; tick++)
+                {
+                    assertTrue(player.next(input), "Log ended early");
+                    if (InputLog.encode(input) != runs[i])
+                    {
+                        fail("Run " + i / 2 + ", tick " + tick + ": keys " + InputLog.encode(input));
+                    }
+                }
+            }
+            assertFalse(player.next(input));
+        }
+    }
+
+    /**********************************************************************
+     * The longest run the format can hold, 2^59 - 1 ticks, is read back
+     * with its keys, and the run after it is still found
+     **********************************************************************/
+    @Test
+    public void longestRunIsRead () throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(InputLog.MAGIC);
+        out.writeByte(InputLog.VERSION);
+        out.writeLong(7);
+        out.writeDouble(60);
+        long longest = Long.MAX_VALUE >>> InputLog.KEY_BITS;
+        InputLog.writeVarint(out, (longest << InputLog.KEY_BITS) | 9);
+        InputLog.writeVarint(out, (1L << InputLog.KEY_BITS) | 2);
+        out.flush();
+
+        // Ticks of the long run can't all be played, but the varint that
+        // holds it must come back whole
+        DataInputStream in = read(bytes.toByteArray());
+        in.skipBytes(4 + 1 + 8 + 8);
+        long value = InputLog.readVarint(in);
+        assertEquals(longest, value >>> InputLog.KEY_BITS);
+        assertEquals(9, value & ((1 << InputLog.KEY_BITS) - 1));
+        assertEquals((1L << InputLog.KEY_BITS) | 2, InputLog.readVarint(in));
+
+        try (InputPlayer player = new InputPlayer(new ByteArrayInputStream(bytes.toByteArray())))
+        {
+            Input input = new Input();
+            assertTrue(player.next(input));
+            assertEquals(9, InputLog.encode(input));
+        }
+    }
+
+    /**********************************************************************
+     * A log with the wrong magic number or version is turned away
+     **********************************************************************/
+    @Test
+    public void badHeadersAreRejected () throws IOException
+    {
+        byte[] log = record(3, 10);
+        byte[] badMagic = log.clone();
+        badMagic[0] ^= 1;
+        assertThrows(IOException.class, () -> new InputPlayer(new ByteArrayInputStream(badMagic)));
+        byte[] badVersion = log.clone();
+        badVersion[4]++;
+        assertThrows(IOException.class, () -> new InputPlayer(new ByteArrayInputStream(badVersion)));
+    }
+}
@@ -0,0 +1,228 @@
+package asteroids;
+
+import static asteroids.Constants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Shape;
+import java.awt.geom.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import asteroids.collision.Outline;
+import asteroids.collision.WorldOutline;
+import asteroids.participants.AlienShip;
+import asteroids.participants.Asteroid;
+import asteroids.participants.AsteroidsBullet;
+import asteroids.participants.Ship;
+import asteroids.participants.ShipBullet;
+
+/**********************************************************************
+ * Checks the separating axis test of WorldOutline.overlaps against the
+ * exact test it replaced: intersecting the java.awt.geom.Areas of the two
+ * placed shapes and seeing whether anything is left. Every pair of the
+ * game's outlines, concave asteroids and ship included, is placed at
+ * seeded random positions and rotations near each other, and the two
+ * tests must agree every time. Outlines placed so that their edges or
+ * corners just touch must not overlap, as an Area intersection of them is
+ * empty.
+ **********************************************************************/
+public class OutlineOverlapTest
+{
+    // Random placements of each pair of outlines
+    private final static int PLACEMENTS = 200;
+
+    /**********************************************************************
+     * Returns the outlines of the game's participants. Debris is left out,
+     * as its lines have no Area to intersect.
+     **********************************************************************/
+    private static List<Shape> outlines ()
+    {
+        Game game = new Game();
+        List<Participant> participants = new ArrayList<Participant>();
+        participants.add(new Ship(0, 0, 0, game));
+        for (int size = 0; size < ALIENSHIP_SCALE.length; size++)
+        {
+            participants.add(new AlienShip(size, game));
+        }
+        for (int variety = 0; variety < 4; variety++)
+        {
+            for (int size = 0; size < ASTEROID_SCALE.length; size++)
+            {
+                participants.add(new Asteroid(variety, size, 0, 0, 0, game));
+            }
+        }
+        participants.add(new ShipBullet(0, 0, 0));
+        participants.add(new AsteroidsBullet(0, 0, 0));
+
+        List<Shape> outlines = new ArrayList<Shape>();
+        for (Participant p : participants)
+        {
+            outlines.add(outline(p));
+        }
+        return outlines;
+    }
+
+    /**********************************************************************
+     * Returns the outline of p, which is then expired so that none of its
+     * timers do anything
+     **********************************************************************/
+    private static Shape outline (Participant p)
+    {
+        Participant.expire(p);
+        return p.getOutline();
+    }
+
+    /**********************************************************************
+     * Returns the distance from (0,0) to the farthest corner of the
+     * bounding box of shape
+     **********************************************************************/
+    private static double reach (Shape shape)
+    {
+        Rectangle2D bounds = shape.getBounds2D();
+        double x = Math.max(-bounds.getMinX(), bounds.getMaxX());
+        double y = Math.max(-bounds.getMinY(), bounds.getMaxY());
+        return Math.hypot(x, y);
+    }
+
+    /**********************************************************************
+     * Reports whether shapes a and b, placed as given, overlap according
+     * to their Areas
+     **********************************************************************/
+    private static boolean areasOverlap (Shape a, double ax, double ay, double aRotation, Shape b, double bx,
+            double by, double bRotation)
+    {
+        Area area = new Area(place(a, ax, ay, aRotation));
+        area.intersect(new Area(place(b, bx, by, bRotation)));
+        return !area.isEmpty();
+    }
+
+    /**********************************************************************
+     * Returns shape rotated about (0,0) by the given number of radians and
+     * then moved to (x,y), just as WorldOutline.place places an outline
+     **********************************************************************/
+    private static Shape place (Shape shape, double x, double y, double rotation)
+    {
+        AffineTransform transform = AffineTransform.getTranslateInstance(x, y);
+        transform.rotate(rotation);
+        return transform.createTransformedShape(shape);
+    }
+
+    /**********************************************************************
+     * Reports whether shapes a and b, placed as given, overlap according
+     * to their WorldOutlines, testing both ways round, which must agree
+     **********************************************************************/
+    private static boolean outlinesOverlap (Shape a, double ax, double ay, double aRotation, Shape b, double bx,
+            double by, double bRotation)
+    {
+        WorldOutline first = new WorldOutline();
+        WorldOutline second = new WorldOutline();
+        first.place(Outline.of(a), ax, ay, aRotation);
+        second.place(Outline.of(b), bx, by, bRotation);
+        boolean overlaps = first.overlaps(second);
+        assertEquals(overlaps, second.overlaps(first), "Overlap depends on the order of the outlines");
+        return overlaps;
+    }
+
+    /**********************************************************************
+     * Places every pair of the game's outlines at random and compares the
+     * two tests
+     **********************************************************************/
+    @Test
+    public void agreesWithAreaIntersection ()
+    {
+        Random random = new Random(1410);
+        List<Shape> outlines = outlines();
+        int count = outlines.size();
+        int overlapping = 0, tested = 0;
+        for (int i = 0; i < count; i++)
+        {
+            for (int j = 0; j < count; j++)
+            {
+                Shape a = outlines.get(i);
+                Shape b = outlines.get(j);
+                double reach = reach(a) + reach(b);
+                for (int k = 0; k < PLACEMENTS; k++)
+                {
+                    double ax = 750 * random.nextDouble();
+                    double ay = 750 * random.nextDouble();
+                    double aRotation = 2 * Math.PI * random.nextDouble();
+                    double distance = reach * random.nextDouble();
+                    double angle = 2 * Math.PI * random.nextDouble();
+                    double bx = ax + distance * Math.cos(angle);
+                    double by = ay + distance * Math.sin(angle);
+                    double bRotation = 2 * Math.PI * random.nextDouble();
+
+                    boolean expected = areasOverlap(a, ax, ay, aRotation, b, bx, by, bRotation);
+                    assertEquals(expected, outlinesOverlap(a, ax, ay, aRotation, b, bx, by, bRotation),
+                            String.format("Outlines %d and %d at (%s, %s, %s) and (%s, %s, %s)", i, j, ax, ay,
+                                    aRotation, bx, by, bRotation));
+                    overlapping += expected ? 1 : 0;
+                    tested++;
+                }
+            }
+        }
+
+        // Both outcomes must come up plenty of times for this to be a test
+        assertTrue(overlapping > tested / 5, "Too few overlapping placements: " + overlapping);
+        assertTrue(overlapping < tested * 4 / 5, "Too few separate placements: " + (tested - overlapping));
+    }
+
+    /**********************************************************************
+     * Returns a closed polygon through the given x and y coordinates
+     **********************************************************************/
+    private static Path2D.Double polygon (double... coordinates)
+    {
+        Path2D.Double path = new Path2D.Double();
+        path.moveTo(coordinates[0], coordinates[1]);
+        for (int i = 2; i < coordinates.length; i += 2)
+        {
+            path.lineTo(coordinates[i], coordinates[i + 1]);
+        }
+        path.closePath();
+        return path;
+    }
+
+    /**********************************************************************
+     * Checks that a and b, placed without rotation at (ax,ay) and (bx,by),
+     * don't overlap by either test
+     **********************************************************************/
+    private static void assertTouchingOnly (String what, Shape a, double ax, double ay, Shape b, double bx, double by)
+    {
+        assertFalse(areasOverlap(a, ax, ay, 0, b, bx, by, 0), what + ": the Areas overlap");
+        assertFalse(outlinesOverlap(a, ax, ay, 0, b, bx, by, 0), what + ": the outlines overlap");
+    }
+
+    /**********************************************************************
+     * Outlines whose edges or corners touch don't overlap, but do as soon
+     * as they are pushed a little further together
+     **********************************************************************/
+    @Test
+    public void touchingEdgesDoNotOverlap ()
+    {
+        Shape square = polygon(-10, -10, 10, -10, 10, 10, -10, 10);
+        Shape triangle = polygon(0, -10, 10, 10, -10, 10);
+        Shape notched = polygon(-20, -20, 20, -20, 20, 20, 10, 20, 10, 0, -10, 0, -10, 20, -20, 20);
+        Shape ship = outline(new Ship(0, 0, 0, new Game()));
+        Shape asteroid = outline(new Asteroid(2, 1, 0, 0, 0, new Game()));
+
+        assertTouchingOnly("Squares sharing an edge", square, 100, 100, square, 120, 100);
+        assertTouchingOnly("Squares sharing part of an edge", square, 100, 100, square, 120, 107);
+        assertTouchingOnly("Squares meeting at a corner", square, 100, 100, square, 120, 120);
+        assertTouchingOnly("Triangle tip on a square", square, 100, 100, triangle, 100, 120);
+        assertTouchingOnly("Square sitting in a notch", notched, 100, 100, square, 100, 110);
+        assertTouchingOnly("Square below the foot of a notched square", notched, 100, 100, square, 80, 130);
+
+        // The ship's nose is at x = 20
+        assertTouchingOnly("Square against the ship's nose", ship, 100, 100, square, 130, 100);
+
+        // The large variety 2 asteroid at medium size reaches out to x = 30
+        assertTouchingOnly("Square against an asteroid's side", asteroid, 100, 100, square, 140, 100);
+
+        assertTrue(outlinesOverlap(square, 100, 100, 0, square, 120 - 1e-9, 100, 0));
+        assertTrue(outlinesOverlap(notched, 100, 100, 0, square, 100, 110 - 1e-9, 0));
+        assertTrue(outlinesOverlap(ship, 100, 100, 0, square, 130 - 1e-9, 100, 0));
+    }
+}
@@ -0,0 +1,103 @@
+package asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**********************************************************************
+ * Checks that moving participants and finding collisions on a fork-join
+ * pool gives exactly the same game as doing it on one thread. The seeded
+ * CollisionScene is played serially and on the pool with the parallel
+ * threshold below the number of participants, so that the parallel path
+ * is taken on every tick. The collision callbacks, and the hits counted
+ * on each tick, must be the same, and so must the final state of the two
+ * games.
+ **********************************************************************/
+public class ParallelCollisionTest
+{
+    // Threads the parallel games run on
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void startPool ()
+    {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void stopPool ()
+    {
+        pool.shutdown();
+    }
+
+    /**********************************************************************
+     * Plays the scene, in parallel or not, logging the collisions into log,
+     * and returns the fingerprint of the game at the end
+     **********************************************************************/
+    private static long play (boolean parallel, boolean swept, List<String> log)
+    {
+        Game game = CollisionScene.play(false, state ->
+        {
+            state.setSweptCollisions(swept);
+            if (parallel)
+            {
+                state.setForkJoinPool(pool);
+                state.setParallelThreshold(1);
+            }
+        }, log);
+        return InputPlayer.fingerprint(game);
+    }
+
+    /**********************************************************************
+     * Plays the scene serially and in parallel and compares them
+     **********************************************************************/
+    private static void compare (boolean swept)
+    {
+        List<String> serial = new ArrayList<String>();
+        List<String> parallel = new ArrayList<String>();
+        long serialState = play(false, swept, serial);
+        long parallelState = play(true, swept, parallel);
+
+        // The log has a line for the hits of each tick, and plenty of
+        // collisions besides
+        assertTrue(serial.size() > 400, "Too few collisions to compare: " + serial.size());
+        assertEquals(serial, parallel, "Collision callbacks differ");
+        assertEquals(serialState, parallelState, "Final states differ");
+    }
+
+    /**********************************************************************
+     * Collisions tested where each tick leaves the participants
+     **********************************************************************/
+    @Test
+    public void parallelMatchesSerial ()
+    {
+        compare(false);
+    }
+
+    /**********************************************************************
+     * Collisions swept along the participants' last moves
+     **********************************************************************/
+    @Test
+    public void parallelMatchesSerialWhenSwept ()
+    {
+        compare(true);
+    }
+
+    /**********************************************************************
+     * Playing in parallel twice gives the same game both times
+     **********************************************************************/
+    @Test
+    public void parallelIsRepeatable ()
+    {
+        List<String> first = new ArrayList<String>();
+        List<String> second = new ArrayList<String>();
+        assertEquals(play(true, false, first), play(true, false, second));
+        assertEquals(first, second);
+    }
+}
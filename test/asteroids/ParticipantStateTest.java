@@ -0,0 +1,54 @@
+package asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static asteroids.Constants.*;
+
+import org.junit.jupiter.api.Test;
+
+/**********************************************************************
+ * Checks that clearing the participants sends every pooled one back to
+ * its pool, whether it had been added to the game yet or not, so that
+ * starting a new game or level never costs the pools their participants.
+ **********************************************************************/
+public class ParticipantStateTest
+{
+    /**********************************************************************
+     * Participants whose adds are still pending when the state is cleared
+     * go back to their pools along with the active ones
+     **********************************************************************/
+    @Test
+    public void clearRecyclesPendingAdds ()
+    {
+        Game game = new Game(TICK_RATE, 1);
+
+        // Three bullets and two asteroids that have been added, and two
+        // bullets and a line of debris whose adds are pending
+        for (int i = 0; i < 3; i++)
+        {
+            game.addParticipant(game.newShipBullet(100 + 50 * i, 100, 0));
+        }
+        game.addParticipant(game.newAsteroid(0, 0, 100, 400, 0));
+        game.addParticipant(game.newAsteroid(1, 0, 400, 400, 0));
+        game.step(new Input());
+        game.addParticipant(game.newShipBullet(600, 100, 0));
+        game.addParticipant(game.newShipBullet(600, 200, 0));
+        game.addParticipant(game.newDestructionLine(600, 600, 10));
+
+        game.newGame();
+        assertEquals(5, game.getShipBulletPool().size());
+        assertEquals(1, game.getDestructionLinePool().size());
+
+        // The new game's four asteroids come out of the pool, and the two
+        // that were in it make up for two of them
+        assertEquals(0, game.getAsteroidPool().size());
+        assertEquals(2, game.getAsteroidPool().getHits());
+
+        // Taking them again constructs nothing new
+        long misses = game.getShipBulletPool().getMisses();
+        for (int i = 0; i < 5; i++)
+        {
+            game.addParticipant(game.newShipBullet(100, 100, 0));
+        }
+        assertEquals(misses, game.getShipBulletPool().getMisses());
+    }
+}
@@ -0,0 +1,94 @@
+package asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static asteroids.Constants.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**********************************************************************
+ * Checks that a recorded game plays over exactly. A game is played with
+ * seeded random input, recorded by an InputRecorder just before each
+ * tick is stepped, and the fingerprint of the game is kept after every
+ * tick. The log is then played through an InputPlayer into a fresh Game
+ * made from the log's seed and tick rate, and the fingerprint must match
+ * after every tick.
+ **********************************************************************/
+public class ReplayTest
+{
+    // Ticks recorded
+    private final static int TICKS = 5000;
+
+    /**********************************************************************
+     * Plays and records a game at the given tick rate and replays it
+     **********************************************************************/
+    private static void recordAndReplay (long seed, double tickRate) throws IOException
+    {
+        // Play the game with keys that change now and then, firing often
+        Game game = new Game(tickRate, seed);
+        game.newGame();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        long[] fingerprints = new long[TICKS];
+        Random random = new Random(seed);
+        Input input = new Input();
+        int keys = 0;
+        try (InputRecorder recorder = new InputRecorder(log, game.getSeed(), game.getTickRate()))
+        {
+            for (int tick = 0; tick < TICKS; tick++)
+            {
+                if (random.nextInt(10) == 0)
+                {
+                    keys = random.nextInt(1 << InputLog.KEY_BITS);
+                }
+                InputLog.decode(keys, input);
+                input.setFiring(random.nextInt(3) == 0);
+                recorder.record(input);
+                game.step(input);
+                fingerprints[tick] = InputPlayer.fingerprint(game);
+            }
+            assertEquals(TICKS, recorder.getTicks());
+        }
+        assertTrue(game.getScore() > 0, "Nothing was hit, so the replay proves little");
+
+        // Play it over into a fresh game
+        try (InputPlayer player = new InputPlayer(new ByteArrayInputStream(log.toByteArray())))
+        {
+            Game replay = new Game(player.getTickRate(), player.getSeed());
+            replay.newGame();
+            Input replayed = new Input();
+            for (int tick = 0; tick < TICKS; tick++)
+            {
+                assertTrue(player.next(replayed), "Log ended at tick " + tick);
+                replay.step(replayed);
+                assertEquals(fingerprints[tick], InputPlayer.fingerprint(replay), "Games differ at tick " + tick);
+            }
+            assertFalse(player.next(replayed), "Log has ticks left over");
+            assertEquals(game.getScore(), replay.getScore());
+            assertEquals(game.getLives(), replay.getLives());
+            assertEquals(game.getLevel(), replay.getLevel());
+        }
+    }
+
+    /**********************************************************************
+     * A game at the usual tick rate
+     **********************************************************************/
+    @Test
+    public void replaysTickForTick () throws IOException
+    {
+        recordAndReplay(1410, TICK_RATE);
+    }
+
+    /**********************************************************************
+     * Games from other seeds and at other tick rates
+     **********************************************************************/
+    @Test
+    public void replaysOtherSeedsAndRates () throws IOException
+    {
+        recordAndReplay(-3, 60);
+        recordAndReplay(Long.MAX_VALUE, 17.5);
+    }
+}
@@ -0,0 +1,200 @@
+package asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static asteroids.Constants.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import asteroids.participants.Asteroid;
+import asteroids.participants.ShipBullet;
+
+/**********************************************************************
+ * Checks that a game saved to a Snapshot and restored plays on exactly as
+ * the original does. The game is played with seeded random keys until it
+ * is part way through a level with a ship, an alien ship, running timers
+ * and adds still pending, then saved, restored, and both games are
+ * stepped side by side with the same input.
+ **********************************************************************/
+public class SnapshotTest
+{
+    // Ticks the original and restored games are stepped side by side
+    private final static int TICKS = 3000;
+
+    /**********************************************************************
+     * Sets the input for the next tick: the ship keeps turning, now one way
+     * and now the other, thrusts now and then and fires often
+     **********************************************************************/
+    private static void steer (Random random, Input input)
+    {
+        if (random.nextInt(20) == 0)
+        {
+            boolean left = random.nextBoolean();
+            input.setTurningLeft(left);
+            input.setTurningRight(!left);
+        }
+        input.setThrusting(random.nextInt(20) == 0);
+        input.setFiring(random.nextInt(3) == 0);
+    }
+
+    /**********************************************************************
+     * Returns the bytes of a snapshot of the game
+     **********************************************************************/
+    private static byte[] bytesOf (Game game)
+    {
+        ByteBuffer buffer = Snapshot.write(game);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**********************************************************************
+     * Describes when each timer of each live participant, active then
+     * pending, goes off and in what order among the timers due on the
+     * same tick
+     **********************************************************************/
+    private static List<String> timersOf (Game game)
+    {
+        ParticipantState state = game.getParticipantState();
+        state.getTimerWheel().rank();
+        List<String> timers = new ArrayList<String>();
+        int n = 0;
+        for (int list = 0; list < 2; list++)
+        {
+            for (Participant p : (list == 0) ? state.getActive() : state.getPending())
+            {
+                if (!p.isExpired())
+                {
+                    for (ParticipantCountdownTimer t = p.getFirstTimer(); t != null; t = t.nextOfParticipant)
+                    {
+                        timers.add(n + " " + p.getClass().getSimpleName() + ": "
+                                + ((t.wheel == null) ? "not started" : "tick " + t.deadline + " rank " + t.rank));
+                    }
+                    n++;
+                }
+            }
+        }
+        return timers;
+    }
+
+    /**********************************************************************
+     * A game saved in the middle of a level and restored plays on tick for
+     * tick as the original does
+     **********************************************************************/
+    @Test
+    public void restoredGamePlaysOnIdentically ()
+    {
+        // Clear the first level, as alien ships only come from the second on
+        Game game = new Game(TICK_RATE, 77);
+        game.newGame();
+        Input input = new Input();
+        game.step(input);
+        ParticipantState state = game.getParticipantState();
+        for (Participant p : state.getActive())
+        {
+            if (p instanceof Asteroid)
+            {
+                Participant.expire(p);
+                game.asteroidDestroyed(((Asteroid) p).getSize());
+            }
+        }
+
+        // Play until there are a ship, an alien ship and pending adds
+        Random random = new Random(77);
+        while (game.getShip() == null || game.getAlienShip() == null || state.getPending().isEmpty()
+               || state.getTimerWheel().size() < 5)
+        {
+            assertTrue(game.getTick() < 100_000 && !game.isOver(), "Never reached the state to save");
+            steer(random, input);
+            game.step(input);
+        }
+        assertEquals(2, game.getLevel());
+
+        byte[] saved = bytesOf(game);
+        Game restored = Snapshot.read(ByteBuffer.wrap(saved));
+
+        // The restored game saves to the same bytes, with its timers in the
+        // same order
+        assertArrayEquals(saved, bytesOf(restored));
+        assertEquals(timersOf(game), timersOf(restored));
+        assertSame(restored.getShip().getClass(), game.getShip().getClass());
+        assertNotNull(restored.getAlienShip());
+        assertEquals(state.getPending().size(), restored.getParticipantState().getPending().size());
+
+        // Step both with the same input
+        Input copy = new Input();
+        for (int tick = 0; tick < TICKS && !game.isOver(); tick++)
+        {
+            steer(random, input);
+            InputLog.decode(InputLog.encode(input), copy);
+            game.step(input);
+            restored.step(copy);
+            assertEquals(InputPlayer.fingerprint(game), InputPlayer.fingerprint(restored),
+                    "Games differ at tick " + tick);
+            assertEquals(game.getLives(), restored.getLives());
+            assertEquals(game.getLevel(), restored.getLevel());
+            assertEquals(game.isOver(), restored.isOver());
+        }
+        assertArrayEquals(bytesOf(game), bytesOf(restored));
+    }
+
+    /**********************************************************************
+     * Timers due on the same tick go off in the same order after a restore
+     * even when that isn't the order of their participants
+     **********************************************************************/
+    @Test
+    public void tiedTimersKeepTheirOrder ()
+    {
+        Game game = new Game(TICK_RATE, 5);
+        Input input = new Input();
+        Participant first = game.newShipBullet(100, 100, 0);
+        Participant second = game.newShipBullet(100, 200, 0);
+        game.addParticipant(first);
+        game.addParticipant(second);
+        game.step(input);
+
+        // Both timers are due on the same tick. Schedule the first bullet's
+        // again for that tick, which puts it behind the second's.
+        ParticipantCountdownTimer timer = first.getFirstTimer();
+        TimerWheel wheel = game.getParticipantState().getTimerWheel();
+        assertEquals(timer.deadline, second.getFirstTimer().deadline);
+        wheel.scheduleAt(timer, timer.deadline);
+        wheel.rank();
+        assertTrue(second.getFirstTimer().rank < first.getFirstTimer().rank);
+
+        Game restored = Snapshot.read(Snapshot.write(game));
+        List<Participant> bullets = new ArrayList<Participant>(restored.getParticipantState().getActive());
+        assertEquals(2, bullets.size());
+        assertTrue(bullets.get(0) instanceof ShipBullet && bullets.get(1) instanceof ShipBullet);
+        assertEquals(100, bullets.get(0).getY());
+        assertEquals(timersOf(game), timersOf(restored));
+        assertTrue(bullets.get(1).getFirstTimer().rank < bullets.get(0).getFirstTimer().rank);
+    }
+
+    /**********************************************************************
+     * A buffer that doesn't start with the magic number, or holds another
+     * version, is turned away
+     **********************************************************************/
+    @Test
+    public void badHeadersAreRejected ()
+    {
+        Game game = new Game(TICK_RATE, 9);
+        game.newGame();
+        byte[] saved = bytesOf(game);
+
+        byte[] badMagic = saved.clone();
+        badMagic[3] ^= 1;
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Snapshot.read(ByteBuffer.wrap(badMagic)));
+        assertEquals("Not a game snapshot", e.getMessage());
+
+        byte[] badVersion = saved.clone();
+        badVersion[4] = (byte) (Snapshot.VERSION + 1);
+        e = assertThrows(IllegalArgumentException.class, () -> Snapshot.read(ByteBuffer.wrap(badVersion)));
+        assertEquals("Unsupported snapshot version: " + (Snapshot.VERSION + 1), e.getMessage());
+    }
+}
@@ -0,0 +1,115 @@
+package asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static asteroids.Constants.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**********************************************************************
+ * Checks that swept collisions let the game run at a low tick rate
+ * without missing hits. The same seeded shots at asteroids are played at
+ * a low tick rate with collisions swept and at a tick rate high enough
+ * that nothing is missed without them, and the hits are compared shot by
+ * shot.
+ **********************************************************************/
+public class SweptCollisionTest
+{
+    // Number of shots fired at each size of asteroid
+    private final static int SHOTS = 500;
+
+    // Tick rate of the reference run. At 480 ticks a second a bullet
+    // moves under a pixel per tick, so it can't pass through an asteroid.
+    private final static double REFERENCE_RATE = 480;
+
+    // Tick rate of the run being checked
+    private final static double LOW_RATE = 10;
+
+    // Shots the swept run may hit that the reference misses, as a fraction
+    // of the shots. The swept test counts grazes anywhere along a move,
+    // which the reference, sampling 480 places a second, can just miss.
+    private final static double EXTRA_TOLERANCE = 0.01;
+
+    /**********************************************************************
+     * Fires the seeded shots at asteroids of the given size at the given
+     * tick rate, and returns whether each one hit. Each shot starts 120 to
+     * 320 pixels from the asteroid, aimed at it to within about 9 degrees,
+     * and is given 0.9 seconds, which is about as long as a bullet lives.
+     **********************************************************************/
+    private static boolean[] shoot (double tickRate, boolean swept, int size)
+    {
+        boolean[] hit = new boolean[SHOTS];
+        Random random = new Random(99);
+        for (int shot = 0; shot < SHOTS; shot++)
+        {
+            Game game = new Game(tickRate, 1000 + shot);
+            game.getParticipantState().setSweptCollisions(swept);
+            double x = 300 + 150 * random.nextDouble();
+            double y = 300 + 150 * random.nextDouble();
+            game.addParticipant(game.newAsteroid(random.nextInt(4), size, x, y, ASTEROID_SPEED));
+            double distance = 120 + 200 * random.nextDouble();
+            double angle = 2 * Math.PI * random.nextDouble();
+            double direction = angle + Math.PI + (random.nextDouble() - 0.5) * 0.3;
+            game.addParticipant(game.newShipBullet(x + distance * Math.cos(angle), y + distance * Math.sin(angle),
+                    direction));
+
+            Input input = new Input();
+            int hits = 0;
+            for (long ticks = Math.round(tickRate * 0.9); ticks >= 0; ticks--)
+            {
+                game.step(input);
+                hits += game.getParticipantState().getHits();
+            }
+            hit[shot] = hits > 0;
+        }
+        return hit;
+    }
+
+    /**********************************************************************
+     * Compares the swept shots at the low rate with the reference for
+     * asteroids of the given size
+     **********************************************************************/
+    private static void compare (int size)
+    {
+        boolean[] reference = shoot(REFERENCE_RATE, false, size);
+        boolean[] swept = shoot(LOW_RATE, true, size);
+        boolean[] unswept = shoot(LOW_RATE, false, size);
+
+        int referenceHits = 0, missed = 0, extra = 0, unsweptMissed = 0;
+        for (int shot = 0; shot < SHOTS; shot++)
+        {
+            referenceHits += reference[shot] ? 1 : 0;
+            missed += (reference[shot] && !swept[shot]) ? 1 : 0;
+            extra += (!reference[shot] && swept[shot]) ? 1 : 0;
+            unsweptMissed += (reference[shot] && !unswept[shot]) ? 1 : 0;
+        }
+
+        // The shots must be a fair test: plenty of hits, many of which are
+        // missed at the low rate without sweeping
+        assertTrue(referenceHits > SHOTS / 10, "Too few hits in the reference: " + referenceHits);
+        assertTrue(unsweptMissed > referenceHits / 10, "Unswept run missed too few: " + unsweptMissed);
+
+        assertEquals(0, missed, "Hits missed by the swept run");
+        assertTrue(extra <= EXTRA_TOLERANCE * SHOTS, "Hits the reference doesn't have: " + extra);
+    }
+
+    /**********************************************************************
+     * Small asteroids, which a bullet at 10 ticks a second can pass over
+     * without ever touching
+     **********************************************************************/
+    @Test
+    public void smallAsteroidsAreNotMissed ()
+    {
+        compare(0);
+    }
+
+    /**********************************************************************
+     * Medium asteroids
+     **********************************************************************/
+    @Test
+    public void mediumAsteroidsAreNotMissed ()
+    {
+        compare(1);
+    }
+}
@@ -0,0 +1,200 @@
+package asteroids;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**********************************************************************
+ * Checks that a TimerWheel sets off each timer on the tick it is due,
+ * however far ahead that is, that timers due on the same tick go off in
+ * the order they were scheduled, and that timers cancelled, whether from
+ * a callback or by their participant expiring, never go off.
+ **********************************************************************/
+public class TimerWheelTest
+{
+    // Length of a tick in milliseconds, so that timers can be given whole
+    // numbers of ticks
+    private final static int TICK = 10;
+
+    /**********************************************************************
+     * A participant that logs the callbacks of its timers, with the tick
+     * and the payload, and then runs its alarm, if it has one
+     **********************************************************************/
+    private static class Clock extends Participant
+    {
+        private String name;			// Name it logs its callbacks under
+        private TimerWheel wheel;		// Wheel its timers run on
+        private List<String> log;		// Where its callbacks are logged
+        private Runnable alarm;			// Run after each callback, or null
+
+        private Clock (String name, TimerWheel wheel, List<String> log)
+        {
+            this.name = name;
+            this.wheel = wheel;
+            this.log = log;
+            startTimers(wheel);
+        }
+
+        @Override
+        protected Shape getOutline ()
+        {
+            return new Rectangle2D.Double(-1, -1, 2, 2);
+        }
+
+        @Override
+        public void collidedWith (Participant p)
+        {
+        }
+
+        @Override
+        public void countdownComplete (Object payload)
+        {
+            log.add(wheel.getTick() + " " + name + " " + payload);
+            if (alarm != null)
+            {
+                alarm.run();
+            }
+        }
+    }
+
+    /**********************************************************************
+     * Advances the wheel the given number of ticks
+     **********************************************************************/
+    private static void advance (TimerWheel wheel, int ticks)
+    {
+        for (int i = 0; i < ticks; i++)
+        {
+            wheel.advance();
+        }
+    }
+
+    /**********************************************************************
+     * Each timer goes off once, on its own tick, including those due a
+     * full turn of the wheel or more ahead, which share slots with timers
+     * due sooner
+     **********************************************************************/
+    @Test
+    public void timersGoOffOnTheirTick ()
+    {
+        TimerWheel wheel = new TimerWheel(TICK / 1000.0);
+        List<String> log = new ArrayList<String>();
+        Clock clock = new Clock("clock", wheel, log);
+        int[] ticks = { 300, 1, 257, TimerWheel.SLOTS, 5, 1000, TimerWheel.SLOTS - 1, 2 * TimerWheel.SLOTS + 1, 513 };
+        for (int t : ticks)
+        {
+            new ParticipantCountdownTimer(clock, t, t * TICK);
+        }
+        assertEquals(ticks.length, wheel.size());
+
+        advance(wheel, 1100);
+        int[] sorted = ticks.clone();
+        Arrays.sort(sorted);
+        List<String> expected = new ArrayList<String>();
+        for (int t : sorted)
+        {
+            expected.add(t + " clock " + t);
+        }
+        assertEquals(expected, log);
+        assertEquals(0, wheel.size());
+    }
+
+    /**********************************************************************
+     * Timers due on the same tick go off in the order they were scheduled,
+     * whatever participant they belong to. A timer restarted for the same
+     * tick moves to the back.
+     **********************************************************************/
+    @Test
+    public void tiesGoOffInScheduleOrder ()
+    {
+        TimerWheel wheel = new TimerWheel(TICK / 1000.0);
+        List<String> log = new ArrayList<String>();
+        Clock a = new Clock("a", wheel, log);
+        Clock b = new Clock("b", wheel, log);
+        ParticipantCountdownTimer first = new ParticipantCountdownTimer(a, 1, 7 * TICK);
+        new ParticipantCountdownTimer(b, 2, 7 * TICK);
+        new ParticipantCountdownTimer(a, 3, 7 * TICK);
+        new ParticipantCountdownTimer(b, 4, 7 * TICK);
+
+        // Restarting the first timer a tick later leaves it due on the same
+        // tick, but scheduled last
+        wheel.advance();
+        first.restart(6 * TICK);
+        new ParticipantCountdownTimer(a, 5, 6 * TICK);
+
+        advance(wheel, 10);
+        assertEquals(Arrays.asList("7 b 2", "7 a 3", "7 b 4", "7 a 1", "7 a 5"), log);
+    }
+
+    /**********************************************************************
+     * A callback can cancel timers due on the same tick, which then don't
+     * go off, and timers due later, and can start new ones
+     **********************************************************************/
+    @Test
+    public void callbacksCanCancelAndSchedule ()
+    {
+        TimerWheel wheel = new TimerWheel(TICK / 1000.0);
+        List<String> log = new ArrayList<String>();
+        Clock a = new Clock("a", wheel, log);
+        Clock b = new Clock("b", wheel, log);
+        new ParticipantCountdownTimer(a, "cancels", 3 * TICK);
+        ParticipantCountdownTimer sameTick = new ParticipantCountdownTimer(b, "same tick", 3 * TICK);
+        ParticipantCountdownTimer later = new ParticipantCountdownTimer(b, "later", 300 * TICK);
+        new ParticipantCountdownTimer(b, "kept", 4 * TICK);
+        a.alarm = () ->
+        {
+            sameTick.cancel();
+            later.cancel();
+            new ParticipantCountdownTimer(a, "started", 2 * TICK);
+            a.alarm = null;
+        };
+
+        advance(wheel, 3);
+        assertEquals(Arrays.asList("3 a cancels"), log);
+        assertEquals(2, wheel.size());
+
+        advance(wheel, 400);
+        assertEquals(Arrays.asList("3 a cancels", "4 b kept", "5 a started"), log);
+        assertEquals(0, wheel.size());
+    }
+
+    /**********************************************************************
+     * The timers of a participant that expires are cancelled, including
+     * one due on the tick it expires on, from a callback before it
+     **********************************************************************/
+    @Test
+    public void expiredParticipantsTimersDontGoOff ()
+    {
+        TimerWheel wheel = new TimerWheel(TICK / 1000.0);
+        List<String> log = new ArrayList<String>();
+        Clock a = new Clock("a", wheel, log);
+        Clock b = new Clock("b", wheel, log);
+        Clock c = new Clock("c", wheel, log);
+        new ParticipantCountdownTimer(a, "expires b", 5 * TICK);
+        new ParticipantCountdownTimer(b, "same tick", 5 * TICK);
+        new ParticipantCountdownTimer(b, "later", 400 * TICK);
+        new ParticipantCountdownTimer(c, "first", 2 * TICK);
+        new ParticipantCountdownTimer(c, "second", 600 * TICK);
+        a.alarm = () -> Participant.expire(b);
+
+        // Expiring c takes both of its timers off the wheel at once
+        advance(wheel, 2);
+        Participant.expire(c);
+        assertEquals(3, wheel.size());
+
+        advance(wheel, 700);
+        assertEquals(Arrays.asList("2 c first", "5 a expires b"), log);
+        assertEquals(0, wheel.size());
+
+        // A timer constructed for an expired participant never starts
+        new ParticipantCountdownTimer(b, "after", TICK);
+        advance(wheel, 2);
+        assertEquals(0, wheel.size());
+        assertEquals(2, log.size());
+    }
+}